@@ -0,0 +1,98 @@
+package org.example.djajbladibackend.config;
+
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.lang.NonNull;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-memory cache with a fixed time-to-live per entry, for caches that must expire without Redis
+ * (ConcurrentMapCache keeps entries forever). Expired entries are dropped on read and swept
+ * every SWEEP_INTERVAL writes.
+ */
+public class ExpiringConcurrentMapCache extends AbstractValueAdaptingCache {
+
+    private static final int SWEEP_INTERVAL = 256;
+
+    private final String name;
+    private final long ttlNanos;
+    private final ConcurrentMap<Object, Entry> store = new ConcurrentHashMap<>();
+    private final AtomicInteger writesSinceSweep = new AtomicInteger();
+
+    private record Entry(Object value, long expiresAtNanos) {
+        boolean isExpired(long now) {
+            return now - expiresAtNanos >= 0;
+        }
+    }
+
+    public ExpiringConcurrentMapCache(String name, Duration ttl) {
+        super(false);
+        this.name = name;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    @Override
+    @NonNull
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    @NonNull
+    public Object getNativeCache() {
+        return store;
+    }
+
+    @Override
+    protected Object lookup(@NonNull Object key) {
+        Entry entry = store.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.isExpired(System.nanoTime())) {
+            store.remove(key, entry);
+            return null;
+        }
+        return entry.value();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(@NonNull Object key, @NonNull Callable<T> valueLoader) {
+        Object cached = lookup(key);
+        if (cached != null) {
+            return (T) fromStoreValue(cached);
+        }
+        try {
+            T value = valueLoader.call();
+            put(key, value);
+            return value;
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+    }
+
+    @Override
+    public void put(@NonNull Object key, Object value) {
+        long now = System.nanoTime();
+        store.put(key, new Entry(toStoreValue(value), now + ttlNanos));
+        if (writesSinceSweep.incrementAndGet() >= SWEEP_INTERVAL) {
+            writesSinceSweep.set(0);
+            store.values().removeIf(entry -> entry.isExpired(now));
+        }
+    }
+
+    @Override
+    public void evict(@NonNull Object key) {
+        store.remove(key);
+    }
+
+    @Override
+    public void clear() {
+        store.clear();
+    }
+}
@@ -1,5 +1,7 @@
 package org.example.djajbladibackend.config;
 
+import org.example.djajbladibackend.dto.client.IdempotentOrderReplay;
+import org.example.djajbladibackend.dto.financial.BatchCostBreakdownResponse;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
@@ -10,6 +12,7 @@ import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.JacksonJsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 import org.springframework.context.annotation.Profile;
@@ -30,10 +33,17 @@ public class RedisCacheConfig {
 
     public static final String CACHE_USERS = "users";
     public static final String CACHE_EMAIL_EXISTS = "emailExists";
+    /** Composantes du cout de revient par lot (cle = batchId), invalidees par les ecritures du lot. */
+    public static final String CACHE_BATCH_COST = "batchCost";
+    /** Reponses des commandes/annulations envoyees avec un en-tete Idempotency-Key, rejouees aux renvois. */
+    public static final String CACHE_IDEMPOTENT_ORDERS = "idempotentOrders";
 
     @Value("${spring.cache.redis.time-to-live:600000}")
     private long defaultTtlMs;
 
+    @Value("${app.idempotency.ttl-minutes:60}")
+    private long idempotencyTtlMinutes;
+
     @Bean
     public RedisCacheManager redisCacheManager(RedisConnectionFactory connectionFactory) {
         RedisCacheConfiguration defaultConfig = RedisCacheConfiguration.defaultCacheConfig()
@@ -45,6 +55,14 @@ public class RedisCacheConfig {
         Map<String, RedisCacheConfiguration> cacheConfigurations = new HashMap<>();
         cacheConfigurations.put(CACHE_USERS, defaultConfig);
         cacheConfigurations.put(CACHE_EMAIL_EXISTS, defaultConfig.entryTtl(Duration.ofMinutes(5)));
+        // Typed Jackson 3 serializer: the breakdown carries LocalDate / enum fields
+        cacheConfigurations.put(CACHE_BATCH_COST, defaultConfig
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(
+                        new JacksonJsonRedisSerializer<>(BatchCostBreakdownResponse.class))));
+        cacheConfigurations.put(CACHE_IDEMPOTENT_ORDERS, defaultConfig
+                .entryTtl(Duration.ofMinutes(idempotencyTtlMinutes))
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(
+                        new JacksonJsonRedisSerializer<>(IdempotentOrderReplay.class))));
 
         return RedisCacheManager.builder(connectionFactory)
                 .cacheDefaults(defaultConfig)
@@ -1,5 +1,6 @@
 package org.example.djajbladibackend.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.concurrent.ConcurrentMapCache;
@@ -9,6 +10,8 @@ import org.springframework.context.annotation.Primary;
 import org.springframework.context.annotation.Profile;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -21,15 +24,22 @@ import java.util.stream.Stream;
 @Profile("noredis | ci")
 public class SimpleCacheConfig {
 
+    @Value("${app.idempotency.ttl-minutes:60}")
+    private long idempotencyTtlMinutes;
+
     @Bean
     @Primary
     public CacheManager cacheManager() {
         List<Cache> caches = Stream.of(
                         RedisCacheConfig.CACHE_USERS,
-                        RedisCacheConfig.CACHE_EMAIL_EXISTS
+                        RedisCacheConfig.CACHE_EMAIL_EXISTS,
+                        RedisCacheConfig.CACHE_BATCH_COST
                 )
                 .map(name -> new CacheHitTrackingCache(new ConcurrentMapCache(name)))
-                .collect(Collectors.toList());
+                .collect(Collectors.toCollection(ArrayList::new));
+        // Sans Redis, les cles d'idempotence doivent quand meme expirer (une entree par commande)
+        caches.add(new CacheHitTrackingCache(new ExpiringConcurrentMapCache(
+                RedisCacheConfig.CACHE_IDEMPOTENT_ORDERS, Duration.ofMinutes(idempotencyTtlMinutes))));
 
         org.springframework.cache.support.SimpleCacheManager manager = new org.springframework.cache.support.SimpleCacheManager();
         manager.setCaches(caches);
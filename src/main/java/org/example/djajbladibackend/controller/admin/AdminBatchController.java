@@ -1,20 +1,29 @@
 package org.example.djajbladibackend.controller.admin;
 
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.example.djajbladibackend.dto.batch.BatchCreateRequest;
 import org.example.djajbladibackend.dto.batch.BatchResponse;
+import org.example.djajbladibackend.dto.client.FlashSaleStatusResponse;
 import org.example.djajbladibackend.dto.common.PageResponse;
 import org.example.djajbladibackend.dto.financial.BatchCostBreakdownResponse;
+import org.example.djajbladibackend.models.BatchStatus;
 import org.example.djajbladibackend.services.batch.BatchService;
+import org.example.djajbladibackend.services.client.FlashSaleService;
 import org.example.djajbladibackend.services.financial.BatchCostService;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.databind.json.JsonMapper;
 
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.util.List;
 
 /**
  * ✅ Security Best Practice: @PreAuthorize au niveau classe pour ADMIN
@@ -26,16 +35,30 @@ public class AdminBatchController {
 
     private final BatchService batchService;
     private final BatchCostService batchCostService;
+    private final JsonMapper jsonMapper;
+    private final FlashSaleService flashSaleService;
 
-    public AdminBatchController(BatchService batchService, BatchCostService batchCostService) {
+    public AdminBatchController(BatchService batchService, BatchCostService batchCostService,
+                                JsonMapper jsonMapper, FlashSaleService flashSaleService) {
         this.batchService = batchService;
         this.batchCostService = batchCostService;
+        this.jsonMapper = jsonMapper;
+        this.flashSaleService = flashSaleService;
     }
 
+    /**
+     * Sans cursor : pagination par page (OFFSET + COUNT).
+     * Avec cursor (vide pour la premiere page) : pagination par clé, reprendre avec nextCursor.
+     */
     @GetMapping
     public ResponseEntity<PageResponse<BatchResponse>> findAll(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "5") int size) {
+            @RequestParam(defaultValue = "5") int size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean withTotal) {
+        if (cursor != null) {
+            return ResponseEntity.ok(batchService.findAllKeyset(cursor, size, withTotal));
+        }
         return ResponseEntity.ok(batchService.findAll(page, size));
     }
 
@@ -71,6 +94,28 @@ public class AdminBatchController {
         return ResponseEntity.ok(batchCostService.calculateCost(id, fixedCharges));
     }
 
+    /**
+     * Cout de revient et marge de tous les lots (portefeuille), tries par id.
+     * Les decompositions sont ecrites dans la reponse au fil de la lecture : rien n'est
+     * accumule en memoire cote serveur.
+     *
+     * GET /api/admin/batches/cost
+     *     ?status=ACTIVE&status=SOLD  (optionnel, tous les statuts par defaut)
+     *     &fixedCharges=500.00        (optionnel, override la valeur configuree)
+     */
+    @GetMapping("/cost")
+    public void getPortfolioCost(
+            @RequestParam(required = false) List<BatchStatus> status,
+            @RequestParam(required = false) BigDecimal fixedCharges,
+            HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        try (JsonGenerator generator = jsonMapper.createGenerator(response.getOutputStream())) {
+            generator.writeStartArray();
+            batchCostService.streamPortfolioCost(status, fixedCharges, generator::writePOJO);
+            generator.writeEndArray();
+        }
+    }
+
     /**
      * Updates only the status of a batch.
      * Enforces withdrawal period checks before transitioning to SOLD or READY_FOR_SALE.
@@ -84,4 +129,30 @@ public class AdminBatchController {
         BatchResponse updated = batchService.update(id, request);
         return ResponseEntity.ok(updated);
     }
+
+    /**
+     * Ouvre la vente flash d'un lot READY_FOR_SALE (commandes sequencees en memoire, ecrites par groupes).
+     * POST /api/admin/batches/{id}/flash-sale
+     */
+    @PostMapping("/{id}/flash-sale")
+    public ResponseEntity<FlashSaleStatusResponse> openFlashSale(@PathVariable Long id) {
+        return ResponseEntity.ok(flashSaleService.open(id));
+    }
+
+    /**
+     * GET /api/admin/batches/{id}/flash-sale
+     */
+    @GetMapping("/{id}/flash-sale")
+    public ResponseEntity<FlashSaleStatusResponse> flashSaleStatus(@PathVariable Long id) {
+        return ResponseEntity.ok(flashSaleService.status(id));
+    }
+
+    /**
+     * Ferme la vente flash : reservations en cours rendues, le lot repasse en commande directe.
+     * DELETE /api/admin/batches/{id}/flash-sale
+     */
+    @DeleteMapping("/{id}/flash-sale")
+    public ResponseEntity<FlashSaleStatusResponse> closeFlashSale(@PathVariable Long id) {
+        return ResponseEntity.ok(flashSaleService.close(id));
+    }
 }
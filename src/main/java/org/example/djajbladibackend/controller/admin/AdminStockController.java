@@ -2,9 +2,13 @@ package org.example.djajbladibackend.controller.admin;
 
 import jakarta.validation.Valid;
 import org.example.djajbladibackend.dto.common.PageResponse;
+import org.example.djajbladibackend.dto.stock.StockBalanceResponse;
+import org.example.djajbladibackend.dto.stock.StockConsumptionResponse;
 import org.example.djajbladibackend.dto.stock.StockItemCreateRequest;
 import org.example.djajbladibackend.dto.stock.StockItemResponse;
+import org.example.djajbladibackend.services.stock.StockLedgerService;
 import org.example.djajbladibackend.services.stock.StockService;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -12,6 +16,9 @@ import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
+import java.util.List;
+
 /**
  * ✅ Security Best Practice: @PreAuthorize au niveau classe pour ADMIN
  */
@@ -21,9 +28,11 @@ import org.springframework.web.bind.annotation.*;
 public class AdminStockController {
 
     private final StockService stockService;
+    private final StockLedgerService ledgerService;
 
-    public AdminStockController(StockService stockService) {
+    public AdminStockController(StockService stockService, StockLedgerService ledgerService) {
         this.stockService = stockService;
+        this.ledgerService = ledgerService;
     }
 
     @PostMapping
@@ -48,4 +57,23 @@ public class AdminStockController {
     public ResponseEntity<StockItemResponse> findById(@PathVariable Long id) {
         return ResponseEntity.ok(stockService.findById(id));
     }
+
+    /** Solde d'un article d'apres le journal des mouvements. */
+    @GetMapping("/{id}/balance")
+    public ResponseEntity<StockBalanceResponse> balance(@PathVariable Long id) {
+        return ResponseEntity.ok(ledgerService.getBalance(id));
+    }
+
+    /** Inventaire en fin de journee (ex. dernier jour du mois), depuis le journal. */
+    @GetMapping("/inventory")
+    public ResponseEntity<List<StockBalanceResponse>> inventory(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        return ResponseEntity.ok(ledgerService.getInventoryAt(date));
+    }
+
+    /** Consommation d'un lot par article (alimentation et traitements), depuis le journal. */
+    @GetMapping("/consumption")
+    public ResponseEntity<List<StockConsumptionResponse>> consumption(@RequestParam Long batchId) {
+        return ResponseEntity.ok(ledgerService.getConsumptionByBatch(batchId));
+    }
 }
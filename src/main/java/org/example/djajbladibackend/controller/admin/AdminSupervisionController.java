@@ -2,11 +2,9 @@ package org.example.djajbladibackend.controller.admin;
 
 import org.example.djajbladibackend.dto.dashboard.SupervisionDashboardResponse;
 import org.example.djajbladibackend.dto.health.HealthRecordResponse;
-import org.example.djajbladibackend.models.Batch;
-import org.example.djajbladibackend.models.BatchStatus;
-import org.example.djajbladibackend.repository.BatchRepository;
-import org.example.djajbladibackend.services.dashboard.SupervisionDashboardService;
+import org.example.djajbladibackend.services.dashboard.SupervisionDashboardSnapshotService;
 import org.example.djajbladibackend.services.health.HealthRecordService;
+import org.example.djajbladibackend.services.rollup.BatchDailyRollupService;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -17,6 +15,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Security Best Practice: @PreAuthorize au niveau classe pour ADMIN
@@ -26,16 +25,16 @@ import java.util.List;
 @PreAuthorize("hasRole('ADMIN')")
 public class AdminSupervisionController {
 
-    private final SupervisionDashboardService dashboardService;
+    private final SupervisionDashboardSnapshotService dashboardSnapshotService;
     private final HealthRecordService healthRecordService;
-    private final BatchRepository batchRepository;
+    private final BatchDailyRollupService rollupService;
 
-    public AdminSupervisionController(SupervisionDashboardService dashboardService,
+    public AdminSupervisionController(SupervisionDashboardSnapshotService dashboardSnapshotService,
                                        HealthRecordService healthRecordService,
-                                       BatchRepository batchRepository) {
-        this.dashboardService = dashboardService;
+                                       BatchDailyRollupService rollupService) {
+        this.dashboardSnapshotService = dashboardSnapshotService;
         this.healthRecordService = healthRecordService;
-        this.batchRepository = batchRepository;
+        this.rollupService = rollupService;
     }
 
     @GetMapping("/supervision")
@@ -48,11 +47,11 @@ public class AdminSupervisionController {
         }
         LocalDate end = endDate != null ? endDate : LocalDate.now();
         LocalDate start = startDate != null ? startDate : end.minusDays(7);
-        return ResponseEntity.ok(dashboardService.getDashboard(start, end, userDetails.getUsername()));
+        return ResponseEntity.ok(dashboardSnapshotService.getDashboard(start, end, userDetails.getUsername()));
     }
 
     /**
-     * ICR (Indice de Consommation / FCR) en temps reel pour tous les lots actifs.
+     * ICR (Indice de Consommation / FCR) pour tous les lots actifs, depuis l'instantane precalcule.
      * GET /api/admin/dashboard/fcr
      */
     @GetMapping("/fcr")
@@ -61,8 +60,20 @@ public class AdminSupervisionController {
         if (userDetails == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
-        List<Batch> activeBatches = batchRepository.findByStatus(BatchStatus.Active);
-        return ResponseEntity.ok(dashboardService.buildFcrSummaries(activeBatches));
+        return ResponseEntity.ok(dashboardSnapshotService.getFcrSummaries());
+    }
+
+    /**
+     * Reconstruction complete de batch_daily_rollup depuis les releves.
+     * POST /api/admin/dashboard/rollup/rebuild
+     */
+    @PostMapping("/rollup/rebuild")
+    public ResponseEntity<Map<String, Integer>> rebuildRollup(
+            @AuthenticationPrincipal UserDetails userDetails) {
+        if (userDetails == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return ResponseEntity.ok(Map.of("rows", rollupService.rebuildAll()));
     }
 
     @GetMapping("/alerts")
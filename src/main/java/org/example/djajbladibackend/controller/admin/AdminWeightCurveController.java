@@ -0,0 +1,57 @@
+package org.example.djajbladibackend.controller.admin;
+
+import jakarta.validation.Valid;
+import org.example.djajbladibackend.dto.fcr.StrainWeightCurveRequest;
+import org.example.djajbladibackend.dto.fcr.StrainWeightCurveResponse;
+import org.example.djajbladibackend.services.fcr.StrainWeightCurveCatalogService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Courbes de poids standard par souche (points de contrôle), prises en compte à chaud
+ * par le calcul FCR.
+ */
+@RestController
+@RequestMapping("/api/admin/weight-curves")
+@PreAuthorize("hasRole('ADMIN')")
+public class AdminWeightCurveController {
+
+    private final StrainWeightCurveCatalogService catalogService;
+
+    public AdminWeightCurveController(StrainWeightCurveCatalogService catalogService) {
+        this.catalogService = catalogService;
+    }
+
+    @GetMapping
+    public ResponseEntity<List<StrainWeightCurveResponse>> findAll() {
+        return ResponseEntity.ok(catalogService.findAll());
+    }
+
+    @GetMapping("/{strain}")
+    public ResponseEntity<StrainWeightCurveResponse> findByStrain(@PathVariable String strain) {
+        return ResponseEntity.ok(catalogService.findByStrain(strain));
+    }
+
+    @PutMapping("/{strain}")
+    public ResponseEntity<StrainWeightCurveResponse> replace(
+            @PathVariable String strain,
+            @Valid @RequestBody StrainWeightCurveRequest request,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        if (userDetails == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return ResponseEntity.ok(catalogService.replace(strain, request, userDetails.getUsername()));
+    }
+
+    @DeleteMapping("/{strain}")
+    public ResponseEntity<Void> delete(@PathVariable String strain) {
+        catalogService.delete(strain);
+        return ResponseEntity.noContent().build();
+    }
+}
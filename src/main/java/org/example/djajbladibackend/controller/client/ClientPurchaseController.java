@@ -4,6 +4,8 @@ import jakarta.validation.Valid;
 import org.example.djajbladibackend.dto.client.*;
 import org.example.djajbladibackend.models.PaymentStatus;
 import org.example.djajbladibackend.services.client.ClientPurchaseService;
+import org.example.djajbladibackend.services.client.FlashSaleService;
+import org.example.djajbladibackend.services.client.IdempotentOrderService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -24,10 +26,18 @@ import java.util.List;
 @PreAuthorize("hasRole('CLIENT')")
 public class ClientPurchaseController {
 
+    static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
     private final ClientPurchaseService purchaseService;
+    private final FlashSaleService flashSaleService;
+    private final IdempotentOrderService idempotentOrderService;
 
-    public ClientPurchaseController(ClientPurchaseService purchaseService) {
+    public ClientPurchaseController(ClientPurchaseService purchaseService,
+                                    FlashSaleService flashSaleService,
+                                    IdempotentOrderService idempotentOrderService) {
         this.purchaseService = purchaseService;
+        this.flashSaleService = flashSaleService;
+        this.idempotentOrderService = idempotentOrderService;
     }
 
     // -----------------------------------------------------------------------
@@ -58,16 +68,19 @@ public class ClientPurchaseController {
 
     /**
      * POST /api/client/orders
-     * Passe une commande d'achat.
+     * Passe une commande d'achat. Sur un lot en vente flash, la commande passe par son sequenceur.
+     * Avec un en-tete Idempotency-Key, un renvoi de la meme requete rejoue la commande deja creee.
      */
     @PostMapping("/orders")
     public ResponseEntity<PurchaseOrderResponse> placeOrder(
             @Valid @RequestBody PurchaseOrderRequest request,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
             @AuthenticationPrincipal UserDetails userDetails) {
         if (userDetails == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
-        PurchaseOrderResponse order = purchaseService.placeOrder(request, userDetails.getUsername());
+        PurchaseOrderResponse order = idempotentOrderService.placeOrder(request, userDetails.getUsername(),
+                idempotencyKey);
         return ResponseEntity.status(HttpStatus.CREATED).body(order);
     }
 
@@ -107,16 +120,68 @@ public class ClientPurchaseController {
 
     /**
      * DELETE /api/client/orders/{orderId}
-     * Annule une commande en attente.
+     * Annule une commande en attente (Idempotency-Key optionnel, comme pour la creation).
      */
     @DeleteMapping("/orders/{orderId}")
     public ResponseEntity<PurchaseOrderResponse> cancelOrder(
             @PathVariable Long orderId,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        if (userDetails == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return ResponseEntity.ok(idempotentOrderService.cancelOrder(orderId, userDetails.getUsername(),
+                idempotencyKey));
+    }
+
+    // -----------------------------------------------------------------------
+    // Vente flash : reservations temporaires
+    // -----------------------------------------------------------------------
+
+    /**
+     * POST /api/client/reservations
+     * Retient une quantite sur un lot en vente flash, jusqu'a expiration.
+     */
+    @PostMapping("/reservations")
+    public ResponseEntity<FlashSaleReservationResponse> reserve(
+            @Valid @RequestBody FlashSaleReservationRequest request,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        if (userDetails == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(flashSaleService.reserve(request, userDetails.getUsername()));
+    }
+
+    /**
+     * POST /api/client/reservations/{reservationId}/confirm
+     * Transforme une reservation en commande.
+     */
+    @PostMapping("/reservations/{reservationId}/confirm")
+    public ResponseEntity<PurchaseOrderResponse> confirmReservation(
+            @PathVariable String reservationId,
+            @Valid @RequestBody FlashSaleConfirmRequest request,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        if (userDetails == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(flashSaleService.confirm(reservationId, request, userDetails.getUsername()));
+    }
+
+    /**
+     * DELETE /api/client/reservations/{reservationId}
+     * Abandonne une reservation (le stock est rendu immediatement).
+     */
+    @DeleteMapping("/reservations/{reservationId}")
+    public ResponseEntity<Void> releaseReservation(
+            @PathVariable String reservationId,
             @AuthenticationPrincipal UserDetails userDetails) {
         if (userDetails == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
-        return ResponseEntity.ok(purchaseService.cancelOrder(orderId, userDetails.getUsername()));
+        flashSaleService.release(reservationId, userDetails.getUsername());
+        return ResponseEntity.noContent().build();
     }
 
     // -----------------------------------------------------------------------
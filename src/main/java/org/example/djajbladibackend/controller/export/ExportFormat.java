@@ -0,0 +1,29 @@
+package org.example.djajbladibackend.controller.export;
+
+/**
+ * Formats des exports d'historique ecrits en flux dans la reponse.
+ */
+public enum ExportFormat {
+
+    /** Un objet JSON par ligne (application/x-ndjson). */
+    NDJSON("application/x-ndjson", "ndjson"),
+
+    /** CSV avec ligne d'en-tete, separateur virgule, UTF-8. */
+    CSV("text/csv;charset=UTF-8", "csv");
+
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+}
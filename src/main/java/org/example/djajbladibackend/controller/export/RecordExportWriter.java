@@ -0,0 +1,113 @@
+package org.example.djajbladibackend.controller.export;
+
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Ecriture en flux d'un export d'historique (NDJSON ou CSV) directement dans la reponse HTTP :
+ * chaque ligne est serialisee puis oubliee, la memoire ne depend pas du volume exporte.
+ *
+ * @param <T> type des lignes (DTO de reponse)
+ */
+public final class RecordExportWriter<T> implements Consumer<T> {
+
+    private static final byte[] NEWLINE = {'\n'};
+
+    private final ExportFormat format;
+    private final OutputStream out;
+    private final JsonMapper jsonMapper;
+    private final Function<T, List<Object>> csvColumns;
+
+    private RecordExportWriter(ExportFormat format, OutputStream out, JsonMapper jsonMapper,
+                               Function<T, List<Object>> csvColumns) {
+        this.format = format;
+        this.out = out;
+        this.jsonMapper = jsonMapper;
+        this.csvColumns = csvColumns;
+    }
+
+    /**
+     * Prepare la reponse (type, piece jointe) et ecrit l'en-tete CSV le cas echeant.
+     *
+     * @param csvHeader  noms des colonnes CSV
+     * @param csvColumns valeurs d'une ligne, dans l'ordre de l'en-tete
+     */
+    public static <T> RecordExportWriter<T> open(HttpServletResponse response, ExportFormat format, String baseName,
+                                                 JsonMapper jsonMapper, List<String> csvHeader,
+                                                 Function<T, List<Object>> csvColumns) throws IOException {
+        response.setContentType(format.getContentType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"" + baseName + "." + format.getExtension() + "\"");
+        RecordExportWriter<T> writer = new RecordExportWriter<>(format, new BufferedOutputStream(response.getOutputStream()),
+                jsonMapper, csvColumns);
+        if (format == ExportFormat.CSV) {
+            writer.writeCsvLine(List.copyOf(csvHeader));
+        }
+        return writer;
+    }
+
+    @Override
+    public void accept(T row) {
+        try {
+            if (format == ExportFormat.NDJSON) {
+                out.write(jsonMapper.writeValueAsBytes(row));
+                out.write(NEWLINE);
+            } else {
+                writeCsvLine(csvColumns.apply(row));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void finish() throws IOException {
+        out.flush();
+    }
+
+    private void writeCsvLine(List<?> values) throws IOException {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            line.append(csvField(values.get(i)));
+        }
+        line.append("\r\n");
+        out.write(line.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Echappement RFC 4180 ; les textes commencant par =, +, -, @, une tabulation ou un retour chariot
+     * sont prefixes d'une apostrophe pour ne pas etre interpretes comme formules par un tableur (OWASP).
+     */
+    static String csvField(Object value) {
+        if (value == null) {
+            return "";
+        }
+        if (value instanceof BigDecimal decimal) {
+            return decimal.toPlainString();
+        }
+        if (value instanceof Number) {
+            return value.toString();
+        }
+        String text = value.toString();
+        if (!text.isEmpty() && "=+-@\t\r".indexOf(text.charAt(0)) >= 0) {
+            text = "'" + text;
+        }
+        if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+            return '"' + text.replace("\"", "\"\"") + '"';
+        }
+        return text;
+    }
+}
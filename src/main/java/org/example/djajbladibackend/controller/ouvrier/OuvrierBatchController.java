@@ -31,8 +31,17 @@ public class OuvrierBatchController {
     public ResponseEntity<PageResponse<BatchResponse>> findAll(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "5") int size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean withTotal,
             @AuthenticationPrincipal UserDetails userDetails) {
-        if (userDetails != null && userDetails.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"))) {
+        boolean admin = userDetails != null
+                && userDetails.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
+        if (cursor != null) {
+            return ResponseEntity.ok(admin
+                    ? batchService.findAllKeyset(cursor, size, withTotal)
+                    : batchService.findByAssignedUserEmailKeyset(userDetails.getUsername(), cursor, size, withTotal));
+        }
+        if (admin) {
              return ResponseEntity.ok(batchService.findAll(page, size));
         }
         return ResponseEntity.ok(batchService.findByAssignedUserEmail(userDetails.getUsername(), page, size));
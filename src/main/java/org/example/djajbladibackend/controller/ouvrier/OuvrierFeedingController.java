@@ -1,7 +1,12 @@
 package org.example.djajbladibackend.controller.ouvrier;
 
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import org.example.djajbladibackend.controller.export.ExportFormat;
+import org.example.djajbladibackend.controller.export.RecordExportWriter;
 import org.example.djajbladibackend.dto.common.PageResponse;
+import org.example.djajbladibackend.dto.feeding.FeedingRecordBulkRequest;
+import org.example.djajbladibackend.dto.feeding.FeedingRecordBulkResponse;
 import org.example.djajbladibackend.dto.feeding.FeedingRecordRequest;
 import org.example.djajbladibackend.dto.feeding.FeedingRecordResponse;
 import org.example.djajbladibackend.services.feeding.FeedingRecordService;
@@ -12,8 +17,12 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import tools.jackson.databind.json.JsonMapper;
 
+import java.io.IOException;
 import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * ✅ Security Best Practice: @PreAuthorize pour ADMIN et OUVRIER
@@ -23,10 +32,15 @@ import java.time.LocalDate;
 @PreAuthorize("hasAnyRole('ADMIN', 'OUVRIER')")
 public class OuvrierFeedingController {
 
+    private static final List<String> CSV_HEADER = List.of("id", "batchId", "batchNumber", "feedingDate", "feedType", "quantity",
+            "stockItemId", "stockItemName", "notes", "recordedById", "recordedByName", "createdAt", "updatedAt");
+
     private final FeedingRecordService feedingService;
+    private final JsonMapper jsonMapper;
 
-    public OuvrierFeedingController(FeedingRecordService feedingService) {
+    public OuvrierFeedingController(FeedingRecordService feedingService, JsonMapper jsonMapper) {
         this.feedingService = feedingService;
+        this.jsonMapper = jsonMapper;
     }
 
     @PostMapping
@@ -40,6 +54,25 @@ public class OuvrierFeedingController {
                 .body(feedingService.create(request, userDetails.getUsername()));
     }
 
+    /**
+     * Envoi groupe de distributions saisies hors ligne (tout ou rien).
+     */
+    @PostMapping("/bulk")
+    public ResponseEntity<FeedingRecordBulkResponse> createBulk(
+            @Valid @RequestBody FeedingRecordBulkRequest request,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        if (userDetails == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(feedingService.createBulk(request.getRecords(), userDetails.getUsername()));
+    }
+
+    /**
+     * Liste paginee. Sans cursor : pagination par page (OFFSET + COUNT).
+     * Avec cursor (vide pour la premiere page) : pagination par clé, reprendre avec nextCursor ;
+     * le total n'est calcule que si withTotal=true.
+     */
     @GetMapping
     public ResponseEntity<PageResponse<FeedingRecordResponse>> list(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
@@ -47,10 +80,40 @@ public class OuvrierFeedingController {
             @RequestParam(required = false) Long batchId,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "5") int size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean withTotal,
             @AuthenticationPrincipal UserDetails userDetails) {
         if (userDetails == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
+        if (cursor != null) {
+            return ResponseEntity.ok(feedingService.findByDateRangeKeyset(startDate, endDate, batchId, cursor, size, withTotal));
+        }
         return ResponseEntity.ok(feedingService.findByDateRangePaged(startDate, endDate, batchId, page, size));
     }
+
+    /**
+     * Export de l'historique d'alimentation (NDJSON ou CSV).
+     * Les lignes sont ecrites dans la reponse au fil de la lecture (curseur) : pas de plafond de plage.
+     *
+     * GET /api/ouvrier/feeding/export
+     *     ?startDate=2024-01-01&endDate=2026-12-31  (optionnels, historique complet par defaut)
+     *     &batchId=12                               (optionnel)
+     *     &format=NDJSON|CSV                        (NDJSON par defaut)
+     */
+    @GetMapping("/export")
+    public void export(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) Long batchId,
+            @RequestParam(defaultValue = "NDJSON") ExportFormat format,
+            HttpServletResponse response) throws IOException {
+        RecordExportWriter<FeedingRecordResponse> writer = RecordExportWriter.open(
+                response, format, "feeding-history", jsonMapper, CSV_HEADER,
+                r -> Arrays.asList(r.getId(), r.getBatchId(), r.getBatchNumber(), r.getFeedingDate(), r.getFeedType(),
+                        r.getQuantity(), r.getStockItemId(), r.getStockItemName(), r.getNotes(),
+                        r.getRecordedById(), r.getRecordedByName(), r.getCreatedAt(), r.getUpdatedAt()));
+        feedingService.exportByDateRange(startDate, endDate, batchId, writer);
+        writer.finish();
+    }
 }
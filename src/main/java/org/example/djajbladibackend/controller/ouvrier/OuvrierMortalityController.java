@@ -1,6 +1,9 @@
 package org.example.djajbladibackend.controller.ouvrier;
 
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import org.example.djajbladibackend.controller.export.ExportFormat;
+import org.example.djajbladibackend.controller.export.RecordExportWriter;
 import org.example.djajbladibackend.dto.common.PageResponse;
 import org.example.djajbladibackend.dto.mortality.DailyMortalityRequest;
 import org.example.djajbladibackend.dto.mortality.DailyMortalityResponse;
@@ -12,8 +15,12 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import tools.jackson.databind.json.JsonMapper;
 
+import java.io.IOException;
 import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * ✅ Security Best Practice: @PreAuthorize pour ADMIN et OUVRIER
@@ -23,10 +30,15 @@ import java.time.LocalDate;
 @PreAuthorize("hasAnyRole('ADMIN', 'OUVRIER')")
 public class OuvrierMortalityController {
 
+    private static final List<String> CSV_HEADER = List.of("id", "batchId", "batchNumber", "recordDate", "mortalityCount",
+            "notes", "recordedById", "recordedByName", "createdAt", "updatedAt");
+
     private final DailyMortalityService mortalityService;
+    private final JsonMapper jsonMapper;
 
-    public OuvrierMortalityController(DailyMortalityService mortalityService) {
+    public OuvrierMortalityController(DailyMortalityService mortalityService, JsonMapper jsonMapper) {
         this.mortalityService = mortalityService;
+        this.jsonMapper = jsonMapper;
     }
 
     @PostMapping
@@ -51,6 +63,11 @@ public class OuvrierMortalityController {
         return ResponseEntity.ok(mortalityService.update(id, request, userDetails.getUsername()));
     }
 
+    /**
+     * Liste paginee. Sans cursor : pagination par page (OFFSET + COUNT).
+     * Avec cursor (vide pour la premiere page) : pagination par clé, reprendre avec nextCursor ;
+     * le total n'est calcule que si withTotal=true.
+     */
     @GetMapping
     public ResponseEntity<PageResponse<DailyMortalityResponse>> list(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
@@ -58,10 +75,39 @@ public class OuvrierMortalityController {
             @RequestParam(required = false) Long batchId,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "5") int size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean withTotal,
             @AuthenticationPrincipal UserDetails userDetails) {
         if (userDetails == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
+        if (cursor != null) {
+            return ResponseEntity.ok(mortalityService.findByDateRangeKeyset(startDate, endDate, batchId, cursor, size, withTotal));
+        }
         return ResponseEntity.ok(mortalityService.findByDateRangePaged(startDate, endDate, batchId, page, size));
     }
+
+    /**
+     * Export de l'historique de mortalite (NDJSON ou CSV).
+     * Les lignes sont ecrites dans la reponse au fil de la lecture (curseur) : pas de plafond de plage.
+     *
+     * GET /api/ouvrier/mortality/export
+     *     ?startDate=2024-01-01&endDate=2026-12-31  (optionnels, historique complet par defaut)
+     *     &batchId=12                               (optionnel)
+     *     &format=NDJSON|CSV                        (NDJSON par defaut)
+     */
+    @GetMapping("/export")
+    public void export(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) Long batchId,
+            @RequestParam(defaultValue = "NDJSON") ExportFormat format,
+            HttpServletResponse response) throws IOException {
+        RecordExportWriter<DailyMortalityResponse> writer = RecordExportWriter.open(
+                response, format, "mortality-history", jsonMapper, CSV_HEADER,
+                r -> Arrays.asList(r.getId(), r.getBatchId(), r.getBatchNumber(), r.getRecordDate(),
+                        r.getMortalityCount(), r.getNotes(), r.getRecordedById(), r.getRecordedByName(), r.getCreatedAt(), r.getUpdatedAt()));
+        mortalityService.exportByDateRange(startDate, endDate, batchId, writer);
+        writer.finish();
+    }
 }
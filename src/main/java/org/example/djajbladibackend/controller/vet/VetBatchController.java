@@ -4,6 +4,7 @@ import org.example.djajbladibackend.dto.batch.BatchResponse;
 import org.example.djajbladibackend.dto.common.PageResponse;
 import org.example.djajbladibackend.models.BatchStatus;
 import org.example.djajbladibackend.repository.BatchRepository;
+import org.example.djajbladibackend.services.batch.BatchService;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -21,9 +22,11 @@ import java.util.List;
 public class VetBatchController {
 
     private final BatchRepository batchRepository;
+    private final BatchService batchService;
 
-    public VetBatchController(BatchRepository batchRepository) {
+    public VetBatchController(BatchRepository batchRepository, BatchService batchService) {
         this.batchRepository = batchRepository;
+        this.batchService = batchService;
     }
 
     /**
@@ -44,11 +47,17 @@ public class VetBatchController {
     /**
      * Paginated list of all batches — used by vet history/reporting views.
      * GET /api/vet/batches?page=0&size=20
+     * GET /api/vet/batches?cursor=&size=20  (keyset: follow nextCursor, withTotal=true to count)
      */
     @GetMapping
     public ResponseEntity<PageResponse<BatchResponse>> findAll(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int size) {
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean withTotal) {
+        if (cursor != null) {
+            return ResponseEntity.ok(batchService.findAllKeyset(cursor, size, withTotal, this::toResponse));
+        }
         PageResponse<BatchResponse> result = PageResponse.from(
                 batchRepository.findAllWithRelationsPageable(PageRequest.of(page, size))
                         .map(this::toResponse)
@@ -0,0 +1,19 @@
+package org.example.djajbladibackend.dto.client;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+/**
+ * Confirmation d'une reservation en commande.
+ */
+@Data
+public class FlashSaleConfirmRequest {
+
+    @NotBlank(message = "L'adresse de livraison est obligatoire")
+    @Size(max = 2000, message = "L'adresse de livraison ne doit pas depasser 2000 caracteres")
+    private String deliveryAddress;
+
+    @Size(max = 2000, message = "Les notes ne doivent pas depasser 2000 caracteres")
+    private String notes;
+}
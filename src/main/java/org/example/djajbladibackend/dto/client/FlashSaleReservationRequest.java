@@ -0,0 +1,19 @@
+package org.example.djajbladibackend.dto.client;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+
+/**
+ * Demande de reservation temporaire sur un lot en vente flash.
+ */
+@Data
+public class FlashSaleReservationRequest {
+
+    @NotNull(message = "L'identifiant du lot est obligatoire")
+    private Long batchId;
+
+    @NotNull(message = "La quantite est obligatoire")
+    @Positive(message = "La quantite doit etre positive")
+    private Integer quantity;
+}
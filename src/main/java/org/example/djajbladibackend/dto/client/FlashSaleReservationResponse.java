@@ -0,0 +1,23 @@
+package org.example.djajbladibackend.dto.client;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Reservation accordee : la quantite est retenue pour le client jusqu'a expiresAt.
+ */
+@Data
+@Builder
+public class FlashSaleReservationResponse {
+
+    private String reservationId;
+    private Long batchId;
+    private String batchNumber;
+    private Integer quantity;
+    private BigDecimal unitPrice;
+    private BigDecimal totalPrice;
+    private Instant expiresAt;
+}
@@ -0,0 +1,20 @@
+package org.example.djajbladibackend.dto.client;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Etat d'une vente flash (vue admin) : stock libre, retenu par des reservations et commandes ecrites.
+ */
+@Data
+@Builder
+public class FlashSaleStatusResponse {
+
+    private Long batchId;
+    private String batchNumber;
+    private boolean open;
+    private Integer available;
+    private Integer held;
+    private Integer activeHolds;
+    private Long ordersWritten;
+}
@@ -0,0 +1,18 @@
+package org.example.djajbladibackend.dto.client;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Reponse enregistree pour une cle Idempotency-Key (cache "idempotentOrders"),
+ * avec l'empreinte de la requete qui l'a produite.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotentOrderReplay {
+
+    private String requestFingerprint;
+    private PurchaseOrderResponse response;
+}
@@ -1,7 +1,9 @@
 package org.example.djajbladibackend.dto.client;
 
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 import org.example.djajbladibackend.models.PaymentStatus;
 
 import java.math.BigDecimal;
@@ -13,6 +15,8 @@ import java.time.LocalDateTime;
  */
 @Data
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
 public class PurchaseOrderResponse {
 
     private Long orderId;
@@ -0,0 +1,63 @@
+package org.example.djajbladibackend.dto.common;
+
+import org.example.djajbladibackend.exception.InvalidDataException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position de reprise d'une pagination par clé (seek) : valeur de tri + id du dernier élément servi.
+ * Transmise au client sous forme de jeton opaque (base64url de "clé|id").
+ */
+public record KeysetCursor(String key, long id) {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    public static KeysetCursor of(LocalDate date, Long id) {
+        return new KeysetCursor(date.toString(), id);
+    }
+
+    public static KeysetCursor of(LocalDateTime dateTime, Long id) {
+        return new KeysetCursor(dateTime.toString(), id);
+    }
+
+    public String encode() {
+        return ENCODER.encodeToString((key + "|" + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws InvalidDataException si le jeton n'a pas été produit par {@link #encode()}
+     */
+    public static KeysetCursor decode(String token) {
+        try {
+            String raw = new String(DECODER.decode(token), StandardCharsets.UTF_8);
+            int sep = raw.lastIndexOf('|');
+            if (sep <= 0) {
+                throw new IllegalArgumentException(raw);
+            }
+            return new KeysetCursor(raw.substring(0, sep), Long.parseLong(raw.substring(sep + 1)));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidDataException("Curseur de pagination invalide.");
+        }
+    }
+
+    public LocalDate dateKey() {
+        try {
+            return LocalDate.parse(key);
+        } catch (DateTimeParseException e) {
+            throw new InvalidDataException("Curseur de pagination invalide.");
+        }
+    }
+
+    public LocalDateTime dateTimeKey() {
+        try {
+            return LocalDateTime.parse(key);
+        } catch (DateTimeParseException e) {
+            throw new InvalidDataException("Curseur de pagination invalide.");
+        }
+    }
+}
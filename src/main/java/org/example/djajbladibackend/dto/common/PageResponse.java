@@ -4,10 +4,19 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.example.djajbladibackend.exception.InvalidDataException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 
 import java.util.List;
+import java.util.function.Function;
 
+/**
+ * Page de résultats. Deux modes :
+ * - offset ({@link #from(Page)}) : page, totalElements et totalPages renseignés ;
+ * - par clé ({@link #keyset}) : nextCursor à renvoyer pour la page suivante (null sur la dernière),
+ *   page toujours null, totaux seulement si demandés.
+ */
 @Data
 @Builder
 @NoArgsConstructor
@@ -15,12 +24,13 @@ import java.util.List;
 public class PageResponse<T> {
 
     private List<T> content;
-    private int page;
+    private Integer page;
     private int size;
-    private long totalElements;
-    private int totalPages;
+    private Long totalElements;
+    private Integer totalPages;
     private boolean first;
     private boolean last;
+    private String nextCursor;
 
     public static <T> PageResponse<T> from(Page<T> page) {
         return PageResponse.<T>builder()
@@ -33,4 +43,36 @@ public class PageResponse<T> {
                 .last(page.isLast())
                 .build();
     }
+
+    /**
+     * Limite de lecture d'une page par clé : une ligne de plus que la taille pour détecter la page suivante.
+     */
+    public static Limit keysetLimit(int size) {
+        if (size < 1) {
+            throw new InvalidDataException("La taille de page doit être au moins 1.");
+        }
+        return Limit.of(size + 1);
+    }
+
+    /**
+     * @param rows          lignes lues avec une limite de {@code size + 1} : la ligne en trop signale une page suivante
+     * @param first         vrai si la page a été lue sans curseur
+     * @param cursorOf      position d'une ligne dans l'ordre de tri
+     * @param totalElements total, ou null si le comptage n'a pas été demandé
+     */
+    public static <E, T> PageResponse<T> keyset(List<E> rows, int size, boolean first,
+                                               Function<E, KeysetCursor> cursorOf, Function<E, T> mapper,
+                                               Long totalElements) {
+        boolean hasNext = rows.size() > size;
+        List<E> pageRows = hasNext ? rows.subList(0, size) : rows;
+        return PageResponse.<T>builder()
+                .content(pageRows.stream().map(mapper).toList())
+                .size(size)
+                .totalElements(totalElements)
+                .totalPages(totalElements == null ? null : (int) ((totalElements + size - 1) / size))
+                .first(first)
+                .last(!hasNext)
+                .nextCursor(hasNext ? cursorOf.apply(pageRows.get(size - 1)).encode() : null)
+                .build();
+    }
 }
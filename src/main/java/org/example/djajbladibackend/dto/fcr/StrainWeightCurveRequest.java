@@ -0,0 +1,42 @@
+package org.example.djajbladibackend.dto.fcr;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Remplacement complet des points de contrôle d'une souche.
+ */
+@Data
+public class StrainWeightCurveRequest {
+
+    @NotEmpty(message = "At least one curve point is required")
+    @Valid
+    private List<CurvePoint> points;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class CurvePoint {
+
+        @NotNull(message = "Age in days is required")
+        @Min(value = 0, message = "Age in days must be at least 0")
+        @Max(value = 365, message = "Age in days must be at most 365")
+        private Integer ageDays;
+
+        @NotNull(message = "Weight is required")
+        @DecimalMin(value = "0.0", inclusive = false, message = "Weight must be positive")
+        @DecimalMax(value = "9999.9999", message = "Weight is too large")
+        private BigDecimal weightKg;
+    }
+}
@@ -0,0 +1,15 @@
+package org.example.djajbladibackend.dto.fcr;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class StrainWeightCurveResponse {
+    private String strain;
+    private List<StrainWeightCurveRequest.CurvePoint> points;
+    /** Version de l'instantané en mémoire servant les calculs FCR. */
+    private Long snapshotVersion;
+}
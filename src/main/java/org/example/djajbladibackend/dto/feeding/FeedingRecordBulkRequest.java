@@ -0,0 +1,20 @@
+package org.example.djajbladibackend.dto.feeding;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Envoi groupé de distributions saisies hors ligne : toutes sont enregistrées ou aucune.
+ */
+@Data
+public class FeedingRecordBulkRequest {
+
+    @NotEmpty(message = "At least one feeding record is required")
+    @Size(max = 1000, message = "At most 1000 feeding records per upload")
+    @Valid
+    private List<FeedingRecordRequest> records;
+}
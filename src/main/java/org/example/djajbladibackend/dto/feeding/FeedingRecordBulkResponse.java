@@ -0,0 +1,19 @@
+package org.example.djajbladibackend.dto.feeding;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FeedingRecordBulkResponse {
+
+    private int createdCount;
+    /** Identifiants des relevés créés, dans l'ordre de la requête. */
+    private List<Long> ids;
+}
@@ -1,7 +1,9 @@
 package org.example.djajbladibackend.dto.financial;
 
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 import org.example.djajbladibackend.models.BatchStatus;
 
 import java.math.BigDecimal;
@@ -19,7 +21,9 @@ import java.util.List;
  *   estimatedProfitDH = totalRevenueDH - totalCostDH
  */
 @Data
-@Builder
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
 public class BatchCostBreakdownResponse {
 
     private Long batchId;
@@ -71,6 +75,8 @@ public class BatchCostBreakdownResponse {
 
     @Data
     @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
     public static class FeedLineItem {
         private Long stockItemId;
         private String stockItemName;
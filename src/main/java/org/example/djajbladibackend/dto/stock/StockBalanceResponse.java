@@ -0,0 +1,17 @@
+package org.example.djajbladibackend.dto.stock;
+
+import lombok.Builder;
+import lombok.Data;
+import org.example.djajbladibackend.models.StockType;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+public class StockBalanceResponse {
+    private Long stockItemId;
+    private String stockItemName;
+    private StockType type;
+    private String unit;
+    private BigDecimal balance;
+}
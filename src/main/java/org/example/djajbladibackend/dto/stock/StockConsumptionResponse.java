@@ -0,0 +1,17 @@
+package org.example.djajbladibackend.dto.stock;
+
+import lombok.Builder;
+import lombok.Data;
+import org.example.djajbladibackend.models.StockMovementType;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+public class StockConsumptionResponse {
+    private Long stockItemId;
+    private String stockItemName;
+    private String unit;
+    private StockMovementType movementType;
+    private BigDecimal quantity;
+}
@@ -0,0 +1,17 @@
+package org.example.djajbladibackend.exception;
+
+/**
+ * Thrown when the flash-sale sequencer of a batch does not answer in time
+ * (worker saturated or shutting down). HTTP 503 Service Unavailable.
+ */
+public class FlashSaleUnavailableException extends RuntimeException {
+
+    private final Long batchId;
+
+    public FlashSaleUnavailableException(Long batchId, String message) {
+        super(message);
+        this.batchId = batchId;
+    }
+
+    public Long getBatchId() { return batchId; }
+}
@@ -408,6 +408,32 @@ public class GlobalExceptionHandler {
         return problemDetail;
     }
 
+    @ExceptionHandler(FlashSaleUnavailableException.class)
+    public ProblemDetail handleFlashSaleUnavailable(FlashSaleUnavailableException ex) {
+        ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(
+            HttpStatus.SERVICE_UNAVAILABLE,
+            ex.getMessage()
+        );
+        problemDetail.setTitle("Vente flash momentanément indisponible");
+        problemDetail.setProperty("batchId", ex.getBatchId());
+        problemDetail.setProperty("timestamp", Instant.now());
+        log.warn("Flash sale unavailable: batchId={}, {}", ex.getBatchId(), ex.getMessage());
+        return problemDetail;
+    }
+
+    @ExceptionHandler(IdempotencyKeyReuseException.class)
+    public ProblemDetail handleIdempotencyKeyReuse(IdempotencyKeyReuseException ex) {
+        ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(
+            HttpStatus.UNPROCESSABLE_CONTENT,
+            ex.getMessage()
+        );
+        problemDetail.setTitle("Clé d'idempotence déjà utilisée");
+        problemDetail.setProperty("idempotencyKey", ex.getIdempotencyKey());
+        problemDetail.setProperty("timestamp", Instant.now());
+        log.warn("Idempotency-Key reused with a different request: {}", ex.getIdempotencyKey());
+        return problemDetail;
+    }
+
     @ExceptionHandler(DuplicateVaccinationProtocolException.class)
     public ProblemDetail handleDuplicateVaccinationProtocol(DuplicateVaccinationProtocolException ex) {
         ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(
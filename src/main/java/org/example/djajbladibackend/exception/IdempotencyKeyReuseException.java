@@ -0,0 +1,16 @@
+package org.example.djajbladibackend.exception;
+
+public class IdempotencyKeyReuseException extends RuntimeException {
+
+    private final String idempotencyKey;
+
+    public IdempotencyKeyReuseException(String idempotencyKey) {
+        super(String.format(
+            "La cle Idempotency-Key %s a deja servi pour une requete differente. Utilisez une nouvelle cle.",
+            idempotencyKey
+        ));
+        this.idempotencyKey = idempotencyKey;
+    }
+
+    public String getIdempotencyKey() { return idempotencyKey; }
+}
@@ -24,7 +24,9 @@ import java.util.Objects;
         @Index(name = "idx_batch_arrival_date", columnList = "arrival_date"),
         @Index(name = "idx_batch_created_by", columnList = "created_by_id"),
         @Index(name = "idx_batch_building", columnList = "building_id"),
-        @Index(name = "idx_batch_assigned_to", columnList = "assigned_to_id")
+        @Index(name = "idx_batch_assigned_to", columnList = "assigned_to_id"),
+        @Index(name = "idx_batch_created_at_id", columnList = "created_at, id"),
+        @Index(name = "idx_batch_assigned_created_at_id", columnList = "assigned_to_id, created_at, id")
 })
 @EntityListeners(AuditingEntityListener.class)
 @Getter
@@ -35,7 +37,8 @@ import java.util.Objects;
 public class Batch {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "batches_id_seq")
+    @SequenceGenerator(name = "batches_id_seq", sequenceName = "batches_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "batch_number", unique = true, nullable = false, length = 50)
@@ -74,6 +77,13 @@ public class Batch {
     @Column(columnDefinition = "TEXT")
     private String notes;
 
+    /**
+     * Fin de la dernière période de retrait (hors vaccins, hors rapports rejetés), null si aucune.
+     * Écrite uniquement par BatchRepository (UPDATE ciblés) : jamais par le dirty checking du lot.
+     */
+    @Column(name = "withdrawal_clear_date", insertable = false, updatable = false)
+    private LocalDate withdrawalClearDate;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "created_by_id", nullable = false)
     private User createdBy;
@@ -145,6 +155,13 @@ public class Batch {
         return status == BatchStatus.SOLD;
     }
 
+    /**
+     * Aucune période de retrait active à la date donnée (vente autorisée).
+     */
+    public boolean isWithdrawalClear(LocalDate today) {
+        return withdrawalClearDate == null || !today.isBefore(withdrawalClearDate);
+    }
+
     public void addFeedingRecord(FeedingRecord feedingRecord) {
         feedingRecords.add(feedingRecord);
         feedingRecord.setBatch(this);
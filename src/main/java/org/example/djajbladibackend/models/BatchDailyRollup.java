@@ -0,0 +1,73 @@
+package org.example.djajbladibackend.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Agrégat journalier par lot, maintenu en écriture (voir BatchDailyRollupService).
+ * Les lignes sont écrites par requêtes natives (upsert + propagation des cumuls) :
+ * l'entité ne sert qu'à la lecture.
+ */
+@Entity
+@Table(name = "batch_daily_rollup", indexes = {
+        @Index(name = "idx_rollup_date", columnList = "rollup_date")
+}, uniqueConstraints = @UniqueConstraint(name = "uq_rollup_batch_date", columnNames = {"batch_id", "rollup_date"}))
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchDailyRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "batch_id", nullable = false)
+    private Batch batch;
+
+    @Column(name = "rollup_date", nullable = false)
+    private LocalDate rollupDate;
+
+    @Column(name = "feed_kg", nullable = false, precision = 14, scale = 2)
+    private BigDecimal feedKg;
+
+    @Column(name = "mortality_count", nullable = false)
+    private Integer mortalityCount;
+
+    @Column(name = "cumulative_feed_kg", nullable = false, precision = 14, scale = 2)
+    private BigDecimal cumulativeFeedKg;
+
+    @Column(name = "cumulative_mortality", nullable = false)
+    private Integer cumulativeMortality;
+
+    /** Nombre de relevés du jour ; 0 lorsque le seul relevé a été déplacé à une autre date. */
+    @Column(name = "entry_count", nullable = false)
+    private Integer entryCount;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "recorded_by_id")
+    private User recordedBy;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof BatchDailyRollup)) return false;
+        BatchDailyRollup that = (BatchDailyRollup) o;
+        return Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+}
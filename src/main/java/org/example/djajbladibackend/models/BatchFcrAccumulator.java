@@ -0,0 +1,52 @@
+package org.example.djajbladibackend.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Cumuls FCR d'un lot (aliment consommé, mortalité), maintenus en écriture
+ * par BatchDailyRollupService. Écrit par upsert natif : l'entité ne sert qu'à la lecture.
+ */
+@Entity
+@Table(name = "batch_fcr_accumulator")
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchFcrAccumulator {
+
+    @Id
+    @Column(name = "batch_id")
+    private Long batchId;
+
+    @Column(name = "total_feed_kg", nullable = false, precision = 14, scale = 2)
+    private BigDecimal totalFeedKg;
+
+    @Column(name = "total_mortality", nullable = false)
+    private Integer totalMortality;
+
+    @Column(name = "last_record_date", nullable = false)
+    private LocalDate lastRecordDate;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof BatchFcrAccumulator)) return false;
+        BatchFcrAccumulator that = (BatchFcrAccumulator) o;
+        return Objects.equals(batchId, that.batchId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(batchId);
+    }
+}
@@ -20,7 +20,8 @@ import java.util.Objects;
 public class Building {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "buildings_id_seq")
+    @SequenceGenerator(name = "buildings_id_seq", sequenceName = "buildings_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, length = 100)
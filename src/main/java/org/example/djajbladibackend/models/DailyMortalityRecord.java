@@ -16,7 +16,8 @@ import java.util.Objects;
         @Index(name = "idx_mortality_date", columnList = "record_date"),
         @Index(name = "idx_mortality_recorded_by", columnList = "recorded_by_id"),
         @Index(name = "idx_mortality_source", columnList = "source"),
-        @Index(name = "idx_mortality_health_record", columnList = "health_record_id")
+        @Index(name = "idx_mortality_health_record", columnList = "health_record_id"),
+        @Index(name = "idx_mortality_date_id", columnList = "record_date, id")
 }, uniqueConstraints = @UniqueConstraint(name = "uq_mortality_batch_date", columnNames = {"batch_id", "record_date"}))
 @EntityListeners(AuditingEntityListener.class)
 @Getter
@@ -27,7 +28,8 @@ import java.util.Objects;
 public class DailyMortalityRecord {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "daily_mortality_records_id_seq")
+    @SequenceGenerator(name = "daily_mortality_records_id_seq", sequenceName = "daily_mortality_records_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -19,7 +19,9 @@ import java.util.Objects;
 @Table(name = "feeding_records", indexes = {
         @Index(name = "idx_feeding_batch", columnList = "batch_id"),
         @Index(name = "idx_feeding_date", columnList = "feeding_date"),
-        @Index(name = "idx_feeding_recorded_by", columnList = "recorded_by_id")
+        @Index(name = "idx_feeding_recorded_by", columnList = "recorded_by_id"),
+        @Index(name = "idx_feeding_date_id", columnList = "feeding_date, id"),
+        @Index(name = "idx_feeding_batch_date_id", columnList = "batch_id, feeding_date, id")
 })
 @EntityListeners(AuditingEntityListener.class)
 @Getter
@@ -29,8 +31,10 @@ import java.util.Objects;
 @AllArgsConstructor
 public class FeedingRecord {
 
+    // Séquence par blocs de 50 : les INSERT peuvent être regroupés (hibernate.jdbc.batch_size)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "feeding_records_id_seq")
+    @SequenceGenerator(name = "feeding_records_id_seq", sequenceName = "feeding_records_id_seq", allocationSize = 50)
     private Long id;
 
     // Spring Boot Best Practice: LAZY fetch pour éviter N+1
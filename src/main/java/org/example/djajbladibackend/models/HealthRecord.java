@@ -33,7 +33,8 @@ import java.util.Objects;
 public class HealthRecord {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "health_records_id_seq")
+    @SequenceGenerator(name = "health_records_id_seq", sequenceName = "health_records_id_seq", allocationSize = 50)
     private Long id;
 
     // Spring Boot Best Practice: LAZY fetch pour éviter N+1
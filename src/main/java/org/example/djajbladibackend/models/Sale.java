@@ -32,7 +32,8 @@ import java.util.Objects;
 public class Sale {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sales_id_seq")
+    @SequenceGenerator(name = "sales_id_seq", sequenceName = "sales_id_seq", allocationSize = 50)
     private Long id;
 
     // Spring Boot Best Practice: LAZY fetch pour éviter N+1
@@ -72,6 +73,14 @@ public class Sale {
     @JoinColumn(name = "recorded_by_id", nullable = false)
     private User recordedBy;
 
+    // Cle Idempotency-Key fournie par le client ; unique par client (uq_sales_client_idempotency_key)
+    @Column(name = "idempotency_key", length = 64, updatable = false)
+    private String idempotencyKey;
+
+    // Empreinte de la requete ayant cree la vente avec cette cle (V40)
+    @Column(name = "idempotency_fingerprint", length = 64, updatable = false)
+    private String idempotencyFingerprint;
+
     @CreatedDate
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -112,4 +121,9 @@ public class Sale {
     public boolean isCancelled() {
         return paymentStatus == PaymentStatus.Cancelled;
     }
+
+    // Meme requete que celle qui a cree la vente ; sans empreinte (ventes anterieures a V40), non verifiable
+    public boolean matchesIdempotencyFingerprint(String requestFingerprint) {
+        return idempotencyFingerprint == null || idempotencyFingerprint.equals(requestFingerprint);
+    }
 }
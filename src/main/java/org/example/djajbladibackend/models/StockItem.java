@@ -24,7 +24,8 @@ import java.util.Objects;
 public class StockItem {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "stock_items_id_seq")
+    @SequenceGenerator(name = "stock_items_id_seq", sequenceName = "stock_items_id_seq", allocationSize = 50)
     private Long id;
 
     @Enumerated(EnumType.STRING)
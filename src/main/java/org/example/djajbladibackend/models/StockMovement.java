@@ -0,0 +1,77 @@
+package org.example.djajbladibackend.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Ligne du journal de stock, jamais modifiée après insertion.
+ * Les références (article, lot, relevé source) sont de simples identifiants :
+ * un ajout au journal ne charge aucune entité.
+ */
+@Entity
+@Table(name = "stock_movements", indexes = {
+        @Index(name = "idx_stock_movement_item_id", columnList = "stock_item_id, id"),
+        @Index(name = "idx_stock_movement_batch", columnList = "batch_id, stock_item_id"),
+        @Index(name = "idx_stock_movement_occurred_at", columnList = "occurred_at")
+})
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockMovement {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "stock_movements_id_seq")
+    @SequenceGenerator(name = "stock_movements_id_seq", sequenceName = "stock_movements_id_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "stock_item_id", nullable = false, updatable = false)
+    private Long stockItemId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "movement_type", nullable = false, length = 20, updatable = false)
+    private StockMovementType movementType;
+
+    /** Variation signée : positive pour une entrée, négative pour une consommation. */
+    @Column(name = "quantity_delta", nullable = false, precision = 12, scale = 4, updatable = false)
+    private BigDecimal quantityDelta;
+
+    @Column(name = "batch_id", updatable = false)
+    private Long batchId;
+
+    /** Identifiant du relevé source (feeding_records, health_records) selon movementType. */
+    @Column(name = "reference_id", updatable = false)
+    private Long referenceId;
+
+    @Column(name = "occurred_at", nullable = false, updatable = false)
+    private LocalDateTime occurredAt;
+
+    /** Instantané qui inclut ce mouvement, posé par StockMovementRepository.coverSnapshottedMovements. */
+    @Column(name = "snapshot_id", insertable = false, updatable = false)
+    private Long snapshotId;
+
+    @PrePersist
+    protected void onCreate() {
+        if (occurredAt == null) {
+            occurredAt = LocalDateTime.now();
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof StockMovement)) return false;
+        StockMovement m = (StockMovement) o;
+        return Objects.equals(id, m.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+}
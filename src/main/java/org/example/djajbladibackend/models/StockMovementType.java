@@ -0,0 +1,13 @@
+package org.example.djajbladibackend.models;
+
+/**
+ * Nature d'une ligne du journal de stock (stock_movements).
+ */
+public enum StockMovementType {
+    /** Entrée en stock (création de l'article, réception). */
+    RECEIPT,
+    /** Consommation par une distribution d'aliment. */
+    FEEDING,
+    /** Consommation par un traitement sanitaire approuvé. */
+    TREATMENT
+}
@@ -0,0 +1,65 @@
+package org.example.djajbladibackend.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Control point of a strain growth curve: expected live weight (kg/bird) at a given age.
+ * Weights between two points are linearly interpolated by StrainWeightCurveService.
+ */
+@Entity
+@Table(name = "strain_weight_curves")
+@EntityListeners(AuditingEntityListener.class)
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StrainWeightCurvePoint {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "strain_weight_curves_id_seq")
+    @SequenceGenerator(name = "strain_weight_curves_id_seq", sequenceName = "strain_weight_curves_id_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false, length = 100)
+    private String strain;
+
+    @Column(name = "age_days", nullable = false)
+    private Integer ageDays;
+
+    @Column(name = "weight_kg", nullable = false, precision = 8, scale = 4)
+    private BigDecimal weightKg;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "created_by_id")
+    private User createdBy;
+
+    @CreatedDate
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @LastModifiedDate
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof StrainWeightCurvePoint)) return false;
+        StrainWeightCurvePoint that = (StrainWeightCurvePoint) o;
+        return Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+}
@@ -0,0 +1,61 @@
+package org.example.djajbladibackend.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Échéance de vaccination d'un lot pour un protocole de sa souche, maintenue par
+ * VaccinationDueService. Les lignes sont écrites par requêtes natives : l'entité ne sert qu'à la lecture.
+ */
+@Entity
+@Table(name = "vaccination_due",
+        uniqueConstraints = @UniqueConstraint(name = "uq_vac_due_batch_protocol", columnNames = {"batch_id", "protocol_id"}))
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class VaccinationDue {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "batch_id", nullable = false)
+    private Batch batch;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "protocol_id", nullable = false)
+    private VaccinationProtocol protocol;
+
+    @Column(name = "due_date", nullable = false)
+    private LocalDate dueDate;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "completed_health_record_id")
+    private HealthRecord completedHealthRecord;
+
+    @Column(name = "completed_date")
+    private LocalDate completedDate;
+
+    @Column(name = "refreshed_at", nullable = false)
+    private LocalDateTime refreshedAt;
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof VaccinationDue)) return false;
+        VaccinationDue that = (VaccinationDue) o;
+        return Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+}
@@ -34,7 +34,8 @@ import java.util.Objects;
 public class VaccinationProtocol {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "vaccination_protocols_id_seq")
+    @SequenceGenerator(name = "vaccination_protocols_id_seq", sequenceName = "vaccination_protocols_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, length = 100)
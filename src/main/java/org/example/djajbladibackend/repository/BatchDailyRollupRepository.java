@@ -0,0 +1,121 @@
+package org.example.djajbladibackend.repository;
+
+import org.example.djajbladibackend.models.BatchDailyRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface BatchDailyRollupRepository extends JpaRepository<BatchDailyRollup, Long> {
+
+    @Query("SELECT r FROM BatchDailyRollup r " +
+            "LEFT JOIN FETCH r.batch " +
+            "LEFT JOIN FETCH r.recordedBy " +
+            "WHERE r.rollupDate BETWEEN :startDate AND :endDate " +
+            "AND r.entryCount > 0")
+    List<BatchDailyRollup> findByDateRangeWithRelations(
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate);
+
+    Optional<BatchDailyRollup> findFirstByBatchIdOrderByRollupDateDesc(Long batchId);
+
+    /**
+     * Sérialise les écritures d'un même lot (verrou consultatif libéré au commit) :
+     * évite qu'une ligne créée en parallèle manque la propagation d'un cumul.
+     * Clé bigint unique : l'id du lot (BIGINT, pas de troncature) XOR l'espace de noms décalé de 32 bits,
+     * une bijection, donc une clé distincte par lot.
+     */
+    @Query(value = "SELECT 1 FROM (SELECT pg_advisory_xact_lock(" +
+            "(CAST(hashtext('batch_daily_rollup') AS BIGINT) << 32) # :batchId)) l", nativeQuery = true)
+    Integer lockBatch(@Param("batchId") Long batchId);
+
+    /**
+     * Crée la ligne du jour si absente, en reprenant les cumuls de la veille connue.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO batch_daily_rollup (batch_id, rollup_date, cumulative_feed_kg, " +
+            "       cumulative_mortality, recorded_by_id, updated_at) " +
+            "SELECT :batchId, :day, COALESCE(p.cumulative_feed_kg, 0), " +
+            "       COALESCE(p.cumulative_mortality, 0), :recordedById, CURRENT_TIMESTAMP " +
+            "FROM (SELECT 1) one " +
+            "LEFT JOIN LATERAL ( " +
+            "    SELECT r.cumulative_feed_kg, r.cumulative_mortality " +
+            "    FROM batch_daily_rollup r " +
+            "    WHERE r.batch_id = :batchId AND r.rollup_date < :day " +
+            "    ORDER BY r.rollup_date DESC LIMIT 1 " +
+            ") p ON TRUE " +
+            "ON CONFLICT (batch_id, rollup_date) DO NOTHING",
+            nativeQuery = true)
+    int insertDayIfAbsent(@Param("batchId") Long batchId,
+                          @Param("day") LocalDate day,
+                          @Param("recordedById") Long recordedById);
+
+    /**
+     * Applique un delta au jour donné et le propage aux cumuls des jours suivants (O(jours)).
+     * Le premier relevé d'alimentation du jour devient le saisisseur affiché.
+     */
+    @Modifying
+    @Query(value = "UPDATE batch_daily_rollup SET " +
+            "    recorded_by_id = CASE WHEN rollup_date = :day AND feed_kg = 0 AND :feedKg > 0 " +
+            "                          THEN :recordedById ELSE recorded_by_id END, " +
+            "    feed_kg = feed_kg + CASE WHEN rollup_date = :day THEN :feedKg ELSE 0 END, " +
+            "    mortality_count = mortality_count + CASE WHEN rollup_date = :day THEN :mortality ELSE 0 END, " +
+            "    entry_count = entry_count + CASE WHEN rollup_date = :day THEN :entries ELSE 0 END, " +
+            "    cumulative_feed_kg = cumulative_feed_kg + :feedKg, " +
+            "    cumulative_mortality = cumulative_mortality + :mortality, " +
+            "    updated_at = CURRENT_TIMESTAMP " +
+            "WHERE batch_id = :batchId AND rollup_date >= :day",
+            nativeQuery = true)
+    int applyDelta(@Param("batchId") Long batchId,
+                   @Param("day") LocalDate day,
+                   @Param("feedKg") BigDecimal feedKg,
+                   @Param("mortality") int mortality,
+                   @Param("entries") int entries,
+                   @Param("recordedById") Long recordedById);
+
+    /** Bloque les écritures incrémentales le temps d'une reconstruction complète. */
+    @Modifying
+    @Query(value = "LOCK TABLE batch_daily_rollup IN EXCLUSIVE MODE", nativeQuery = true)
+    void lockForRebuild();
+
+    @Modifying
+    @Query(value = "DELETE FROM batch_daily_rollup", nativeQuery = true)
+    int deleteAllRows();
+
+    /**
+     * Reconstruit toutes les lignes depuis feeding_records et daily_mortality_records
+     * (backfill de V26, sans le coût aliment retiré par V42).
+     */
+    @Modifying
+    @Query(value = "INSERT INTO batch_daily_rollup (batch_id, rollup_date, feed_kg, mortality_count, " +
+            "       cumulative_feed_kg, cumulative_mortality, " +
+            "       entry_count, recorded_by_id, updated_at) " +
+            "SELECT d.batch_id, d.day, d.feed_kg, d.mortality, " +
+            "       SUM(d.feed_kg) OVER w, SUM(d.mortality) OVER w, " +
+            "       d.entries, d.recorded_by_id, CURRENT_TIMESTAMP " +
+            "FROM ( " +
+            "    SELECT e.batch_id, e.day, SUM(e.feed_kg) AS feed_kg, " +
+            "           SUM(e.mortality) AS mortality, COUNT(*) AS entries, " +
+            "           (ARRAY_AGG(e.recorded_by_id ORDER BY e.priority, e.record_id))[1] AS recorded_by_id " +
+            "    FROM ( " +
+            "        SELECT f.batch_id, f.feeding_date AS day, f.quantity AS feed_kg, 0 AS mortality, " +
+            "               f.recorded_by_id, 0 AS priority, f.id AS record_id " +
+            "        FROM feeding_records f " +
+            "        UNION ALL " +
+            "        SELECT m.batch_id, m.record_date, 0, m.mortality_count, " +
+            "               m.recorded_by_id, 1, m.id " +
+            "        FROM daily_mortality_records m " +
+            "    ) e " +
+            "    GROUP BY e.batch_id, e.day " +
+            ") d " +
+            "WINDOW w AS (PARTITION BY d.batch_id ORDER BY d.day)",
+            nativeQuery = true)
+    int insertFromRecords();
+}
@@ -0,0 +1,56 @@
+package org.example.djajbladibackend.repository;
+
+import org.example.djajbladibackend.models.BatchFcrAccumulator;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Repository
+public interface BatchFcrAccumulatorRepository extends JpaRepository<BatchFcrAccumulator, Long> {
+
+    /**
+     * Ajoute un delta aux cumuls du lot (crée la ligne au premier relevé). O(1) par écriture.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO batch_fcr_accumulator (batch_id, total_feed_kg, total_mortality, " +
+            "       last_record_date, updated_at) " +
+            "VALUES (:batchId, :feedKg, :mortality, :day, CURRENT_TIMESTAMP) " +
+            "ON CONFLICT (batch_id) DO UPDATE SET " +
+            "    total_feed_kg = batch_fcr_accumulator.total_feed_kg + EXCLUDED.total_feed_kg, " +
+            "    total_mortality = batch_fcr_accumulator.total_mortality + EXCLUDED.total_mortality, " +
+            "    last_record_date = GREATEST(batch_fcr_accumulator.last_record_date, EXCLUDED.last_record_date), " +
+            "    updated_at = CURRENT_TIMESTAMP",
+            nativeQuery = true)
+    int applyDelta(@Param("batchId") Long batchId,
+                   @Param("day") LocalDate day,
+                   @Param("feedKg") BigDecimal feedKg,
+                   @Param("mortality") int mortality);
+
+    @Modifying
+    @Query(value = "DELETE FROM batch_fcr_accumulator", nativeQuery = true)
+    int deleteAllRows();
+
+    /**
+     * Reconstruit les cumuls depuis feeding_records et daily_mortality_records
+     * (même requête que le backfill de V28).
+     */
+    @Modifying
+    @Query(value = "INSERT INTO batch_fcr_accumulator (batch_id, total_feed_kg, total_mortality, " +
+            "       last_record_date, updated_at) " +
+            "SELECT e.batch_id, SUM(e.feed_kg), SUM(e.mortality), MAX(e.day), CURRENT_TIMESTAMP " +
+            "FROM ( " +
+            "    SELECT f.batch_id, f.feeding_date AS day, f.quantity AS feed_kg, 0 AS mortality " +
+            "    FROM feeding_records f " +
+            "    UNION ALL " +
+            "    SELECT m.batch_id, m.record_date, 0, m.mortality_count " +
+            "    FROM daily_mortality_records m " +
+            ") e " +
+            "GROUP BY e.batch_id",
+            nativeQuery = true)
+    int insertFromRecords();
+}
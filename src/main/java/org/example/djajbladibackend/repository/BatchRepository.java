@@ -1,18 +1,30 @@
 package org.example.djajbladibackend.repository;
 
+import jakarta.persistence.QueryHint;
 import org.example.djajbladibackend.models.Batch;
 import org.example.djajbladibackend.models.BatchStatus;
+import org.example.djajbladibackend.repository.projection.AvailableBatchView;
+import org.example.djajbladibackend.repository.projection.BatchCostBreakdownRow;
+import org.example.djajbladibackend.repository.projection.BatchCostTotalsView;
+import org.example.djajbladibackend.repository.projection.OrderReservationView;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 /**
  * Spring Boot Best Practice: Repository avec JOIN FETCH pour éviter N+1
@@ -27,6 +39,64 @@ public interface BatchRepository extends JpaRepository<Batch, Long> {
     @Query("SELECT b FROM Batch b LEFT JOIN FETCH b.createdBy LEFT JOIN FETCH b.assignedTo LEFT JOIN FETCH b.building WHERE b.id = :id")
     Optional<Batch> findByIdWithCreatedByAndBuilding(@Param("id") Long id);
 
+    /**
+     * Cout de revient en une requete : une ligne par (article de stock, type d'aliment) valorise,
+     * avec les colonnes du lot et les totaux medicaments / mortalite / ventes repetes sur chaque ligne.
+     * Une seule ligne (colonnes d'alimentation nulles) si le lot n'a aucune alimentation valorisee ;
+     * aucune ligne si le lot n'existe pas.
+     */
+    @Query(value = "WITH feed AS ( " +
+            "    SELECT s.id AS stock_item_id, s.name AS stock_item_name, f.feed_type, s.unit_price, " +
+            "           SUM(f.quantity) AS total_quantity, SUM(f.quantity * s.unit_price) AS subtotal, " +
+            "           MIN(f.id) AS first_record_id " +
+            "    FROM feeding_records f " +
+            "    JOIN stock_items s ON s.id = f.stock_item_id " +
+            "    WHERE f.batch_id = :batchId AND s.unit_price IS NOT NULL " +
+            "    GROUP BY s.id, s.name, f.feed_type, s.unit_price " +
+            ") " +
+            "SELECT b.id AS \"batchId\", b.batch_number AS \"batchNumber\", b.strain AS \"strain\", " +
+            "       b.arrival_date AS \"arrivalDate\", b.status AS \"status\", " +
+            "       b.chicken_count AS \"chickenCount\", b.purchase_price AS \"purchasePrice\", " +
+            "       (SELECT COALESCE(SUM(h.treatment_cost), 0) FROM health_records h " +
+            "        WHERE h.batch_id = b.id) AS \"medicationCost\", " +
+            "       (SELECT r.cumulative_mortality FROM batch_daily_rollup r " +
+            "        WHERE r.batch_id = b.id ORDER BY r.rollup_date DESC LIMIT 1) AS \"totalMortality\", " +
+            "       (SELECT COALESCE(SUM(sa.total_price), 0) FROM sales sa " +
+            "        WHERE sa.batch_id = b.id AND sa.payment_status <> 'Cancelled') AS \"totalRevenue\", " +
+            "       feed.stock_item_id AS \"stockItemId\", feed.stock_item_name AS \"stockItemName\", " +
+            "       feed.feed_type AS \"feedType\", feed.total_quantity AS \"totalQuantity\", " +
+            "       feed.unit_price AS \"unitPrice\", feed.subtotal AS \"subtotal\" " +
+            "FROM batches b " +
+            "LEFT JOIN feed ON TRUE " +
+            "WHERE b.id = :batchId " +
+            "ORDER BY feed.first_record_id",
+            nativeQuery = true)
+    List<BatchCostBreakdownRow> findCostBreakdown(@Param("batchId") Long batchId);
+
+    /**
+     * Totaux de cout de revient de tous les lots des statuts donnes, tries par id :
+     * chaque table source est agregee une seule fois (GROUP BY batch_id), quel que soit le nombre de lots.
+     * A consommer dans une transaction (curseur).
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "200"))
+    @Query(value = "SELECT b.id AS \"batchId\", b.batch_number AS \"batchNumber\", b.strain AS \"strain\", " +
+            "       b.arrival_date AS \"arrivalDate\", b.status AS \"status\", " +
+            "       b.chicken_count AS \"chickenCount\", b.purchase_price AS \"purchasePrice\", " +
+            "       COALESCE(h.medication_cost, 0) AS \"medicationCost\", " +
+            "       m.cumulative_mortality AS \"totalMortality\", " +
+            "       COALESCE(sa.revenue, 0) AS \"totalRevenue\" " +
+            "FROM batches b " +
+            "LEFT JOIN (SELECT batch_id, SUM(treatment_cost) AS medication_cost " +
+            "           FROM health_records GROUP BY batch_id) h ON h.batch_id = b.id " +
+            "LEFT JOIN (SELECT DISTINCT ON (batch_id) batch_id, cumulative_mortality " +
+            "           FROM batch_daily_rollup ORDER BY batch_id, rollup_date DESC) m ON m.batch_id = b.id " +
+            "LEFT JOIN (SELECT batch_id, SUM(total_price) AS revenue " +
+            "           FROM sales WHERE payment_status <> 'Cancelled' GROUP BY batch_id) sa ON sa.batch_id = b.id " +
+            "WHERE b.status IN (:statuses) " +
+            "ORDER BY b.id",
+            nativeQuery = true)
+    Stream<BatchCostTotalsView> streamCostTotalsByStatusIn(@Param("statuses") Collection<String> statuses);
+
     @Query("SELECT b FROM Batch b LEFT JOIN FETCH b.createdBy LEFT JOIN FETCH b.assignedTo WHERE b.batchNumber = :batchNumber")
     Optional<Batch> findByBatchNumberWithCreatedBy(@Param("batchNumber") String batchNumber);
 
@@ -83,6 +153,25 @@ public interface BatchRepository extends JpaRepository<Batch, Long> {
     @Query(value = "SELECT b FROM Batch b LEFT JOIN FETCH b.createdBy LEFT JOIN FETCH b.assignedTo LEFT JOIN FETCH b.building WHERE b.assignedTo.id = :assignedToId ORDER BY b.createdAt DESC",
            countQuery = "SELECT COUNT(b) FROM Batch b WHERE b.assignedTo.id = :assignedToId")
     Page<Batch> findByAssignedToIdWithRelationsPageable(@Param("assignedToId") Long assignedToId, Pageable pageable);
+
+    /**
+     * Pagination par clé (created_at, id) décroissante, sans OFFSET ni COUNT. Index idx_batch_created_at_id.
+     */
+    @Query("SELECT b FROM Batch b LEFT JOIN FETCH b.createdBy LEFT JOIN FETCH b.assignedTo LEFT JOIN FETCH b.building " +
+            "WHERE (b.createdAt, b.id) < (:afterCreatedAt, :afterId) ORDER BY b.createdAt DESC, b.id DESC")
+    List<Batch> findAllWithRelationsKeyset(@Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+                                           @Param("afterId") Long afterId,
+                                           Limit limit);
+
+    @Query("SELECT b FROM Batch b LEFT JOIN FETCH b.createdBy LEFT JOIN FETCH b.assignedTo LEFT JOIN FETCH b.building " +
+            "WHERE b.assignedTo.id = :assignedToId AND (b.createdAt, b.id) < (:afterCreatedAt, :afterId) " +
+            "ORDER BY b.createdAt DESC, b.id DESC")
+    List<Batch> findByAssignedToIdWithRelationsKeyset(@Param("assignedToId") Long assignedToId,
+                                                      @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+                                                      @Param("afterId") Long afterId,
+                                                      Limit limit);
+
+    long countByAssignedToId(Long assignedToId);
     
     @Query("SELECT b FROM Batch b LEFT JOIN FETCH b.createdBy LEFT JOIN FETCH b.assignedTo LEFT JOIN FETCH b.building WHERE b.assignedTo.id = :assignedToId ORDER BY b.createdAt DESC")
     List<Batch> findByAssignedToIdWithRelations(@Param("assignedToId") Long assignedToId);
@@ -97,17 +186,106 @@ public interface BatchRepository extends JpaRepository<Batch, Long> {
     int decrementCurrentCount(@Param("batchId") Long batchId,
                               @Param("mortalityCount") Integer mortalityCount);
 
+    /**
+     * Reserve une commande en un aller-retour : decremente l'effectif et passe le lot en SOLD s'il est epuise,
+     * seulement si toutes les regles de vente tiennent (statut, prix, retrait, minimum, stock).
+     * Aucune ligne renvoyee si une regle echoue (le lot n'est pas modifie).
+     */
+    @Query(value = "UPDATE batches SET current_count = current_count - :quantity, " +
+            "    status = CASE WHEN current_count = :quantity THEN 'SOLD' ELSE status END, " +
+            "    updated_at = :now " +
+            "WHERE id = :batchId " +
+            "AND status = 'READY_FOR_SALE' " +
+            "AND selling_price_per_unit IS NOT NULL " +
+            "AND (withdrawal_clear_date IS NULL OR withdrawal_clear_date <= CURRENT_DATE) " +
+            "AND :quantity >= COALESCE(minimum_order_quantity, 1) " +
+            "AND current_count >= :quantity " +
+            "RETURNING batch_number AS \"batchNumber\", strain AS \"strain\", " +
+            "    selling_price_per_unit AS \"sellingPricePerUnit\", current_count AS \"remainingCount\", " +
+            "    status AS \"status\"",
+            nativeQuery = true)
+    Optional<OrderReservationView> reserveForOrder(@Param("batchId") Long batchId,
+                                                   @Param("quantity") int quantity,
+                                                   @Param("now") LocalDateTime now);
+
+    @Query("SELECT b.currentCount FROM Batch b WHERE b.id = :batchId")
+    Optional<Integer> findCurrentCountById(@Param("batchId") Long batchId);
+
+    @Query("SELECT b.status FROM Batch b WHERE b.id = :batchId")
+    Optional<BatchStatus> findStatusById(@Param("batchId") Long batchId);
+
+    /**
+     * Restaure l'effectif d'une commande annulee et remet un lot SOLD en vente (UPDATE atomique).
+     */
+    @Modifying
+    @Query("UPDATE Batch b SET b.currentCount = b.currentCount + :quantity, " +
+            "b.status = CASE WHEN b.status = org.example.djajbladibackend.models.BatchStatus.SOLD " +
+            "THEN org.example.djajbladibackend.models.BatchStatus.READY_FOR_SALE ELSE b.status END, " +
+            "b.updatedAt = :now " +
+            "WHERE b.id = :batchId")
+    int restoreCancelledOrder(@Param("batchId") Long batchId,
+                              @Param("quantity") int quantity,
+                              @Param("now") LocalDateTime now);
+
+    /**
+     * Repousse la fin de retrait du lot si la nouvelle date est plus tardive (UPDATE atomique,
+     * sans lecture préalable : deux traitements concurrents ne s'écrasent pas).
+     */
+    @Modifying
+    @Query("UPDATE Batch b SET b.withdrawalClearDate = :clearDate " +
+            "WHERE b.id = :batchId AND (b.withdrawalClearDate IS NULL OR b.withdrawalClearDate < :clearDate)")
+    int raiseWithdrawalClearDate(@Param("batchId") Long batchId,
+                                 @Param("clearDate") LocalDate clearDate);
+
+    /**
+     * Recalcule la fin de retrait d'un lot depuis health_records (après rejet d'un rapport).
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE batches SET withdrawal_clear_date = ( " +
+            "    SELECT MAX(h.examination_date + h.withdrawal_days) FROM health_records h " +
+            "    WHERE h.batch_id = :batchId AND h.withdrawal_days > 0 AND h.is_vaccination = FALSE " +
+            "    AND h.approval_status IS DISTINCT FROM 'REJECTED' " +
+            ") WHERE id = :batchId",
+            nativeQuery = true)
+    int refreshWithdrawalClearDate(@Param("batchId") Long batchId);
+
+    /**
+     * Corrige les lots dont withdrawal_clear_date diverge de health_records. Retourne le nombre de lots corrigés.
+     */
+    @Modifying
+    @Query(value = "UPDATE batches b SET withdrawal_clear_date = w.clear_date " +
+            "FROM ( " +
+            "    SELECT bb.id, ( " +
+            "        SELECT MAX(h.examination_date + h.withdrawal_days) FROM health_records h " +
+            "        WHERE h.batch_id = bb.id AND h.withdrawal_days > 0 AND h.is_vaccination = FALSE " +
+            "        AND h.approval_status IS DISTINCT FROM 'REJECTED' " +
+            "    ) AS clear_date " +
+            "    FROM batches bb " +
+            ") w " +
+            "WHERE w.id = b.id AND b.withdrawal_clear_date IS DISTINCT FROM w.clear_date",
+            nativeQuery = true)
+    int reconcileWithdrawalClearDates();
+
     @Query("SELECT b FROM Batch b LEFT JOIN FETCH b.createdBy LEFT JOIN FETCH b.assignedTo LEFT JOIN FETCH b.building WHERE b.status IN :statuses ORDER BY b.createdAt DESC")
     List<Batch>  findByStatusInWithRelations(@Param("statuses") java.util.List<org.example.djajbladibackend.models.BatchStatus> statuses);
 
     /**
-     * Lots disponibles a la vente pour les clients (READY_FOR_SALE avec stock > 0 et prix defini).
+     * Catalogue client en une requete : lots READY_FOR_SALE avec stock > 0 et prix defini,
+     * sans periode de retrait active (withdrawal_clear_date du lot).
+     * current_count est deja decremente par chaque commande (et restaure a l'annulation).
      */
-    @Query("SELECT b FROM Batch b " +
-            "LEFT JOIN FETCH b.building " +
+    @Query(value = "SELECT b.id AS \"batchId\", b.batch_number AS \"batchNumber\", b.strain AS \"strain\", " +
+            "       b.current_count AS \"currentCount\", " +
+            "       b.selling_price_per_unit AS \"sellingPricePerUnit\", " +
+            "       b.minimum_order_quantity AS \"minimumOrderQuantity\", b.arrival_date AS \"arrivalDate\", " +
+            "       bu.name AS \"buildingName\" " +
+            "FROM batches b " +
+            "LEFT JOIN buildings bu ON bu.id = b.building_id " +
             "WHERE b.status = 'READY_FOR_SALE' " +
-            "AND b.currentCount > 0 " +
-            "AND b.sellingPricePerUnit IS NOT NULL " +
-            "ORDER BY b.arrivalDate DESC")
-    List<Batch> findAvailableForSale();
+            "AND b.current_count > 0 " +
+            "AND b.selling_price_per_unit IS NOT NULL " +
+            "AND (b.withdrawal_clear_date IS NULL OR b.withdrawal_clear_date <= CURRENT_DATE) " +
+            "ORDER BY b.arrival_date DESC",
+            nativeQuery = true)
+    List<AvailableBatchView> findCatalogue();
 }
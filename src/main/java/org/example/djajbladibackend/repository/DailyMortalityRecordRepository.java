@@ -1,16 +1,23 @@
 package org.example.djajbladibackend.repository;
 
+import jakarta.persistence.QueryHint;
 import org.example.djajbladibackend.models.DailyMortalityRecord;
+import org.example.djajbladibackend.repository.projection.MortalityExportRow;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface DailyMortalityRecordRepository extends JpaRepository<DailyMortalityRecord, Long> {
@@ -80,6 +87,42 @@ public interface DailyMortalityRecordRepository extends JpaRepository<DailyMorta
             Pageable pageable
     );
 
+    /**
+     * Pagination par clé (record_date, id) décroissante : lit les lignes strictement après
+     * (afterDate, afterId), sans OFFSET ni COUNT. Index idx_mortality_date_id.
+     */
+    @Query("SELECT d FROM DailyMortalityRecord d " +
+            "LEFT JOIN FETCH d.batch " +
+            "LEFT JOIN FETCH d.recordedBy " +
+            "WHERE d.recordDate BETWEEN :startDate AND :endDate " +
+            "AND (d.recordDate, d.id) < (:afterDate, :afterId) " +
+            "ORDER BY d.recordDate DESC, d.id DESC")
+    List<DailyMortalityRecord> findByDateRangeKeyset(
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate,
+            @Param("afterDate") LocalDate afterDate,
+            @Param("afterId") Long afterId,
+            Limit limit);
+
+    @Query("SELECT d FROM DailyMortalityRecord d " +
+            "LEFT JOIN FETCH d.batch " +
+            "LEFT JOIN FETCH d.recordedBy " +
+            "WHERE d.batch.id = :batchId " +
+            "AND d.recordDate BETWEEN :startDate AND :endDate " +
+            "AND (d.recordDate, d.id) < (:afterDate, :afterId) " +
+            "ORDER BY d.recordDate DESC, d.id DESC")
+    List<DailyMortalityRecord> findByBatchIdAndDateRangeKeyset(
+            @Param("batchId") Long batchId,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate,
+            @Param("afterDate") LocalDate afterDate,
+            @Param("afterId") Long afterId,
+            Limit limit);
+
+    long countByRecordDateBetween(LocalDate startDate, LocalDate endDate);
+
+    long countByBatchIdAndRecordDateBetween(Long batchId, LocalDate startDate, LocalDate endDate);
+
     @Query("SELECT COALESCE(SUM(d.mortalityCount), 0) FROM DailyMortalityRecord d WHERE d.batch.id = :batchId")
     Integer sumMortalityByBatchId(@Param("batchId") Long batchId);
 
@@ -107,4 +150,25 @@ public interface DailyMortalityRecordRepository extends JpaRepository<DailyMorta
             Long batchId,
             java.time.LocalDate recordDate,
             org.example.djajbladibackend.models.MortalitySource source);
+
+    /**
+     * Export de l'historique de mortalite, bornes de dates et lot optionnels (null = sans filtre),
+     * tri chronologique. A consommer dans une transaction (curseur).
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query(value = "SELECT d.id AS \"id\", d.batch_id AS \"batchId\", b.batch_number AS \"batchNumber\", " +
+            "       d.record_date AS \"recordDate\", d.mortality_count AS \"mortalityCount\", d.notes AS \"notes\", " +
+            "       u.id AS \"recordedById\", u.full_name AS \"recordedByName\", " +
+            "       d.created_at AS \"createdAt\", d.updated_at AS \"updatedAt\" " +
+            "FROM daily_mortality_records d " +
+            "JOIN batches b ON b.id = d.batch_id " +
+            "JOIN users u ON u.id = d.recorded_by_id " +
+            "WHERE (CAST(:startDate AS DATE) IS NULL OR d.record_date >= CAST(:startDate AS DATE)) " +
+            "  AND (CAST(:endDate AS DATE) IS NULL OR d.record_date <= CAST(:endDate AS DATE)) " +
+            "  AND (CAST(:batchId AS BIGINT) IS NULL OR d.batch_id = CAST(:batchId AS BIGINT)) " +
+            "ORDER BY d.record_date, d.id",
+            nativeQuery = true)
+    Stream<MortalityExportRow> streamForExport(@Param("startDate") LocalDate startDate,
+                                               @Param("endDate") LocalDate endDate,
+                                               @Param("batchId") Long batchId);
 }
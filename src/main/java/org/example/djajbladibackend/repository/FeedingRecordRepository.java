@@ -1,16 +1,25 @@
 package org.example.djajbladibackend.repository;
 
+import jakarta.persistence.QueryHint;
 import org.example.djajbladibackend.models.FeedingRecord;
+import org.example.djajbladibackend.repository.projection.BatchFeedLineView;
+import org.example.djajbladibackend.repository.projection.FeedingExportRow;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 /**
  * Spring Boot Best Practice: Repository avec JOIN FETCH pour éviter N+1
@@ -79,6 +88,42 @@ public interface FeedingRecordRepository extends JpaRepository<FeedingRecord, Lo
             Pageable pageable
     );
 
+    /**
+     * Pagination par clé (feeding_date, id) décroissante : lit les lignes strictement après
+     * (afterDate, afterId), sans OFFSET ni COUNT. Index idx_feeding_date_id.
+     */
+    @Query("SELECT f FROM FeedingRecord f " +
+            "LEFT JOIN FETCH f.batch " +
+            "LEFT JOIN FETCH f.recordedBy " +
+            "WHERE f.feedingDate BETWEEN :startDate AND :endDate " +
+            "AND (f.feedingDate, f.id) < (:afterDate, :afterId) " +
+            "ORDER BY f.feedingDate DESC, f.id DESC")
+    List<FeedingRecord> findByDateRangeKeyset(
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate,
+            @Param("afterDate") LocalDate afterDate,
+            @Param("afterId") Long afterId,
+            Limit limit);
+
+    @Query("SELECT f FROM FeedingRecord f " +
+            "LEFT JOIN FETCH f.batch " +
+            "LEFT JOIN FETCH f.recordedBy " +
+            "WHERE f.batch.id = :batchId " +
+            "AND f.feedingDate BETWEEN :startDate AND :endDate " +
+            "AND (f.feedingDate, f.id) < (:afterDate, :afterId) " +
+            "ORDER BY f.feedingDate DESC, f.id DESC")
+    List<FeedingRecord> findByBatchIdAndDateRangeKeyset(
+            @Param("batchId") Long batchId,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate,
+            @Param("afterDate") LocalDate afterDate,
+            @Param("afterId") Long afterId,
+            Limit limit);
+
+    long countByFeedingDateBetween(LocalDate startDate, LocalDate endDate);
+
+    long countByBatchIdAndFeedingDateBetween(Long batchId, LocalDate startDate, LocalDate endDate);
+
     List<FeedingRecord> findByBatchId(Long batchId);
 
     List<FeedingRecord> findByFeedingDateBetween(LocalDate startDate, LocalDate endDate);
@@ -93,4 +138,45 @@ public interface FeedingRecordRepository extends JpaRepository<FeedingRecord, Lo
             "LEFT JOIN FETCH f.recordedBy " +
             "WHERE f.batch.id = :batchId")
     List<FeedingRecord> findByBatchIdWithStockItem(@Param("batchId") Long batchId);
+
+    /**
+     * Alimentation valorisee (prix unitaire renseigne) groupee par lot, article de stock et type d'aliment,
+     * pour tous les lots des statuts donnes. Tri par lot puis par premier releve, comme findCostBreakdown.
+     * A consommer dans une transaction (curseur).
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query(value = "SELECT f.batch_id AS \"batchId\", s.id AS \"stockItemId\", s.name AS \"stockItemName\", " +
+            "       f.feed_type AS \"feedType\", SUM(f.quantity) AS \"totalQuantity\", " +
+            "       s.unit_price AS \"unitPrice\", SUM(f.quantity * s.unit_price) AS \"subtotal\" " +
+            "FROM feeding_records f " +
+            "JOIN stock_items s ON s.id = f.stock_item_id " +
+            "JOIN batches b ON b.id = f.batch_id " +
+            "WHERE s.unit_price IS NOT NULL AND b.status IN (:statuses) " +
+            "GROUP BY f.batch_id, s.id, s.name, f.feed_type, s.unit_price " +
+            "ORDER BY f.batch_id, MIN(f.id)",
+            nativeQuery = true)
+    Stream<BatchFeedLineView> streamPricedFeedLinesByBatchStatusIn(@Param("statuses") Collection<String> statuses);
+
+    /**
+     * Export de l'historique d'alimentation, bornes de dates et lot optionnels (null = sans filtre),
+     * tri chronologique. A consommer dans une transaction (curseur).
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query(value = "SELECT f.id AS \"id\", f.batch_id AS \"batchId\", b.batch_number AS \"batchNumber\", " +
+            "       s.id AS \"stockItemId\", s.name AS \"stockItemName\", f.feed_type AS \"feedType\", " +
+            "       f.quantity AS \"quantity\", f.feeding_date AS \"feedingDate\", f.notes AS \"notes\", " +
+            "       u.id AS \"recordedById\", u.full_name AS \"recordedByName\", " +
+            "       f.created_at AS \"createdAt\", f.updated_at AS \"updatedAt\" " +
+            "FROM feeding_records f " +
+            "JOIN batches b ON b.id = f.batch_id " +
+            "JOIN users u ON u.id = f.recorded_by_id " +
+            "LEFT JOIN stock_items s ON s.id = f.stock_item_id " +
+            "WHERE (CAST(:startDate AS DATE) IS NULL OR f.feeding_date >= CAST(:startDate AS DATE)) " +
+            "  AND (CAST(:endDate AS DATE) IS NULL OR f.feeding_date <= CAST(:endDate AS DATE)) " +
+            "  AND (CAST(:batchId AS BIGINT) IS NULL OR f.batch_id = CAST(:batchId AS BIGINT)) " +
+            "ORDER BY f.feeding_date, f.id",
+            nativeQuery = true)
+    Stream<FeedingExportRow> streamForExport(@Param("startDate") LocalDate startDate,
+                                             @Param("endDate") LocalDate endDate,
+                                             @Param("batchId") Long batchId);
 }
@@ -76,29 +76,6 @@ public interface HealthRecordRepository extends JpaRepository<HealthRecord, Long
     @Query("SELECT COALESCE(SUM(h.treatmentCost), 0) FROM HealthRecord h WHERE h.batch.id = :batchId")
     java.math.BigDecimal sumTreatmentCostByBatchId(@Param("batchId") Long batchId);
 
-    /**
-     * Returns health records for a batch that still have an active withdrawal period today.
-     * Only non-vaccination records with withdrawalDays > 0 where today < examinationDate + withdrawalDays.
-     */
-    @Query(value = "SELECT h.* FROM health_records h " +
-            "WHERE h.batch_id = :batchId " +
-            "AND h.withdrawal_days IS NOT NULL " +
-            "AND h.withdrawal_days > 0 " +
-            "AND h.is_vaccination = false " +
-            "AND (h.examination_date + h.withdrawal_days) > CURRENT_DATE", nativeQuery = true)
-    List<HealthRecord> findActiveWithdrawalPeriods(@Param("batchId") Long batchId);
-
-    /**
-     * Returns the latest withdrawal expiration date across all non-vaccination health records for a batch.
-     */
-    @Query(value = "SELECT MAX(h.examination_date + h.withdrawal_days) " +
-            "FROM health_records h " +
-            "WHERE h.batch_id = :batchId " +
-            "AND h.withdrawal_days IS NOT NULL " +
-            "AND h.withdrawal_days > 0 " +
-            "AND h.is_vaccination = false", nativeQuery = true)
-    java.time.LocalDate findLatestWithdrawalExpiration(@Param("batchId") Long batchId);
-
     /**
      * Returns vaccination health records for a batch matching a given vaccine name.
      */
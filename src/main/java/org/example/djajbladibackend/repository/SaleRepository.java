@@ -3,11 +3,14 @@ package org.example.djajbladibackend.repository;
 import org.example.djajbladibackend.models.PaymentStatus;
 import org.example.djajbladibackend.models.Sale;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -122,10 +125,29 @@ public interface SaleRepository extends JpaRepository<Sale, Long> {
     long countByClientIdAndPaymentStatus(@Param("clientId") Long clientId, @Param("status") PaymentStatus status);
 
     /**
-     * Quantite totale deja vendue (non annulee) pour un lot.
-     * Utile pour calculer le stock restant disponible a la vente.
+     * Commande deja creee avec cette cle d'idempotence (rejeu d'un envoi en double).
      */
-    @Query("SELECT COALESCE(SUM(s.quantity), 0) FROM Sale s " +
-            "WHERE s.batch.id = :batchId AND s.paymentStatus != 'Cancelled'")
-    int sumSoldQuantityByBatchId(@Param("batchId") Long batchId);
+    @Query("SELECT s FROM Sale s " +
+            "LEFT JOIN FETCH s.batch " +
+            "WHERE s.client.id = :clientId AND s.idempotencyKey = :idempotencyKey")
+    Optional<Sale> findByClientIdAndIdempotencyKey(@Param("clientId") Long clientId,
+                                                   @Param("idempotencyKey") String idempotencyKey);
+
+    /**
+     * Commandes deja creees avec l'une de ces cles, tous clients confondus (ecriture groupee de la vente flash) :
+     * l'appelant rapproche chaque commande de son client.
+     */
+    @Query("SELECT s FROM Sale s " +
+            "LEFT JOIN FETCH s.batch " +
+            "WHERE s.idempotencyKey IN :keys")
+    List<Sale> findByIdempotencyKeyIn(@Param("keys") Collection<String> keys);
+
+    /**
+     * Annulation conditionnelle : seule la premiere de deux annulations simultanees passe (1 ligne),
+     * la seconde trouve la commande deja annulee (0 ligne) et ne restaure pas le stock une deuxieme fois.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Sale s SET s.paymentStatus = 'Cancelled', s.updatedAt = :now " +
+            "WHERE s.id = :id AND s.paymentStatus = 'Pending'")
+    int cancelIfPending(@Param("id") Long id, @Param("now") LocalDateTime now);
 }
@@ -1,16 +1,17 @@
 package org.example.djajbladibackend.repository;
 
-import jakarta.persistence.LockModeType;
 import org.example.djajbladibackend.models.StockItem;
 import org.example.djajbladibackend.models.StockType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 
@@ -24,11 +25,18 @@ public interface StockItemRepository extends JpaRepository<StockItem, Long> {
     Page<StockItem> findAllByOrderByTypeAscNameAsc(Pageable pageable);
 
     /**
-     * Pessimistic write lock : bloque la ligne en base jusqu'a la fin de la transaction.
-     * Indispensable pour eviter les race conditions quand plusieurs ouvriers
-     * consomment le meme item de stock simultanement.
+     * Deduction atomique conditionnelle : le verrou de ligne n'est pris que par cet UPDATE
+     * (jusqu'au commit), au lieu d'un SELECT ... FOR UPDATE tenu pendant toute la transaction.
+     * Returns 1 if the quantity was deducted, 0 if the item is missing or quantity < requested.
      */
-    @Lock(LockModeType.PESSIMISTIC_WRITE)
-    @Query("SELECT s FROM StockItem s WHERE s.id = :id")
-    Optional<StockItem> findByIdForUpdate(@Param("id") Long id);
+    @Modifying
+    @Query("UPDATE StockItem s SET s.quantity = s.quantity - :quantity, s.updatedAt = :now " +
+            "WHERE s.id = :id AND s.quantity >= :quantity")
+    int deductIfAvailable(@Param("id") Long id,
+                          @Param("quantity") BigDecimal quantity,
+                          @Param("now") Instant now);
+
+    /** Quantite lue en base (ignore l'entite eventuellement chargee dans le contexte de persistance). */
+    @Query("SELECT s.quantity FROM StockItem s WHERE s.id = :id")
+    Optional<BigDecimal> findQuantityById(@Param("id") Long id);
 }
@@ -0,0 +1,107 @@
+package org.example.djajbladibackend.repository;
+
+import org.example.djajbladibackend.models.StockMovement;
+import org.example.djajbladibackend.repository.projection.StockBalanceView;
+import org.example.djajbladibackend.repository.projection.StockConsumptionView;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface StockMovementRepository extends JpaRepository<StockMovement, Long> {
+
+    /**
+     * Solde courant d'un article : dernier instantané + mouvements qu'aucun instantané n'inclut encore
+     * (idx_stock_movement_unsnapshotted). Les ids, alloués par blocs, ne suivent pas l'ordre de validation :
+     * ils ne servent pas de repère.
+     */
+    @Query(value = "SELECT i.id AS \"stockItemId\", i.name AS \"stockItemName\", i.type AS \"type\", i.unit AS \"unit\", " +
+            "       COALESCE(s.balance, 0) + COALESCE(d.delta, 0) AS \"balance\" " +
+            "FROM stock_items i " +
+            "LEFT JOIN LATERAL ( " +
+            "    SELECT sn.balance FROM stock_balance_snapshots sn " +
+            "    WHERE sn.stock_item_id = i.id ORDER BY sn.id DESC LIMIT 1 " +
+            ") s ON TRUE " +
+            "LEFT JOIN LATERAL ( " +
+            "    SELECT SUM(m.quantity_delta) AS delta FROM stock_movements m " +
+            "    WHERE m.stock_item_id = i.id AND m.snapshot_id IS NULL " +
+            ") d ON TRUE " +
+            "WHERE i.id = :stockItemId",
+            nativeQuery = true)
+    Optional<StockBalanceView> findBalance(@Param("stockItemId") Long stockItemId);
+
+    /**
+     * Inventaire à une date de coupure : pour chaque article créé avant la coupure, dernier instantané
+     * pris avant la coupure + mouvements survenus avant la coupure qu'il n'inclut pas (sans instantané,
+     * ou inclus par un instantané ultérieur : les ids d'instantané croissent, voir {@link #lockForSnapshot()}).
+     */
+    @Query(value = "SELECT i.id AS \"stockItemId\", i.name AS \"stockItemName\", i.type AS \"type\", i.unit AS \"unit\", " +
+            "       COALESCE(s.balance, 0) + COALESCE(d.delta, 0) AS \"balance\" " +
+            "FROM stock_items i " +
+            "LEFT JOIN LATERAL ( " +
+            "    SELECT sn.id, sn.balance FROM stock_balance_snapshots sn " +
+            "    WHERE sn.stock_item_id = i.id AND sn.taken_at <= :cutoff " +
+            "    ORDER BY sn.id DESC LIMIT 1 " +
+            ") s ON TRUE " +
+            "LEFT JOIN LATERAL ( " +
+            "    SELECT SUM(m.quantity_delta) AS delta FROM stock_movements m " +
+            "    WHERE m.stock_item_id = i.id AND m.occurred_at < :cutoff " +
+            "      AND (m.snapshot_id IS NULL OR m.snapshot_id > COALESCE(s.id, 0)) " +
+            ") d ON TRUE " +
+            "WHERE i.created_at < :cutoff " +
+            "ORDER BY i.type, i.name, i.id",
+            nativeQuery = true)
+    List<StockBalanceView> findInventoryAt(@Param("cutoff") LocalDateTime cutoff);
+
+    @Query(value = "SELECT m.stock_item_id AS \"stockItemId\", i.name AS \"stockItemName\", i.unit AS \"unit\", " +
+            "       m.movement_type AS \"movementType\", -SUM(m.quantity_delta) AS \"quantity\" " +
+            "FROM stock_movements m " +
+            "JOIN stock_items i ON i.id = m.stock_item_id " +
+            "WHERE m.batch_id = :batchId " +
+            "GROUP BY m.stock_item_id, i.name, i.unit, m.movement_type " +
+            "ORDER BY i.name, m.stock_item_id, m.movement_type",
+            nativeQuery = true)
+    List<StockConsumptionView> findConsumptionByBatch(@Param("batchId") Long batchId);
+
+    /**
+     * Attend la fin des transactions qui écrivent dans le journal et bloque les nouvelles, ainsi que
+     * tout autre instantané, jusqu'au commit : les mouvements sans instantané ne changent pas entre
+     * {@link #insertSnapshots()} et {@link #coverSnapshottedMovements()}, et les ids d'instantané
+     * croissent dans l'ordre de prise.
+     */
+    @Modifying
+    @Query(value = "LOCK TABLE stock_movements IN SHARE ROW EXCLUSIVE MODE", nativeQuery = true)
+    void lockForSnapshot();
+
+    /**
+     * Nouvel instantané pour chaque article ayant des mouvements qu'aucun instantané n'inclut.
+     * taken_at = clock_timestamp() : postérieur à tous les mouvements inclus.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO stock_balance_snapshots (stock_item_id, last_movement_id, balance, taken_at) " +
+            "SELECT m.stock_item_id, MAX(m.id), COALESCE(MAX(s.balance), 0) + SUM(m.quantity_delta), clock_timestamp() " +
+            "FROM stock_movements m " +
+            "LEFT JOIN LATERAL ( " +
+            "    SELECT sn.balance FROM stock_balance_snapshots sn " +
+            "    WHERE sn.stock_item_id = m.stock_item_id ORDER BY sn.id DESC LIMIT 1 " +
+            ") s ON TRUE " +
+            "WHERE m.snapshot_id IS NULL " +
+            "GROUP BY m.stock_item_id",
+            nativeQuery = true)
+    int insertSnapshots();
+
+    /** Rattache les mouvements sans instantané au dernier instantané de leur article (pris juste avant). */
+    @Modifying
+    @Query(value = "UPDATE stock_movements m SET snapshot_id = ( " +
+            "    SELECT MAX(sn.id) FROM stock_balance_snapshots sn WHERE sn.stock_item_id = m.stock_item_id " +
+            ") " +
+            "WHERE m.snapshot_id IS NULL",
+            nativeQuery = true)
+    int coverSnapshottedMovements();
+}
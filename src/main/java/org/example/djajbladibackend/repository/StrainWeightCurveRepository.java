@@ -0,0 +1,34 @@
+package org.example.djajbladibackend.repository;
+
+import org.example.djajbladibackend.models.StrainWeightCurvePoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface StrainWeightCurveRepository extends JpaRepository<StrainWeightCurvePoint, Long> {
+
+    List<StrainWeightCurvePoint> findAllByOrderByStrainAscAgeDaysAsc();
+
+    @Query("SELECT p FROM StrainWeightCurvePoint p " +
+            "WHERE LOWER(p.strain) = LOWER(:strain) " +
+            "ORDER BY p.ageDays ASC")
+    List<StrainWeightCurvePoint> findByStrainIgnoreCase(@Param("strain") String strain);
+
+    /** Suppression immédiate (avant les inserts du remplacement : index unique strain/âge). */
+    @Modifying
+    @Query("DELETE FROM StrainWeightCurvePoint p WHERE LOWER(p.strain) = LOWER(:strain)")
+    int deleteByStrainIgnoreCase(@Param("strain") String strain);
+
+    /**
+     * Empreinte de la table (nombre de points + dernière modification) : détecte les changements
+     * faits par une autre instance sans relire les courbes.
+     */
+    @Query(value = "SELECT COUNT(*) || '|' || COALESCE(CAST(MAX(updated_at) AS TEXT), '') " +
+            "FROM strain_weight_curves", nativeQuery = true)
+    String fingerprint();
+}
@@ -0,0 +1,95 @@
+package org.example.djajbladibackend.repository;
+
+import org.example.djajbladibackend.models.VaccinationDue;
+import org.example.djajbladibackend.repository.projection.VaccinationAlertView;
+import org.example.djajbladibackend.repository.projection.VaccinationScheduleView;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface VaccinationDueRepository extends JpaRepository<VaccinationDue, Long> {
+
+    /** Sélection commune aux recalculs : échéance et premier acte réalisant chaque protocole. */
+    String DUE_ROWS = "SELECT b.id, vp.id, b.arrival_date + vp.day_of_life, c.id, c.examination_date, CURRENT_TIMESTAMP " +
+            "FROM batches b " +
+            "JOIN vaccination_protocols vp ON vp.strain = b.strain " +
+            "LEFT JOIN LATERAL ( " +
+            "    SELECT hr.id, hr.examination_date FROM health_records hr " +
+            "    WHERE hr.batch_id = b.id AND hr.is_vaccination = TRUE " +
+            "    AND strpos(LOWER(hr.diagnosis), LOWER(vp.vaccine_name)) > 0 " +
+            "    ORDER BY hr.id LIMIT 1 " +
+            ") c ON TRUE ";
+
+    String INSERT_DUE = "INSERT INTO vaccination_due (batch_id, protocol_id, due_date, " +
+            "       completed_health_record_id, completed_date, refreshed_at) ";
+
+    String ON_CONFLICT = "ON CONFLICT (batch_id, protocol_id) DO UPDATE SET " +
+            "    due_date = EXCLUDED.due_date, " +
+            "    completed_health_record_id = EXCLUDED.completed_health_record_id, " +
+            "    completed_date = EXCLUDED.completed_date, " +
+            "    refreshed_at = EXCLUDED.refreshed_at";
+
+    /**
+     * Échéances non réalisées des lots actifs jusqu'à upTo inclus (parcours de idx_vac_due_open_due_date).
+     */
+    @Query(value = "SELECT b.id AS \"batchId\", b.batch_number AS \"batchNumber\", b.strain AS \"strain\", " +
+            "       vp.id AS \"protocolId\", vp.vaccine_name AS \"vaccineName\", d.due_date AS \"dueDate\", " +
+            "       GREATEST(0, :today - d.due_date) AS \"daysOverdue\", d.due_date < :today AS \"isOverdue\" " +
+            "FROM vaccination_due d " +
+            "JOIN batches b ON b.id = d.batch_id " +
+            "JOIN vaccination_protocols vp ON vp.id = d.protocol_id " +
+            "WHERE d.completed_health_record_id IS NULL " +
+            "AND d.due_date <= :upTo " +
+            "AND b.status = 'Active' " +
+            "ORDER BY b.id, vp.day_of_life, vp.id",
+            nativeQuery = true)
+    List<VaccinationAlertView> findOpenAlertsDueBy(@Param("today") LocalDate today,
+                                                   @Param("upTo") LocalDate upTo);
+
+    @Query(value = "SELECT vp.id AS \"protocolId\", vp.vaccine_name AS \"vaccineName\", vp.day_of_life AS \"dayOfLife\", " +
+            "       d.due_date AS \"dueDate\", d.completed_health_record_id AS \"completedHealthRecordId\", " +
+            "       d.completed_date AS \"completedDate\" " +
+            "FROM vaccination_due d " +
+            "JOIN vaccination_protocols vp ON vp.id = d.protocol_id " +
+            "WHERE d.batch_id = :batchId " +
+            "ORDER BY vp.day_of_life, vp.id",
+            nativeQuery = true)
+    List<VaccinationScheduleView> findScheduleByBatchId(@Param("batchId") Long batchId);
+
+    @Modifying
+    @Query(value = "DELETE FROM vaccination_due WHERE batch_id = :batchId", nativeQuery = true)
+    int deleteByBatchId(@Param("batchId") Long batchId);
+
+    @Modifying
+    @Query(value = INSERT_DUE + DUE_ROWS + "WHERE b.id = :batchId " + ON_CONFLICT, nativeQuery = true)
+    int insertForBatch(@Param("batchId") Long batchId);
+
+    @Modifying
+    @Query(value = "DELETE FROM vaccination_due d USING batches b " +
+            "WHERE b.id = d.batch_id AND b.strain = :strain", nativeQuery = true)
+    int deleteByStrain(@Param("strain") String strain);
+
+    @Modifying
+    @Query(value = INSERT_DUE + DUE_ROWS + "WHERE b.strain = :strain " + ON_CONFLICT, nativeQuery = true)
+    int insertForStrain(@Param("strain") String strain);
+
+    /** Bloque les recalculs incrémentaux le temps d'une reconstruction complète. */
+    @Modifying
+    @Query(value = "LOCK TABLE vaccination_due IN EXCLUSIVE MODE", nativeQuery = true)
+    void lockForRebuild();
+
+    @Modifying
+    @Query(value = "DELETE FROM vaccination_due", nativeQuery = true)
+    int deleteAllRows();
+
+    /** Même requête que le backfill de V32. */
+    @Modifying
+    @Query(value = INSERT_DUE + DUE_ROWS, nativeQuery = true)
+    int insertAll();
+}
@@ -30,4 +30,12 @@ public interface VaccinationProtocolRepository extends JpaRepository<Vaccination
             "LEFT JOIN FETCH vp.createdBy " +
             "WHERE vp.id = :id")
     java.util.Optional<VaccinationProtocol> findByIdWithCreatedBy(@Param("id") Long id);
+
+    /**
+     * Empreinte de la table (nombre de protocoles + dernière modification) : détecte les changements
+     * faits par une autre instance sans relire les protocoles.
+     */
+    @Query(value = "SELECT COUNT(*) || '|' || COALESCE(CAST(MAX(updated_at) AS TEXT), '') " +
+            "FROM vaccination_protocols", nativeQuery = true)
+    String fingerprint();
 }
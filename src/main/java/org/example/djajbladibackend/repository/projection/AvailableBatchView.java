@@ -0,0 +1,26 @@
+package org.example.djajbladibackend.repository.projection;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Ligne du catalogue client : lot en vente et batiment lus en une requete.
+ */
+public interface AvailableBatchView {
+
+    Long getBatchId();
+
+    String getBatchNumber();
+
+    String getStrain();
+
+    Integer getCurrentCount();
+
+    BigDecimal getSellingPricePerUnit();
+
+    Integer getMinimumOrderQuantity();
+
+    LocalDate getArrivalDate();
+
+    String getBuildingName();
+}
@@ -0,0 +1,8 @@
+package org.example.djajbladibackend.repository.projection;
+
+/**
+ * Ligne de BatchRepository#findCostBreakdown : colonnes du lot et totaux répétés sur chaque
+ * ligne d'alimentation (stockItemId null si le lot n'a aucune alimentation valorisée).
+ */
+public interface BatchCostBreakdownRow extends BatchCostTotalsView, BatchFeedLineView {
+}
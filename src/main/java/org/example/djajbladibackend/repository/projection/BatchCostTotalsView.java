@@ -0,0 +1,30 @@
+package org.example.djajbladibackend.repository.projection;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Colonnes du lot et totaux medicaments / mortalite / ventes servant au cout de revient.
+ */
+public interface BatchCostTotalsView {
+
+    Long getBatchId();
+
+    String getBatchNumber();
+
+    String getStrain();
+
+    LocalDate getArrivalDate();
+
+    String getStatus();
+
+    Integer getChickenCount();
+
+    BigDecimal getPurchasePrice();
+
+    BigDecimal getMedicationCost();
+
+    Integer getTotalMortality();
+
+    BigDecimal getTotalRevenue();
+}
@@ -0,0 +1,23 @@
+package org.example.djajbladibackend.repository.projection;
+
+import java.math.BigDecimal;
+
+/**
+ * Alimentation valorisee d'un lot, groupee par article de stock et type d'aliment.
+ */
+public interface BatchFeedLineView {
+
+    Long getBatchId();
+
+    Long getStockItemId();
+
+    String getStockItemName();
+
+    String getFeedType();
+
+    BigDecimal getTotalQuantity();
+
+    BigDecimal getUnitPrice();
+
+    BigDecimal getSubtotal();
+}
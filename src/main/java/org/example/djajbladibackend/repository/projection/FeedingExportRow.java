@@ -0,0 +1,37 @@
+package org.example.djajbladibackend.repository.projection;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Ligne d'export d'un releve d'alimentation (colonnes a plat, sans entite chargee).
+ */
+public interface FeedingExportRow {
+
+    Long getId();
+
+    Long getBatchId();
+
+    String getBatchNumber();
+
+    Long getStockItemId();
+
+    String getStockItemName();
+
+    String getFeedType();
+
+    BigDecimal getQuantity();
+
+    LocalDate getFeedingDate();
+
+    String getNotes();
+
+    Long getRecordedById();
+
+    String getRecordedByName();
+
+    LocalDateTime getCreatedAt();
+
+    LocalDateTime getUpdatedAt();
+}
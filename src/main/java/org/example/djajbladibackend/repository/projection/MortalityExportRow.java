@@ -0,0 +1,30 @@
+package org.example.djajbladibackend.repository.projection;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Ligne d'export d'un releve de mortalite (colonnes a plat, sans entite chargee).
+ */
+public interface MortalityExportRow {
+
+    Long getId();
+
+    Long getBatchId();
+
+    String getBatchNumber();
+
+    LocalDate getRecordDate();
+
+    Integer getMortalityCount();
+
+    String getNotes();
+
+    Long getRecordedById();
+
+    String getRecordedByName();
+
+    LocalDateTime getCreatedAt();
+
+    LocalDateTime getUpdatedAt();
+}
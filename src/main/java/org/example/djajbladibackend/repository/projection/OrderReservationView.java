@@ -0,0 +1,20 @@
+package org.example.djajbladibackend.repository.projection;
+
+import java.math.BigDecimal;
+
+/**
+ * Lot reserve par une commande : colonnes renvoyees par le RETURNING de l'UPDATE conditionnel
+ * (effectif restant et statut apres decrementation).
+ */
+public interface OrderReservationView {
+
+    String getBatchNumber();
+
+    String getStrain();
+
+    BigDecimal getSellingPricePerUnit();
+
+    Integer getRemainingCount();
+
+    String getStatus();
+}
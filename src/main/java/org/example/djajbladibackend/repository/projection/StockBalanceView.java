@@ -0,0 +1,19 @@
+package org.example.djajbladibackend.repository.projection;
+
+import java.math.BigDecimal;
+
+/**
+ * Solde d'un article calcule depuis le journal (instantane + mouvements posterieurs).
+ */
+public interface StockBalanceView {
+
+    Long getStockItemId();
+
+    String getStockItemName();
+
+    String getType();
+
+    String getUnit();
+
+    BigDecimal getBalance();
+}
@@ -0,0 +1,19 @@
+package org.example.djajbladibackend.repository.projection;
+
+import java.math.BigDecimal;
+
+/**
+ * Consommation d'un lot par article de stock et nature de mouvement.
+ */
+public interface StockConsumptionView {
+
+    Long getStockItemId();
+
+    String getStockItemName();
+
+    String getUnit();
+
+    String getMovementType();
+
+    BigDecimal getQuantity();
+}
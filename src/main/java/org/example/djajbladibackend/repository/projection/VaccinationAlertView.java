@@ -0,0 +1,25 @@
+package org.example.djajbladibackend.repository.projection;
+
+import java.time.LocalDate;
+
+/**
+ * Ligne de la vue vaccination_alerts (protocole non realise d'un lot actif).
+ */
+public interface VaccinationAlertView {
+
+    Long getBatchId();
+
+    String getBatchNumber();
+
+    String getStrain();
+
+    Long getProtocolId();
+
+    String getVaccineName();
+
+    LocalDate getDueDate();
+
+    Integer getDaysOverdue();
+
+    Boolean getIsOverdue();
+}
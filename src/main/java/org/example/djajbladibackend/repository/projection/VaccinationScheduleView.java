@@ -0,0 +1,21 @@
+package org.example.djajbladibackend.repository.projection;
+
+import java.time.LocalDate;
+
+/**
+ * Échéance d'un protocole pour un lot, lue dans vaccination_due.
+ */
+public interface VaccinationScheduleView {
+
+    Long getProtocolId();
+
+    String getVaccineName();
+
+    Integer getDayOfLife();
+
+    LocalDate getDueDate();
+
+    Long getCompletedHealthRecordId();
+
+    LocalDate getCompletedDate();
+}
@@ -93,6 +93,7 @@ public class SecurityConfig {
             .authorizeHttpRequests(auth -> auth
                 .requestMatchers("/api/auth/**").permitAll()
                 .requestMatchers("/actuator/health/**").permitAll()
+                .requestMatchers("/actuator/metrics/**").hasRole("ADMIN")
                 .requestMatchers("/api/admin/**", "/api/dashboard/admin/**").hasRole("ADMIN")
                 .requestMatchers("/api/ouvrier/**", "/api/dashboard/ouvrier/**").hasAnyRole("ADMIN", "OUVRIER")
                 .requestMatchers("/api/vet/**", "/api/dashboard/vet/**").hasAnyRole("ADMIN", "VETERINAIRE")
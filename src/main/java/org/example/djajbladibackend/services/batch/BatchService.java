@@ -3,6 +3,7 @@ package org.example.djajbladibackend.services.batch;
 import lombok.extern.slf4j.Slf4j;
 import org.example.djajbladibackend.dto.batch.BatchCreateRequest;
 import org.example.djajbladibackend.dto.batch.BatchResponse;
+import org.example.djajbladibackend.dto.common.KeysetCursor;
 import org.example.djajbladibackend.dto.common.PageResponse;
 import org.example.djajbladibackend.exception.DuplicateBatchNumberException;
 import org.example.djajbladibackend.exception.ResourceNotFoundException;
@@ -10,37 +11,49 @@ import org.example.djajbladibackend.exception.WithdrawalPeriodActiveException;
 import org.example.djajbladibackend.models.Batch;
 import org.example.djajbladibackend.models.BatchStatus;
 import org.example.djajbladibackend.models.Building;
-import org.example.djajbladibackend.models.HealthRecord;
 import org.example.djajbladibackend.repository.BatchRepository;
 import org.example.djajbladibackend.repository.BuildingRepository;
-import org.example.djajbladibackend.repository.HealthRecordRepository;
 import org.example.djajbladibackend.repository.auth.UserRepository;
+import org.example.djajbladibackend.services.dashboard.SupervisionDashboardSnapshotService;
+import org.example.djajbladibackend.services.financial.BatchCostService;
+import org.example.djajbladibackend.services.vaccination.VaccinationDueService;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Function;
 
 @Service
 @Transactional(readOnly = true)
 @Slf4j
 public class BatchService {
 
+    /** Position avant le lot le plus recent (borne haute des timestamps PostgreSQL). */
+    private static final KeysetCursor FIRST_BATCH_CURSOR = KeysetCursor.of(LocalDateTime.of(9999, 12, 31, 0, 0), 0L);
+
     private final BatchRepository batchRepository;
     private final BuildingRepository buildingRepository;
     private final UserRepository userRepository;
-    private final HealthRecordRepository healthRecordRepository;
+    private final BatchCostService batchCostService;
+    private final VaccinationDueService vaccinationDueService;
+    private final SupervisionDashboardSnapshotService dashboardSnapshotService;
 
     public BatchService(BatchRepository batchRepository,
                         BuildingRepository buildingRepository,
                         UserRepository userRepository,
-                        HealthRecordRepository healthRecordRepository) {
+                        BatchCostService batchCostService,
+                        VaccinationDueService vaccinationDueService,
+                        SupervisionDashboardSnapshotService dashboardSnapshotService) {
         this.batchRepository = batchRepository;
         this.buildingRepository = buildingRepository;
         this.userRepository = userRepository;
-        this.healthRecordRepository = healthRecordRepository;
+        this.batchCostService = batchCostService;
+        this.vaccinationDueService = vaccinationDueService;
+        this.dashboardSnapshotService = dashboardSnapshotService;
     }
 
     @Transactional
@@ -70,6 +83,7 @@ public class BatchService {
                 .assignedTo(assignedTo)
                 .build();
         Batch saved = batchRepository.save(b);
+        vaccinationDueService.refreshBatch(saved.getId());
         return toResponse(saved);
     }
 
@@ -106,6 +120,9 @@ public class BatchService {
         b.setStatus(req.getStatus());
 
         Batch saved = batchRepository.save(b);
+        batchCostService.evictCachedCost(saved.getId());
+        vaccinationDueService.refreshBatch(saved.getId());
+        dashboardSnapshotService.markStaleAfterCommit();
         return toResponse(saved);
     }
 
@@ -129,6 +146,35 @@ public class BatchService {
         return findByAssignedUser(user.getId(), page, size);
     }
 
+    /**
+     * Pagination par clé (created_at, id) : cout constant quelle que soit la profondeur.
+     * cursor null ou vide = premiere page ; le COUNT n'est execute que si withTotal.
+     */
+    public PageResponse<BatchResponse> findAllKeyset(String cursor, int size, boolean withTotal) {
+        return findAllKeyset(cursor, size, withTotal, this::toResponse);
+    }
+
+    /** Variante avec projection fournie par l'appelant (vue veterinaire restreinte). */
+    public <T> PageResponse<T> findAllKeyset(String cursor, int size, boolean withTotal, Function<Batch, T> mapper) {
+        boolean first = cursor == null || cursor.isBlank();
+        KeysetCursor after = first ? FIRST_BATCH_CURSOR : KeysetCursor.decode(cursor);
+        List<Batch> rows = batchRepository.findAllWithRelationsKeyset(
+                after.dateTimeKey(), after.id(), PageResponse.keysetLimit(size));
+        return PageResponse.keyset(rows, size, first, b -> KeysetCursor.of(b.getCreatedAt(), b.getId()),
+                mapper, withTotal ? batchRepository.count() : null);
+    }
+
+    public PageResponse<BatchResponse> findByAssignedUserEmailKeyset(String email, String cursor, int size, boolean withTotal) {
+        var user = userRepository.findByEmail(email)
+                .orElseThrow(() -> new ResourceNotFoundException("Utilisateur introuvable : " + email));
+        boolean first = cursor == null || cursor.isBlank();
+        KeysetCursor after = first ? FIRST_BATCH_CURSOR : KeysetCursor.decode(cursor);
+        List<Batch> rows = batchRepository.findByAssignedToIdWithRelationsKeyset(
+                user.getId(), after.dateTimeKey(), after.id(), PageResponse.keysetLimit(size));
+        return PageResponse.keyset(rows, size, first, b -> KeysetCursor.of(b.getCreatedAt(), b.getId()),
+                this::toResponse, withTotal ? batchRepository.countByAssignedToId(user.getId()) : null);
+    }
+
     public BatchResponse findById(Long id) {
         Batch b = batchRepository.findByIdWithCreatedByAndBuilding(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Batch", "id", id));
@@ -137,11 +183,11 @@ public class BatchService {
 
     /**
      * Returns true if the batch has no active withdrawal periods, allowing sale.
+     * Reads the batch's withdrawal_clear_date (maintained by health record writes).
      * Requirements: 1.2, 1.5
      */
     public boolean isBatchSellable(Long batchId) {
-        List<HealthRecord> activeWithdrawals = healthRecordRepository.findActiveWithdrawalPeriods(batchId);
-        return activeWithdrawals.isEmpty();
+        return loadBatch(batchId).isWithdrawalClear(LocalDate.now());
     }
 
     /**
@@ -149,8 +195,7 @@ public class BatchService {
      * Requirements: 1.4, 7.4
      */
     public Optional<LocalDate> getWithdrawalExpirationDate(Long batchId) {
-        LocalDate expiration = healthRecordRepository.findLatestWithdrawalExpiration(batchId);
-        return Optional.ofNullable(expiration);
+        return Optional.ofNullable(loadBatch(batchId).getWithdrawalClearDate());
     }
 
     /**
@@ -160,15 +205,20 @@ public class BatchService {
      */
     public void validateStatusTransition(Long batchId, BatchStatus newStatus) {
         if (newStatus == BatchStatus.SOLD || newStatus == BatchStatus.READY_FOR_SALE) {
-            if (!isBatchSellable(batchId)) {
-                LocalDate expirationDate = getWithdrawalExpirationDate(batchId)
-                        .orElse(LocalDate.now().plusDays(1));
+            Batch batch = loadBatch(batchId);
+            if (!batch.isWithdrawalClear(LocalDate.now())) {
+                LocalDate expirationDate = batch.getWithdrawalClearDate();
                 log.warn("Batch {} sale blocked: active withdrawal period until {}", batchId, expirationDate);
                 throw new WithdrawalPeriodActiveException(batchId, expirationDate);
             }
         }
     }
 
+    private Batch loadBatch(Long batchId) {
+        return batchRepository.findById(batchId)
+                .orElseThrow(() -> new ResourceNotFoundException("Batch", "id", batchId));
+    }
+
     private BatchResponse toResponse(Batch b) {
         return BatchResponse.builder()
                 .id(b.getId())
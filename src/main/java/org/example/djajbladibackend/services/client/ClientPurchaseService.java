@@ -6,8 +6,9 @@ import org.example.djajbladibackend.exception.*;
 import org.example.djajbladibackend.models.*;
 import org.example.djajbladibackend.models.enums.RoleEnum;
 import org.example.djajbladibackend.repository.BatchRepository;
-import org.example.djajbladibackend.repository.HealthRecordRepository;
 import org.example.djajbladibackend.repository.SaleRepository;
+import org.example.djajbladibackend.repository.projection.AvailableBatchView;
+import org.example.djajbladibackend.repository.projection.OrderReservationView;
 import org.example.djajbladibackend.repository.auth.UserRepository;
 import org.example.djajbladibackend.services.financial.BatchCostService;
 import org.springframework.stereotype.Service;
@@ -19,6 +20,7 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 /**
@@ -40,19 +42,22 @@ public class ClientPurchaseService {
     private final BatchRepository batchRepository;
     private final SaleRepository saleRepository;
     private final UserRepository userRepository;
-    private final HealthRecordRepository healthRecordRepository;
     private final BatchCostService batchCostService;
+    private final FlashSaleService flashSaleService;
+    private final OrderRejections orderRejections;
 
     public ClientPurchaseService(BatchRepository batchRepository,
                                   SaleRepository saleRepository,
                                   UserRepository userRepository,
-                                  HealthRecordRepository healthRecordRepository,
-                                  BatchCostService batchCostService) {
+                                  BatchCostService batchCostService,
+                                  FlashSaleService flashSaleService,
+                                  OrderRejections orderRejections) {
         this.batchRepository = batchRepository;
         this.saleRepository = saleRepository;
         this.userRepository = userRepository;
-        this.healthRecordRepository = healthRecordRepository;
         this.batchCostService = batchCostService;
+        this.flashSaleService = flashSaleService;
+        this.orderRejections = orderRejections;
     }
 
     // -----------------------------------------------------------------------
@@ -65,10 +70,9 @@ public class ClientPurchaseService {
      * et aucune periode de retrait active.
      */
     public List<AvailableBatchResponse> getAvailableBatches() {
-        List<Batch> batches = batchRepository.findAvailableForSale();
-
-        return batches.stream()
-                .filter(b -> isWithdrawalClear(b.getId()))
+        // Une seule requete, filtre de retrait (withdrawal_clear_date) inclus. Aucune somme des ventes :
+        // current_count est deja net des commandes (UPDATE ... RETURNING conditionnel de placeOrder)
+        return batchRepository.findCatalogue().stream()
                 .map(this::toAvailableBatchResponse)
                 .collect(Collectors.toList());
     }
@@ -86,7 +90,7 @@ public class ClientPurchaseService {
         if (batch.getSellingPricePerUnit() == null) {
             throw new BatchNotForSaleException(batchId, "Prix de vente non defini");
         }
-        if (!isWithdrawalClear(batchId)) {
+        if (!batch.isWithdrawalClear(LocalDate.now())) {
             throw new BatchNotForSaleException(batchId, "Periode de retrait active");
         }
 
@@ -104,59 +108,45 @@ public class ClientPurchaseService {
      * 1. Le lot doit etre READY_FOR_SALE
      * 2. Aucune periode de retrait active
      * 3. La quantite doit respecter le minimum du lot
-     * 4. La quantite ne doit pas depasser le stock disponible
+     * 4. La quantite ne doit pas depasser le stock disponible (current_count, deja net des commandes)
      * 5. Le stock est decremente de maniere atomique (protection concurrence)
      * 6. Le statut initial de la commande est Pending
+     *
+     * Les regles 1 a 5 et le passage en SOLD tiennent dans un seul UPDATE ... RETURNING :
+     * pas de lecture du lot avant ni apres sur le chemin nominal. Le lot n'est relu que si
+     * la reservation echoue, pour lever l'exception correspondant a la regle violee.
      */
     @Transactional
     public PurchaseOrderResponse placeOrder(PurchaseOrderRequest request, String clientEmail) {
+        return placeOrder(request, clientEmail, null, null);
+    }
+
+    /**
+     * Variante idempotente (voir IdempotentOrderService) : la cle et l'empreinte de la requete sont enregistrees
+     * sur la vente et
+     * l'INSERT est force avant de rendre la main, pour qu'un doublon concurrent echoue sur l'index unique
+     * (DataIntegrityViolationException) et annule sa propre reservation de stock avec la transaction.
+     */
+    @Transactional
+    public PurchaseOrderResponse placeOrder(PurchaseOrderRequest request, String clientEmail, String idempotencyKey,
+                                            String requestFingerprint) {
         User client = userRepository.findByEmail(clientEmail)
                 .orElseThrow(() -> new ResourceNotFoundException("Utilisateur introuvable : " + clientEmail));
+        Long batchId = request.getBatchId();
+        int quantity = request.getQuantity();
 
-        Batch batch = batchRepository.findByIdWithCreatedByAndBuilding(request.getBatchId())
-                .orElseThrow(() -> new ResourceNotFoundException("Batch", "id", request.getBatchId()));
-
-        // Regle 1 : lot en vente
-        if (batch.getStatus() != BatchStatus.READY_FOR_SALE) {
-            throw new BatchNotForSaleException(batch.getId(), batch.getStatus().name());
-        }
-
-        // Regle 2 : pas de periode de retrait active
-        if (!isWithdrawalClear(batch.getId())) {
-            LocalDate expiration = healthRecordRepository.findLatestWithdrawalExpiration(batch.getId());
-            throw new WithdrawalPeriodActiveException(batch.getId(),
-                    expiration != null ? expiration : LocalDate.now().plusDays(1));
-        }
-
-        // Regle 3 : quantite minimum
-        int minQty = batch.getMinimumOrderQuantity() != null ? batch.getMinimumOrderQuantity() : 1;
-        if (request.getQuantity() < minQty) {
-            throw new MinimumOrderQuantityException(batch.getId(), request.getQuantity(), minQty);
-        }
-
-        // Regle 4 : stock suffisant (calcul avec ventes deja enregistrees)
-        int soldAlready = saleRepository.sumSoldQuantityByBatchId(batch.getId());
-        int effectiveStock = batch.getCurrentCount() - soldAlready;
-        if (request.getQuantity() > effectiveStock) {
-            throw new OrderQuantityExceedsStockException(batch.getId(), request.getQuantity(), effectiveStock);
-        }
+        OrderReservationView reserved = batchRepository.reserveForOrder(batchId, quantity, LocalDateTime.now())
+                .orElseThrow(() -> orderRejections.rejectionFor(batchId, quantity));
 
-        // Regle 5 : decrementation atomique
-        BigDecimal unitPrice = batch.getSellingPricePerUnit();
-        BigDecimal totalPrice = unitPrice.multiply(BigDecimal.valueOf(request.getQuantity()))
+        BigDecimal unitPrice = reserved.getSellingPricePerUnit();
+        BigDecimal totalPrice = unitPrice.multiply(BigDecimal.valueOf(quantity))
                 .setScale(2, RoundingMode.HALF_UP);
 
-        int updated = batchRepository.decrementCurrentCount(batch.getId(), request.getQuantity());
-        if (updated == 0) {
-            throw new OrderQuantityExceedsStockException(batch.getId(), request.getQuantity(),
-                    batch.getCurrentCount());
-        }
-
-        // Creation de la vente
+        // Creation de la vente (reference vers le lot, sans le recharger)
         Sale sale = Sale.builder()
-                .batch(batch)
+                .batch(batchRepository.getReferenceById(batchId))
                 .client(client)
-                .quantity(request.getQuantity())
+                .quantity(quantity)
                 .unitPrice(unitPrice)
                 .totalPrice(totalPrice)
                 .saleDate(LocalDate.now())
@@ -164,22 +154,20 @@ public class ClientPurchaseService {
                 .deliveryAddress(request.getDeliveryAddress())
                 .notes(request.getNotes())
                 .recordedBy(client)
+                .idempotencyKey(idempotencyKey)
+                .idempotencyFingerprint(requestFingerprint)
                 .build();
 
-        Sale saved = saleRepository.save(sale);
+        Sale saved = idempotencyKey != null ? saleRepository.saveAndFlush(sale) : saleRepository.save(sale);
+        batchCostService.evictCachedCost(batchId);
 
-        // Si le lot est epuise, passer en SOLD
-        Batch refreshedBatch = batchRepository.findById(batch.getId()).orElse(batch);
-        if (refreshedBatch.getCurrentCount() != null && refreshedBatch.getCurrentCount() <= 0) {
-            refreshedBatch.setStatus(BatchStatus.SOLD);
-            batchRepository.save(refreshedBatch);
-            log.info("Lot {} epuise apres commande, statut passe a SOLD", batch.getBatchNumber());
+        if (BatchStatus.SOLD.name().equals(reserved.getStatus())) {
+            log.info("Lot {} epuise apres commande, statut passe a SOLD", reserved.getBatchNumber());
         }
-
         log.info("Commande {} creee : client={}, lot={}, qty={}, total={} DH",
-                saved.getId(), clientEmail, batch.getBatchNumber(), request.getQuantity(), totalPrice);
+                saved.getId(), clientEmail, reserved.getBatchNumber(), quantity, totalPrice);
 
-        return toOrderResponse(saved);
+        return toOrderResponse(saved, reserved.getBatchNumber(), reserved.getStrain());
     }
 
     // -----------------------------------------------------------------------
@@ -252,20 +240,21 @@ public class ClientPurchaseService {
             throw new OrderNotCancellableException(orderId, sale.getPaymentStatus().name());
         }
 
-        // Annulation
+        // Annulation conditionnelle : une annulation concurrente de la meme commande ne restaure pas le stock deux fois
+        if (saleRepository.cancelIfPending(orderId, LocalDateTime.now()) == 0) {
+            throw new OrderNotCancellableException(orderId, PaymentStatus.Cancelled.name());
+        }
         sale.setPaymentStatus(PaymentStatus.Cancelled);
-        saleRepository.save(sale);
 
-        // Restauration du stock
+        // Restauration du stock ; un lot epuise (SOLD) est remis en vente (UPDATE atomique,
+        // sans ecraser les commandes passees en parallele)
         Batch batch = sale.getBatch();
-        batch.setCurrentCount(batch.getCurrentCount() + sale.getQuantity());
-
-        // Si le lot etait epuise (SOLD), le remettre en vente
+        batchRepository.restoreCancelledOrder(batch.getId(), sale.getQuantity(), LocalDateTime.now());
         if (batch.getStatus() == BatchStatus.SOLD) {
-            batch.setStatus(BatchStatus.READY_FOR_SALE);
             log.info("Lot {} remis en vente apres annulation de commande {}", batch.getBatchNumber(), orderId);
         }
-        batchRepository.save(batch);
+        batchCostService.evictCachedCost(batch.getId());
+        flashSaleService.resyncAfterCommit(batch.getId());
 
         log.info("Commande {} annulee par client {}, {} poulets restaures au lot {}",
                 orderId, clientEmail, sale.getQuantity(), batch.getBatchNumber());
@@ -273,6 +262,21 @@ public class ClientPurchaseService {
         return toOrderResponse(sale);
     }
 
+    /**
+     * Commande deja creee par ce client avec cette cle d'idempotence.
+     */
+    public Optional<PurchaseOrderResponse> findOrderByIdempotencyKey(String clientEmail, String idempotencyKey,
+                                                                     String requestFingerprint) {
+        User client = findClient(clientEmail);
+        return saleRepository.findByClientIdAndIdempotencyKey(client.getId(), idempotencyKey)
+                .map(sale -> {
+                    if (!sale.matchesIdempotencyFingerprint(requestFingerprint)) {
+                        throw new IdempotencyKeyReuseException(idempotencyKey);
+                    }
+                    return toOrderResponse(sale);
+                });
+    }
+
     // -----------------------------------------------------------------------
     // 5. Tableau de bord client
     // -----------------------------------------------------------------------
@@ -350,38 +354,52 @@ public class ClientPurchaseService {
                 .orElseThrow(() -> new ResourceNotFoundException("Utilisateur introuvable : " + email));
     }
 
-    private boolean isWithdrawalClear(Long batchId) {
-        List<HealthRecord> activeWithdrawals = healthRecordRepository.findActiveWithdrawalPeriods(batchId);
-        return activeWithdrawals.isEmpty();
+    private AvailableBatchResponse toAvailableBatchResponse(Batch batch) {
+        return toAvailableBatchResponse(batch.getId(), batch.getBatchNumber(), batch.getStrain(),
+                batch.getCurrentCount(), batch.getSellingPricePerUnit(), batch.getMinimumOrderQuantity(), batch.getArrivalDate(),
+                batch.getBuilding() != null ? batch.getBuilding().getName() : null);
     }
 
-    private AvailableBatchResponse toAvailableBatchResponse(Batch batch) {
-        int soldAlready = saleRepository.sumSoldQuantityByBatchId(batch.getId());
-        int availableQty = Math.max(0, batch.getCurrentCount() - soldAlready);
-        int minQty = batch.getMinimumOrderQuantity() != null ? batch.getMinimumOrderQuantity() : 1;
-        BigDecimal price = batch.getSellingPricePerUnit();
-        long ageInDays = ChronoUnit.DAYS.between(batch.getArrivalDate(), LocalDate.now());
+    private AvailableBatchResponse toAvailableBatchResponse(AvailableBatchView v) {
+        return toAvailableBatchResponse(v.getBatchId(), v.getBatchNumber(), v.getStrain(), v.getCurrentCount(),
+                v.getSellingPricePerUnit(), v.getMinimumOrderQuantity(), v.getArrivalDate(),
+                v.getBuildingName());
+    }
+
+    private AvailableBatchResponse toAvailableBatchResponse(Long batchId, String batchNumber, String strain,
+                                                            int currentCount, BigDecimal price,
+                                                            Integer minimumOrderQuantity, LocalDate arrivalDate,
+                                                            String buildingName) {
+        int availableQty = Math.max(0, currentCount);
+        int minQty = minimumOrderQuantity != null ? minimumOrderQuantity : 1;
+        long ageInDays = ChronoUnit.DAYS.between(arrivalDate, LocalDate.now());
 
         return AvailableBatchResponse.builder()
-                .batchId(batch.getId())
-                .batchNumber(batch.getBatchNumber())
-                .strain(batch.getStrain())
+                .batchId(batchId)
+                .batchNumber(batchNumber)
+                .strain(strain)
                 .availableQuantity(availableQty)
                 .pricePerUnit(price)
                 .minimumOrderQuantity(minQty)
-                .arrivalDate(batch.getArrivalDate())
+                .arrivalDate(arrivalDate)
                 .ageInDays((int) ageInDays)
-                .buildingName(batch.getBuilding() != null ? batch.getBuilding().getName() : null)
+                .buildingName(buildingName)
                 .minimumOrderPrice(price != null ? price.multiply(BigDecimal.valueOf(minQty))
                         .setScale(2, RoundingMode.HALF_UP) : null)
                 .build();
     }
 
     private PurchaseOrderResponse toOrderResponse(Sale sale) {
+        return toOrderResponse(sale,
+                sale.getBatch() != null ? sale.getBatch().getBatchNumber() : null,
+                sale.getBatch() != null ? sale.getBatch().getStrain() : null);
+    }
+
+    private PurchaseOrderResponse toOrderResponse(Sale sale, String batchNumber, String strain) {
         return PurchaseOrderResponse.builder()
                 .orderId(sale.getId())
-                .batchNumber(sale.getBatch() != null ? sale.getBatch().getBatchNumber() : null)
-                .strain(sale.getBatch() != null ? sale.getBatch().getStrain() : null)
+                .batchNumber(batchNumber)
+                .strain(strain)
                 .quantity(sale.getQuantity())
                 .unitPrice(sale.getUnitPrice())
                 .totalPrice(sale.getTotalPrice())
@@ -0,0 +1,366 @@
+package org.example.djajbladibackend.services.client;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.djajbladibackend.dto.client.FlashSaleReservationResponse;
+import org.example.djajbladibackend.dto.client.FlashSaleStatusResponse;
+import org.example.djajbladibackend.dto.client.PurchaseOrderResponse;
+import org.example.djajbladibackend.exception.BatchNotForSaleException;
+import org.example.djajbladibackend.exception.FlashSaleUnavailableException;
+import org.example.djajbladibackend.exception.MinimumOrderQuantityException;
+import org.example.djajbladibackend.exception.OrderQuantityExceedsStockException;
+import org.example.djajbladibackend.exception.ResourceNotFoundException;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sequenceur de vente flash d'un lot : les requetes sont deposees dans une file sans verrou et executees
+ * par un seul worker a la fois, seul a lire et modifier l'etat du lot (stock libre, reservations,
+ * commandes confirmees). Aucun verrou, aucune ligne disputee : le lot n'est ecrit qu'au vidage.
+ *
+ * Apres chaque passe sur la file (au plus MAX_COMMANDS_PER_FLUSH requetes), les commandes confirmees sont
+ * ecrites ensemble par FlashSaleOrderWriter ; les requetes arrivees pendant l'ecriture forment le groupe
+ * suivant. Le stock libre est ensuite recale sur l'effectif relu en base, moins les reservations en cours.
+ * Il l'est aussi apres une ecriture hors sequenceur (annulation, mortalite : resync()) et, au plus une fois
+ * par passe, avant de refuser une commande faute de stock.
+ *
+ * Si l'ecriture du groupe echoue (client supprime, contrainte), les commandes sont reecrites une par une :
+ * seule la commande fautive est refusee.
+ */
+@Slf4j
+final class FlashSaleLane {
+
+    static final int MAX_COMMANDS_PER_FLUSH = 500;
+
+    private final Long batchId;
+    private final String batchNumber;
+    private final String strain;
+    private final BigDecimal unitPrice;
+    private final int minimumOrderQuantity;
+    private final Executor executor;
+    private final FlashSaleOrderWriter writer;
+
+    private final Queue<Runnable> mailbox = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    // Etat du worker : lu et modifie uniquement pendant drain()
+    private int available;
+    private final Map<String, Hold> holds = new HashMap<>();
+    private final List<Confirmation> confirmed = new ArrayList<>();
+    private boolean closed;
+    private boolean resyncedThisPass;
+
+    // Etat publie a la fin de chaque passe, pour les lectures hors worker
+    private volatile int publishedAvailable;
+    private volatile int publishedHeld;
+    private volatile int publishedHolds;
+    private volatile boolean publishedClosed;
+    private final AtomicLong ordersWritten = new AtomicLong();
+
+    /**
+     * Resultat d'une requete du sequenceur. Annulable (delai de reponse depasse) tant que le worker ne l'a pas
+     * prise en charge ; une fois prise, elle va a son terme : une requete annulee n'est jamais ecrite.
+     */
+    static final class LaneFuture<T> extends CompletableFuture<T> {
+
+        private final AtomicBoolean started = new AtomicBoolean();
+
+        boolean start() {
+            return started.compareAndSet(false, true);
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            return start() && super.cancel(mayInterruptIfRunning);
+        }
+    }
+
+    private record Hold(String id, Long clientId, int quantity, Instant expiresAt) {
+    }
+
+    private record Confirmation(FlashSaleOrderWriter.Order order, CompletableFuture<PurchaseOrderResponse> result) {
+    }
+
+    FlashSaleLane(Long batchId, String batchNumber, String strain, BigDecimal unitPrice, int minimumOrderQuantity,
+                  int available, Executor executor, FlashSaleOrderWriter writer) {
+        this.batchId = batchId;
+        this.batchNumber = batchNumber;
+        this.strain = strain;
+        this.unitPrice = unitPrice;
+        this.minimumOrderQuantity = minimumOrderQuantity;
+        this.available = available;
+        this.publishedAvailable = available;
+        this.executor = executor;
+        this.writer = writer;
+    }
+
+    Long batchId() {
+        return batchId;
+    }
+
+    boolean isClosed() {
+        return publishedClosed;
+    }
+
+    FlashSaleStatusResponse status() {
+        return FlashSaleStatusResponse.builder()
+                .batchId(batchId)
+                .batchNumber(batchNumber)
+                .open(!publishedClosed)
+                .available(publishedAvailable)
+                .held(publishedHeld)
+                .activeHolds(publishedHolds)
+                .ordersWritten(ordersWritten.get())
+                .build();
+    }
+
+    /** Retient la quantite pour le client jusqu'a expiration (ttl). */
+    CompletableFuture<FlashSaleReservationResponse> reserve(Long clientId, int quantity, Duration ttl) {
+        LaneFuture<FlashSaleReservationResponse> result = new LaneFuture<>();
+        submit(result, () -> {
+            take(quantity);
+            Hold hold = new Hold(batchId + "-" + UUID.randomUUID(), clientId, quantity, Instant.now().plus(ttl));
+            holds.put(hold.id(), hold);
+            result.complete(FlashSaleReservationResponse.builder()
+                    .reservationId(hold.id())
+                    .batchId(batchId)
+                    .batchNumber(batchNumber)
+                    .quantity(quantity)
+                    .unitPrice(unitPrice)
+                    .totalPrice(unitPrice.multiply(BigDecimal.valueOf(quantity)).setScale(2, RoundingMode.HALF_UP))
+                    .expiresAt(hold.expiresAt())
+                    .build());
+        });
+        return result;
+    }
+
+    /** Transforme une reservation du client en commande ; termine une fois la commande ecrite. */
+    CompletableFuture<PurchaseOrderResponse> confirm(String reservationId, Long clientId,
+                                                     String deliveryAddress, String notes) {
+        LaneFuture<PurchaseOrderResponse> result = new LaneFuture<>();
+        submit(result, () -> {
+            Hold hold = holds.get(reservationId);
+            if (hold == null || !hold.clientId().equals(clientId)) {
+                throw new ResourceNotFoundException("Reservation introuvable ou expiree : " + reservationId);
+            }
+            holds.remove(reservationId);
+            confirmed.add(new Confirmation(order(clientId, hold.quantity(), unitPrice, deliveryAddress, notes,
+                    null, null), result));
+        });
+        return result;
+    }
+
+    /** Commande directe (POST /api/client/orders) : reservation et confirmation dans la meme requete. */
+    CompletableFuture<PurchaseOrderResponse> placeOrder(Long clientId, int quantity, String deliveryAddress,
+                                                        String notes, String idempotencyKey,
+                                                        String requestFingerprint) {
+        LaneFuture<PurchaseOrderResponse> result = new LaneFuture<>();
+        submit(result, () -> {
+            take(quantity);
+            confirmed.add(new Confirmation(order(clientId, quantity, null, deliveryAddress, notes, idempotencyKey,
+                    requestFingerprint), result));
+        });
+        return result;
+    }
+
+    CompletableFuture<Void> release(String reservationId, Long clientId) {
+        LaneFuture<Void> result = new LaneFuture<>();
+        submit(result, () -> {
+            Hold hold = holds.get(reservationId);
+            if (hold == null || !hold.clientId().equals(clientId)) {
+                throw new ResourceNotFoundException("Reservation introuvable ou expiree : " + reservationId);
+            }
+            holds.remove(reservationId);
+            available += hold.quantity();
+            result.complete(null);
+        });
+        return result;
+    }
+
+    /** Rend au stock libre les reservations abandonnees. */
+    void expire(Instant now) {
+        submit(new LaneFuture<Void>(), () -> {
+            int expired = 0;
+            for (Iterator<Hold> it = holds.values().iterator(); it.hasNext(); ) {
+                Hold hold = it.next();
+                if (!now.isBefore(hold.expiresAt())) {
+                    available += hold.quantity();
+                    it.remove();
+                    expired++;
+                }
+            }
+            if (expired > 0) {
+                log.info("Flash sale batch {}: {} hold(s) expired, available={}", batchId, expired, available);
+            }
+        });
+    }
+
+    /** Recale le stock libre sur l'effectif en base (ecriture hors sequenceur). */
+    void resync() {
+        submit(new LaneFuture<Void>(), this::resyncAvailable);
+    }
+
+    /** Ferme la vente flash : plus de nouvelles reservations, les reservations en cours sont rendues. */
+    CompletableFuture<Void> close() {
+        LaneFuture<Void> result = new LaneFuture<>();
+        submit(result, () -> {
+            closed = true;
+            holds.values().forEach(hold -> available += hold.quantity());
+            holds.clear();
+            publish();
+            result.complete(null);
+        });
+        return result;
+    }
+
+    private void take(int quantity) {
+        if (closed) {
+            throw new BatchNotForSaleException(batchId, "Vente flash terminee");
+        }
+        if (quantity < minimumOrderQuantity) {
+            throw new MinimumOrderQuantityException(batchId, quantity, minimumOrderQuantity);
+        }
+        if (quantity > available && !resyncedThisPass) {
+            resyncAvailable();
+        }
+        if (quantity > available) {
+            throw new OrderQuantityExceedsStockException(batchId, quantity, available);
+        }
+        available -= quantity;
+    }
+
+    /** Effectif en base, moins les reservations et les commandes confirmees pas encore ecrites. */
+    private void resyncAvailable() {
+        int pending = confirmed.stream().mapToInt(c -> c.order().quantity()).sum();
+        available = Math.max(0, writer.currentCount(batchId) - heldQuantity() - pending);
+        resyncedThisPass = true;
+    }
+
+    private FlashSaleOrderWriter.Order order(Long clientId, int quantity, BigDecimal quotedPrice,
+                                             String deliveryAddress, String notes, String idempotencyKey,
+                                             String requestFingerprint) {
+        return new FlashSaleOrderWriter.Order(clientId, quantity, quotedPrice, batchNumber, strain,
+                deliveryAddress, notes, idempotencyKey, requestFingerprint);
+    }
+
+    private void submit(LaneFuture<?> result, Runnable command) {
+        mailbox.add(() -> {
+            if (!result.start()) {
+                return;
+            }
+            try {
+                command.run();
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        });
+        schedule();
+    }
+
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                scheduled.set(false);
+                log.error("Flash sale batch {}: worker pool rejected the lane", batchId);
+            }
+        }
+    }
+
+    private void drain() {
+        try {
+            resyncedThisPass = false;
+            Runnable command;
+            for (int i = 0; i < MAX_COMMANDS_PER_FLUSH && (command = mailbox.poll()) != null; i++) {
+                command.run();
+            }
+            flushConfirmed();
+            publish();
+        } finally {
+            scheduled.set(false);
+            if (!mailbox.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+
+    private void flushConfirmed() {
+        if (confirmed.isEmpty()) {
+            return;
+        }
+        List<Confirmation> group = new ArrayList<>(confirmed);
+        confirmed.clear();
+        try {
+            apply(group, writer.write(batchId, group.stream().map(Confirmation::order).toList()));
+        } catch (RuntimeException e) {
+            if (group.size() == 1) {
+                available += group.get(0).order().quantity();
+                fail(group.get(0), e);
+                return;
+            }
+            log.warn("Flash sale batch {}: writing {} orders failed, writing them one by one",
+                    batchId, group.size(), e);
+            for (Confirmation confirmation : group) {
+                try {
+                    apply(List.of(confirmation), writer.write(batchId, List.of(confirmation.order())));
+                } catch (RuntimeException single) {
+                    fail(confirmation, single);
+                }
+            }
+            resyncAvailable();
+        }
+    }
+
+    private void apply(List<Confirmation> group, FlashSaleOrderWriter.Result result) {
+        available = Math.max(0, result.remainingCount() - heldQuantity());
+        if (result.sold() && holds.isEmpty()) {
+            closed = true;
+            log.info("Flash sale batch {} sold out, lane closed", batchId);
+        }
+        ordersWritten.addAndGet(result.outcomes().stream().filter(o -> o.rejection() == null).count());
+        // Publie avant de repondre : un client qui lit status() apres sa commande voit l'etat ecrit
+        publish();
+        for (int i = 0; i < group.size(); i++) {
+            FlashSaleOrderWriter.Outcome outcome = result.outcomes().get(i);
+            if (outcome.rejection() != null) {
+                group.get(i).result().completeExceptionally(outcome.rejection());
+            } else {
+                group.get(i).result().complete(outcome.order());
+            }
+        }
+    }
+
+    private void fail(Confirmation confirmation, RuntimeException cause) {
+        log.error("Flash sale batch {}: writing the order of client {} failed",
+                batchId, confirmation.order().clientId(), cause);
+        confirmation.result().completeExceptionally(new FlashSaleUnavailableException(batchId,
+                "Enregistrement de la commande impossible, veuillez reessayer."));
+    }
+
+    private int heldQuantity() {
+        return holds.values().stream().mapToInt(Hold::quantity).sum();
+    }
+
+    private void publish() {
+        publishedAvailable = available;
+        publishedHeld = heldQuantity();
+        publishedHolds = holds.size();
+        publishedClosed = closed;
+    }
+}
@@ -0,0 +1,222 @@
+package org.example.djajbladibackend.services.client;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.djajbladibackend.dto.client.PurchaseOrderResponse;
+import org.example.djajbladibackend.exception.IdempotencyKeyReuseException;
+import org.example.djajbladibackend.models.Batch;
+import org.example.djajbladibackend.models.BatchStatus;
+import org.example.djajbladibackend.models.PaymentStatus;
+import org.example.djajbladibackend.models.Sale;
+import org.example.djajbladibackend.repository.BatchRepository;
+import org.example.djajbladibackend.repository.SaleRepository;
+import org.example.djajbladibackend.repository.auth.UserRepository;
+import org.example.djajbladibackend.repository.projection.OrderReservationView;
+import org.example.djajbladibackend.services.financial.BatchCostService;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Ecriture groupee des commandes confirmees d'une vente flash : une transaction par vidage du sequenceur.
+ *
+ * Chemin nominal : un seul UPDATE conditionnel (reserveForOrder) pour la quantite totale du groupe,
+ * puis les ventes inserees par lots JDBC. Une commande directe est facturee au prix de vente courant
+ * renvoye par la reservation ; seule une reservation confirmee garde le prix annonce a sa creation. Si le lot a change hors du sequenceur (mortalite, statut,
+ * commande passee sans vente flash), chaque commande est reservee individuellement dans l'ordre
+ * d'arrivee et celles qui ne passent plus sont refusees avec le meme motif qu'une commande directe
+ * (OrderRejections) : la base reste la garde contre la survente.
+ *
+ * Les cles d'idempotence sont verifiees avant la reservation : une cle deja en base rejoue la commande
+ * existante, une cle repetee dans le groupe n'est ecrite qu'une fois.
+ */
+@Slf4j
+@Service
+@Transactional(readOnly = true)
+public class FlashSaleOrderWriter {
+
+    private final BatchRepository batchRepository;
+    private final SaleRepository saleRepository;
+    private final UserRepository userRepository;
+    private final BatchCostService batchCostService;
+    private final OrderRejections orderRejections;
+
+    public FlashSaleOrderWriter(BatchRepository batchRepository,
+                                SaleRepository saleRepository,
+                                UserRepository userRepository,
+                                BatchCostService batchCostService,
+                                OrderRejections orderRejections) {
+        this.batchRepository = batchRepository;
+        this.saleRepository = saleRepository;
+        this.userRepository = userRepository;
+        this.batchCostService = batchCostService;
+        this.orderRejections = orderRejections;
+    }
+
+    /**
+     * Commande confirmee par le sequenceur, pas encore ecrite. quotedPrice : prix annonce a la reservation,
+     * null pour une commande directe (facturee au prix de vente du lot renvoye par la reservation).
+     */
+    record Order(Long clientId, int quantity, BigDecimal quotedPrice, String batchNumber, String strain,
+                 String deliveryAddress, String notes, String idempotencyKey, String requestFingerprint) {
+    }
+
+    /** Resultat d'une commande du groupe : la commande ecrite, ou le motif du refus. */
+    record Outcome(PurchaseOrderResponse order, RuntimeException rejection) {
+    }
+
+    /** Resultat du groupe, dans l'ordre des commandes, avec l'effectif restant du lot apres ecriture. */
+    record Result(List<Outcome> outcomes, int remainingCount, boolean sold) {
+    }
+
+    @Transactional
+    public Result write(Long batchId, List<Order> orders) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Outcome> outcomes = new ArrayList<>(Collections.nCopies(orders.size(), null));
+
+        // Cle d'idempotence deja utilisee : la commande existante est rejouee, sans reserver de stock.
+        // Cle repetee dans le groupe : seule la premiere commande est ecrite, les suivantes recoivent son resultat.
+        // Dans les deux cas, une requete differente (autre empreinte) sous la meme cle est refusee.
+        Map<String, Sale> existing = existingSalesByKey(orders);
+        Map<String, Integer> firstByKey = new HashMap<>();
+        Map<Integer, Integer> duplicateOf = new HashMap<>();
+        List<Integer> fresh = new ArrayList<>(orders.size());
+        for (int i = 0; i < orders.size(); i++) {
+            Order order = orders.get(i);
+            String key = keyOf(order.clientId(), order.idempotencyKey());
+            if (key == null) {
+                fresh.add(i);
+            } else if (existing.containsKey(key)) {
+                Sale sale = existing.get(key);
+                outcomes.set(i, sale.matchesIdempotencyFingerprint(order.requestFingerprint())
+                        ? new Outcome(toResponse(sale), null)
+                        : new Outcome(null, new IdempotencyKeyReuseException(order.idempotencyKey())));
+            } else {
+                Integer first = firstByKey.putIfAbsent(key, i);
+                if (first != null) {
+                    duplicateOf.put(i, first);
+                } else {
+                    fresh.add(i);
+                }
+            }
+        }
+
+        int total = fresh.stream().mapToInt(i -> orders.get(i).quantity()).sum();
+        Optional<OrderReservationView> grouped = total > 0
+                ? batchRepository.reserveForOrder(batchId, total, now)
+                : Optional.empty();
+        if (total > 0 && grouped.isEmpty()) {
+            log.warn("Flash sale batch {} changed outside the sequencer, writing {} orders one by one",
+                    batchId, fresh.size());
+        }
+
+        Batch batch = batchRepository.getReferenceById(batchId);
+        List<Sale> sales = new ArrayList<>(fresh.size());
+        List<Integer> written = new ArrayList<>(fresh.size());
+        for (int i : fresh) {
+            Order order = orders.get(i);
+            Optional<OrderReservationView> reserved = grouped.isPresent()
+                    ? grouped
+                    : batchRepository.reserveForOrder(batchId, order.quantity(), now);
+            if (reserved.isPresent()) {
+                sales.add(toSale(batch, order, reserved.get().getSellingPricePerUnit()));
+                written.add(i);
+            } else {
+                outcomes.set(i, new Outcome(null, orderRejections.rejectionFor(batchId, order.quantity())));
+            }
+        }
+        saleRepository.saveAll(sales);
+
+        for (int k = 0; k < written.size(); k++) {
+            Order order = orders.get(written.get(k));
+            outcomes.set(written.get(k), new Outcome(toResponse(sales.get(k), order.batchNumber(), order.strain()),
+                    null));
+        }
+        duplicateOf.forEach((duplicate, first) -> {
+            Order order = orders.get(duplicate);
+            outcomes.set(duplicate, Objects.equals(order.requestFingerprint(), orders.get(first).requestFingerprint())
+                    ? outcomes.get(first)
+                    : new Outcome(null, new IdempotencyKeyReuseException(order.idempotencyKey())));
+        });
+        if (!sales.isEmpty()) {
+            batchCostService.evictCachedCost(batchId);
+        }
+
+        int remaining = grouped.map(OrderReservationView::getRemainingCount)
+                .orElseGet(() -> batchRepository.findCurrentCountById(batchId).orElse(0));
+        boolean sold = grouped.map(v -> BatchStatus.SOLD.name().equals(v.getStatus()))
+                .orElseGet(() -> batchRepository.findStatusById(batchId).orElse(null) == BatchStatus.SOLD);
+        return new Result(outcomes, remaining, sold);
+    }
+
+    /** Effectif actuel du lot, pour recaler le sequenceur apres une ecriture hors vente flash. */
+    public int currentCount(Long batchId) {
+        return batchRepository.findCurrentCountById(batchId).orElse(0);
+    }
+
+    private Map<String, Sale> existingSalesByKey(List<Order> orders) {
+        List<String> keys = orders.stream().map(Order::idempotencyKey).filter(Objects::nonNull).distinct().toList();
+        if (keys.isEmpty()) {
+            return Map.of();
+        }
+        Map<String, Sale> byKey = new HashMap<>();
+        for (Sale sale : saleRepository.findByIdempotencyKeyIn(keys)) {
+            byKey.put(keyOf(sale.getClient().getId(), sale.getIdempotencyKey()), sale);
+        }
+        return byKey;
+    }
+
+    private static String keyOf(Long clientId, String idempotencyKey) {
+        return idempotencyKey != null ? clientId + ":" + idempotencyKey : null;
+    }
+
+    private Sale toSale(Batch batch, Order order, BigDecimal sellingPrice) {
+        var client = userRepository.getReferenceById(order.clientId());
+        BigDecimal unitPrice = order.quotedPrice() != null ? order.quotedPrice() : sellingPrice;
+        return Sale.builder()
+                .batch(batch)
+                .client(client)
+                .quantity(order.quantity())
+                .unitPrice(unitPrice)
+                .totalPrice(unitPrice.multiply(BigDecimal.valueOf(order.quantity()))
+                        .setScale(2, RoundingMode.HALF_UP))
+                .saleDate(LocalDate.now())
+                .paymentStatus(PaymentStatus.Pending)
+                .deliveryAddress(order.deliveryAddress())
+                .notes(order.notes())
+                .recordedBy(client)
+                .idempotencyKey(order.idempotencyKey())
+                .idempotencyFingerprint(order.requestFingerprint())
+                .build();
+    }
+
+    private PurchaseOrderResponse toResponse(Sale sale) {
+        return toResponse(sale, sale.getBatch().getBatchNumber(), sale.getBatch().getStrain());
+    }
+
+    private PurchaseOrderResponse toResponse(Sale sale, String batchNumber, String strain) {
+        return PurchaseOrderResponse.builder()
+                .orderId(sale.getId())
+                .batchNumber(batchNumber)
+                .strain(strain)
+                .quantity(sale.getQuantity())
+                .unitPrice(sale.getUnitPrice())
+                .totalPrice(sale.getTotalPrice())
+                .saleDate(sale.getSaleDate())
+                .paymentStatus(sale.getPaymentStatus())
+                .deliveryAddress(sale.getDeliveryAddress())
+                .notes(sale.getNotes())
+                .createdAt(sale.getCreatedAt())
+                .build();
+    }
+}
@@ -0,0 +1,286 @@
+package org.example.djajbladibackend.services.client;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.djajbladibackend.dto.client.FlashSaleConfirmRequest;
+import org.example.djajbladibackend.dto.client.FlashSaleReservationRequest;
+import org.example.djajbladibackend.dto.client.FlashSaleReservationResponse;
+import org.example.djajbladibackend.dto.client.FlashSaleStatusResponse;
+import org.example.djajbladibackend.dto.client.PurchaseOrderRequest;
+import org.example.djajbladibackend.dto.client.PurchaseOrderResponse;
+import org.example.djajbladibackend.exception.BatchNotForSaleException;
+import org.example.djajbladibackend.exception.FlashSaleUnavailableException;
+import org.example.djajbladibackend.exception.ResourceNotFoundException;
+import org.example.djajbladibackend.exception.WithdrawalPeriodActiveException;
+import org.example.djajbladibackend.models.Batch;
+import org.example.djajbladibackend.models.BatchStatus;
+import org.example.djajbladibackend.models.User;
+import org.example.djajbladibackend.repository.BatchRepository;
+import org.example.djajbladibackend.repository.auth.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Mode vente flash (sur activation par l'admin, lot par lot).
+ *
+ * Chaque lot ouvert a son sequenceur (FlashSaleLane) : les commandes et reservations du lot sont traitees
+ * en memoire par un seul worker, puis ecrites par groupes (un UPDATE du lot par groupe au lieu d'un par
+ * commande). Les lots sont repartis sur un pool de workers : le debit croit avec le nombre de lots ouverts,
+ * pas avec le nombre de clients. Les reservations non confirmees expirent et rendent leur stock.
+ *
+ * L'etat est local a l'instance : derriere plusieurs instances, chaque lot doit etre servi par la meme
+ * (routage par batchId). L'UPDATE conditionnel de l'ecriture reste la garde contre la survente.
+ */
+@Slf4j
+@Service
+public class FlashSaleService {
+
+    private final BatchRepository batchRepository;
+    private final UserRepository userRepository;
+    private final FlashSaleOrderWriter orderWriter;
+    private final ExecutorService workers;
+    private final Map<Long, FlashSaleLane> lanes = new ConcurrentHashMap<>();
+
+    @Value("${app.flash-sale.hold-seconds:120}")
+    private long holdSeconds;
+
+    @Value("${app.flash-sale.response-timeout-ms:10000}")
+    private long responseTimeoutMs;
+
+    public FlashSaleService(BatchRepository batchRepository,
+                            UserRepository userRepository,
+                            FlashSaleOrderWriter orderWriter,
+                            @Value("${app.flash-sale.workers:4}") int workerCount) {
+        this.batchRepository = batchRepository;
+        this.userRepository = userRepository;
+        this.orderWriter = orderWriter;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(workerCount, runnable -> {
+            Thread thread = new Thread(runnable, "flash-sale-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // -----------------------------------------------------------------------
+    // Administration
+    // -----------------------------------------------------------------------
+
+    /**
+     * Ouvre la vente flash d'un lot en vente (idempotent) : le stock libre part de current_count.
+     */
+    public FlashSaleStatusResponse open(Long batchId) {
+        FlashSaleLane existing = openLane(batchId);
+        if (existing != null) {
+            return existing.status();
+        }
+        Batch batch = batchRepository.findById(batchId)
+                .orElseThrow(() -> new ResourceNotFoundException("Batch", "id", batchId));
+        if (batch.getStatus() != BatchStatus.READY_FOR_SALE) {
+            throw new BatchNotForSaleException(batchId, batch.getStatus().name());
+        }
+        if (batch.getSellingPricePerUnit() == null) {
+            throw new BatchNotForSaleException(batchId, "Prix de vente non defini");
+        }
+        if (!batch.isWithdrawalClear(LocalDate.now())) {
+            throw new WithdrawalPeriodActiveException(batchId, batch.getWithdrawalClearDate());
+        }
+        FlashSaleLane lane = new FlashSaleLane(batchId, batch.getBatchNumber(), batch.getStrain(),
+                batch.getSellingPricePerUnit(),
+                batch.getMinimumOrderQuantity() != null ? batch.getMinimumOrderQuantity() : 1,
+                batch.getCurrentCount(), workers, orderWriter);
+        FlashSaleLane winner = lanes.merge(batchId, lane, (current, fresh) -> current.isClosed() ? fresh : current);
+        if (winner == lane) {
+            log.info("Flash sale opened: batch={}, available={}", batch.getBatchNumber(), batch.getCurrentCount());
+        }
+        return winner.status();
+    }
+
+    /**
+     * Ferme la vente flash : les reservations en cours sont rendues, les commandes confirmees sont ecrites.
+     */
+    public FlashSaleStatusResponse close(Long batchId) {
+        FlashSaleLane lane = lanes.remove(batchId);
+        if (lane == null) {
+            throw new ResourceNotFoundException("Vente flash", "batchId", batchId);
+        }
+        await(batchId, lane.close());
+        log.info("Flash sale closed: batchId={}", batchId);
+        return lane.status();
+    }
+
+    public FlashSaleStatusResponse status(Long batchId) {
+        FlashSaleLane lane = lanes.get(batchId);
+        if (lane == null) {
+            throw new ResourceNotFoundException("Vente flash", "batchId", batchId);
+        }
+        return lane.status();
+    }
+
+    public boolean isOpen(Long batchId) {
+        return openLane(batchId) != null;
+    }
+
+    /**
+     * A appeler apres une ecriture de current_count hors sequenceur (annulation, mortalite) :
+     * le stock libre du lot est recale sur la base une fois la transaction validee.
+     */
+    public void resyncAfterCommit(Long batchId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            resync(batchId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                resync(batchId);
+            }
+        });
+    }
+
+    // -----------------------------------------------------------------------
+    // Client
+    // -----------------------------------------------------------------------
+
+    public FlashSaleReservationResponse reserve(FlashSaleReservationRequest request, String clientEmail) {
+        Long clientId = findClientId(clientEmail);
+        FlashSaleLane lane = requireOpenLane(request.getBatchId());
+        return await(lane.batchId(), lane.reserve(clientId, request.getQuantity(), Duration.ofSeconds(holdSeconds)));
+    }
+
+    public PurchaseOrderResponse confirm(String reservationId, FlashSaleConfirmRequest request, String clientEmail) {
+        Long clientId = findClientId(clientEmail);
+        FlashSaleLane lane = laneOf(reservationId);
+        return await(lane.batchId(), lane.confirm(reservationId, clientId, request.getDeliveryAddress(),
+                request.getNotes()));
+    }
+
+    public void release(String reservationId, String clientEmail) {
+        Long clientId = findClientId(clientEmail);
+        FlashSaleLane lane = laneOf(reservationId);
+        await(lane.batchId(), lane.release(reservationId, clientId));
+    }
+
+    /**
+     * Commande directe sur un lot en vente flash (meme contrat que ClientPurchaseService.placeOrder).
+     * Aucune transaction n'est tenue pendant l'attente : seul l'ecrivain du lot ouvre une connexion.
+     */
+    public PurchaseOrderResponse placeOrder(PurchaseOrderRequest request, String clientEmail) {
+        return placeOrder(request, clientEmail, null, null);
+    }
+
+    public PurchaseOrderResponse placeOrder(PurchaseOrderRequest request, String clientEmail, String idempotencyKey,
+                                            String requestFingerprint) {
+        Long clientId = findClientId(clientEmail);
+        FlashSaleLane lane = requireOpenLane(request.getBatchId());
+        return await(lane.batchId(), lane.placeOrder(clientId, request.getQuantity(),
+                request.getDeliveryAddress(), request.getNotes(), idempotencyKey, requestFingerprint));
+    }
+
+    // -----------------------------------------------------------------------
+    // Expiration des reservations
+    // -----------------------------------------------------------------------
+
+    @Scheduled(fixedDelayString = "${app.flash-sale.expiry-interval-ms:1000}")
+    public void expireHolds() {
+        expireHolds(Instant.now());
+    }
+
+    /**
+     * Rend le stock des reservations echues a la date donnee et oublie les ventes flash terminees (lot epuise).
+     */
+    public void expireHolds(Instant now) {
+        lanes.values().removeIf(FlashSaleLane::isClosed);
+        lanes.values().forEach(lane -> lane.expire(now));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workers.shutdown();
+    }
+
+    private void resync(Long batchId) {
+        FlashSaleLane lane = openLane(batchId);
+        if (lane != null) {
+            lane.resync();
+        }
+    }
+
+    private FlashSaleLane openLane(Long batchId) {
+        FlashSaleLane lane = lanes.get(batchId);
+        return lane != null && !lane.isClosed() ? lane : null;
+    }
+
+    private FlashSaleLane requireOpenLane(Long batchId) {
+        FlashSaleLane lane = openLane(batchId);
+        if (lane == null) {
+            throw new BatchNotForSaleException(batchId, "Vente flash non ouverte");
+        }
+        return lane;
+    }
+
+    private FlashSaleLane laneOf(String reservationId) {
+        int separator = reservationId.indexOf('-');
+        FlashSaleLane lane = null;
+        if (separator > 0) {
+            try {
+                lane = lanes.get(Long.valueOf(reservationId.substring(0, separator)));
+            } catch (NumberFormatException ignored) {
+                // identifiant forge : traite comme introuvable
+            }
+        }
+        if (lane == null) {
+            throw new ResourceNotFoundException("Reservation introuvable ou expiree : " + reservationId);
+        }
+        return lane;
+    }
+
+    private Long findClientId(String email) {
+        return userRepository.findByEmail(email)
+                .map(User::getId)
+                .orElseThrow(() -> new ResourceNotFoundException("Utilisateur introuvable : " + email));
+    }
+
+    /**
+     * Attend le resultat du sequenceur. Au-dela du delai, la requete est annulee si le worker ne l'a pas encore
+     * prise en charge (elle ne sera jamais ecrite) ; sinon son resultat arrive avec la fin de la passe en cours.
+     */
+    private <T> T await(Long batchId, CompletableFuture<T> future) {
+        try {
+            try {
+                return future.get(responseTimeoutMs, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (future.cancel(false)) {
+                    throw new FlashSaleUnavailableException(batchId,
+                            "La vente flash ne repond pas, la requete est annulee. Veuillez reessayer.");
+                }
+                return future.get();
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(false);
+            throw new FlashSaleUnavailableException(batchId, "Requete interrompue.");
+        }
+    }
+}
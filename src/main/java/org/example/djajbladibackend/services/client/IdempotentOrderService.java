@@ -0,0 +1,181 @@
+package org.example.djajbladibackend.services.client;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.djajbladibackend.dto.client.IdempotentOrderReplay;
+import org.example.djajbladibackend.dto.client.PurchaseOrderRequest;
+import org.example.djajbladibackend.dto.client.PurchaseOrderResponse;
+import org.example.djajbladibackend.exception.IdempotencyKeyReuseException;
+import org.example.djajbladibackend.exception.InvalidDataException;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+import static org.example.djajbladibackend.config.RedisCacheConfig.CACHE_IDEMPOTENT_ORDERS;
+
+/**
+ * Commandes et annulations idempotentes (en-tete Idempotency-Key).
+ *
+ * Les clients mobiles renvoient la requete apres un delai depasse : un renvoi avec la meme cle
+ * recoit la reponse enregistree (cache "idempotentOrders", Redis ou memoire selon le profil) sans
+ * toucher aux tables batches et sales. Les envois simultanes d'une meme cle sur cette instance
+ * attendent le premier ; entre instances, l'index unique (client_id, idempotency_key) de sales
+ * fait echouer le doublon, dont la transaction (et donc la reservation de stock) est annulee,
+ * et la commande deja creee est rejouee.
+ *
+ * La cle est liee a la requete : son empreinte (lot, quantite, adresse de livraison ; commande annulee
+ * pour une annulation) est enregistree avec la reponse en cache et sur la vente. Une cle reutilisee
+ * pour une autre requete est refusee (IdempotencyKeyReuseException) au lieu de rejouer une commande
+ * qui ne lui correspond pas.
+ *
+ * Sans en-tete, les requetes passent directement aux services, comme avant.
+ */
+@Slf4j
+@Service
+public class IdempotentOrderService {
+
+    private static final Pattern KEY_FORMAT = Pattern.compile("[A-Za-z0-9_\\-:.]{8,64}");
+
+    private final ClientPurchaseService purchaseService;
+    private final FlashSaleService flashSaleService;
+    private final CacheManager cacheManager;
+    private final Map<String, CompletableFuture<IdempotentOrderReplay>> inFlight = new ConcurrentHashMap<>();
+
+    public IdempotentOrderService(ClientPurchaseService purchaseService,
+                                  FlashSaleService flashSaleService,
+                                  CacheManager cacheManager) {
+        this.purchaseService = purchaseService;
+        this.flashSaleService = flashSaleService;
+        this.cacheManager = cacheManager;
+    }
+
+    /**
+     * Passe la commande, ou rejoue celle deja creee avec la meme cle. Sur un lot en vente flash,
+     * la commande passe par son sequenceur.
+     */
+    public PurchaseOrderResponse placeOrder(PurchaseOrderRequest request, String clientEmail, String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return route(request, clientEmail, null, null);
+        }
+        String key = validate(idempotencyKey);
+        String fingerprint = fingerprint(request.getBatchId(), request.getQuantity(), request.getDeliveryAddress());
+        return replayOrExecute("order:" + clientEmail + ":" + key, key, fingerprint, () -> {
+            try {
+                return route(request, clientEmail, key, fingerprint);
+            } catch (DataIntegrityViolationException e) {
+                // Doublon concurrent (autre instance) : la premiere commande a gagne l'index unique
+                log.info("Idempotency-Key {} already used by client {}, replaying the existing order", key, clientEmail);
+                return purchaseService.findOrderByIdempotencyKey(clientEmail, key, fingerprint).orElseThrow(() -> e);
+            }
+        });
+    }
+
+    /**
+     * Annule la commande ; un renvoi avec la meme cle recoit la meme reponse au lieu d'un refus
+     * (commande deja annulee).
+     */
+    public PurchaseOrderResponse cancelOrder(Long orderId, String clientEmail, String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return purchaseService.cancelOrder(orderId, clientEmail);
+        }
+        String key = validate(idempotencyKey);
+        return replayOrExecute("cancel:" + clientEmail + ":" + key, key, fingerprint("cancel", orderId),
+                () -> purchaseService.cancelOrder(orderId, clientEmail));
+    }
+
+    private PurchaseOrderResponse route(PurchaseOrderRequest request, String clientEmail, String key,
+                                        String fingerprint) {
+        return flashSaleService.isOpen(request.getBatchId())
+                ? flashSaleService.placeOrder(request, clientEmail, key, fingerprint)
+                : purchaseService.placeOrder(request, clientEmail, key, fingerprint);
+    }
+
+    private PurchaseOrderResponse replayOrExecute(String cacheKey, String key, String fingerprint,
+                                                  Supplier<PurchaseOrderResponse> action) {
+        Cache cache = cacheManager.getCache(CACHE_IDEMPOTENT_ORDERS);
+        IdempotentOrderReplay stored = cached(cache, cacheKey);
+        if (stored != null) {
+            return replay(stored, key, fingerprint);
+        }
+
+        CompletableFuture<IdempotentOrderReplay> mine = new CompletableFuture<>();
+        CompletableFuture<IdempotentOrderReplay> running = inFlight.putIfAbsent(cacheKey, mine);
+        if (running != null) {
+            return replay(join(running), key, fingerprint);
+        }
+        try {
+            // Le premier envoi a pu se terminer entre la lecture du cache et l'inscription
+            IdempotentOrderReplay entry = cached(cache, cacheKey);
+            if (entry == null) {
+                entry = new IdempotentOrderReplay(fingerprint, action.get());
+                if (cache != null) {
+                    cache.put(cacheKey, entry);
+                }
+            }
+            mine.complete(entry);
+            return replay(entry, key, fingerprint);
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(cacheKey, mine);
+        }
+    }
+
+    private static PurchaseOrderResponse replay(IdempotentOrderReplay entry, String key, String fingerprint) {
+        if (!fingerprint.equals(entry.getRequestFingerprint())) {
+            throw new IdempotencyKeyReuseException(key);
+        }
+        return entry.getResponse();
+    }
+
+    private static IdempotentOrderReplay cached(Cache cache, String cacheKey) {
+        return cache != null ? cache.get(cacheKey, IdempotentOrderReplay.class) : null;
+    }
+
+    private static IdempotentOrderReplay join(CompletableFuture<IdempotentOrderReplay> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /** SHA-256 (hexadecimal) des champs qui definissent la requete. */
+    private static String fingerprint(Object... fields) {
+        StringBuilder canonical = new StringBuilder();
+        for (Object field : fields) {
+            canonical.append(field).append('\u001f');
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(canonical.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+
+    private static String validate(String idempotencyKey) {
+        String key = idempotencyKey.trim();
+        if (!KEY_FORMAT.matcher(key).matches()) {
+            throw new InvalidDataException(
+                    "En-tete Idempotency-Key invalide : 8 a 64 caracteres parmi lettres, chiffres et _-:.");
+        }
+        return key;
+    }
+}
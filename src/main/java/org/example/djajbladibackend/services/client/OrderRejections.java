@@ -0,0 +1,49 @@
+package org.example.djajbladibackend.services.client;
+
+import org.example.djajbladibackend.exception.BatchNotForSaleException;
+import org.example.djajbladibackend.exception.MinimumOrderQuantityException;
+import org.example.djajbladibackend.exception.OrderQuantityExceedsStockException;
+import org.example.djajbladibackend.exception.ResourceNotFoundException;
+import org.example.djajbladibackend.exception.WithdrawalPeriodActiveException;
+import org.example.djajbladibackend.models.Batch;
+import org.example.djajbladibackend.models.BatchStatus;
+import org.example.djajbladibackend.repository.BatchRepository;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+/**
+ * Motif d'une reservation refusee par reserveForOrder : relit le lot pour identifier la regle violee
+ * (chemin d'echec uniquement). Partage par la commande directe et l'ecriture groupee des ventes flash,
+ * pour que les deux chemins renvoient la meme erreur.
+ */
+@Component
+class OrderRejections {
+
+    private final BatchRepository batchRepository;
+
+    OrderRejections(BatchRepository batchRepository) {
+        this.batchRepository = batchRepository;
+    }
+
+    RuntimeException rejectionFor(Long batchId, int quantity) {
+        Batch batch = batchRepository.findById(batchId).orElse(null);
+        if (batch == null) {
+            return new ResourceNotFoundException("Batch", "id", batchId);
+        }
+        if (batch.getStatus() != BatchStatus.READY_FOR_SALE) {
+            return new BatchNotForSaleException(batchId, batch.getStatus().name());
+        }
+        if (batch.getSellingPricePerUnit() == null) {
+            return new BatchNotForSaleException(batchId, "Prix de vente non defini");
+        }
+        if (!batch.isWithdrawalClear(LocalDate.now())) {
+            return new WithdrawalPeriodActiveException(batchId, batch.getWithdrawalClearDate());
+        }
+        int minQty = batch.getMinimumOrderQuantity() != null ? batch.getMinimumOrderQuantity() : 1;
+        if (quantity < minQty) {
+            return new MinimumOrderQuantityException(batchId, quantity, minQty);
+        }
+        return new OrderQuantityExceedsStockException(batchId, quantity, batch.getCurrentCount());
+    }
+}
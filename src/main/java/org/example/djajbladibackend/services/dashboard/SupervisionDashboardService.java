@@ -7,14 +7,14 @@ import org.example.djajbladibackend.exception.InvalidDataException;
 import org.example.djajbladibackend.exception.ResourceNotFoundException;
 import org.example.djajbladibackend.models.ApprovalStatus;
 import org.example.djajbladibackend.models.Batch;
+import org.example.djajbladibackend.models.BatchDailyRollup;
+import org.example.djajbladibackend.models.BatchFcrAccumulator;
 import org.example.djajbladibackend.models.BatchStatus;
-import org.example.djajbladibackend.models.DailyMortalityRecord;
-import org.example.djajbladibackend.models.FeedingRecord;
 import org.example.djajbladibackend.models.User;
 import org.example.djajbladibackend.models.enums.RoleEnum;
+import org.example.djajbladibackend.repository.BatchDailyRollupRepository;
+import org.example.djajbladibackend.repository.BatchFcrAccumulatorRepository;
 import org.example.djajbladibackend.repository.BatchRepository;
-import org.example.djajbladibackend.repository.DailyMortalityRecordRepository;
-import org.example.djajbladibackend.repository.FeedingRecordRepository;
 import org.example.djajbladibackend.repository.HealthRecordRepository;
 import org.example.djajbladibackend.repository.auth.UserRepository;
 import org.example.djajbladibackend.services.fcr.StrainWeightCurveService;
@@ -33,8 +33,8 @@ import java.util.stream.Collectors;
 @Transactional(readOnly = true)
 public class SupervisionDashboardService {
 
-    private final FeedingRecordRepository feedingRepository;
-    private final DailyMortalityRecordRepository mortalityRepository;
+    private final BatchDailyRollupRepository rollupRepository;
+    private final BatchFcrAccumulatorRepository fcrAccumulatorRepository;
     private final HealthRecordRepository healthRepository;
     private final UserRepository userRepository;
     private final BatchRepository batchRepository;
@@ -46,14 +46,14 @@ public class SupervisionDashboardService {
     @Value("${app.fcr.alert-threshold:1.8}")
     private BigDecimal fcrAlertThreshold;
 
-    public SupervisionDashboardService(FeedingRecordRepository feedingRepository,
-                                        DailyMortalityRecordRepository mortalityRepository,
+    public SupervisionDashboardService(BatchDailyRollupRepository rollupRepository,
+                                        BatchFcrAccumulatorRepository fcrAccumulatorRepository,
                                         HealthRecordRepository healthRepository,
                                         UserRepository userRepository,
                                         BatchRepository batchRepository,
                                         StrainWeightCurveService weightCurveService) {
-        this.feedingRepository = feedingRepository;
-        this.mortalityRepository = mortalityRepository;
+        this.rollupRepository = rollupRepository;
+        this.fcrAccumulatorRepository = fcrAccumulatorRepository;
         this.healthRepository = healthRepository;
         this.userRepository = userRepository;
         this.batchRepository = batchRepository;
@@ -61,6 +61,14 @@ public class SupervisionDashboardService {
     }
 
     public SupervisionDashboardResponse getDashboard(LocalDate startDate, LocalDate endDate, String adminEmail) {
+        checkAccess(startDate, endDate, adminEmail);
+        return computeDashboard(startDate, endDate);
+    }
+
+    /**
+     * Contrôles d'accès et de plage, sans calcul : partagés avec l'instantané précalculé.
+     */
+    public void checkAccess(LocalDate startDate, LocalDate endDate, String adminEmail) {
         User admin = userRepository.findByEmail(adminEmail)
                 .orElseThrow(() -> new ResourceNotFoundException("Utilisateur introuvable : " + adminEmail));
         if (admin.getRole() != RoleEnum.Admin) {
@@ -72,27 +80,16 @@ public class SupervisionDashboardService {
         if (ChronoUnit.DAYS.between(startDate, endDate) > maxDateRangeDays) {
             throw new DateRangeTooLargeException("La plage de dates ne peut pas dépasser " + maxDateRangeDays + " jours.");
         }
+    }
 
-        var feedingRecords = feedingRepository.findByFeedingDateBetweenWithRelations(startDate, endDate);
-        var mortalityRecords = mortalityRepository.findByRecordDateBetweenWithRelations(startDate, endDate);
+    /**
+     * Calcul complet du tableau sur la plage donnée (sans contrôle d'accès).
+     */
+    public SupervisionDashboardResponse computeDashboard(LocalDate startDate, LocalDate endDate) {
+        var rollups = rollupRepository.findByDateRangeWithRelations(startDate, endDate);
         var pendingAlerts = healthRepository.findPendingApprovalWithRelations();
 
-        // Collect all unique batch IDs appearing in the date range to prefetch cumulative data
-        Set<Long> batchIds = feedingRecords.stream()
-                .map(f -> f.getBatch().getId())
-                .collect(Collectors.toSet());
-        mortalityRecords.stream()
-                .map(m -> m.getBatch().getId())
-                .forEach(batchIds::add);
-
-        // Prefetch ALL feeding records per batch (needed for cumulative FCR)
-        Map<Long, List<FeedingRecord>> allFeedingByBatch = new HashMap<>();
-        for (Long batchId : batchIds) {
-            allFeedingByBatch.put(batchId, feedingRepository.findByBatchIdWithRelations(batchId));
-        }
-
-        List<SupervisionDashboardResponse.BatchDailySummary> summaries = buildDailySummaries(
-                feedingRecords, mortalityRecords, allFeedingByBatch);
+        List<SupervisionDashboardResponse.BatchDailySummary> summaries = buildDailySummaries(rollups);
 
         List<SupervisionDashboardResponse.HealthAlertSummary> alertSummaries = pendingAlerts.stream()
                 .filter(h -> h.getApprovalStatus() == ApprovalStatus.PENDING_APPROVAL)
@@ -126,34 +123,38 @@ public class SupervisionDashboardService {
     /**
      * Calcul des FCR en temps reel pour tous les lots actifs.
      * Exposed for the dedicated FCR endpoint as well.
+     * Les cumuls sont lus dans batch_fcr_accumulator (une ligne par lot, maintenue en ecriture) :
+     * seul le poids de la courbe est calcule ici, quel que soit l'age des lots.
      */
     public List<SupervisionDashboardResponse.BatchFcrSummary> buildFcrSummaries(List<Batch> batches) {
         List<SupervisionDashboardResponse.BatchFcrSummary> result = new ArrayList<>();
         LocalDate today = LocalDate.now();
 
+        List<Long> batchIds = batches.stream()
+                .filter(b -> b.getArrivalDate() != null && b.getChickenCount() != null)
+                .map(Batch::getId)
+                .toList();
+        if (batchIds.isEmpty()) return result;
+
+        // Une lecture par clé primaire, quel que soit le nombre de lots
+        Map<Long, BatchFcrAccumulator> accumulatorByBatch = fcrAccumulatorRepository.findAllById(batchIds).stream()
+                .collect(Collectors.toMap(BatchFcrAccumulator::getBatchId, a -> a));
+
         for (Batch batch : batches) {
             if (batch.getArrivalDate() == null || batch.getChickenCount() == null) continue;
 
-            List<FeedingRecord> allFeeding = feedingRepository.findByBatchIdWithRelations(batch.getId());
-            if (allFeeding.isEmpty()) continue;
+            BatchFcrAccumulator accumulator = accumulatorByBatch.get(batch.getId());
+            if (accumulator == null || accumulator.getTotalFeedKg().signum() == 0) continue;
+            BigDecimal totalFeedKg = accumulator.getTotalFeedKg();
 
             int ageInDays = (int) ChronoUnit.DAYS.between(batch.getArrivalDate(), today) + 1;
             if (ageInDays <= 0) continue;
 
             // Total mortality up to today
-            int totalMortality = mortalityRepository
-                    .findByBatchIdAndRecordDateBetweenWithRelations(batch.getId(), batch.getArrivalDate(), today)
-                    .stream()
-                    .mapToInt(DailyMortalityRecord::getMortalityCount)
-                    .sum();
+            int totalMortality = accumulator.getTotalMortality();
 
             int aliveChickens = Math.max(1, batch.getChickenCount() - totalMortality);
 
-            BigDecimal totalFeedKg = allFeeding.stream()
-                    .filter(f -> !f.getFeedingDate().isAfter(today))
-                    .map(FeedingRecord::getQuantity)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-
             BigDecimal estimatedWeightKg = weightCurveService.getEstimatedWeightKg(batch.getStrain(), ageInDays);
 
             BigDecimal totalLiveMassKg = estimatedWeightKg.multiply(BigDecimal.valueOf(aliveChickens));
@@ -185,49 +186,17 @@ public class SupervisionDashboardService {
         return result;
     }
 
-    private List<SupervisionDashboardResponse.BatchDailySummary> buildDailySummaries(
-            List<FeedingRecord> feedingRecords,
-            List<org.example.djajbladibackend.models.DailyMortalityRecord> mortalityRecords,
-            Map<Long, List<FeedingRecord>> allFeedingByBatch) {
-
-        List<SupervisionDashboardResponse.BatchDailySummary> summaries = new ArrayList<>();
-        Set<String> seen = new HashSet<>();
-
-        for (var f : feedingRecords) {
-            String key = f.getBatch().getId() + "|" + f.getFeedingDate();
-            if (seen.add(key)) {
-                Batch batch = f.getBatch();
-                LocalDate date = f.getFeedingDate();
-
-                BigDecimal totalQty = feedingRecords.stream()
-                        .filter(x -> x.getBatch().getId().equals(batch.getId()) && x.getFeedingDate().equals(date))
-                        .map(FeedingRecord::getQuantity)
-                        .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-                int mortality = mortalityRecords.stream()
-                        .filter(x -> x.getBatch().getId().equals(batch.getId()) && x.getRecordDate().equals(date))
-                        .mapToInt(DailyMortalityRecord::getMortalityCount)
-                        .sum();
-
-                summaries.add(buildDailySummary(batch, date, totalQty, mortality,
-                        f.getRecordedBy().getFullName(), allFeedingByBatch, mortalityRecords));
-            }
-        }
-
-        for (var m : mortalityRecords) {
-            String key = m.getBatch().getId() + "|" + m.getRecordDate();
-            if (seen.add(key)) {
-                Batch batch = m.getBatch();
-                LocalDate date = m.getRecordDate();
-
-                BigDecimal totalQty = feedingRecords.stream()
-                        .filter(x -> x.getBatch().getId().equals(batch.getId()) && x.getFeedingDate().equals(date))
-                        .map(FeedingRecord::getQuantity)
-                        .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-                summaries.add(buildDailySummary(batch, date, totalQty, m.getMortalityCount(),
-                        m.getRecordedBy().getFullName(), allFeedingByBatch, mortalityRecords));
-            }
+    /**
+     * Une ligne par lot et par jour, lue telle quelle dans batch_daily_rollup
+     * (les cumuls y sont maintenus à l'écriture).
+     */
+    List<SupervisionDashboardResponse.BatchDailySummary> buildDailySummaries(List<BatchDailyRollup> rollups) {
+        List<SupervisionDashboardResponse.BatchDailySummary> summaries = new ArrayList<>(rollups.size());
+        for (BatchDailyRollup rollup : rollups) {
+            String recordedByName = rollup.getRecordedBy() != null ? rollup.getRecordedBy().getFullName() : null;
+            summaries.add(buildDailySummary(rollup.getBatch(), rollup.getRollupDate(), rollup.getFeedKg(),
+                    rollup.getMortalityCount(), recordedByName,
+                    rollup.getCumulativeFeedKg(), rollup.getCumulativeMortality()));
         }
 
         summaries.sort(Comparator.comparing(SupervisionDashboardResponse.BatchDailySummary::getDate).reversed()
@@ -241,8 +210,8 @@ public class SupervisionDashboardService {
             BigDecimal totalQtyToday,
             int mortalityToday,
             String recordedByName,
-            Map<Long, List<FeedingRecord>> allFeedingByBatch,
-            List<DailyMortalityRecord> mortalityRecords) {
+            BigDecimal cumulativeFeedKg,
+            int cumulativeMortality) {
 
         int ageInDays = batch.getArrivalDate() != null
                 ? (int) ChronoUnit.DAYS.between(batch.getArrivalDate(), date) + 1
@@ -252,21 +221,6 @@ public class SupervisionDashboardService {
                 ? weightCurveService.getEstimatedWeightKg(batch.getStrain(), ageInDays)
                 : BigDecimal.ZERO;
 
-        // Cumulative feed from day 1 to current date (inclusive)
-        List<FeedingRecord> allFeedForBatch = allFeedingByBatch.getOrDefault(batch.getId(), List.of());
-        BigDecimal cumulativeFeedKg = allFeedForBatch.stream()
-                .filter(f -> !f.getFeedingDate().isAfter(date))
-                .map(FeedingRecord::getQuantity)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        // Cumulative mortality up to current date
-        int cumulativeMortality = mortalityRecords.stream()
-                .filter(m -> m.getBatch().getId().equals(batch.getId()) && !m.getRecordDate().isAfter(date))
-                .mapToInt(DailyMortalityRecord::getMortalityCount)
-                .sum();
-        // Add today's mortality not yet in the list (when coming from feeding loop)
-        // We rely on the mortalityRecords list already containing today's record if it exists.
-
         int aliveChickens = Math.max(1, batch.getChickenCount() != null
                 ? batch.getChickenCount() - cumulativeMortality
                 : 1);
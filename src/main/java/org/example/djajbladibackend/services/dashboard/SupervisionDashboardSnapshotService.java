@@ -0,0 +1,142 @@
+package org.example.djajbladibackend.services.dashboard;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.djajbladibackend.dto.dashboard.SupervisionDashboardResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Instantané précalculé du tableau de supervision (fenêtre glissante des N derniers jours + FCR des lots actifs).
+ *
+ * - toute plage incluse dans la fenêtre est servie depuis la mémoire (les lignes journalières sont filtrées)
+ * - périodiquement : recalcul si l'instantané est marqué périmé, trop ancien ou d'un autre jour
+ * - après le commit d'une écriture concernée (relevés, alertes sanitaires, statut de lot) : marqué périmé,
+ *   l'ancien instantané reste servi jusqu'au recalcul suivant (stale-while-revalidate)
+ */
+@Slf4j
+@Service
+public class SupervisionDashboardSnapshotService {
+
+    private final SupervisionDashboardService dashboardService;
+
+    @Value("${app.supervision.snapshot-window-days:30}")
+    private int windowDays;
+
+    @Value("${app.supervision.snapshot-max-age-ms:600000}")
+    private long maxAgeMs;
+
+    private volatile SupervisionDashboardResponse snapshot;
+    private volatile long computedAtMillis;
+    private final AtomicBoolean stale = new AtomicBoolean(true);
+
+    public SupervisionDashboardSnapshotService(SupervisionDashboardService dashboardService) {
+        this.dashboardService = dashboardService;
+    }
+
+    /**
+     * Tableau de supervision : depuis l'instantané si la plage est dans la fenêtre précalculée,
+     * sinon calcul direct.
+     */
+    public SupervisionDashboardResponse getDashboard(LocalDate startDate, LocalDate endDate, String adminEmail) {
+        dashboardService.checkAccess(startDate, endDate, adminEmail);
+        LocalDate today = LocalDate.now();
+        if (endDate.isAfter(today) || startDate.isBefore(today.minusDays(windowDays))) {
+            return dashboardService.computeDashboard(startDate, endDate);
+        }
+        SupervisionDashboardResponse current = currentFor(today);
+        return SupervisionDashboardResponse.builder()
+                .startDate(startDate)
+                .endDate(endDate)
+                .batchSummaries(current.getBatchSummaries().stream()
+                        .filter(s -> !s.getDate().isBefore(startDate) && !s.getDate().isAfter(endDate))
+                        .toList())
+                .pendingAlerts(current.getPendingAlerts())
+                .fcrSummaries(current.getFcrSummaries())
+                .build();
+    }
+
+    /** FCR des lots actifs, depuis l'instantané. */
+    public List<SupervisionDashboardResponse.BatchFcrSummary> getFcrSummaries() {
+        return currentFor(LocalDate.now()).getFcrSummaries();
+    }
+
+    /** Marque l'instantané périmé une fois la transaction courante validée (immédiatement hors transaction). */
+    public void markStaleAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            stale.set(true);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                stale.set(true);
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${app.supervision.snapshot-poll-interval-ms:15000}",
+               initialDelayString = "${app.supervision.snapshot-initial-delay-ms:0}")
+    public void refreshIfNeeded() {
+        SupervisionDashboardResponse current = snapshot;
+        boolean expired = System.currentTimeMillis() - computedAtMillis >= maxAgeMs;
+        if (current == null || stale.get() || expired || !current.getEndDate().equals(LocalDate.now())) {
+            try {
+                refresh();
+            } catch (RuntimeException e) {
+                log.warn("Supervision dashboard precomputation failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Recalcule et publie l'instantané. Le drapeau est levé avant le calcul :
+     * une écriture validée pendant le calcul déclenche un nouveau passage.
+     */
+    public synchronized SupervisionDashboardResponse refresh() {
+        stale.set(false);
+        LocalDate today = LocalDate.now();
+        long start = System.currentTimeMillis();
+        SupervisionDashboardResponse computed;
+        try {
+            computed = dashboardService.computeDashboard(today.minusDays(windowDays), today);
+        } catch (RuntimeException e) {
+            stale.set(true);
+            throw e;
+        }
+        SupervisionDashboardResponse published = SupervisionDashboardResponse.builder()
+                .startDate(computed.getStartDate())
+                .endDate(computed.getEndDate())
+                .batchSummaries(List.copyOf(computed.getBatchSummaries()))
+                .pendingAlerts(List.copyOf(computed.getPendingAlerts()))
+                .fcrSummaries(List.copyOf(computed.getFcrSummaries()))
+                .build();
+        snapshot = published;
+        computedAtMillis = System.currentTimeMillis();
+        log.debug("Supervision dashboard snapshot published: window={}..{}, rows={}, took={}ms",
+                published.getStartDate(), published.getEndDate(), published.getBatchSummaries().size(),
+                computedAtMillis - start);
+        return published;
+    }
+
+    /** Instantané du jour ; calculé de façon synchrone s'il n'existe pas encore (premier appel, changement de jour). */
+    private SupervisionDashboardResponse currentFor(LocalDate today) {
+        SupervisionDashboardResponse current = snapshot;
+        if (current != null && current.getEndDate().equals(today)) {
+            return current;
+        }
+        synchronized (this) {
+            current = snapshot;
+            if (current != null && current.getEndDate().equals(today)) {
+                return current;
+            }
+            return refresh();
+        }
+    }
+}
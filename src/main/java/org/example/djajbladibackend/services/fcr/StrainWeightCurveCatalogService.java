@@ -0,0 +1,170 @@
+package org.example.djajbladibackend.services.fcr;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.djajbladibackend.dto.fcr.StrainWeightCurveRequest;
+import org.example.djajbladibackend.dto.fcr.StrainWeightCurveResponse;
+import org.example.djajbladibackend.exception.InvalidDataException;
+import org.example.djajbladibackend.exception.ResourceNotFoundException;
+import org.example.djajbladibackend.models.StrainWeightCurvePoint;
+import org.example.djajbladibackend.models.User;
+import org.example.djajbladibackend.repository.StrainWeightCurveRepository;
+import org.example.djajbladibackend.repository.auth.UserRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+/**
+ * Gestion des courbes de poids en base (CRUD admin) et publication de l'instantané
+ * servi par StrainWeightCurveService.
+ *
+ * - au démarrage : chargement depuis strain_weight_curves
+ * - après chaque modification validée (afterCommit) : rechargement immédiat
+ * - périodiquement : rechargement si l'empreinte de la table a changé (modification faite par une autre instance)
+ */
+@Slf4j
+@Service
+@Transactional(readOnly = true)
+public class StrainWeightCurveCatalogService {
+
+    private final StrainWeightCurveRepository curveRepository;
+    private final UserRepository userRepository;
+    private final StrainWeightCurveService weightCurveService;
+
+    private volatile String loadedFingerprint;
+
+    public StrainWeightCurveCatalogService(StrainWeightCurveRepository curveRepository,
+                                           UserRepository userRepository,
+                                           StrainWeightCurveService weightCurveService) {
+        this.curveRepository = curveRepository;
+        this.userRepository = userRepository;
+        this.weightCurveService = weightCurveService;
+    }
+
+    public List<StrainWeightCurveResponse> findAll() {
+        StrainWeightCurveSnapshot snapshot = weightCurveService.getSnapshot();
+        Map<String, List<StrainWeightCurvePoint>> byStrain = new LinkedHashMap<>();
+        for (StrainWeightCurvePoint point : curveRepository.findAllByOrderByStrainAscAgeDaysAsc()) {
+            byStrain.computeIfAbsent(point.getStrain(), k -> new ArrayList<>()).add(point);
+        }
+        return byStrain.entrySet().stream()
+                .map(e -> toResponse(e.getKey(), e.getValue(), snapshot.getVersion()))
+                .toList();
+    }
+
+    public StrainWeightCurveResponse findByStrain(String strain) {
+        List<StrainWeightCurvePoint> points = curveRepository.findByStrainIgnoreCase(strain.trim());
+        if (points.isEmpty()) {
+            throw new ResourceNotFoundException("Courbe de poids", "souche", strain);
+        }
+        return toResponse(points.get(0).getStrain(), points, weightCurveService.getSnapshot().getVersion());
+    }
+
+    /**
+     * Crée ou remplace la courbe d'une souche (tous les points). Le nouvel instantané
+     * est publié après le commit.
+     */
+    @Transactional
+    public StrainWeightCurveResponse replace(String strain, StrainWeightCurveRequest req, String adminEmail) {
+        String name = strain.trim();
+        if (name.isEmpty() || name.length() > 100) {
+            throw new InvalidDataException("Le nom de la souche doit contenir entre 1 et 100 caractères.");
+        }
+        Set<Integer> ages = new HashSet<>();
+        for (StrainWeightCurveRequest.CurvePoint point : req.getPoints()) {
+            if (!ages.add(point.getAgeDays())) {
+                throw new InvalidDataException("Âge en double dans la courbe : jour " + point.getAgeDays() + ".");
+            }
+        }
+        User admin = userRepository.findByEmail(adminEmail)
+                .orElseThrow(() -> new ResourceNotFoundException("Utilisateur introuvable : " + adminEmail));
+
+        curveRepository.deleteByStrainIgnoreCase(name);
+        List<StrainWeightCurvePoint> saved = curveRepository.saveAll(req.getPoints().stream()
+                .sorted(Comparator.comparing(StrainWeightCurveRequest.CurvePoint::getAgeDays))
+                .map(p -> StrainWeightCurvePoint.builder()
+                        .strain(name)
+                        .ageDays(p.getAgeDays())
+                        .weightKg(p.getWeightKg())
+                        .createdBy(admin)
+                        .build())
+                .toList());
+
+        reloadAfterCommit();
+        log.info("Weight curve replaced: strain={}, points={}, by={}", name, saved.size(), adminEmail);
+        return toResponse(name, saved, null);
+    }
+
+    @Transactional
+    public void delete(String strain) {
+        String name = strain.trim();
+        if (name.equalsIgnoreCase(StrainWeightCurveSnapshot.DEFAULT_STRAIN)) {
+            throw new InvalidDataException("La courbe " + StrainWeightCurveSnapshot.DEFAULT_STRAIN
+                    + " sert de référence pour les souches inconnues et ne peut pas être supprimée.");
+        }
+        if (curveRepository.deleteByStrainIgnoreCase(name) == 0) {
+            throw new ResourceNotFoundException("Courbe de poids", "souche", strain);
+        }
+        reloadAfterCommit();
+        log.info("Weight curve deleted: strain={}", name);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        reload();
+    }
+
+    @Scheduled(fixedDelayString = "${app.weight-curves.refresh-interval-ms:60000}",
+               initialDelayString = "${app.weight-curves.refresh-interval-ms:60000}")
+    public void refreshIfChanged() {
+        if (!Objects.equals(curveRepository.fingerprint(), loadedFingerprint)) {
+            reload();
+        }
+    }
+
+    /**
+     * Relit toutes les courbes et publie un nouvel instantané.
+     * Table vide : l'instantané courant est conservé.
+     */
+    public void reload() {
+        String fingerprint = curveRepository.fingerprint();
+        Map<String, NavigableMap<Integer, BigDecimal>> curves = new LinkedHashMap<>();
+        for (StrainWeightCurvePoint point : curveRepository.findAllByOrderByStrainAscAgeDaysAsc()) {
+            curves.computeIfAbsent(point.getStrain(), k -> new TreeMap<>())
+                    .put(point.getAgeDays(), point.getWeightKg().stripTrailingZeros());
+        }
+        if (curves.isEmpty()) {
+            log.warn("Table strain_weight_curves vide : les courbes en mémoire sont conservées.");
+            loadedFingerprint = fingerprint;
+            return;
+        }
+        StrainWeightCurveSnapshot published = weightCurveService.publish(curves);
+        loadedFingerprint = fingerprint;
+        log.info("Weight curves snapshot published: version={}, strains={}", published.getVersion(), curves.keySet());
+    }
+
+    private void reloadAfterCommit() {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                reload();
+            }
+        });
+    }
+
+    private StrainWeightCurveResponse toResponse(String strain, List<StrainWeightCurvePoint> points, Long snapshotVersion) {
+        return StrainWeightCurveResponse.builder()
+                .strain(strain)
+                .points(points.stream()
+                        .map(p -> new StrainWeightCurveRequest.CurvePoint(p.getAgeDays(), p.getWeightKg()))
+                        .toList())
+                .snapshotVersion(snapshotVersion)
+                .build();
+    }
+}
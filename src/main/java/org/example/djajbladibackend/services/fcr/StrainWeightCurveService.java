@@ -3,7 +3,6 @@ package org.example.djajbladibackend.services.fcr;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.util.Map;
 import java.util.NavigableMap;
 import java.util.TreeMap;
@@ -12,16 +11,23 @@ import java.util.TreeMap;
  * Service de courbes de poids standard par souche avicole.
  *
  * Principe : transformation d'un ageInDays -> poids vif estimé (kg/oiseau).
- * Source : tables de performance officielles des souches (Aviagen, Cobb-Vantress, Hubbard).
+ * Source : table strain_weight_curves (éditable par l'admin, voir StrainWeightCurveCatalogService),
+ * initialement les tables de performance officielles des souches (Aviagen, Cobb-Vantress, Hubbard).
  *
  * Interpolation linéaire entre les points de contrôle connus.
  * Si la souche est inconnue, on utilise la courbe générique Ross 308.
+ *
+ * Les lectures se font sur un instantané immuable publié via un champ volatile :
+ * ni accès base, ni verrou sur le chemin chaud.
  */
 @Service
 public class StrainWeightCurveService {
 
-
-    private static final Map<String, NavigableMap<Integer, BigDecimal>> CURVES = Map.of(
+    /**
+     * Courbes embarquées, servies jusqu'au premier chargement depuis la base
+     * (mêmes valeurs que le seed de V27).
+     */
+    private static final Map<String, NavigableMap<Integer, BigDecimal>> BUILT_IN_CURVES = Map.of(
 
         // Ross 308 — Aviagen Guide de Performance 2024
         // Source: https://www.aviagen.com/tech-center/performance-objectives
@@ -61,6 +67,8 @@ public class StrainWeightCurveService {
         })
     );
 
+    private volatile StrainWeightCurveSnapshot snapshot = StrainWeightCurveSnapshot.of(0, BUILT_IN_CURVES);
+
     /**
      * Retourne le poids estimé (kg) par oiseau pour une souche et un âge donnés.
      * Si la souche est inconnue, utilise Ross 308 comme référence.
@@ -70,52 +78,22 @@ public class StrainWeightCurveService {
      * @return Poids vif estimé en kg par oiseau
      */
     public BigDecimal getEstimatedWeightKg(String strain, int ageInDays) {
-        if (ageInDays <= 0) {
-            return BigDecimal.valueOf(0.042);
-        }
-
-        NavigableMap<Integer, BigDecimal> curve = resolveCurve(strain);
-
-        // Cas exact
-        if (curve.containsKey(ageInDays)) {
-            return curve.get(ageInDays);
-        }
-
-        // Interpolation linéaire entre les deux points encadrants
-        Map.Entry<Integer, BigDecimal> lower = curve.floorEntry(ageInDays);
-        Map.Entry<Integer, BigDecimal> upper = curve.ceilingEntry(ageInDays);
-
-        if (lower == null) return upper.getValue();
-        if (upper == null) return lower.getValue();
-
-        // t = position relative entre lower et upper
-        double t = (double)(ageInDays - lower.getKey()) / (upper.getKey() - lower.getKey());
-        double interpolated = lower.getValue().doubleValue()
-                + t * (upper.getValue().doubleValue() - lower.getValue().doubleValue());
+        return snapshot.getEstimatedWeightKg(strain, ageInDays);
+    }
 
-        return BigDecimal.valueOf(interpolated).setScale(4, RoundingMode.HALF_UP);
+    public StrainWeightCurveSnapshot getSnapshot() {
+        return snapshot;
     }
 
     /**
-     * Résolution de la courbe : normalisation du nom de souche, fallback sur Ross 308.
+     * Publie un nouvel instantané construit à partir des courbes données (remplacement atomique).
+     *
+     * @return l'instantané publié
      */
-    private NavigableMap<Integer, BigDecimal> resolveCurve(String strain) {
-        if (strain == null) {
-            return CURVES.get("Ross 308");
-        }
-        String normalized = strain.trim();
-        // Lookup exact
-        if (CURVES.containsKey(normalized)) {
-            return CURVES.get(normalized);
-        }
-        // Lookup partiel (ex: "ross 308" -> "Ross 308")
-        for (Map.Entry<String, NavigableMap<Integer, BigDecimal>> entry : CURVES.entrySet()) {
-            if (entry.getKey().equalsIgnoreCase(normalized)) {
-                return entry.getValue();
-            }
-        }
-        // Fallback Ross 308
-        return CURVES.get("Ross 308");
+    public synchronized StrainWeightCurveSnapshot publish(Map<String, NavigableMap<Integer, BigDecimal>> curves) {
+        StrainWeightCurveSnapshot next = StrainWeightCurveSnapshot.of(snapshot.getVersion() + 1, curves);
+        snapshot = next;
+        return next;
     }
 
     private static NavigableMap<Integer, BigDecimal> buildCurve(double[][] points) {
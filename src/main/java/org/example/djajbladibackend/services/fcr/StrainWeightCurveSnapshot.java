@@ -0,0 +1,124 @@
+package org.example.djajbladibackend.services.fcr;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Instantané immuable et versionné des courbes de poids.
+ *
+ * Chaque courbe est dépliée en tableau dense indexé par jour (0..âge max) : une lecture est
+ * un accès tableau. Un nouvel instantané est construit à chaque changement puis publié d'un bloc,
+ * les lecteurs ne voient jamais un état partiel.
+ */
+public final class StrainWeightCurveSnapshot {
+
+    static final String DEFAULT_STRAIN = "Ross 308";
+
+    private static final BigDecimal HATCH_WEIGHT_KG = BigDecimal.valueOf(0.042);
+
+    private final long version;
+    private final Map<String, NavigableMap<Integer, BigDecimal>> controlPoints;
+    /** Poids par jour d'âge, clé = nom exact de la souche. */
+    private final Map<String, BigDecimal[]> dailyWeights;
+    /** Mêmes tableaux, clé = nom en minuscules (résolution insensible à la casse). */
+    private final Map<String, BigDecimal[]> dailyWeightsByLowerName;
+    private final BigDecimal[] fallback;
+
+    private StrainWeightCurveSnapshot(long version, Map<String, NavigableMap<Integer, BigDecimal>> curves) {
+        this.version = version;
+        Map<String, NavigableMap<Integer, BigDecimal>> points = new LinkedHashMap<>();
+        Map<String, BigDecimal[]> daily = new HashMap<>();
+        Map<String, BigDecimal[]> byLowerName = new HashMap<>();
+        curves.forEach((strain, curve) -> {
+            if (curve.isEmpty()) return;
+            BigDecimal[] expanded = expandCurve(curve);
+            points.put(strain, Collections.unmodifiableNavigableMap(new TreeMap<>(curve)));
+            daily.put(strain, expanded);
+            byLowerName.put(strain.toLowerCase(Locale.ROOT), expanded);
+        });
+        this.controlPoints = Collections.unmodifiableMap(points);
+        this.dailyWeights = daily;
+        this.dailyWeightsByLowerName = byLowerName;
+        BigDecimal[] defaultCurve = byLowerName.get(DEFAULT_STRAIN.toLowerCase(Locale.ROOT));
+        this.fallback = defaultCurve != null ? defaultCurve : new BigDecimal[]{HATCH_WEIGHT_KG};
+    }
+
+    /**
+     * @param version numéro d'instantané (croissant à chaque publication)
+     * @param curves  points de contrôle par souche (âge en jours -> poids kg)
+     */
+    public static StrainWeightCurveSnapshot of(long version, Map<String, NavigableMap<Integer, BigDecimal>> curves) {
+        return new StrainWeightCurveSnapshot(version, curves);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Map<String, NavigableMap<Integer, BigDecimal>> getControlPoints() {
+        return controlPoints;
+    }
+
+    /**
+     * Poids estimé (kg) par oiseau. Souche inconnue : courbe Ross 308.
+     * Au-delà du dernier point de contrôle, le poids reste celui du dernier point.
+     */
+    public BigDecimal getEstimatedWeightKg(String strain, int ageInDays) {
+        if (ageInDays <= 0) {
+            return HATCH_WEIGHT_KG;
+        }
+        BigDecimal[] daily = resolveCurve(strain);
+        return daily[Math.min(ageInDays, daily.length - 1)];
+    }
+
+    /**
+     * Résolution de la courbe : nom exact, puis nom normalisé (trim + minuscules), fallback sur Ross 308.
+     */
+    private BigDecimal[] resolveCurve(String strain) {
+        if (strain == null) {
+            return fallback;
+        }
+        BigDecimal[] daily = dailyWeights.get(strain);
+        if (daily != null) {
+            return daily;
+        }
+        // Lookup normalisé (ex: " ross 308" -> "Ross 308")
+        daily = dailyWeightsByLowerName.get(strain.trim().toLowerCase(Locale.ROOT));
+        return daily != null ? daily : fallback;
+    }
+
+    /**
+     * Déplie une courbe en tableau dense [0..âge max] : points de contrôle tels quels,
+     * interpolation linéaire arrondie à 4 décimales entre deux points.
+     */
+    private static BigDecimal[] expandCurve(NavigableMap<Integer, BigDecimal> curve) {
+        int maxAge = curve.lastKey();
+        BigDecimal[] daily = new BigDecimal[maxAge + 1];
+        for (int age = 0; age <= maxAge; age++) {
+            BigDecimal exact = curve.get(age);
+            if (exact != null) {
+                daily[age] = exact;
+                continue;
+            }
+            Map.Entry<Integer, BigDecimal> lower = curve.floorEntry(age);
+            Map.Entry<Integer, BigDecimal> upper = curve.ceilingEntry(age);
+            if (lower == null) {
+                daily[age] = upper.getValue();
+                continue;
+            }
+            // t = position relative entre lower et upper
+            double t = (double) (age - lower.getKey()) / (upper.getKey() - lower.getKey());
+            double interpolated = lower.getValue().doubleValue()
+                    + t * (upper.getValue().doubleValue() - lower.getValue().doubleValue());
+            daily[age] = BigDecimal.valueOf(interpolated).setScale(4, RoundingMode.HALF_UP);
+        }
+        return daily;
+    }
+}
@@ -1,7 +1,9 @@
 package org.example.djajbladibackend.services.feeding;
 
 import lombok.extern.slf4j.Slf4j;
+import org.example.djajbladibackend.dto.common.KeysetCursor;
 import org.example.djajbladibackend.dto.common.PageResponse;
+import org.example.djajbladibackend.dto.feeding.FeedingRecordBulkResponse;
 import org.example.djajbladibackend.dto.feeding.FeedingRecordRequest;
 import org.example.djajbladibackend.dto.feeding.FeedingRecordResponse;
 import org.example.djajbladibackend.exception.BatchNotActiveException;
@@ -14,21 +16,35 @@ import org.example.djajbladibackend.models.Batch;
 import org.example.djajbladibackend.models.BatchStatus;
 import org.example.djajbladibackend.models.FeedingRecord;
 import org.example.djajbladibackend.models.StockItem;
+import org.example.djajbladibackend.models.StockMovementType;
 import org.example.djajbladibackend.models.User;
 import org.example.djajbladibackend.models.enums.RoleEnum;
 import org.example.djajbladibackend.repository.BatchRepository;
 import org.example.djajbladibackend.repository.FeedingRecordRepository;
 import org.example.djajbladibackend.repository.StockItemRepository;
 import org.example.djajbladibackend.repository.auth.UserRepository;
+import org.example.djajbladibackend.repository.projection.FeedingExportRow;
+import org.example.djajbladibackend.services.financial.BatchCostService;
+import org.example.djajbladibackend.services.rollup.BatchDailyRollupService;
+import org.example.djajbladibackend.services.stock.StockLedgerService;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
@@ -39,6 +55,9 @@ public class FeedingRecordService {
     private final BatchRepository batchRepository;
     private final UserRepository userRepository;
     private final StockItemRepository stockItemRepository;
+    private final BatchDailyRollupService rollupService;
+    private final BatchCostService batchCostService;
+    private final StockLedgerService ledgerService;
 
     @Value("${app.supervision.max-date-range-days:366}")
     private int maxDateRangeDays;
@@ -46,11 +65,17 @@ public class FeedingRecordService {
     public FeedingRecordService(FeedingRecordRepository feedingRepository,
                                 BatchRepository batchRepository,
                                 UserRepository userRepository,
-                                StockItemRepository stockItemRepository) {
+                                StockItemRepository stockItemRepository,
+                                BatchDailyRollupService rollupService,
+                                BatchCostService batchCostService,
+                                StockLedgerService ledgerService) {
         this.feedingRepository = feedingRepository;
         this.batchRepository = batchRepository;
         this.userRepository = userRepository;
         this.stockItemRepository = stockItemRepository;
+        this.rollupService = rollupService;
+        this.batchCostService = batchCostService;
+        this.ledgerService = ledgerService;
     }
 
     /**
@@ -58,33 +83,21 @@ public class FeedingRecordService {
      *
      * Logique ACID :
      *   1. Valider la requete (role, date, lot actif, stockItemId obligatoire)
-     *   2. Acquerir un PESSIMISTIC_WRITE lock sur le StockItem -> bloque les
-     *      acces concurrents jusqu'a la fin de la transaction
-     *   3. Verifier disponibilite : stock.quantity >= req.quantity
-     *   4. Si insuffisant -> InsufficientStockException (rollback automatique)
-     *   5. Deduire : stock.quantity -= req.quantity
-     *   6. Sauvegarder le FeedingRecord lie au StockItem
-     *   -> Les etapes 5 et 6 sont atomiques : meme @Transactional
+     *   2. Sauvegarder le FeedingRecord lie au StockItem
+     *   3. Mettre a jour l'agregat journalier du lot (batch_daily_rollup)
+     *   4. Deduire le stock en dernier, par UPDATE conditionnel (quantity >= req.quantity) :
+     *      le verrou de la ligne stock n'est tenu que de cet UPDATE jusqu'au commit
+     *   5. Si insuffisant -> InsufficientStockException (rollback des etapes 2 et 3)
+     *   6. Ajouter le mouvement FEEDING au journal de stock
+     *   -> Les etapes 2 a 6 sont atomiques : meme @Transactional
      */
     @Transactional
     public FeedingRecordResponse create(FeedingRecordRequest req, String userEmail) {
         // --- Validation role ---
-        User user = userRepository.findByEmail(userEmail)
-                .orElseThrow(() -> new ResourceNotFoundException("Utilisateur introuvable : " + userEmail));
-        if (user.getRole() != RoleEnum.Ouvrier && user.getRole() != RoleEnum.Admin) {
-            throw new ForbiddenRoleException("Seul un ouvrier ou un administrateur peut enregistrer une distribution d'aliment.");
-        }
+        User user = requireRecorder(userEmail);
 
         // --- Validation metier ---
-        if (req.getFeedingDate().isAfter(LocalDate.now())) {
-            throw new InvalidDataException("La date de distribution ne peut pas être dans le futur.");
-        }
-        if (req.getFeedType() == null || req.getFeedType().trim().isEmpty()) {
-            throw new InvalidDataException("Le type d'aliment est obligatoire.");
-        }
-        if (req.getQuantity() == null || req.getQuantity().signum() <= 0) {
-            throw new InvalidDataException("La quantité doit être supérieure à 0.");
-        }
+        validate(req);
 
         Batch batch = batchRepository.findById(req.getBatchId())
                 .orElseThrow(() -> new ResourceNotFoundException("Lot introuvable : " + req.getBatchId()));
@@ -92,48 +105,151 @@ public class FeedingRecordService {
             throw new BatchNotActiveException("L'alimentation ne peut être enregistrée que pour les lots actifs. Statut actuel : " + batch.getStatus());
         }
 
-        // --- Tracabilite stock obligatoire ---
-        // findByIdForUpdate pose un PESSIMISTIC_WRITE lock (SELECT ... FOR UPDATE)
-        // -> toute autre transaction voulant modifier ce StockItem sera bloquee
-        // jusqu'a la fin de cette transaction (commit ou rollback)
-        StockItem stockItem = stockItemRepository.findByIdForUpdate(req.getStockItemId())
+        // --- Tracabilite stock obligatoire (lecture simple, sans verrou) ---
+        StockItem stockItem = stockItemRepository.findById(req.getStockItemId())
                 .orElseThrow(() -> new ResourceNotFoundException("Article de stock introuvable : " + req.getStockItemId()));
-
-        // --- Verification disponibilite (en kg) ---
         BigDecimal requested = req.getQuantity();
-        BigDecimal available = stockItem.getQuantity();
 
-        if (available.compareTo(requested) < 0) {
-            // Le lock sera libere automatiquement au rollback
+        // --- Creation du FeedingRecord lie au stock ---
+        FeedingRecord saved = feedingRepository.save(toEntity(req, batch, stockItem, user));
+        rollupService.recordFeeding(batch.getId(), saved.getFeedingDate(), requested, user.getId());
+        batchCostService.evictCachedCost(batch.getId());
+
+        // --- Deduction atomique du stock (en kg) ---
+        deductStock(stockItem, requested);
+        ledgerService.record(StockMovementType.FEEDING, stockItem.getId(), requested.negate(), batch.getId(), saved.getId());
+        log.info("Stock deduction: stockItemId={}, name='{}', deducted={}kg, batchId={}",
+                stockItem.getId(), stockItem.getName(), requested, batch.getId());
+
+        return toResponse(saved);
+    }
+
+    /**
+     * Enregistre un lot de distributions saisies hors ligne, en tout ou rien.
+     *
+     *   1. Valider chaque releve, charger les lots concernes en une requete (tous actifs)
+     *   2. Charger les StockItem concernes en une requete
+     *   3. Inserer les releves (INSERT regroupes par hibernate.jdbc.batch_size, ids par sequence)
+     *   4. Une mise a jour du rollup par (lot, jour) au lieu d'une par releve
+     *   5. En dernier, un UPDATE conditionnel par article sur le total demande, par id croissant :
+     *      deux envois concurrents prennent les verrous de ligne dans le meme ordre
+     *   6. Un mouvement FEEDING par releve dans le journal de stock (INSERT regroupes)
+     */
+    @Transactional
+    public FeedingRecordBulkResponse createBulk(List<FeedingRecordRequest> requests, String userEmail) {
+        User user = requireRecorder(userEmail);
+        for (int i = 0; i < requests.size(); i++) {
+            try {
+                validate(requests.get(i));
+            } catch (InvalidDataException e) {
+                throw new InvalidDataException("Relevé " + (i + 1) + " : " + e.getMessage());
+            }
+        }
+
+        Set<Long> batchIds = requests.stream().map(FeedingRecordRequest::getBatchId).collect(Collectors.toSet());
+        Map<Long, Batch> batches = batchRepository.findAllById(batchIds).stream()
+                .collect(Collectors.toMap(Batch::getId, Function.identity()));
+        for (Long batchId : batchIds) {
+            Batch batch = batches.get(batchId);
+            if (batch == null) {
+                throw new ResourceNotFoundException("Lot introuvable : " + batchId);
+            }
+            if (batch.getStatus() != BatchStatus.Active) {
+                throw new BatchNotActiveException("L'alimentation ne peut être enregistrée que pour les lots actifs. Lot "
+                        + batch.getBatchNumber() + ", statut actuel : " + batch.getStatus());
+            }
+        }
+
+        // TreeMap : ordre de verrouillage deterministe (id croissant)
+        Map<Long, BigDecimal> requestedByItem = new TreeMap<>();
+        for (FeedingRecordRequest req : requests) {
+            requestedByItem.merge(req.getStockItemId(), req.getQuantity(), BigDecimal::add);
+        }
+        Map<Long, StockItem> stockItems = stockItemRepository.findAllById(requestedByItem.keySet()).stream()
+                .collect(Collectors.toMap(StockItem::getId, Function.identity()));
+        for (Long itemId : requestedByItem.keySet()) {
+            if (!stockItems.containsKey(itemId)) {
+                throw new ResourceNotFoundException("Article de stock introuvable : " + itemId);
+            }
+        }
+
+        List<FeedingRecord> records = requests.stream()
+                .map(req -> toEntity(req, batches.get(req.getBatchId()), stockItems.get(req.getStockItemId()), user))
+                .toList();
+        List<FeedingRecord> saved = feedingRepository.saveAll(records);
+
+        // Cumuls par (lot, jour), tries pour prendre les verrous de lot dans le meme ordre
+        Map<Long, Map<LocalDate, List<FeedingRecord>>> byBatchAndDay = saved.stream()
+                .collect(Collectors.groupingBy(r -> r.getBatch().getId(), TreeMap::new,
+                        Collectors.groupingBy(FeedingRecord::getFeedingDate, TreeMap::new, Collectors.toList())));
+        byBatchAndDay.forEach((batchId, days) -> {
+            days.forEach((day, dayRecords) -> {
+                BigDecimal quantity = dayRecords.stream().map(FeedingRecord::getQuantity)
+                        .reduce(BigDecimal.ZERO, BigDecimal::add);
+                rollupService.recordFeedingTotals(batchId, day, quantity, dayRecords.size(), user.getId());
+            });
+            batchCostService.evictCachedCost(batchId);
+        });
+        requestedByItem.forEach((itemId, requested) -> deductStock(stockItems.get(itemId), requested));
+        ledgerService.recordAll(saved.stream()
+                .map(r -> StockLedgerService.movement(StockMovementType.FEEDING, r.getStockItem().getId(),
+                        r.getQuantity().negate(), r.getBatch().getId(), r.getId()))
+                .toList());
+
+        log.info("Bulk feeding upload: records={}, batches={}, stockItems={}, userId={}",
+                saved.size(), batchIds.size(), stockItems.size(), user.getId());
+        return FeedingRecordBulkResponse.builder()
+                .createdCount(saved.size())
+                .ids(saved.stream().map(FeedingRecord::getId).toList())
+                .build();
+    }
+
+    /**
+     * UPDATE conditionnel ; 0 ligne modifiee = stock insuffisant (la quantite courante est relue
+     * pour le message, l'entite du contexte pouvant etre perimee).
+     */
+    private void deductStock(StockItem stockItem, BigDecimal requested) {
+        if (stockItemRepository.deductIfAvailable(stockItem.getId(), requested, Instant.now()) == 0) {
             throw new InsufficientStockException(
                     stockItem.getId(),
                     stockItem.getName() != null ? stockItem.getName() : stockItem.getType().name(),
-                    available,
+                    stockItemRepository.findQuantityById(stockItem.getId()).orElse(BigDecimal.ZERO),
                     requested
             );
         }
+    }
 
-        // --- Deduction atomique du stock ---
-        stockItem.setQuantity(available.subtract(requested));
-        stockItemRepository.save(stockItem);
+    private User requireRecorder(String userEmail) {
+        User user = userRepository.findByEmail(userEmail)
+                .orElseThrow(() -> new ResourceNotFoundException("Utilisateur introuvable : " + userEmail));
+        if (user.getRole() != RoleEnum.Ouvrier && user.getRole() != RoleEnum.Admin) {
+            throw new ForbiddenRoleException("Seul un ouvrier ou un administrateur peut enregistrer une distribution d'aliment.");
+        }
+        return user;
+    }
 
-        log.info("Stock deduction: stockItemId={}, name='{}', deducted={}kg, remaining={}kg, batchId={}",
-                stockItem.getId(), stockItem.getName(), requested,
-                stockItem.getQuantity(), batch.getId());
+    private void validate(FeedingRecordRequest req) {
+        if (req.getFeedingDate().isAfter(LocalDate.now())) {
+            throw new InvalidDataException("La date de distribution ne peut pas être dans le futur.");
+        }
+        if (req.getFeedType() == null || req.getFeedType().trim().isEmpty()) {
+            throw new InvalidDataException("Le type d'aliment est obligatoire.");
+        }
+        if (req.getQuantity() == null || req.getQuantity().signum() <= 0) {
+            throw new InvalidDataException("La quantité doit être supérieure à 0.");
+        }
+    }
 
-        // --- Creation du FeedingRecord lie au stock ---
-        FeedingRecord record = FeedingRecord.builder()
+    private FeedingRecord toEntity(FeedingRecordRequest req, Batch batch, StockItem stockItem, User user) {
+        return FeedingRecord.builder()
                 .batch(batch)
                 .stockItem(stockItem)
                 .feedType(req.getFeedType().trim())
-                .quantity(requested)
+                .quantity(req.getQuantity())
                 .feedingDate(req.getFeedingDate())
                 .notes(req.getNotes() != null ? req.getNotes().trim() : null)
                 .recordedBy(user)
                 .build();
-        FeedingRecord saved = feedingRepository.save(record);
-
-        return toResponse(saved);
     }
 
     public List<FeedingRecordResponse> findByDateRange(LocalDate start, LocalDate end, Long batchId) {
@@ -172,6 +288,69 @@ public class FeedingRecordService {
         );
     }
 
+    /**
+     * Pagination par clé (date, id) : cout constant quelle que soit la profondeur.
+     * cursor null ou vide = premiere page ; le COUNT n'est execute que si withTotal.
+     */
+    public PageResponse<FeedingRecordResponse> findByDateRangeKeyset(LocalDate start, LocalDate end, Long batchId,
+                                                                    String cursor, int size, boolean withTotal) {
+        if (start.isAfter(end)) {
+            throw new InvalidDataException("La date de début doit être antérieure ou égale à la date de fin.");
+        }
+        if (ChronoUnit.DAYS.between(start, end) > maxDateRangeDays) {
+            throw new DateRangeTooLargeException("La plage de dates ne peut pas dépasser " + maxDateRangeDays + " jours.");
+        }
+        boolean first = cursor == null || cursor.isBlank();
+        KeysetCursor after = first ? KeysetCursor.of(end.plusDays(1), 0L) : KeysetCursor.decode(cursor);
+        var limit = PageResponse.keysetLimit(size);
+        List<FeedingRecord> rows = batchId != null
+                ? feedingRepository.findByBatchIdAndDateRangeKeyset(batchId, start, end, after.dateKey(), after.id(), limit)
+                : feedingRepository.findByDateRangeKeyset(start, end, after.dateKey(), after.id(), limit);
+        Long total = !withTotal ? null : batchId != null
+                ? feedingRepository.countByBatchIdAndFeedingDateBetween(batchId, start, end)
+                : feedingRepository.countByFeedingDateBetween(start, end);
+        return PageResponse.keyset(rows, size, first,
+                r -> KeysetCursor.of(r.getFeedingDate(), r.getId()), this::toResponse, total);
+    }
+
+    /**
+     * Export de l'historique d'alimentation, sans plafond de plage : les lignes sont lues par curseur
+     * et transmises une a une au consumer, rien n'est accumule en memoire.
+     * Dates et lot optionnels (null = sans filtre).
+     */
+    public int exportByDateRange(LocalDate start, LocalDate end, Long batchId, Consumer<FeedingRecordResponse> consumer) {
+        if (start != null && end != null && start.isAfter(end)) {
+            throw new InvalidDataException("La date de début doit être antérieure ou égale à la date de fin.");
+        }
+        int count = 0;
+        try (Stream<FeedingExportRow> rows = feedingRepository.streamForExport(start, end, batchId)) {
+            for (Iterator<FeedingExportRow> it = rows.iterator(); it.hasNext(); ) {
+                consumer.accept(toResponse(it.next()));
+                count++;
+            }
+        }
+        log.info("Feeding history exported: start={}, end={}, batchId={}, rows={}", start, end, batchId, count);
+        return count;
+    }
+
+    private FeedingRecordResponse toResponse(FeedingExportRow r) {
+        return FeedingRecordResponse.builder()
+                .id(r.getId())
+                .batchId(r.getBatchId())
+                .batchNumber(r.getBatchNumber())
+                .stockItemId(r.getStockItemId())
+                .stockItemName(r.getStockItemName())
+                .feedType(r.getFeedType())
+                .quantity(r.getQuantity())
+                .feedingDate(r.getFeedingDate())
+                .notes(r.getNotes())
+                .recordedById(r.getRecordedById())
+                .recordedByName(r.getRecordedByName())
+                .createdAt(r.getCreatedAt())
+                .updatedAt(r.getUpdatedAt())
+                .build();
+    }
+
     private FeedingRecordResponse toResponse(FeedingRecord r) {
         return FeedingRecordResponse.builder()
                 .id(r.getId())
@@ -3,23 +3,31 @@ package org.example.djajbladibackend.services.financial;
 import lombok.extern.slf4j.Slf4j;
 import org.example.djajbladibackend.dto.financial.BatchCostBreakdownResponse;
 import org.example.djajbladibackend.exception.ResourceNotFoundException;
-import org.example.djajbladibackend.models.Batch;
-import org.example.djajbladibackend.models.FeedingRecord;
+import org.example.djajbladibackend.models.BatchStatus;
 import org.example.djajbladibackend.repository.BatchRepository;
-import org.example.djajbladibackend.repository.DailyMortalityRecordRepository;
 import org.example.djajbladibackend.repository.FeedingRecordRepository;
-import org.example.djajbladibackend.repository.HealthRecordRepository;
-import org.example.djajbladibackend.repository.SaleRepository;
+import org.example.djajbladibackend.repository.projection.BatchCostBreakdownRow;
+import org.example.djajbladibackend.repository.projection.BatchCostTotalsView;
+import org.example.djajbladibackend.repository.projection.BatchFeedLineView;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.ArrayList;
-import java.util.LinkedHashMap;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static org.example.djajbladibackend.config.RedisCacheConfig.CACHE_BATCH_COST;
 
 /**
  * Calcule le cout de revient dynamique d'un lot de poules.
@@ -32,8 +40,18 @@ import java.util.Map;
  *                   Les enregistrements sans prix unitaire sont exclus du calcul
  *                   (stock_item.unit_price IS NULL).
  * - medicationCost: SUM(health_record.treatment_cost)
+ * - mortalite     : cumul de la derniere ligne batch_daily_rollup du lot
  * - fixedCharges  : valeur configuree (eau, electricite, main d'oeuvre)
  *                   overrideable par parametre admin.
+ *
+ * Toutes les composantes sont agregees par PostgreSQL en une seule requete
+ * (BatchRepository#findCostBreakdown) : aucun FeedingRecord n'est charge.
+ * Le rapport multi-lots utilise deux requetes groupees parcourues en flux.
+ *
+ * Cache "batchCost" : une entree par lot, calculee sans charges fixes ; les charges fixes
+ * (configurees ou overridees) sont appliquees a la lecture, si bien qu'une seule entree sert
+ * toutes les variantes et s'invalide exactement. Les ecritures qui modifient une composante
+ * (alimentation, sante, mortalite, ventes, lot) appellent evictCachedCost apres commit.
  */
 @Slf4j
 @Service
@@ -42,23 +60,17 @@ public class BatchCostService {
 
     private final BatchRepository batchRepository;
     private final FeedingRecordRepository feedingRecordRepository;
-    private final HealthRecordRepository healthRecordRepository;
-    private final DailyMortalityRecordRepository mortalityRecordRepository;
-    private final SaleRepository saleRepository;
+    private final CacheManager cacheManager;
 
     @Value("${app.financial.fixed-charges-per-batch-dh:0}")
     private BigDecimal defaultFixedChargesDH;
 
     public BatchCostService(BatchRepository batchRepository,
                             FeedingRecordRepository feedingRecordRepository,
-                            HealthRecordRepository healthRecordRepository,
-                            DailyMortalityRecordRepository mortalityRecordRepository,
-                            SaleRepository saleRepository) {
+                            CacheManager cacheManager) {
         this.batchRepository = batchRepository;
         this.feedingRecordRepository = feedingRecordRepository;
-        this.healthRecordRepository = healthRecordRepository;
-        this.mortalityRecordRepository = mortalityRecordRepository;
-        this.saleRepository = saleRepository;
+        this.cacheManager = cacheManager;
     }
 
     /**
@@ -69,8 +81,91 @@ public class BatchCostService {
      * @return decomposition complete du cout de revient
      */
     public BatchCostBreakdownResponse calculateCost(Long batchId, BigDecimal fixedChargesOverride) {
-        Batch batch = batchRepository.findByIdWithCreatedByAndBuilding(batchId)
-                .orElseThrow(() -> new ResourceNotFoundException("Batch", "id", batchId));
+        Cache cache = cacheManager.getCache(CACHE_BATCH_COST);
+        BatchCostBreakdownResponse components = cache != null
+                ? cache.get(batchId, BatchCostBreakdownResponse.class)
+                : null;
+        if (components == null) {
+            List<BatchCostBreakdownRow> rows = batchRepository.findCostBreakdown(batchId);
+            if (rows.isEmpty()) {
+                throw new ResourceNotFoundException("Batch", "id", batchId);
+            }
+            components = costComponents(rows.get(0), rows);
+            if (cache != null) {
+                cache.put(batchId, components);
+            }
+            log.info("Cost calculated for batchId={}: unitPrice={}, initialCount={}, chicken={}, feed={}, medication={}",
+                    batchId, rows.get(0).getPurchasePrice(), components.getInitialChickenCount(),
+                    components.getChickenCostDH(), components.getFeedCostDH(), components.getMedicationCostDH());
+        }
+        return withFixedCharges(components, fixedChargesOverride);
+    }
+
+    /**
+     * Cout de revient de tous les lots des statuts donnes (tous les lots si vide), tries par id.
+     * Deux requetes groupees (totaux par lot, lignes d'alimentation par lot) parcourues en flux et
+     * fusionnees sur l'id du lot : chaque decomposition est remise au consumer des qu'elle est complete.
+     *
+     * @return nombre de lots traites
+     */
+    public int streamPortfolioCost(Collection<BatchStatus> statuses, BigDecimal fixedChargesOverride,
+                                   Consumer<BatchCostBreakdownResponse> consumer) {
+        List<String> statusNames = (statuses == null || statuses.isEmpty() ? EnumSet.allOf(BatchStatus.class) : statuses)
+                .stream().map(Enum::name).toList();
+        int count = 0;
+        try (Stream<BatchCostTotalsView> totals = batchRepository.streamCostTotalsByStatusIn(statusNames);
+             Stream<BatchFeedLineView> feedLines = feedingRecordRepository.streamPricedFeedLinesByBatchStatusIn(statusNames)) {
+            Iterator<BatchFeedLineView> lines = feedLines.iterator();
+            BatchFeedLineView pending = lines.hasNext() ? lines.next() : null;
+            for (Iterator<BatchCostTotalsView> it = totals.iterator(); it.hasNext(); ) {
+                BatchCostTotalsView batch = it.next();
+                List<BatchFeedLineView> batchLines = new ArrayList<>();
+                while (pending != null && pending.getBatchId() <= batch.getBatchId()) {
+                    if (pending.getBatchId().equals(batch.getBatchId())) {
+                        batchLines.add(pending);
+                    }
+                    pending = lines.hasNext() ? lines.next() : null;
+                }
+                consumer.accept(withFixedCharges(costComponents(batch, batchLines), fixedChargesOverride));
+                count++;
+            }
+        }
+        log.info("Portfolio cost streamed: statuses={}, batches={}", statusNames, count);
+        return count;
+    }
+
+    /**
+     * Invalide la decomposition en cache d'un lot, apres commit de la transaction courante
+     * (immediatement hors transaction).
+     */
+    public void evictCachedCost(Long batchId) {
+        afterCommit(cache -> cache.evict(batchId));
+    }
+
+    private void afterCommit(Consumer<Cache> action) {
+        Cache cache = cacheManager.getCache(CACHE_BATCH_COST);
+        if (cache == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.accept(cache);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.accept(cache);
+            }
+        });
+    }
+
+    /**
+     * Assemble les composantes du cout d'un lot (hors charges fixes) a partir de ses totaux
+     * et de ses lignes d'alimentation (les lignes sans article de stock sont ignorees).
+     * C'est la valeur mise en cache.
+     */
+    private BatchCostBreakdownResponse costComponents(BatchCostTotalsView batch,
+                                                      List<? extends BatchFeedLineView> lines) {
 
         // --- 1. Investissement initial : unitPurchasePrice * initialCount ---
         // Batch.purchasePrice = prix UNITAIRE par poussin (ex. 3.30 DH/tete)
@@ -82,60 +177,72 @@ public class BatchCostService {
         BigDecimal initialInvestment = unitPurchasePrice.multiply(BigDecimal.valueOf(initialCount));
         BigDecimal chickenCostDH = initialInvestment;
 
-        // --- 2. Cout alimentation ---
-        List<FeedingRecord> feedRecords = feedingRecordRepository.findByBatchIdWithStockItem(batchId);
+        // --- 2. Cout alimentation (lignes deja groupees par article de stock et type d'aliment) ---
         BigDecimal feedCostDH = BigDecimal.ZERO;
-        Map<String, FeedAggregation> feedByItem = new LinkedHashMap<>();
-
-        for (FeedingRecord record : feedRecords) {
-            if (record.getStockItem() == null || record.getStockItem().getUnitPrice() == null) {
-                log.debug("Feeding record id={} excluded from cost: no unit price on stock item", record.getId());
+        List<BatchCostBreakdownResponse.FeedLineItem> feedLines = new ArrayList<>();
+        for (BatchFeedLineView row : lines) {
+            if (row.getStockItemId() == null) {
                 continue;
             }
-            BigDecimal lineCost = record.getQuantity().multiply(record.getStockItem().getUnitPrice());
-            feedCostDH = feedCostDH.add(lineCost);
-
-            String key = record.getStockItem().getId() + "|" + record.getFeedType();
-            feedByItem.merge(
-                    key,
-                    new FeedAggregation(
-                            record.getStockItem().getId(),
-                            record.getStockItem().getName(),
-                            record.getFeedType(),
-                            record.getQuantity(),
-                            record.getStockItem().getUnitPrice(),
-                            lineCost
-                    ),
-                    (a, b) -> new FeedAggregation(
-                            a.stockItemId,
-                            a.stockItemName,
-                            a.feedType,
-                            a.totalQty.add(b.totalQty),
-                            a.unitPrice,
-                            a.subtotal.add(b.subtotal)
-                    )
-            );
-        }
-
-        List<BatchCostBreakdownResponse.FeedLineItem> feedLines = new ArrayList<>();
-        for (FeedAggregation agg : feedByItem.values()) {
+            feedCostDH = feedCostDH.add(row.getSubtotal());
             feedLines.add(BatchCostBreakdownResponse.FeedLineItem.builder()
-                    .stockItemId(agg.stockItemId)
-                    .stockItemName(agg.stockItemName)
-                    .feedType(agg.feedType)
-                    .totalQuantityKg(agg.totalQty.setScale(2, RoundingMode.HALF_UP))
-                    .unitPriceDH(agg.unitPrice)
-                    .subtotalDH(agg.subtotal.setScale(2, RoundingMode.HALF_UP))
+                    .stockItemId(row.getStockItemId())
+                    .stockItemName(row.getStockItemName())
+                    .feedType(row.getFeedType())
+                    .totalQuantityKg(row.getTotalQuantity().setScale(2, RoundingMode.HALF_UP))
+                    .unitPriceDH(row.getUnitPrice())
+                    .subtotalDH(row.getSubtotal().setScale(2, RoundingMode.HALF_UP))
                     .build());
         }
 
         // --- 3. Cout medicaments/veterinaire ---
-        BigDecimal medicationCostDH = healthRecordRepository.sumTreatmentCostByBatchId(batchId);
+        BigDecimal medicationCostDH = batch.getMedicationCost();
         if (medicationCostDH == null) {
             medicationCostDH = BigDecimal.ZERO;
         }
 
-        // --- 4. Charges fixes ---
+        // --- 4. Sous-total hors charges fixes ---
+        BigDecimal totalCostDH = chickenCostDH
+                .add(feedCostDH)
+                .add(medicationCostDH)
+                .setScale(2, RoundingMode.HALF_UP);
+
+        // --- 5. Mortalite & poules vivantes ---
+        int totalMortality = batch.getTotalMortality() != null ? batch.getTotalMortality() : 0;
+        int aliveChickens = Math.max(0, initialCount - totalMortality);
+
+        // --- 6. Revenues des ventes ---
+        BigDecimal totalRevenueDH = batch.getTotalRevenue();
+        if (totalRevenueDH == null) {
+            totalRevenueDH = BigDecimal.ZERO;
+        }
+
+        return BatchCostBreakdownResponse.builder()
+                .batchId(batch.getBatchId())
+                .batchNumber(batch.getBatchNumber())
+                .strain(batch.getStrain())
+                .arrivalDate(batch.getArrivalDate())
+                .status(batch.getStatus() != null ? BatchStatus.valueOf(batch.getStatus()) : null)
+                .initialChickenCount(initialCount)
+                .aliveChickens(aliveChickens)
+                .totalMortality(totalMortality)
+                .chickenCostDH(chickenCostDH.setScale(2, RoundingMode.HALF_UP))
+                .feedCostDH(feedCostDH.setScale(2, RoundingMode.HALF_UP))
+                .medicationCostDH(medicationCostDH.setScale(2, RoundingMode.HALF_UP))
+                .fixedChargesDH(BigDecimal.ZERO.setScale(2))
+                .totalCostDH(totalCostDH)
+                .totalRevenueDH(totalRevenueDH.setScale(2, RoundingMode.HALF_UP))
+                .feedLines(feedLines)
+                .build();
+    }
+
+    /**
+     * Applique les charges fixes aux composantes (sans les modifier) et derive le total,
+     * le cout par poussin vivant, le benefice et la marge.
+     */
+    private BatchCostBreakdownResponse withFixedCharges(BatchCostBreakdownResponse components,
+                                                        BigDecimal fixedChargesOverride) {
+        // --- 7. Charges fixes ---
         BigDecimal fixedChargesDH = fixedChargesOverride != null
                 ? fixedChargesOverride
                 : defaultFixedChargesDH;
@@ -143,35 +250,21 @@ public class BatchCostService {
             fixedChargesDH = BigDecimal.ZERO;
         }
 
-        // --- 5. Total cout de revient ---
-        BigDecimal totalCostDH = chickenCostDH
-                .add(feedCostDH)
-                .add(medicationCostDH)
+        // --- 8. Total cout de revient ---
+        BigDecimal totalCostDH = components.getTotalCostDH()
                 .add(fixedChargesDH)
                 .setScale(2, RoundingMode.HALF_UP);
 
-        // --- 6. Mortalite & poules vivantes ---
-        Integer totalMortality = mortalityRecordRepository.sumMortalityByBatchId(batchId);
-        if (totalMortality == null) {
-            totalMortality = 0;
-        }
-        int aliveChickens = Math.max(0, initialCount - totalMortality);
-
-        // --- 7. Cout par poussin vivant ---
+        // --- 9. Cout par poussin vivant ---
+        int aliveChickens = components.getAliveChickens();
         BigDecimal costPerChickenDH = null;
         if (aliveChickens > 0 && totalCostDH.compareTo(BigDecimal.ZERO) > 0) {
             costPerChickenDH = totalCostDH
                     .divide(BigDecimal.valueOf(aliveChickens), 2, RoundingMode.HALF_UP);
         }
 
-        // --- 8. Revenues des ventes ---
-        BigDecimal totalRevenueDH = saleRepository.sumRevenuByBatchId(batchId);
-        if (totalRevenueDH == null) {
-            totalRevenueDH = BigDecimal.ZERO;
-        }
-        totalRevenueDH = totalRevenueDH.setScale(2, RoundingMode.HALF_UP);
-
-        BigDecimal estimatedProfitDH = totalRevenueDH.subtract(totalCostDH).setScale(2, RoundingMode.HALF_UP);
+        // --- 10. Benefice & marge ---
+        BigDecimal estimatedProfitDH = components.getTotalRevenueDH().subtract(totalCostDH).setScale(2, RoundingMode.HALF_UP);
 
         BigDecimal profitMarginPct = null;
         if (totalCostDH.compareTo(BigDecimal.ZERO) > 0) {
@@ -181,40 +274,13 @@ public class BatchCostService {
                     .setScale(2, RoundingMode.HALF_UP);
         }
 
-        log.info("Cost calculated for batchId={}: unitPrice={}, initialCount={}, chicken={}, feed={}, medication={}, fixed={}, total={}",
-                batchId, unitPurchasePrice, initialCount,
-                chickenCostDH, feedCostDH.setScale(2, RoundingMode.HALF_UP),
-                medicationCostDH.setScale(2, RoundingMode.HALF_UP), fixedChargesDH, totalCostDH);
-
-        return BatchCostBreakdownResponse.builder()
-                .batchId(batch.getId())
-                .batchNumber(batch.getBatchNumber())
-                .strain(batch.getStrain())
-                .arrivalDate(batch.getArrivalDate())
-                .status(batch.getStatus())
-                .initialChickenCount(initialCount)
-                .aliveChickens(aliveChickens)
-                .totalMortality(totalMortality)
-                .chickenCostDH(chickenCostDH.setScale(2, RoundingMode.HALF_UP))
-                .feedCostDH(feedCostDH.setScale(2, RoundingMode.HALF_UP))
-                .medicationCostDH(medicationCostDH.setScale(2, RoundingMode.HALF_UP))
+        return components.toBuilder()
                 .fixedChargesDH(fixedChargesDH.setScale(2, RoundingMode.HALF_UP))
                 .totalCostDH(totalCostDH)
                 .costPerChickenDH(costPerChickenDH)
-                .totalRevenueDH(totalRevenueDH)
                 .estimatedProfitDH(estimatedProfitDH)
                 .profitMarginPct(profitMarginPct)
-                .feedLines(feedLines)
+                .feedLines(new ArrayList<>(components.getFeedLines()))
                 .build();
     }
-
-    /** DTO interne pour l'aggregation des lignes d'alimentation. */
-    private record FeedAggregation(
-            Long stockItemId,
-            String stockItemName,
-            String feedType,
-            BigDecimal totalQty,
-            BigDecimal unitPrice,
-            BigDecimal subtotal
-    ) {}
 }
@@ -14,14 +14,18 @@ import org.example.djajbladibackend.models.Batch;
 import org.example.djajbladibackend.models.BatchStatus;
 import org.example.djajbladibackend.models.HealthRecord;
 import org.example.djajbladibackend.models.StockItem;
+import org.example.djajbladibackend.models.StockMovementType;
 import org.example.djajbladibackend.models.User;
 import org.example.djajbladibackend.models.enums.RoleEnum;
 import org.example.djajbladibackend.repository.BatchRepository;
 import org.example.djajbladibackend.repository.HealthRecordRepository;
 import org.example.djajbladibackend.repository.StockItemRepository;
 import org.example.djajbladibackend.repository.auth.UserRepository;
+import org.example.djajbladibackend.services.dashboard.SupervisionDashboardSnapshotService;
+import org.example.djajbladibackend.services.financial.BatchCostService;
 import org.example.djajbladibackend.services.mortality.DailyMortalityService;
 import org.example.djajbladibackend.services.stock.StockService;
+import org.example.djajbladibackend.services.vaccination.VaccinationDueService;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -43,6 +47,10 @@ public class HealthRecordService {
     private final StockItemRepository stockItemRepository;
     private final StockService stockService;
     private final DailyMortalityService mortalityService;
+    private final BatchCostService batchCostService;
+    private final VaccinationDueService vaccinationDueService;
+    private final SupervisionDashboardSnapshotService dashboardSnapshotService;
+    private final WithdrawalClearDateService withdrawalClearDateService;
 
     @Value("${app.supervision.expensive-treatment-threshold:5000}")
     private BigDecimal expensiveTreatmentThreshold;
@@ -52,13 +60,21 @@ public class HealthRecordService {
                                UserRepository userRepository,
                                StockItemRepository stockItemRepository,
                                StockService stockService,
-                               DailyMortalityService mortalityService) {
+                               DailyMortalityService mortalityService,
+                               BatchCostService batchCostService,
+                               VaccinationDueService vaccinationDueService,
+                               SupervisionDashboardSnapshotService dashboardSnapshotService,
+                               WithdrawalClearDateService withdrawalClearDateService) {
         this.healthRepository = healthRepository;
         this.batchRepository = batchRepository;
         this.userRepository = userRepository;
         this.stockItemRepository = stockItemRepository;
         this.stockService = stockService;
         this.mortalityService = mortalityService;
+        this.batchCostService = batchCostService;
+        this.vaccinationDueService = vaccinationDueService;
+        this.dashboardSnapshotService = dashboardSnapshotService;
+        this.withdrawalClearDateService = withdrawalClearDateService;
     }
 
     @Transactional
@@ -133,6 +149,14 @@ public class HealthRecordService {
                 .build();
 
         HealthRecord saved = healthRepository.save(record);
+        batchCostService.evictCachedCost(batch.getId());
+        withdrawalClearDateService.applyRecord(saved);
+        if (requiresApproval) {
+            dashboardSnapshotService.markStaleAfterCommit();
+        }
+        if (Boolean.TRUE.equals(saved.getIsVaccination())) {
+            vaccinationDueService.refreshBatch(batch.getId());
+        }
 
         // Sync mortality count to DailyMortalityRecord with VETERINARIAN_EXAMINATION source
         if (saved.getMortalityCount() != null && saved.getMortalityCount() > 0) {
@@ -167,7 +191,8 @@ public class HealthRecordService {
 
         // Deduct stock on approval and auto-calculate treatment cost
         if (record.getStockItem() != null && record.getQuantityUsed() != null) {
-            stockService.deductQuantity(record.getStockItem().getId(), record.getQuantityUsed());
+            stockService.deductQuantity(record.getStockItem().getId(), record.getQuantityUsed(),
+                    StockMovementType.TREATMENT, record.getBatch().getId(), record.getId());
             BigDecimal unitPrice = stockService.getUnitPrice(record.getStockItem().getId());
             BigDecimal calculatedCost = unitPrice.multiply(record.getQuantityUsed())
                     .setScale(4, RoundingMode.HALF_UP);
@@ -180,6 +205,9 @@ public class HealthRecordService {
         record.setApprovedBy(admin);
         record.setApprovedAt(LocalDateTime.now());
         HealthRecord saved = healthRepository.save(record);
+        batchCostService.evictCachedCost(record.getBatch().getId());
+        withdrawalClearDateService.applyRecord(saved);
+        dashboardSnapshotService.markStaleAfterCommit();
 
         return toResponse(saved);
     }
@@ -204,6 +232,9 @@ public class HealthRecordService {
         record.setApprovedBy(admin);
         record.setApprovedAt(LocalDateTime.now());
         HealthRecord saved = healthRepository.save(record);
+        // Un rapport rejete ne compte plus dans la periode de retrait du lot
+        withdrawalClearDateService.refresh(record.getBatch().getId());
+        dashboardSnapshotService.markStaleAfterCommit();
 
         return toResponse(saved);
     }
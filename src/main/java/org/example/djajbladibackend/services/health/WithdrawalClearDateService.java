@@ -0,0 +1,67 @@
+package org.example.djajbladibackend.services.health;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.djajbladibackend.models.ApprovalStatus;
+import org.example.djajbladibackend.models.HealthRecord;
+import org.example.djajbladibackend.repository.BatchRepository;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+
+/**
+ * Maintient batches.withdrawal_clear_date (fin de la dernière période de retrait du lot),
+ * lue par toutes les vérifications de vente à la place d'un calcul sur health_records.
+ *
+ * Les écritures sont appelées dans la transaction du rapport de santé : création et approbation
+ * repoussent la date (UPDATE conditionnel), le rejet la recalcule pour le lot.
+ * reconcile() corrige chaque nuit les lots dont la date aurait divergé (écritures hors service, SQL manuel).
+ */
+@Slf4j
+@Service
+@Transactional(readOnly = true)
+public class WithdrawalClearDateService {
+
+    private final BatchRepository batchRepository;
+
+    public WithdrawalClearDateService(BatchRepository batchRepository) {
+        this.batchRepository = batchRepository;
+    }
+
+    /**
+     * Prend en compte le délai de retrait d'un rapport (sans effet pour un vaccin,
+     * un rapport sans délai ou un rapport rejeté).
+     */
+    @Transactional
+    public void applyRecord(HealthRecord record) {
+        if (Boolean.TRUE.equals(record.getIsVaccination())
+                || record.getApprovalStatus() == ApprovalStatus.REJECTED) {
+            return;
+        }
+        LocalDate clearDate = record.getWithdrawalExpirationDate();
+        if (clearDate != null) {
+            batchRepository.raiseWithdrawalClearDate(record.getBatch().getId(), clearDate);
+        }
+    }
+
+    /**
+     * Recalcule la date du lot depuis ses rapports de santé (un rapport ne compte plus).
+     */
+    @Transactional
+    public void refresh(Long batchId) {
+        batchRepository.refreshWithdrawalClearDate(batchId);
+    }
+
+    @Transactional
+    @Scheduled(cron = "${app.withdrawal.reconcile-cron:0 45 2 * * *}")
+    public int reconcile() {
+        int fixed = batchRepository.reconcileWithdrawalClearDates();
+        if (fixed > 0) {
+            log.warn("Withdrawal clear date reconciled: {} batch(es) out of sync with health records", fixed);
+        } else {
+            log.info("Withdrawal clear date reconciliation: all batches in sync");
+        }
+        return fixed;
+    }
+}
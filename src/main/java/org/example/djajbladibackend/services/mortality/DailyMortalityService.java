@@ -1,6 +1,7 @@
 package org.example.djajbladibackend.services.mortality;
 
 import lombok.extern.slf4j.Slf4j;
+import org.example.djajbladibackend.dto.common.KeysetCursor;
 import org.example.djajbladibackend.dto.common.PageResponse;
 import org.example.djajbladibackend.dto.mortality.DailyMortalityRequest;
 import org.example.djajbladibackend.dto.mortality.DailyMortalityResponse;
@@ -21,13 +22,20 @@ import org.example.djajbladibackend.repository.BatchRepository;
 import org.example.djajbladibackend.repository.DailyMortalityRecordRepository;
 import org.example.djajbladibackend.repository.HealthRecordRepository;
 import org.example.djajbladibackend.repository.auth.UserRepository;
+import org.example.djajbladibackend.repository.projection.MortalityExportRow;
+import org.example.djajbladibackend.services.client.FlashSaleService;
+import org.example.djajbladibackend.services.financial.BatchCostService;
+import org.example.djajbladibackend.services.rollup.BatchDailyRollupService;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 @Transactional(readOnly = true)
@@ -38,6 +46,9 @@ public class DailyMortalityService {
     private final BatchRepository batchRepository;
     private final UserRepository userRepository;
     private final HealthRecordRepository healthRecordRepository;
+    private final BatchDailyRollupService rollupService;
+    private final BatchCostService batchCostService;
+    private final FlashSaleService flashSaleService;
 
     @Value("${app.supervision.max-date-range-days:366}")
     private int maxDateRangeDays;
@@ -45,11 +56,17 @@ public class DailyMortalityService {
     public DailyMortalityService(DailyMortalityRecordRepository mortalityRepository,
                                  BatchRepository batchRepository,
                                  UserRepository userRepository,
-                                 HealthRecordRepository healthRecordRepository) {
+                                 HealthRecordRepository healthRecordRepository,
+                                 BatchDailyRollupService rollupService,
+                                 BatchCostService batchCostService,
+                                 FlashSaleService flashSaleService) {
         this.mortalityRepository = mortalityRepository;
         this.batchRepository = batchRepository;
         this.userRepository = userRepository;
         this.healthRecordRepository = healthRecordRepository;
+        this.rollupService = rollupService;
+        this.batchCostService = batchCostService;
+        this.flashSaleService = flashSaleService;
     }
 
     @Transactional
@@ -87,6 +104,8 @@ public class DailyMortalityService {
                 .source(MortalitySource.WORKER_REPORT)
                 .build();
         DailyMortalityRecord saved = mortalityRepository.save(record);
+        rollupService.recordMortality(batch.getId(), saved.getRecordDate(), saved.getMortalityCount(), user.getId());
+        batchCostService.evictCachedCost(batch.getId());
 
         return toResponse(saved);
     }
@@ -110,10 +129,15 @@ public class DailyMortalityService {
             throw new MortalityExceedsBatchSizeException("Le nombre de mortalités (" + req.getMortalityCount() + ") ne peut pas dépasser la taille du lot (" + record.getBatch().getChickenCount() + ").");
         }
 
+        LocalDate previousDate = record.getRecordDate();
+        int previousCount = record.getMortalityCount();
         record.setRecordDate(req.getRecordDate());
         record.setMortalityCount(req.getMortalityCount());
         record.setNotes(req.getNotes());
         DailyMortalityRecord saved = mortalityRepository.save(record);
+        rollupService.updateMortality(record.getBatch().getId(), previousDate, previousCount,
+                saved.getRecordDate(), saved.getMortalityCount(), user.getId());
+        batchCostService.evictCachedCost(record.getBatch().getId());
 
         return toResponse(saved);
     }
@@ -190,6 +214,9 @@ public class DailyMortalityService {
                 .healthRecord(healthRecord)
                 .build();
         mortalityRepository.save(mortalityRecord);
+        rollupService.recordMortality(batchId, recordDate, mortalityCount, systemUser.getId());
+        batchCostService.evictCachedCost(batchId);
+        flashSaleService.resyncAfterCommit(batchId);
 
         log.info("Veterinarian mortality sync: batchId={}, count={}, date={}, healthRecordId={}",
                 batchId, mortalityCount, recordDate, healthRecordId);
@@ -204,6 +231,66 @@ public class DailyMortalityService {
                 .stream().map(this::toResponse).toList();
     }
 
+    /**
+     * Pagination par clé (date, id) : cout constant quelle que soit la profondeur.
+     * cursor null ou vide = premiere page ; le COUNT n'est execute que si withTotal.
+     */
+    public PageResponse<DailyMortalityResponse> findByDateRangeKeyset(LocalDate start, LocalDate end, Long batchId,
+                                                                     String cursor, int size, boolean withTotal) {
+        if (start.isAfter(end)) {
+            throw new InvalidDataException("La date de début doit être antérieure ou égale à la date de fin.");
+        }
+        if (java.time.temporal.ChronoUnit.DAYS.between(start, end) > maxDateRangeDays) {
+            throw new DateRangeTooLargeException("La plage de dates ne peut pas dépasser " + maxDateRangeDays + " jours.");
+        }
+        boolean first = cursor == null || cursor.isBlank();
+        KeysetCursor after = first ? KeysetCursor.of(end.plusDays(1), 0L) : KeysetCursor.decode(cursor);
+        var limit = PageResponse.keysetLimit(size);
+        List<DailyMortalityRecord> rows = batchId != null
+                ? mortalityRepository.findByBatchIdAndDateRangeKeyset(batchId, start, end, after.dateKey(), after.id(), limit)
+                : mortalityRepository.findByDateRangeKeyset(start, end, after.dateKey(), after.id(), limit);
+        Long total = !withTotal ? null : batchId != null
+                ? mortalityRepository.countByBatchIdAndRecordDateBetween(batchId, start, end)
+                : mortalityRepository.countByRecordDateBetween(start, end);
+        return PageResponse.keyset(rows, size, first,
+                r -> KeysetCursor.of(r.getRecordDate(), r.getId()), this::toResponse, total);
+    }
+
+    /**
+     * Export de l'historique de mortalite, sans plafond de plage : les lignes sont lues par curseur
+     * et transmises une a une au consumer, rien n'est accumule en memoire.
+     * Dates et lot optionnels (null = sans filtre).
+     */
+    public int exportByDateRange(LocalDate start, LocalDate end, Long batchId, Consumer<DailyMortalityResponse> consumer) {
+        if (start != null && end != null && start.isAfter(end)) {
+            throw new InvalidDataException("La date de début doit être antérieure ou égale à la date de fin.");
+        }
+        int count = 0;
+        try (Stream<MortalityExportRow> rows = mortalityRepository.streamForExport(start, end, batchId)) {
+            for (Iterator<MortalityExportRow> it = rows.iterator(); it.hasNext(); ) {
+                consumer.accept(toResponse(it.next()));
+                count++;
+            }
+        }
+        log.info("Mortality history exported: start={}, end={}, batchId={}, rows={}", start, end, batchId, count);
+        return count;
+    }
+
+    private DailyMortalityResponse toResponse(MortalityExportRow r) {
+        return DailyMortalityResponse.builder()
+                .id(r.getId())
+                .batchId(r.getBatchId())
+                .batchNumber(r.getBatchNumber())
+                .recordDate(r.getRecordDate())
+                .mortalityCount(r.getMortalityCount())
+                .notes(r.getNotes())
+                .recordedById(r.getRecordedById())
+                .recordedByName(r.getRecordedByName())
+                .createdAt(r.getCreatedAt())
+                .updatedAt(r.getUpdatedAt())
+                .build();
+    }
+
     private DailyMortalityResponse toResponse(DailyMortalityRecord r) {
         return DailyMortalityResponse.builder()
                 .id(r.getId())
@@ -0,0 +1,106 @@
+package org.example.djajbladibackend.services.rollup;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.djajbladibackend.repository.BatchDailyRollupRepository;
+import org.example.djajbladibackend.repository.BatchFcrAccumulatorRepository;
+import org.example.djajbladibackend.services.dashboard.SupervisionDashboardSnapshotService;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Maintient la table batch_daily_rollup (une ligne par lot et par jour avec cumuls)
+ * et l'accumulateur FCR batch_fcr_accumulator (une ligne par lot).
+ *
+ * Les méthodes d'écriture sont appelées dans la transaction du relevé source
+ * (alimentation, mortalité ouvrier ou vétérinaire) : le relevé et les agrégats sont
+ * validés ou annulés ensemble. Coût d'une écriture : O(jours restants du lot) pour
+ * le rollup journalier, O(1) pour l'accumulateur.
+ *
+ * rebuildAll() recalcule l'agrégat depuis les tables sources (job nocturne + endpoint admin).
+ * Chaque écriture marque l'instantané du tableau de supervision comme périmé (après commit).
+ */
+@Slf4j
+@Service
+@Transactional(readOnly = true)
+public class BatchDailyRollupService {
+
+    private final BatchDailyRollupRepository rollupRepository;
+    private final BatchFcrAccumulatorRepository fcrAccumulatorRepository;
+    private final SupervisionDashboardSnapshotService dashboardSnapshotService;
+
+    public BatchDailyRollupService(BatchDailyRollupRepository rollupRepository,
+                                   BatchFcrAccumulatorRepository fcrAccumulatorRepository,
+                                   SupervisionDashboardSnapshotService dashboardSnapshotService) {
+        this.rollupRepository = rollupRepository;
+        this.fcrAccumulatorRepository = fcrAccumulatorRepository;
+        this.dashboardSnapshotService = dashboardSnapshotService;
+    }
+
+    @Transactional
+    public void recordFeeding(Long batchId, LocalDate day, BigDecimal quantityKg, Long recordedById) {
+        recordFeedingTotals(batchId, day, quantityKg, 1, recordedById);
+    }
+
+    /**
+     * Plusieurs distributions d'un même lot et d'un même jour en une seule mise à jour (envoi groupé).
+     */
+    @Transactional
+    public void recordFeedingTotals(Long batchId, LocalDate day, BigDecimal quantityKg, int entries,
+                                    Long recordedById) {
+        apply(batchId, day, quantityKg, 0, entries, recordedById);
+        fcrAccumulatorRepository.applyDelta(batchId, day, quantityKg, 0);
+    }
+
+    @Transactional
+    public void recordMortality(Long batchId, LocalDate day, int mortalityCount, Long recordedById) {
+        apply(batchId, day, BigDecimal.ZERO, mortalityCount, 1, recordedById);
+        fcrAccumulatorRepository.applyDelta(batchId, day, BigDecimal.ZERO, mortalityCount);
+    }
+
+    /**
+     * Correction d'un relevé de mortalité : retire l'ancienne valeur de l'ancien jour
+     * et ajoute la nouvelle au nouveau jour.
+     */
+    @Transactional
+    public void updateMortality(Long batchId, LocalDate oldDay, int oldCount,
+                                LocalDate newDay, int newCount, Long recordedById) {
+        if (oldDay.equals(newDay)) {
+            apply(batchId, newDay, BigDecimal.ZERO, newCount - oldCount, 0, recordedById);
+        } else {
+            apply(batchId, oldDay, BigDecimal.ZERO, -oldCount, -1, recordedById);
+            apply(batchId, newDay, BigDecimal.ZERO, newCount, 1, recordedById);
+        }
+        // Après le rollup : son verrou de table ordonne les écritures avec rebuildAll()
+        fcrAccumulatorRepository.applyDelta(batchId, newDay, BigDecimal.ZERO, newCount - oldCount);
+    }
+
+    /**
+     * Reconstruction complète (rollup journalier et accumulateur FCR)
+     * depuis feeding_records et daily_mortality_records.
+     * Le verrou de table fait attendre les écritures concurrentes jusqu'au commit.
+     */
+    @Transactional
+    @Scheduled(cron = "${app.rollup.rebuild-cron:0 30 2 * * *}")
+    public int rebuildAll() {
+        rollupRepository.lockForRebuild();
+        int deleted = rollupRepository.deleteAllRows();
+        int inserted = rollupRepository.insertFromRecords();
+        fcrAccumulatorRepository.deleteAllRows();
+        int accumulators = fcrAccumulatorRepository.insertFromRecords();
+        dashboardSnapshotService.markStaleAfterCommit();
+        log.info("Batch daily rollup rebuilt: deleted={}, inserted={}, fcrAccumulators={}", deleted, inserted, accumulators);
+        return inserted;
+    }
+
+    private void apply(Long batchId, LocalDate day, BigDecimal feedKg, int mortality, int entries,
+                       Long recordedById) {
+        rollupRepository.lockBatch(batchId);
+        rollupRepository.insertDayIfAbsent(batchId, day, recordedById);
+        rollupRepository.applyDelta(batchId, day, feedKg, mortality, entries, recordedById);
+        dashboardSnapshotService.markStaleAfterCommit();
+    }
+}
@@ -0,0 +1,119 @@
+package org.example.djajbladibackend.services.stock;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.djajbladibackend.dto.stock.StockBalanceResponse;
+import org.example.djajbladibackend.dto.stock.StockConsumptionResponse;
+import org.example.djajbladibackend.exception.ResourceNotFoundException;
+import org.example.djajbladibackend.models.StockMovement;
+import org.example.djajbladibackend.models.StockMovementType;
+import org.example.djajbladibackend.models.StockType;
+import org.example.djajbladibackend.repository.StockMovementRepository;
+import org.example.djajbladibackend.repository.projection.StockBalanceView;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Journal des mouvements de stock (stock_movements) et instantanés de solde (stock_balance_snapshots).
+ *
+ * - écriture : un ajout par variation, dans la transaction de l'opération source
+ *   (création d'article, distribution d'aliment, traitement approuvé) ; jamais de mise à jour
+ * - lecture : solde = dernier instantané + somme des mouvements qu'il n'inclut pas ; inventaire à une date
+ *   et consommation par lot sans parcourir feeding_records ni health_records
+ * - instantanés : job nocturne, le coût d'une lecture reste borné par l'activité d'une journée
+ *
+ * stock_items.quantity reste le solde courant protégé par l'UPDATE conditionnel de
+ * StockItemRepository.deductIfAvailable : un journal seul ne peut pas refuser une consommation
+ * supérieure au stock sans sérialiser les écrivains.
+ */
+@Slf4j
+@Service
+@Transactional(readOnly = true)
+public class StockLedgerService {
+
+    private final StockMovementRepository movementRepository;
+
+    public StockLedgerService(StockMovementRepository movementRepository) {
+        this.movementRepository = movementRepository;
+    }
+
+    /**
+     * @param quantityDelta variation signée (négative pour une consommation)
+     * @param batchId       lot concerné, ou null
+     * @param referenceId   relevé source, ou null
+     */
+    @Transactional
+    public void record(StockMovementType type, Long stockItemId, BigDecimal quantityDelta, Long batchId, Long referenceId) {
+        movementRepository.save(movement(type, stockItemId, quantityDelta, batchId, referenceId));
+    }
+
+    /** Ajout groupé (INSERT regroupés par hibernate.jdbc.batch_size). */
+    @Transactional
+    public void recordAll(List<StockMovement> movements) {
+        movementRepository.saveAll(movements);
+    }
+
+    public static StockMovement movement(StockMovementType type, Long stockItemId, BigDecimal quantityDelta,
+                                         Long batchId, Long referenceId) {
+        return StockMovement.builder()
+                .movementType(type)
+                .stockItemId(stockItemId)
+                .quantityDelta(quantityDelta)
+                .batchId(batchId)
+                .referenceId(referenceId)
+                .build();
+    }
+
+    public StockBalanceResponse getBalance(Long stockItemId) {
+        return movementRepository.findBalance(stockItemId)
+                .map(this::toResponse)
+                .orElseThrow(() -> new ResourceNotFoundException("StockItem", "id", stockItemId));
+    }
+
+    /** Inventaire en fin de journée (inclus) : typiquement le dernier jour du mois. */
+    public List<StockBalanceResponse> getInventoryAt(LocalDate date) {
+        return movementRepository.findInventoryAt(date.plusDays(1).atStartOfDay()).stream()
+                .map(this::toResponse)
+                .toList();
+    }
+
+    public List<StockConsumptionResponse> getConsumptionByBatch(Long batchId) {
+        return movementRepository.findConsumptionByBatch(batchId).stream()
+                .map(v -> StockConsumptionResponse.builder()
+                        .stockItemId(v.getStockItemId())
+                        .stockItemName(v.getStockItemName())
+                        .unit(v.getUnit())
+                        .movementType(StockMovementType.valueOf(v.getMovementType()))
+                        .quantity(v.getQuantity())
+                        .build())
+                .toList();
+    }
+
+    /**
+     * Instantané des soldes ayant bougé depuis le précédent, puis marquage des mouvements inclus.
+     * Le verrou attend les transactions d'écriture en cours puis bloque brièvement les nouvelles.
+     */
+    @Transactional
+    @Scheduled(cron = "${app.stock.snapshot-cron:0 15 3 * * *}")
+    public int takeSnapshots() {
+        movementRepository.lockForSnapshot();
+        int inserted = movementRepository.insertSnapshots();
+        int covered = movementRepository.coverSnapshottedMovements();
+        log.info("Stock balance snapshots taken: items={}, movements={}", inserted, covered);
+        return inserted;
+    }
+
+    private StockBalanceResponse toResponse(StockBalanceView v) {
+        return StockBalanceResponse.builder()
+                .stockItemId(v.getStockItemId())
+                .stockItemName(v.getStockItemName())
+                .type(StockType.valueOf(v.getType()))
+                .unit(v.getUnit())
+                .balance(v.getBalance())
+                .build();
+    }
+}
@@ -8,6 +8,7 @@ import org.example.djajbladibackend.exception.InsufficientStockException;
 import org.example.djajbladibackend.exception.InvalidDataException;
 import org.example.djajbladibackend.exception.ResourceNotFoundException;
 import org.example.djajbladibackend.models.StockItem;
+import org.example.djajbladibackend.models.StockMovementType;
 import org.example.djajbladibackend.models.StockType;
 import org.example.djajbladibackend.repository.StockItemRepository;
 import org.example.djajbladibackend.repository.auth.UserRepository;
@@ -16,6 +17,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.List;
 
 @Service
@@ -25,10 +27,13 @@ public class StockService {
 
     private final StockItemRepository stockItemRepository;
     private final UserRepository userRepository;
+    private final StockLedgerService ledgerService;
 
-    public StockService(StockItemRepository stockItemRepository, UserRepository userRepository) {
+    public StockService(StockItemRepository stockItemRepository, UserRepository userRepository,
+                        StockLedgerService ledgerService) {
         this.stockItemRepository = stockItemRepository;
         this.userRepository = userRepository;
+        this.ledgerService = ledgerService;
     }
 
     @Transactional
@@ -44,6 +49,9 @@ public class StockService {
                 .createdBy(createdBy)
                 .build();
         StockItem saved = stockItemRepository.save(item);
+        if (saved.getQuantity() != null && saved.getQuantity().signum() != 0) {
+            ledgerService.record(StockMovementType.RECEIPT, saved.getId(), saved.getQuantity(), null, null);
+        }
         return toResponse(saved);
     }
 
@@ -88,28 +96,31 @@ public class StockService {
     }
 
     /**
-     * Atomically deducts the given quantity from the stock item using a pessimistic write lock.
+     * Atomically deducts the given quantity with a conditional UPDATE (no pessimistic lock)
+     * and appends the matching movement to the stock ledger.
      * Throws InsufficientStockException if stock is insufficient.
+     *
+     * @param batchId     batch the stock is consumed for, or null
+     * @param referenceId source record id (e.g. health record), or null
      */
     @Transactional
-    public void deductQuantity(Long stockItemId, BigDecimal quantity) {
+    public void deductQuantity(Long stockItemId, BigDecimal quantity, StockMovementType type,
+                               Long batchId, Long referenceId) {
         if (quantity == null || quantity.signum() <= 0) {
             throw new InvalidDataException("La quantité doit être supérieure à 0.");
         }
-        StockItem item = stockItemRepository.findByIdForUpdate(stockItemId)
-                .orElseThrow(() -> new ResourceNotFoundException("StockItem", "id", stockItemId));
-        if (item.getQuantity() == null || item.getQuantity().compareTo(quantity) < 0) {
+        if (stockItemRepository.deductIfAvailable(stockItemId, quantity, Instant.now()) == 0) {
+            StockItem item = stockItemRepository.findById(stockItemId)
+                    .orElseThrow(() -> new ResourceNotFoundException("StockItem", "id", stockItemId));
             throw new InsufficientStockException(
                     stockItemId,
                     item.getName(),
-                    item.getQuantity() != null ? item.getQuantity() : BigDecimal.ZERO,
+                    stockItemRepository.findQuantityById(stockItemId).orElse(BigDecimal.ZERO),
                     quantity
             );
         }
-        item.setQuantity(item.getQuantity().subtract(quantity));
-        stockItemRepository.save(item);
-        log.info("Stock deducted: stockItemId={}, name={}, quantity={}, remaining={}",
-                stockItemId, item.getName(), quantity, item.getQuantity());
+        ledgerService.record(type, stockItemId, quantity.negate(), batchId, referenceId);
+        log.info("Stock deducted: stockItemId={}, quantity={}, type={}", stockItemId, quantity, type);
     }
 
     private StockItemResponse toResponse(StockItem item) {
@@ -0,0 +1,55 @@
+package org.example.djajbladibackend.services.vaccination;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.djajbladibackend.repository.VaccinationDueRepository;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Maintient la table vaccination_due (échéance arrival_date + day_of_life par lot et protocole,
+ * avec l'acte de vaccination qui la réalise).
+ *
+ * Les recalculs ciblés sont appelés dans la transaction de l'écriture source
+ * (création / modification de lot, de protocole, acte de vaccination) ;
+ * refreshAll() reconstruit la table chaque nuit.
+ */
+@Slf4j
+@Service
+@Transactional(readOnly = true)
+public class VaccinationDueService {
+
+    private final VaccinationDueRepository dueRepository;
+
+    public VaccinationDueService(VaccinationDueRepository dueRepository) {
+        this.dueRepository = dueRepository;
+    }
+
+    /** Recalcule les échéances d'un lot (lot créé ou modifié, acte de vaccination saisi). */
+    @Transactional
+    public void refreshBatch(Long batchId) {
+        dueRepository.deleteByBatchId(batchId);
+        dueRepository.insertForBatch(batchId);
+    }
+
+    /** Recalcule les échéances de tous les lots d'une souche (protocole créé, modifié ou supprimé). */
+    @Transactional
+    public void refreshStrain(String strain) {
+        dueRepository.deleteByStrain(strain);
+        dueRepository.insertForStrain(strain);
+    }
+
+    /**
+     * Reconstruction complète depuis batches, vaccination_protocols et health_records.
+     * Le verrou de table fait attendre les recalculs concurrents jusqu'au commit.
+     */
+    @Transactional
+    @Scheduled(cron = "${app.vaccination.due-refresh-cron:0 0 0 * * *}")
+    public int refreshAll() {
+        dueRepository.lockForRebuild();
+        int deleted = dueRepository.deleteAllRows();
+        int inserted = dueRepository.insertAll();
+        log.info("Vaccination due calendar rebuilt: deleted={}, inserted={}", deleted, inserted);
+        return inserted;
+    }
+}
@@ -0,0 +1,111 @@
+package org.example.djajbladibackend.services.vaccination;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.example.djajbladibackend.dto.vaccination.VaccinationProtocolResponse;
+import org.example.djajbladibackend.repository.VaccinationProtocolRepository;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Cache en mémoire souche -> protocoles triés par jour de vie.
+ *
+ * - les listes publiées sont immuables ; la map est remplacée en bloc (copy-on-write)
+ * - invalidation complète après le commit d'une création, modification ou suppression
+ * - périodiquement : invalidation si l'empreinte de la table a changé (modification faite par une autre instance)
+ * - compteurs hit/miss exposés par /actuator/metrics/vaccination.protocol.cache.requests
+ */
+@Slf4j
+@Component
+public class VaccinationProtocolCache {
+
+    static final String METRIC_NAME = "vaccination.protocol.cache.requests";
+
+    private final VaccinationProtocolRepository protocolRepository;
+    private final Counter hits;
+    private final Counter misses;
+
+    private volatile Map<String, List<VaccinationProtocolResponse>> byStrain = Map.of();
+    private volatile String loadedFingerprint;
+    /** Incrémentée à chaque invalidation : un chargement commencé avant n'est pas publié. */
+    private long generation;
+
+    public VaccinationProtocolCache(VaccinationProtocolRepository protocolRepository, MeterRegistry meterRegistry) {
+        this.protocolRepository = protocolRepository;
+        this.hits = Counter.builder(METRIC_NAME).tag("result", "hit")
+                .description("Lectures des protocoles par souche servies par le cache")
+                .register(meterRegistry);
+        this.misses = Counter.builder(METRIC_NAME).tag("result", "miss")
+                .description("Lectures des protocoles par souche chargées depuis la base")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Protocoles de la souche, triés par jour de vie. En cas d'absence, la liste est lue
+     * une seule fois via {@code loader} puis publiée pour les lectures suivantes.
+     */
+    public List<VaccinationProtocolResponse> get(String strain,
+                                                 Function<String, List<VaccinationProtocolResponse>> loader) {
+        List<VaccinationProtocolResponse> cached = byStrain.get(strain);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        long loadGeneration;
+        synchronized (this) {
+            loadGeneration = generation;
+            if (loadedFingerprint == null) {
+                loadedFingerprint = protocolRepository.fingerprint();
+            }
+        }
+        List<VaccinationProtocolResponse> loaded = List.copyOf(loader.apply(strain));
+        synchronized (this) {
+            if (generation == loadGeneration) {
+                Map<String, List<VaccinationProtocolResponse>> next = new HashMap<>(byStrain);
+                next.put(strain, loaded);
+                byStrain = Map.copyOf(next);
+            }
+        }
+        return loaded;
+    }
+
+    /** Vide le cache une fois la transaction courante validée (immédiatement hors transaction). */
+    public void invalidateAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidate();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidate();
+            }
+        });
+    }
+
+    public synchronized void invalidate() {
+        generation++;
+        byStrain = Map.of();
+        loadedFingerprint = null;
+    }
+
+    @Scheduled(fixedDelayString = "${app.vaccination.protocol-cache-refresh-interval-ms:60000}",
+               initialDelayString = "${app.vaccination.protocol-cache-refresh-interval-ms:60000}")
+    public void invalidateIfChanged() {
+        String loaded = loadedFingerprint;
+        if (loaded != null && !Objects.equals(protocolRepository.fingerprint(), loaded)) {
+            log.info("Vaccination protocols changed on another instance: cache invalidated");
+            invalidate();
+        }
+    }
+}
@@ -8,10 +8,9 @@ import org.example.djajbladibackend.dto.vaccination.VaccinationScheduleResponse;
 import org.example.djajbladibackend.exception.DuplicateVaccinationProtocolException;
 import org.example.djajbladibackend.exception.ResourceNotFoundException;
 import org.example.djajbladibackend.exception.VaccinationProtocolNotFoundException;
-import org.example.djajbladibackend.models.Batch;
 import org.example.djajbladibackend.models.VaccinationProtocol;
 import org.example.djajbladibackend.repository.BatchRepository;
-import org.example.djajbladibackend.repository.HealthRecordRepository;
+import org.example.djajbladibackend.repository.VaccinationDueRepository;
 import org.example.djajbladibackend.repository.VaccinationProtocolRepository;
 import org.example.djajbladibackend.repository.auth.UserRepository;
 import org.springframework.stereotype.Service;
@@ -27,16 +26,22 @@ public class VaccinationProtocolService {
 
     private final VaccinationProtocolRepository protocolRepository;
     private final BatchRepository batchRepository;
-    private final HealthRecordRepository healthRecordRepository;
+    private final VaccinationDueRepository dueRepository;
+    private final VaccinationDueService dueService;
+    private final VaccinationProtocolCache protocolCache;
     private final UserRepository userRepository;
 
     public VaccinationProtocolService(VaccinationProtocolRepository protocolRepository,
                                       BatchRepository batchRepository,
-                                      HealthRecordRepository healthRecordRepository,
+                                      VaccinationDueRepository dueRepository,
+                                      VaccinationDueService dueService,
+                                      VaccinationProtocolCache protocolCache,
                                       UserRepository userRepository) {
         this.protocolRepository = protocolRepository;
         this.batchRepository = batchRepository;
-        this.healthRecordRepository = healthRecordRepository;
+        this.dueRepository = dueRepository;
+        this.dueService = dueService;
+        this.protocolCache = protocolCache;
         this.userRepository = userRepository;
     }
 
@@ -62,6 +67,8 @@ public class VaccinationProtocolService {
                 .build();
 
         VaccinationProtocol saved = protocolRepository.save(protocol);
+        dueService.refreshStrain(saved.getStrain());
+        protocolCache.invalidateAfterCommit();
         log.info("Vaccination protocol created: strain={}, vaccine={}, day={}, by={}",
                 saved.getStrain(), saved.getVaccineName(), saved.getDayOfLife(), adminEmail);
         return toResponse(saved);
@@ -76,6 +83,7 @@ public class VaccinationProtocolService {
         VaccinationProtocol protocol = protocolRepository.findByIdWithCreatedBy(id)
                 .orElseThrow(() -> new VaccinationProtocolNotFoundException(id));
 
+        String previousStrain = protocol.getStrain();
         boolean changed = !protocol.getStrain().equals(req.getStrain())
                 || !protocol.getVaccineName().equals(req.getVaccineName())
                 || !protocol.getDayOfLife().equals(req.getDayOfLife());
@@ -90,7 +98,12 @@ public class VaccinationProtocolService {
         protocol.setDayOfLife(req.getDayOfLife());
         protocol.setNotes(req.getNotes() != null ? req.getNotes().trim() : null);
 
-        VaccinationProtocol saved = protocolRepository.save(protocol);
+        VaccinationProtocol saved = protocolRepository.saveAndFlush(protocol);
+        dueService.refreshStrain(saved.getStrain());
+        if (!previousStrain.equals(saved.getStrain())) {
+            dueService.refreshStrain(previousStrain);
+        }
+        protocolCache.invalidateAfterCommit();
         log.info("Vaccination protocol updated: id={}, strain={}, vaccine={}, day={}",
                 id, saved.getStrain(), saved.getVaccineName(), saved.getDayOfLife());
         return toResponse(saved);
@@ -106,48 +119,42 @@ public class VaccinationProtocolService {
             throw new VaccinationProtocolNotFoundException(id);
         }
         protocolRepository.deleteById(id);
+        protocolCache.invalidateAfterCommit();
         log.info("Vaccination protocol deleted: id={}", id);
     }
 
     /**
      * Returns all protocols for a given strain, ordered by day of life.
+     * Served from the in-memory protocol cache; the returned list is immutable.
      * Requirements: 6.5
      */
     public List<VaccinationProtocolResponse> findByStrain(String strain) {
-        return protocolRepository.findByStrainOrderByDayOfLifeAsc(strain)
-                .stream().map(this::toResponse).toList();
+        return protocolCache.get(strain, s -> protocolRepository.findProtocolsByStrain(s)
+                .stream().map(this::toResponse).toList());
     }
 
     /**
      * Calculates the vaccination schedule for a specific batch based on its strain.
      * For each protocol, computes due date = arrival_date + dayOfLife days.
      * Checks if vaccination has been completed via existing health records.
+     * Due dates and completion are read from the precomputed vaccination_due calendar.
      * Requirements: 5.1, 5.2, 5.3
      */
     public List<VaccinationScheduleResponse> getScheduleForBatch(Long batchId) {
-        Batch batch = batchRepository.findByIdWithCreatedByAndBuilding(batchId)
-                .orElseThrow(() -> new ResourceNotFoundException("Batch", "id", batchId));
-
-        List<VaccinationProtocol> protocols = protocolRepository.findProtocolsByStrain(batch.getStrain());
-
-        return protocols.stream().map(protocol -> {
-            LocalDate dueDate = batch.getArrivalDate().plusDays(protocol.getDayOfLife());
-
-            var completedRecords = healthRecordRepository.findVaccinationRecords(batchId, protocol.getVaccineName());
-            boolean isCompleted = !completedRecords.isEmpty();
-            Long completedHealthRecordId = isCompleted ? completedRecords.get(0).getId() : null;
-            LocalDate completedDate = isCompleted ? completedRecords.get(0).getExaminationDate() : null;
-
-            return VaccinationScheduleResponse.builder()
-                    .protocolId(protocol.getId())
-                    .vaccineName(protocol.getVaccineName())
-                    .dayOfLife(protocol.getDayOfLife())
-                    .dueDate(dueDate)
-                    .isCompleted(isCompleted)
-                    .completedHealthRecordId(completedHealthRecordId)
-                    .completedDate(completedDate)
-                    .build();
-        }).toList();
+        if (!batchRepository.existsById(batchId)) {
+            throw new ResourceNotFoundException("Batch", "id", batchId);
+        }
+        return dueRepository.findScheduleByBatchId(batchId).stream()
+                .map(d -> VaccinationScheduleResponse.builder()
+                        .protocolId(d.getProtocolId())
+                        .vaccineName(d.getVaccineName())
+                        .dayOfLife(d.getDayOfLife())
+                        .dueDate(d.getDueDate())
+                        .isCompleted(d.getCompletedHealthRecordId() != null)
+                        .completedHealthRecordId(d.getCompletedHealthRecordId())
+                        .completedDate(d.getCompletedDate())
+                        .build())
+                .toList();
     }
 
     /**
@@ -166,44 +173,25 @@ public class VaccinationProtocolService {
         return buildAlertsForActiveBatches(true);
     }
 
+    /**
+     * Parcours d'index sur l'echeance dans vaccination_due : echeances non realisees jusqu'a
+     * aujourd'hui + 7 jours, ou jusqu'a hier pour les seuls retards.
+     */
     private List<VaccinationAlertResponse> buildAlertsForActiveBatches(boolean overdueOnly) {
-        List<Batch> activeBatches = batchRepository.findByStatusInWithRelations(
-                List.of(org.example.djajbladibackend.models.BatchStatus.Active));
         LocalDate today = LocalDate.now();
-
-        return activeBatches.stream().flatMap(batch -> {
-            List<VaccinationProtocol> protocols = protocolRepository.findProtocolsByStrain(batch.getStrain());
-            return protocols.stream()
-                    .flatMap(protocol -> {
-                        LocalDate dueDate = batch.getArrivalDate().plusDays(protocol.getDayOfLife());
-                        long daysOverdue = today.toEpochDay() - dueDate.toEpochDay();
-                        boolean isOverdue = daysOverdue > 0;
-
-                        var completed = healthRecordRepository.findVaccinationRecords(
-                                batch.getId(), protocol.getVaccineName());
-                        if (!completed.isEmpty()) {
-                            return java.util.stream.Stream.empty();
-                        }
-                        if (overdueOnly && !isOverdue) {
-                            return java.util.stream.Stream.empty();
-                        }
-                        if (!overdueOnly && dueDate.isAfter(today.plusDays(7))) {
-                            return java.util.stream.Stream.empty();
-                        }
-
-                        VaccinationAlertResponse alert = VaccinationAlertResponse.builder()
-                                .batchId(batch.getId())
-                                .batchNumber(batch.getBatchNumber())
-                                .strain(batch.getStrain())
-                                .protocolId(protocol.getId())
-                                .vaccineName(protocol.getVaccineName())
-                                .dueDate(dueDate)
-                                .daysOverdue((int) Math.max(0L, daysOverdue))
-                                .isOverdue(isOverdue)
-                                .build();
-                        return java.util.stream.Stream.of(alert);
-                    });
-        }).toList();
+        LocalDate upTo = overdueOnly ? today.minusDays(1) : today.plusDays(7);
+        return dueRepository.findOpenAlertsDueBy(today, upTo).stream()
+                .map(a -> VaccinationAlertResponse.builder()
+                        .batchId(a.getBatchId())
+                        .batchNumber(a.getBatchNumber())
+                        .strain(a.getStrain())
+                        .protocolId(a.getProtocolId())
+                        .vaccineName(a.getVaccineName())
+                        .dueDate(a.getDueDate())
+                        .daysOverdue(a.getDaysOverdue())
+                        .isOverdue(a.getIsOverdue())
+                        .build())
+                .toList();
     }
 
     private VaccinationProtocolResponse toResponse(VaccinationProtocol p) {
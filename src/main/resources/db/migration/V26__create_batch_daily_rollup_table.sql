@@ -0,0 +1,54 @@
+-- V26: Agregat journalier par lot (alimentation, cout aliment, mortalite + cumuls)
+-- Maintenu dans la transaction d'ecriture par FeedingRecordService / DailyMortalityService,
+-- reconstruit par BatchDailyRollupService.rebuildAll() (job nocturne ou endpoint admin).
+
+CREATE TABLE batch_daily_rollup (
+    id BIGSERIAL PRIMARY KEY,
+    batch_id BIGINT NOT NULL,
+    rollup_date DATE NOT NULL,
+    feed_kg DECIMAL(14, 2) NOT NULL DEFAULT 0,
+    feed_cost_dh DECIMAL(16, 4) NOT NULL DEFAULT 0,
+    mortality_count INTEGER NOT NULL DEFAULT 0,
+    cumulative_feed_kg DECIMAL(14, 2) NOT NULL DEFAULT 0,
+    cumulative_feed_cost_dh DECIMAL(16, 4) NOT NULL DEFAULT 0,
+    cumulative_mortality INTEGER NOT NULL DEFAULT 0,
+    entry_count INTEGER NOT NULL DEFAULT 0,
+    recorded_by_id BIGINT,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT fk_rollup_batch FOREIGN KEY (batch_id) REFERENCES batches(id) ON DELETE CASCADE,
+    CONSTRAINT fk_rollup_recorded_by FOREIGN KEY (recorded_by_id) REFERENCES users(id),
+    CONSTRAINT uq_rollup_batch_date UNIQUE (batch_id, rollup_date)
+);
+
+CREATE INDEX idx_rollup_date ON batch_daily_rollup(rollup_date);
+
+COMMENT ON TABLE batch_daily_rollup IS 'Agregat journalier par lot : une ligne par (lot, jour) ayant au moins un releve';
+COMMENT ON COLUMN batch_daily_rollup.feed_cost_dh IS 'SUM(quantity * stock_items.unit_price) au moment de la saisie';
+COMMENT ON COLUMN batch_daily_rollup.entry_count IS 'Nombre de releves (alimentation + mortalite) du jour ; 0 = ligne vide';
+COMMENT ON COLUMN batch_daily_rollup.recorded_by_id IS 'Premier saisisseur du jour (alimentation prioritaire)';
+
+-- Backfill depuis l'historique existant
+INSERT INTO batch_daily_rollup (batch_id, rollup_date, feed_kg, feed_cost_dh, mortality_count,
+                                cumulative_feed_kg, cumulative_feed_cost_dh, cumulative_mortality,
+                                entry_count, recorded_by_id, updated_at)
+SELECT d.batch_id, d.day, d.feed_kg, d.feed_cost, d.mortality,
+       SUM(d.feed_kg) OVER w, SUM(d.feed_cost) OVER w, SUM(d.mortality) OVER w,
+       d.entries, d.recorded_by_id, CURRENT_TIMESTAMP
+FROM (
+    SELECT e.batch_id, e.day, SUM(e.feed_kg) AS feed_kg, SUM(e.feed_cost) AS feed_cost,
+           SUM(e.mortality) AS mortality, COUNT(*) AS entries,
+           (ARRAY_AGG(e.recorded_by_id ORDER BY e.priority, e.record_id))[1] AS recorded_by_id
+    FROM (
+        SELECT f.batch_id, f.feeding_date AS day, f.quantity AS feed_kg,
+               f.quantity * COALESCE(s.unit_price, 0) AS feed_cost, 0 AS mortality,
+               f.recorded_by_id, 0 AS priority, f.id AS record_id
+        FROM feeding_records f
+        LEFT JOIN stock_items s ON s.id = f.stock_item_id
+        UNION ALL
+        SELECT m.batch_id, m.record_date, 0, 0, m.mortality_count,
+               m.recorded_by_id, 1, m.id
+        FROM daily_mortality_records m
+    ) e
+    GROUP BY e.batch_id, e.day
+) d
+WINDOW w AS (PARTITION BY d.batch_id ORDER BY d.day);
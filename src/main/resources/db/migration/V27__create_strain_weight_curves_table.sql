@@ -0,0 +1,32 @@
+-- Migration: Strain growth curves stored in database (admin-editable, hot-reloaded)
+-- Replaces the curves hard-coded in StrainWeightCurveService; one row per control point.
+
+CREATE TABLE strain_weight_curves (
+    id BIGSERIAL PRIMARY KEY,
+    strain VARCHAR(100) NOT NULL,
+    age_days INTEGER NOT NULL,
+    weight_kg DECIMAL(8,4) NOT NULL,
+    created_by_id BIGINT,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT fk_weight_curve_created_by FOREIGN KEY (created_by_id) REFERENCES users(id),
+    CONSTRAINT chk_weight_curve_age_non_negative CHECK (age_days >= 0),
+    CONSTRAINT chk_weight_curve_weight_positive CHECK (weight_kg > 0)
+);
+
+-- Strain names are resolved case-insensitively
+CREATE UNIQUE INDEX uq_weight_curve_strain_age ON strain_weight_curves(LOWER(strain), age_days);
+
+COMMENT ON TABLE strain_weight_curves IS 'Standard growth curve control points per strain (linear interpolation between points)';
+COMMENT ON COLUMN strain_weight_curves.strain IS 'Chicken strain identifier (e.g., Ross 308, Cobb 500)';
+COMMENT ON COLUMN strain_weight_curves.age_days IS 'Age of the birds in days';
+COMMENT ON COLUMN strain_weight_curves.weight_kg IS 'Expected live weight per bird (kg) at that age';
+
+-- Performance guides 2024: Aviagen (Ross 308), Cobb-Vantress (Cobb 500), Hubbard (F15)
+INSERT INTO strain_weight_curves (strain, age_days, weight_kg) VALUES
+    ('Ross 308', 0, 0.042), ('Ross 308', 7, 0.170), ('Ross 308', 14, 0.483), ('Ross 308', 21, 0.924),
+    ('Ross 308', 28, 1.452), ('Ross 308', 35, 2.056), ('Ross 308', 42, 2.651), ('Ross 308', 49, 3.220),
+    ('Cobb 500', 0, 0.042), ('Cobb 500', 7, 0.162), ('Cobb 500', 14, 0.462), ('Cobb 500', 21, 0.892),
+    ('Cobb 500', 28, 1.423), ('Cobb 500', 35, 2.028), ('Cobb 500', 42, 2.650), ('Cobb 500', 49, 3.210),
+    ('Hubbard', 0, 0.042), ('Hubbard', 7, 0.155), ('Hubbard', 14, 0.430), ('Hubbard', 21, 0.855),
+    ('Hubbard', 28, 1.380), ('Hubbard', 35, 1.980), ('Hubbard', 42, 2.580), ('Hubbard', 49, 3.120);
@@ -0,0 +1,27 @@
+-- V28: Accumulateur FCR par lot (cumul aliment + cumul mortalite), une ligne par lot.
+-- Maintenu dans la transaction d'ecriture par BatchDailyRollupService (alimentation, mortalite),
+-- reconstruit avec batch_daily_rollup par BatchDailyRollupService.rebuildAll().
+
+CREATE TABLE batch_fcr_accumulator (
+    batch_id BIGINT PRIMARY KEY,
+    total_feed_kg DECIMAL(14, 2) NOT NULL DEFAULT 0,
+    total_mortality INTEGER NOT NULL DEFAULT 0,
+    last_record_date DATE NOT NULL,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT fk_fcr_accumulator_batch FOREIGN KEY (batch_id) REFERENCES batches(id) ON DELETE CASCADE
+);
+
+COMMENT ON TABLE batch_fcr_accumulator IS 'Cumuls FCR par lot : le calcul ne multiplie plus que par le poids de la courbe';
+COMMENT ON COLUMN batch_fcr_accumulator.last_record_date IS 'Date du releve (alimentation ou mortalite) le plus recent';
+
+-- Backfill depuis l'historique existant
+INSERT INTO batch_fcr_accumulator (batch_id, total_feed_kg, total_mortality, last_record_date, updated_at)
+SELECT e.batch_id, SUM(e.feed_kg), SUM(e.mortality), MAX(e.day), CURRENT_TIMESTAMP
+FROM (
+    SELECT f.batch_id, f.feeding_date AS day, f.quantity AS feed_kg, 0 AS mortality
+    FROM feeding_records f
+    UNION ALL
+    SELECT m.batch_id, m.record_date, 0, m.mortality_count
+    FROM daily_mortality_records m
+) e
+GROUP BY e.batch_id;
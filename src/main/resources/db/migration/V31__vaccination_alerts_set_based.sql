@@ -0,0 +1,39 @@
+-- V31: Alertes de vaccination calculees en une requete ensembliste (vue vaccination_alerts).
+-- Le controle "vaccin realise" passe de LIKE '%nom%' a strpos() sur les seuls actes de vaccination
+-- du lot, lus dans un index partiel couvrant (batch_id, diagnosis).
+-- (V29/V30 sont reserves aux jeux de donnees de db/seed.)
+
+CREATE INDEX idx_health_vaccination_batch ON health_records(batch_id) INCLUDE (diagnosis)
+    WHERE is_vaccination = TRUE;
+
+CREATE OR REPLACE VIEW vaccination_alerts AS
+SELECT
+    b.id                                                       AS batch_id,
+    b.batch_number,
+    b.strain,
+    vp.id                                                      AS protocol_id,
+    vp.vaccine_name,
+    vp.day_of_life,
+    (b.arrival_date + (vp.day_of_life * INTERVAL '1 day'))::DATE  AS due_date,
+    GREATEST(0, CURRENT_DATE - (b.arrival_date + (vp.day_of_life * INTERVAL '1 day'))::DATE)
+                                                               AS days_overdue,
+    CASE
+        WHEN CURRENT_DATE > (b.arrival_date + (vp.day_of_life * INTERVAL '1 day'))::DATE
+        THEN TRUE
+        ELSE FALSE
+    END                                                        AS is_overdue,
+    EXISTS(
+        SELECT 1
+        FROM   health_records hr
+        WHERE  hr.batch_id = b.id
+          AND  hr.is_vaccination = TRUE
+          AND  strpos(LOWER(hr.diagnosis), LOWER(vp.vaccine_name)) > 0
+    )                                                          AS is_completed
+FROM   batches            b
+JOIN   vaccination_protocols vp ON b.strain = vp.strain
+WHERE  b.status = 'Active'
+  AND  (b.arrival_date + (vp.day_of_life * INTERVAL '1 day'))::DATE
+           <= CURRENT_DATE + INTERVAL '7 days';
+
+COMMENT ON VIEW vaccination_alerts IS
+    'Vaccination alerts for active batches: due within 7 days or overdue, with completion status.';
@@ -0,0 +1,41 @@
+-- V32: Calendrier de vaccination precalcule : une ligne par (lot, protocole de sa souche).
+-- Alimente a la creation / modification d'un lot, d'un protocole ou d'un acte de vaccination
+-- (VaccinationDueService), recalcule chaque nuit. Les lectures d'alertes et de calendrier
+-- deviennent des parcours d'index sur due_date / batch_id.
+
+CREATE TABLE vaccination_due (
+    id BIGSERIAL PRIMARY KEY,
+    batch_id BIGINT NOT NULL,
+    protocol_id BIGINT NOT NULL,
+    due_date DATE NOT NULL,
+    completed_health_record_id BIGINT,
+    completed_date DATE,
+    refreshed_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT fk_vac_due_batch FOREIGN KEY (batch_id) REFERENCES batches(id) ON DELETE CASCADE,
+    CONSTRAINT fk_vac_due_protocol FOREIGN KEY (protocol_id) REFERENCES vaccination_protocols(id) ON DELETE CASCADE,
+    CONSTRAINT fk_vac_due_health_record FOREIGN KEY (completed_health_record_id)
+        REFERENCES health_records(id) ON DELETE SET NULL,
+    CONSTRAINT uq_vac_due_batch_protocol UNIQUE (batch_id, protocol_id)
+);
+
+-- Alertes : echeances non realisees, parcourues par date
+CREATE INDEX idx_vac_due_open_due_date ON vaccination_due(due_date) WHERE completed_health_record_id IS NULL;
+
+COMMENT ON TABLE vaccination_due IS 'Echeances de vaccination par lot : arrival_date + day_of_life, avec acte realisant le protocole';
+COMMENT ON COLUMN vaccination_due.completed_health_record_id IS 'Premier acte de vaccination du lot dont le diagnostic contient le nom du vaccin';
+
+-- Backfill
+INSERT INTO vaccination_due (batch_id, protocol_id, due_date, completed_health_record_id, completed_date, refreshed_at)
+SELECT b.id, vp.id, b.arrival_date + vp.day_of_life, c.id, c.examination_date, CURRENT_TIMESTAMP
+FROM batches b
+JOIN vaccination_protocols vp ON vp.strain = b.strain
+LEFT JOIN LATERAL (
+    SELECT hr.id, hr.examination_date
+    FROM health_records hr
+    WHERE hr.batch_id = b.id
+      AND hr.is_vaccination = TRUE
+      AND strpos(LOWER(hr.diagnosis), LOWER(vp.vaccine_name)) > 0
+    ORDER BY hr.id
+    LIMIT 1
+) c ON TRUE
+WHERE b.arrival_date IS NOT NULL;
@@ -0,0 +1,12 @@
+-- V33: Index composites pour la pagination par clé (seek) des listes d'alimentation, de mortalité et de lots.
+-- Le prédicat (date, id) < (:afterDate, :afterId) et le tri (date DESC, id DESC) sont servis par un
+-- parcours d'index arrière : le coût d'une page ne dépend plus de sa profondeur.
+
+CREATE INDEX idx_feeding_date_id ON feeding_records(feeding_date, id);
+CREATE INDEX idx_feeding_batch_date_id ON feeding_records(batch_id, feeding_date, id);
+
+CREATE INDEX idx_mortality_date_id ON daily_mortality_records(record_date, id);
+-- (batch_id, record_date) est déjà couvert par la contrainte uq_mortality_batch_date
+
+CREATE INDEX idx_batch_created_at_id ON batches(created_at, id);
+CREATE INDEX idx_batch_assigned_created_at_id ON batches(assigned_to_id, created_at, id);
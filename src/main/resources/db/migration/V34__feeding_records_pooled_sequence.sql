@@ -0,0 +1,8 @@
+-- V34: Identifiants de feeding_records alloués par blocs de 50 (optimiseur pooled de Hibernate).
+-- Avec IDENTITY, chaque INSERT doit être exécuté immédiatement pour obtenir son id :
+-- hibernate.jdbc.batch_size n'avait aucun effet. La séquence du BIGSERIAL est conservée
+-- (le DEFAULT nextval reste valable pour les INSERT SQL) ; seul son pas change.
+-- Le setval place la prochaine tranche au-dessus des ids existants.
+
+ALTER SEQUENCE feeding_records_id_seq INCREMENT BY 50;
+SELECT setval('feeding_records_id_seq', COALESCE(MAX(id), 0) + 50) FROM feeding_records;
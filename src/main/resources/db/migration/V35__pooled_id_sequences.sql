@@ -0,0 +1,33 @@
+-- V35: Identifiants alloués par blocs de 50 (optimiseur pooled) pour les entités insérées par JPA,
+-- comme feeding_records en V34 : avec IDENTITY, Hibernate exécute chaque INSERT immédiatement
+-- pour lire l'id et hibernate.jdbc.batch_size / order_inserts restent sans effet.
+-- Les séquences des BIGSERIAL sont conservées (ids existants et DEFAULT nextval inchangés) ;
+-- le setval place la prochaine tranche au-dessus des ids existants.
+-- batch_daily_rollup et vaccination_due ne sont alimentées que par INSERT SQL : pas concernées.
+
+ALTER SEQUENCE users_id_seq INCREMENT BY 50;
+SELECT setval('users_id_seq', COALESCE(MAX(id), 0) + 50) FROM users;
+
+ALTER SEQUENCE batches_id_seq INCREMENT BY 50;
+SELECT setval('batches_id_seq', COALESCE(MAX(id), 0) + 50) FROM batches;
+
+ALTER SEQUENCE health_records_id_seq INCREMENT BY 50;
+SELECT setval('health_records_id_seq', COALESCE(MAX(id), 0) + 50) FROM health_records;
+
+ALTER SEQUENCE sales_id_seq INCREMENT BY 50;
+SELECT setval('sales_id_seq', COALESCE(MAX(id), 0) + 50) FROM sales;
+
+ALTER SEQUENCE buildings_id_seq INCREMENT BY 50;
+SELECT setval('buildings_id_seq', COALESCE(MAX(id), 0) + 50) FROM buildings;
+
+ALTER SEQUENCE stock_items_id_seq INCREMENT BY 50;
+SELECT setval('stock_items_id_seq', COALESCE(MAX(id), 0) + 50) FROM stock_items;
+
+ALTER SEQUENCE daily_mortality_records_id_seq INCREMENT BY 50;
+SELECT setval('daily_mortality_records_id_seq', COALESCE(MAX(id), 0) + 50) FROM daily_mortality_records;
+
+ALTER SEQUENCE vaccination_protocols_id_seq INCREMENT BY 50;
+SELECT setval('vaccination_protocols_id_seq', COALESCE(MAX(id), 0) + 50) FROM vaccination_protocols;
+
+ALTER SEQUENCE strain_weight_curves_id_seq INCREMENT BY 50;
+SELECT setval('strain_weight_curves_id_seq', COALESCE(MAX(id), 0) + 50) FROM strain_weight_curves;
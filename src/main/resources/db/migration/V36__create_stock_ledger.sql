@@ -0,0 +1,61 @@
+-- V36: Journal des mouvements de stock (append-only) et instantanés de solde.
+-- Solde d'un article = dernier instantané + somme des mouvements postérieurs (id > last_movement_id).
+-- stock_items.quantity reste le solde courant gardé par l'UPDATE conditionnel (pas de stock négatif) ;
+-- le journal explique chaque variation et sert aux inventaires et aux consommations par lot.
+
+CREATE TABLE stock_movements (
+    id BIGSERIAL PRIMARY KEY,
+    stock_item_id BIGINT NOT NULL,
+    movement_type VARCHAR(20) NOT NULL,
+    quantity_delta DECIMAL(12, 4) NOT NULL,
+    batch_id BIGINT,
+    reference_id BIGINT,
+    occurred_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT fk_stock_movement_item FOREIGN KEY (stock_item_id) REFERENCES stock_items(id) ON DELETE CASCADE,
+    CONSTRAINT fk_stock_movement_batch FOREIGN KEY (batch_id) REFERENCES batches(id) ON DELETE SET NULL
+);
+
+-- Identifiants par blocs de 50, comme les autres tables insérées par JPA (V35)
+ALTER SEQUENCE stock_movements_id_seq INCREMENT BY 50;
+
+CREATE INDEX idx_stock_movement_item_id ON stock_movements(stock_item_id, id);
+CREATE INDEX idx_stock_movement_batch ON stock_movements(batch_id, stock_item_id) WHERE batch_id IS NOT NULL;
+CREATE INDEX idx_stock_movement_occurred_at ON stock_movements(occurred_at);
+
+CREATE TABLE stock_balance_snapshots (
+    stock_item_id BIGINT NOT NULL,
+    last_movement_id BIGINT NOT NULL,
+    balance DECIMAL(14, 4) NOT NULL,
+    taken_at TIMESTAMP NOT NULL,
+    PRIMARY KEY (stock_item_id, last_movement_id),
+    CONSTRAINT fk_stock_snapshot_item FOREIGN KEY (stock_item_id) REFERENCES stock_items(id) ON DELETE CASCADE
+);
+
+-- Reprise de l'historique : consommations connues (alimentation, traitements approuvés),
+-- précédées d'une entrée initiale qui redonne exactement la quantité actuelle.
+INSERT INTO stock_movements (stock_item_id, movement_type, quantity_delta, occurred_at)
+SELECT s.id, 'RECEIPT',
+       s.quantity
+           + COALESCE((SELECT SUM(f.quantity) FROM feeding_records f WHERE f.stock_item_id = s.id), 0)
+           + COALESCE((SELECT SUM(h.quantity_used) FROM health_records h
+                       WHERE h.stock_item_id = s.id AND h.approval_status = 'APPROVED'), 0),
+       s.created_at
+FROM stock_items s;
+
+INSERT INTO stock_movements (stock_item_id, movement_type, quantity_delta, batch_id, reference_id, occurred_at)
+SELECT f.stock_item_id, 'FEEDING', -f.quantity, f.batch_id, f.id, f.created_at
+FROM feeding_records f
+WHERE f.stock_item_id IS NOT NULL;
+
+INSERT INTO stock_movements (stock_item_id, movement_type, quantity_delta, batch_id, reference_id, occurred_at)
+SELECT h.stock_item_id, 'TREATMENT', -h.quantity_used, h.batch_id, h.id, COALESCE(h.approved_at, h.updated_at)
+FROM health_records h
+WHERE h.stock_item_id IS NOT NULL AND h.quantity_used IS NOT NULL AND h.approval_status = 'APPROVED';
+
+INSERT INTO stock_balance_snapshots (stock_item_id, last_movement_id, balance, taken_at)
+SELECT m.stock_item_id, MAX(m.id), SUM(m.quantity_delta), clock_timestamp()
+FROM stock_movements m
+GROUP BY m.stock_item_id;
+
+COMMENT ON TABLE stock_movements IS 'Journal append-only des variations de stock (entrée positive, consommation négative)';
+COMMENT ON TABLE stock_balance_snapshots IS 'Solde d''un article après le mouvement last_movement_id (job périodique)';
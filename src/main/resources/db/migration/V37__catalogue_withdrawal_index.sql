@@ -0,0 +1,6 @@
+-- V37: Catalogue client en une requête : le filtre "pas de période de retrait active" devient un
+-- NOT EXISTS servi par un index partiel sur la date de fin de retrait (examination_date + withdrawal_days).
+-- Seuls les traitements (hors vaccins) avec un délai de retrait sont indexés.
+
+CREATE INDEX idx_health_withdrawal_end ON health_records(batch_id, (examination_date + withdrawal_days))
+    WHERE withdrawal_days > 0 AND is_vaccination = FALSE;
@@ -0,0 +1,18 @@
+-- V38: Date de fin de retrait dénormalisée sur le lot.
+-- withdrawal_clear_date = MAX(examination_date + withdrawal_days) des traitements (hors vaccins, hors
+-- rapports rejetés) ; le lot est vendable quand elle est NULL ou <= date du jour.
+-- Maintenue par HealthRecordService (création, approbation, rejet), réconciliée par un job nocturne.
+
+ALTER TABLE batches ADD COLUMN withdrawal_clear_date DATE;
+
+UPDATE batches b
+SET withdrawal_clear_date = w.clear_date
+FROM (
+    SELECT h.batch_id, MAX(h.examination_date + h.withdrawal_days) AS clear_date
+    FROM health_records h
+    WHERE h.withdrawal_days > 0
+      AND h.is_vaccination = FALSE
+      AND h.approval_status IS DISTINCT FROM 'REJECTED'
+    GROUP BY h.batch_id
+) w
+WHERE w.batch_id = b.id;
@@ -0,0 +1,9 @@
+-- V39: Clé d'idempotence des commandes client (en-tête Idempotency-Key).
+-- Une même clé ne peut créer qu'une vente par client : deux envois simultanés de la même commande
+-- se réduisent à une seule ligne, le second est rejeté par l'index unique puis rejoue la première.
+
+ALTER TABLE sales ADD COLUMN idempotency_key VARCHAR(64);
+
+CREATE UNIQUE INDEX uq_sales_client_idempotency_key
+    ON sales (client_id, idempotency_key)
+    WHERE idempotency_key IS NOT NULL;
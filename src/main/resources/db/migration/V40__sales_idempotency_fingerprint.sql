@@ -0,0 +1,5 @@
+-- V40: Empreinte de la requête associée à la clé d'idempotence (SHA-256 hexadécimal du lot, de la quantité
+-- et de l'adresse de livraison). Une clé réutilisée avec une autre requête est refusée au lieu de rejouer
+-- une commande qui ne lui correspond pas. NULL pour les ventes créées avant V40 : non vérifiable.
+
+ALTER TABLE sales ADD COLUMN idempotency_fingerprint VARCHAR(64);
@@ -0,0 +1,26 @@
+-- V41: Les mouvements de stock sont marqués par l'instantané qui les inclut (snapshot_id) au lieu d'être
+-- comparés à last_movement_id. Les identifiants sont alloués par blocs de 50 (V36) : une instance qui
+-- détient encore un ancien bloc insère des mouvements d'id inférieur au dernier instantané, que le filtre
+-- id > last_movement_id ignorait. Solde = dernier instantané + mouvements sans snapshot_id.
+
+ALTER TABLE stock_balance_snapshots DROP CONSTRAINT stock_balance_snapshots_pkey;
+ALTER TABLE stock_balance_snapshots ADD COLUMN id BIGSERIAL PRIMARY KEY;
+CREATE INDEX idx_stock_snapshot_item ON stock_balance_snapshots(stock_item_id, id);
+
+ALTER TABLE stock_movements ADD COLUMN snapshot_id BIGINT;
+ALTER TABLE stock_movements ADD CONSTRAINT fk_stock_movement_snapshot
+    FOREIGN KEY (snapshot_id) REFERENCES stock_balance_snapshots(id) ON DELETE SET NULL;
+
+-- Reprise : chaque mouvement est rattaché au premier instantané qui le couvrait
+UPDATE stock_movements m
+SET snapshot_id = (
+    SELECT sn.id FROM stock_balance_snapshots sn
+    WHERE sn.stock_item_id = m.stock_item_id AND sn.last_movement_id >= m.id
+    ORDER BY sn.last_movement_id
+    LIMIT 1
+);
+
+CREATE INDEX idx_stock_movement_unsnapshotted ON stock_movements(stock_item_id) WHERE snapshot_id IS NULL;
+
+COMMENT ON COLUMN stock_movements.snapshot_id IS 'Instantané qui inclut ce mouvement ; NULL tant qu''aucun instantané ne l''a pris';
+COMMENT ON COLUMN stock_balance_snapshots.last_movement_id IS 'Plus grand id inclus (informatif : les ids ne suivent pas l''ordre de validation)';
@@ -0,0 +1,9 @@
+-- V42: Retrait du coût aliment de batch_daily_rollup. Les deux chemins d'écriture le calculaient
+-- différemment (prix au moment de la saisie en incrémental, prix actuel de stock_items à la
+-- reconstruction) et aucune lecture ne l'utilisait : le coût aliment d'un lot reste calculé par
+-- BatchCostService depuis les relevés.
+
+ALTER TABLE batch_daily_rollup DROP COLUMN feed_cost_dh;
+ALTER TABLE batch_daily_rollup DROP COLUMN cumulative_feed_cost_dh;
+
+COMMENT ON TABLE batch_daily_rollup IS 'Agregat journalier par lot (alimentation, mortalite + cumuls) : une ligne par (lot, jour) ayant au moins un releve';
@@ -0,0 +1,136 @@
+package org.example.djajbladibackend.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH: insertion of an upload of N feeding-like rows (bulk seeding, offline sync), replaying the JDBC
+ * traffic Hibernate generates before and after the switch from IDENTITY to pooled sequences:
+ *
+ * - identityPerRow: one INSERT ... RETURNING id round trip per row (IDENTITY disables JDBC batching)
+ * - pooledSequenceBatched: one nextval per 50 ids, INSERTs sent in JDBC batches of 20
+ *   (hibernate.jdbc.batch_size)
+ *
+ * Rows per second = rows / average time. Needs a PostgreSQL reachable with
+ * -Dbench.db.url / -Dbench.db.user / -Dbench.db.password (defaults: local djaj_bladi database);
+ * the benchmark only uses its own temporary table.
+ *
+ * Run: mvn -B test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java
+ *      -Dexec.args="-cp %classpath org.example.djajbladibackend.benchmark.IdGenerationInsertBenchmark"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IdGenerationInsertBenchmark {
+
+    private static final int ALLOCATION_SIZE = 50;
+    private static final int JDBC_BATCH_SIZE = 20;
+    private static final String INSERT_COLUMNS = "(batch_id, feed_type, quantity, feeding_date)";
+
+    @Param({"100", "1000"})
+    private int rows;
+
+    private Connection connection;
+    private final LocalDate day = LocalDate.of(2025, 1, 15);
+
+    @Setup(Level.Trial)
+    public void connect() throws SQLException {
+        connection = DriverManager.getConnection(
+                System.getProperty("bench.db.url", "jdbc:postgresql://localhost:5432/djaj_bladi"),
+                System.getProperty("bench.db.user", "postgres"),
+                System.getProperty("bench.db.password", "postgres"));
+        try (Statement st = connection.createStatement()) {
+            st.execute("CREATE TEMPORARY TABLE bench_feeding (id BIGSERIAL PRIMARY KEY, batch_id BIGINT NOT NULL, "
+                    + "feed_type VARCHAR(100) NOT NULL, quantity DECIMAL(10, 2) NOT NULL, feeding_date DATE NOT NULL)");
+            st.execute("ALTER SEQUENCE bench_feeding_id_seq INCREMENT BY " + ALLOCATION_SIZE);
+        }
+        connection.setAutoCommit(false);
+    }
+
+    @Setup(Level.Iteration)
+    public void truncate() throws SQLException {
+        try (Statement st = connection.createStatement()) {
+            st.execute("TRUNCATE bench_feeding");
+        }
+        connection.commit();
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public long identityPerRow() throws SQLException {
+        long lastId = 0;
+        try (PreparedStatement ps = connection.prepareStatement(
+                "INSERT INTO bench_feeding " + INSERT_COLUMNS + " VALUES (?, ?, ?, ?) RETURNING id")) {
+            for (int i = 0; i < rows; i++) {
+                bind(ps, i, 1);
+                try (ResultSet rs = ps.executeQuery()) {
+                    rs.next();
+                    lastId = rs.getLong(1);
+                }
+            }
+        }
+        connection.commit();
+        return lastId;
+    }
+
+    @Benchmark
+    public long pooledSequenceBatched() throws SQLException {
+        long nextId = 0;
+        long hi = 0;
+        try (PreparedStatement seq = connection.prepareStatement("SELECT nextval('bench_feeding_id_seq')");
+             PreparedStatement ps = connection.prepareStatement(
+                     "INSERT INTO bench_feeding (id, batch_id, feed_type, quantity, feeding_date) VALUES (?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < rows; i++) {
+                if (nextId == hi) {
+                    try (ResultSet rs = seq.executeQuery()) {
+                        rs.next();
+                        hi = rs.getLong(1);
+                    }
+                    nextId = hi - ALLOCATION_SIZE;
+                }
+                ps.setLong(1, ++nextId);
+                bind(ps, i, 2);
+                ps.addBatch();
+                if ((i + 1) % JDBC_BATCH_SIZE == 0) {
+                    ps.executeBatch();
+                }
+            }
+            ps.executeBatch();
+        }
+        connection.commit();
+        return nextId;
+    }
+
+    private void bind(PreparedStatement ps, int i, int firstIndex) throws SQLException {
+        ps.setLong(firstIndex, 1 + i % 4);
+        ps.setString(firstIndex + 1, "Demarrage");
+        ps.setBigDecimal(firstIndex + 2, BigDecimal.valueOf(10 + i % 7));
+        ps.setDate(firstIndex + 3, Date.valueOf(day.minusDays(i % 30)));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(IdGenerationInsertBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,121 @@
+package org.example.djajbladibackend.benchmark;
+
+import org.example.djajbladibackend.services.fcr.StrainWeightCurveService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH: lookups of the dashboard access pattern (today, yesterday, per row) against the
+ * former TreeMap + interpolation implementation, kept below as {@link LegacyCurves}.
+ *
+ * Run: mvn -B test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java
+ *      -Dexec.args="-cp %classpath org.example.djajbladibackend.benchmark.StrainWeightCurveBenchmark"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StrainWeightCurveBenchmark {
+
+    /** Mix of exact, differently-cased and unknown strain names, as stored on batches. */
+    private static final String[] STRAINS = {"Ross 308", "cobb 500", "Hubbard", " Cobb 500 ", "Inconnue", null};
+
+    private static final int MAX_AGE = 56;
+
+    private final StrainWeightCurveService service = new StrainWeightCurveService();
+
+    @Benchmark
+    public void denseTables(Blackhole bh) {
+        for (String strain : STRAINS) {
+            for (int age = 1; age <= MAX_AGE; age++) {
+                bh.consume(service.getEstimatedWeightKg(strain, age));
+                bh.consume(service.getEstimatedWeightKg(strain, age - 1));
+            }
+        }
+    }
+
+    @Benchmark
+    public void legacyTreeMap(Blackhole bh) {
+        for (String strain : STRAINS) {
+            for (int age = 1; age <= MAX_AGE; age++) {
+                bh.consume(LegacyCurves.getEstimatedWeightKg(strain, age));
+                bh.consume(LegacyCurves.getEstimatedWeightKg(strain, age - 1));
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(StrainWeightCurveBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    /** Former StrainWeightCurveService lookup, unchanged. */
+    static final class LegacyCurves {
+
+        private static final Map<String, NavigableMap<Integer, BigDecimal>> CURVES = Map.of(
+                "Ross 308", buildCurve(new double[][]{
+                        {0, 0.042}, {7, 0.170}, {14, 0.483}, {21, 0.924},
+                        {28, 1.452}, {35, 2.056}, {42, 2.651}, {49, 3.220}}),
+                "Cobb 500", buildCurve(new double[][]{
+                        {0, 0.042}, {7, 0.162}, {14, 0.462}, {21, 0.892},
+                        {28, 1.423}, {35, 2.028}, {42, 2.650}, {49, 3.210}}),
+                "Hubbard", buildCurve(new double[][]{
+                        {0, 0.042}, {7, 0.155}, {14, 0.430}, {21, 0.855},
+                        {28, 1.380}, {35, 1.980}, {42, 2.580}, {49, 3.120}}));
+
+        static BigDecimal getEstimatedWeightKg(String strain, int ageInDays) {
+            if (ageInDays <= 0) {
+                return BigDecimal.valueOf(0.042);
+            }
+            NavigableMap<Integer, BigDecimal> curve = resolveCurve(strain);
+            if (curve.containsKey(ageInDays)) {
+                return curve.get(ageInDays);
+            }
+            Map.Entry<Integer, BigDecimal> lower = curve.floorEntry(ageInDays);
+            Map.Entry<Integer, BigDecimal> upper = curve.ceilingEntry(ageInDays);
+            if (lower == null) return upper.getValue();
+            if (upper == null) return lower.getValue();
+            double t = (double) (ageInDays - lower.getKey()) / (upper.getKey() - lower.getKey());
+            double interpolated = lower.getValue().doubleValue()
+                    + t * (upper.getValue().doubleValue() - lower.getValue().doubleValue());
+            return BigDecimal.valueOf(interpolated).setScale(4, RoundingMode.HALF_UP);
+        }
+
+        private static NavigableMap<Integer, BigDecimal> resolveCurve(String strain) {
+            if (strain == null) {
+                return CURVES.get("Ross 308");
+            }
+            String normalized = strain.trim();
+            if (CURVES.containsKey(normalized)) {
+                return CURVES.get(normalized);
+            }
+            for (Map.Entry<String, NavigableMap<Integer, BigDecimal>> entry : CURVES.entrySet()) {
+                if (entry.getKey().equalsIgnoreCase(normalized)) {
+                    return entry.getValue();
+                }
+            }
+            return CURVES.get("Ross 308");
+        }
+
+        private static NavigableMap<Integer, BigDecimal> buildCurve(double[][] points) {
+            NavigableMap<Integer, BigDecimal> map = new TreeMap<>();
+            for (double[] point : points) {
+                map.put((int) point[0], BigDecimal.valueOf(point[1]));
+            }
+            return map;
+        }
+    }
+}
@@ -3,16 +3,16 @@ package org.example.djajbladibackend.services.batch;
 import net.jqwik.api.*;
 import net.jqwik.api.constraints.IntRange;
 import org.example.djajbladibackend.exception.WithdrawalPeriodActiveException;
-import org.example.djajbladibackend.models.HealthRecord;
+import org.example.djajbladibackend.models.Batch;
 import org.example.djajbladibackend.repository.BatchRepository;
 import org.example.djajbladibackend.repository.BuildingRepository;
-import org.example.djajbladibackend.repository.HealthRecordRepository;
 import org.example.djajbladibackend.repository.auth.UserRepository;
+import org.example.djajbladibackend.services.dashboard.SupervisionDashboardSnapshotService;
+import org.example.djajbladibackend.services.financial.BatchCostService;
+import org.example.djajbladibackend.services.vaccination.VaccinationDueService;
 import org.mockito.Mockito;
 
 import java.time.LocalDate;
-import java.util.Collections;
-import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -28,13 +28,17 @@ class BatchServiceWithdrawalTest {
     private final BatchRepository batchRepository = Mockito.mock(BatchRepository.class);
     private final BuildingRepository buildingRepository = Mockito.mock(BuildingRepository.class);
     private final UserRepository userRepository = Mockito.mock(UserRepository.class);
-    private final HealthRecordRepository healthRecordRepository = Mockito.mock(HealthRecordRepository.class);
+    private final BatchCostService batchCostService = Mockito.mock(BatchCostService.class);
+    private final VaccinationDueService vaccinationDueService = Mockito.mock(VaccinationDueService.class);
+    private final SupervisionDashboardSnapshotService dashboardSnapshotService =
+            Mockito.mock(SupervisionDashboardSnapshotService.class);
 
     private final BatchService batchService = new BatchService(
-            batchRepository, buildingRepository, userRepository, healthRecordRepository);
+            batchRepository, buildingRepository, userRepository,
+            batchCostService, vaccinationDueService, dashboardSnapshotService);
 
     /**
-     * Property 2: isBatchSellable returns false when active withdrawal records exist.
+     * Property 2: isBatchSellable returns false while the batch's withdrawal clear date is in the future.
      * Requirements: 1.2, 7.1
      */
     @Property
@@ -43,14 +47,7 @@ class BatchServiceWithdrawalTest {
             @ForAll @IntRange(min = 1, max = 30) int daysRemaining) {
 
         Long batchId = 1L;
-        HealthRecord activeRecord = HealthRecord.builder()
-                .withdrawalDays(daysRemaining + 10)
-                .examinationDate(LocalDate.now().minusDays(5))
-                .isVaccination(false)
-                .build();
-
-        when(healthRecordRepository.findActiveWithdrawalPeriods(batchId))
-                .thenReturn(List.of(activeRecord));
+        givenBatch(batchId, LocalDate.now().plusDays(daysRemaining));
 
         boolean sellable = batchService.isBatchSellable(batchId);
 
@@ -58,14 +55,15 @@ class BatchServiceWithdrawalTest {
     }
 
     /**
-     * Property 3: isBatchSellable returns true when no active withdrawal records exist.
+     * Property 3: isBatchSellable returns true when the batch has no withdrawal clear date
+     * or when it is today or in the past.
      * Requirements: 1.5, 7.3
      */
     @Property
     @Label("Property 3: isBatchSellable is true when no active withdrawal periods")
-    void isBatchSellableReturnsTrueWhenNoWithdrawal(@ForAll Long batchId) {
-        when(healthRecordRepository.findActiveWithdrawalPeriods(batchId))
-                .thenReturn(Collections.emptyList());
+    void isBatchSellableReturnsTrueWhenNoWithdrawal(
+            @ForAll Long batchId, @ForAll @IntRange(min = -1, max = 30) int daysAgo) {
+        givenBatch(batchId, daysAgo < 0 ? null : LocalDate.now().minusDays(daysAgo));
 
         boolean sellable = batchService.isBatchSellable(batchId);
 
@@ -84,20 +82,13 @@ class BatchServiceWithdrawalTest {
 
         Long batchId = 42L;
         LocalDate expirationDate = LocalDate.now().plusDays(daysUntilExpiration);
-        HealthRecord activeRecord = HealthRecord.builder()
-                .withdrawalDays(50)
-                .examinationDate(LocalDate.now().minusDays(10))
-                .isVaccination(false)
-                .build();
-
-        when(healthRecordRepository.findActiveWithdrawalPeriods(batchId))
-                .thenReturn(List.of(activeRecord));
-        when(healthRecordRepository.findLatestWithdrawalExpiration(batchId))
-                .thenReturn(expirationDate);
+        givenBatch(batchId, expirationDate);
 
         assertThatThrownBy(() -> batchService.validateStatusTransition(
                 batchId, org.example.djajbladibackend.models.BatchStatus.SOLD))
-                .isInstanceOf(WithdrawalPeriodActiveException.class);
+                .isInstanceOf(WithdrawalPeriodActiveException.class)
+                .extracting("expirationDate")
+                .isEqualTo(expirationDate);
     }
 
     /**
@@ -112,12 +103,16 @@ class BatchServiceWithdrawalTest {
         Long batchId = 99L;
         LocalDate expectedDate = LocalDate.now().plusDays(futureDays);
 
-        when(healthRecordRepository.findLatestWithdrawalExpiration(batchId))
-                .thenReturn(expectedDate);
+        givenBatch(batchId, expectedDate);
 
         Optional<LocalDate> result = batchService.getWithdrawalExpirationDate(batchId);
 
         assertThat(result).isPresent();
         assertThat(result.get()).isEqualTo(expectedDate);
     }
+
+    private void givenBatch(Long batchId, LocalDate withdrawalClearDate) {
+        Batch batch = Batch.builder().id(batchId).withdrawalClearDate(withdrawalClearDate).build();
+        when(batchRepository.findById(batchId)).thenReturn(Optional.of(batch));
+    }
 }
@@ -0,0 +1,89 @@
+package org.example.djajbladibackend.services.client;
+
+import jakarta.persistence.EntityManager;
+import org.example.djajbladibackend.dto.client.AvailableBatchResponse;
+import org.example.djajbladibackend.models.*;
+import org.example.djajbladibackend.models.enums.RoleEnum;
+import org.example.djajbladibackend.services.health.WithdrawalClearDateService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.example.djajbladibackend.support.TestData.*;
+
+/**
+ * Integration test: the client catalogue (withdrawal filter included)
+ * is read with a single statement, whatever the number of sellable batches.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("ci")
+@Transactional
+@DisplayName("Client catalogue single query")
+class ClientCatalogueIntegrationTest {
+
+    @Autowired
+    private ClientPurchaseService purchaseService;
+
+    @Autowired
+    private WithdrawalClearDateService withdrawalClearDateService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    @DisplayName("getAvailableBatches exclut les lots en periode de retrait, en une requete")
+    void getAvailableBatches_filtersWithdrawalInOneStatement() {
+        LocalDate today = LocalDate.now();
+        User admin = persist(entityManager, user("admin-catalogue@djajbladi.com", RoleEnum.Admin).build());
+        User vet = persist(entityManager, user("vet-catalogue@djajbladi.com", RoleEnum.Veterinaire).build());
+        persistCatalogueBatch("CAT-IT-CLEAR", admin);
+        Batch active = persistCatalogueBatch("CAT-IT-ACTIVE", admin);
+        Batch expired = persistCatalogueBatch("CAT-IT-EXPIRED", admin);
+        Batch vaccinated = persistCatalogueBatch("CAT-IT-VACCIN", admin);
+        persist(entityManager, healthRecord(active, vet, "Coccidiose", today.minusDays(2))
+                .treatment("Traitement").withdrawalDays(7).build());
+        persist(entityManager, healthRecord(expired, vet, "Coccidiose", today.minusDays(10))
+                .treatment("Traitement").withdrawalDays(7).build());
+        persist(entityManager, healthRecord(vaccinated, vet, "Vaccin Newcastle", today.minusDays(1))
+                .treatment("Traitement").withdrawalDays(21).isVaccination(true).build());
+        entityManager.flush();
+        // rapports inseres directement : la date de fin de retrait des lots est posee par la reconciliation
+        withdrawalClearDateService.reconcile();
+        entityManager.clear();
+
+        Statistics statistics = statistics();
+        statistics.clear();
+        List<AvailableBatchResponse> catalogue = purchaseService.getAvailableBatches();
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        List<AvailableBatchResponse> ours = catalogue.stream()
+                .filter(b -> b.getBatchNumber().startsWith("CAT-IT-"))
+                .toList();
+        assertThat(ours).extracting(AvailableBatchResponse::getBatchNumber)
+                .containsExactlyInAnyOrder("CAT-IT-CLEAR", "CAT-IT-EXPIRED", "CAT-IT-VACCIN");
+        assertThat(ours).filteredOn(b -> b.getBatchNumber().equals("CAT-IT-CLEAR")).singleElement()
+                .satisfies(b -> {
+                    assertThat(b.getAvailableQuantity()).isEqualTo(1000);
+                    assertThat(b.getMinimumOrderPrice()).isEqualByComparingTo("3500.00");
+                    assertThat(b.getAgeInDays()).isEqualTo(45);
+                });
+    }
+
+    private Statistics statistics() {
+        return entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private Batch persistCatalogueBatch(String number, User owner) {
+        return persist(entityManager, batchForSale(number, owner, 1000)
+                .arrivalDate(LocalDate.now().minusDays(45)).minimumOrderQuantity(100).build());
+    }
+}
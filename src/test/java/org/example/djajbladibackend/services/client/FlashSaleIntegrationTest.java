@@ -0,0 +1,340 @@
+package org.example.djajbladibackend.services.client;
+
+import org.example.djajbladibackend.dto.client.FlashSaleConfirmRequest;
+import org.example.djajbladibackend.dto.client.FlashSaleReservationRequest;
+import org.example.djajbladibackend.dto.client.FlashSaleReservationResponse;
+import org.example.djajbladibackend.dto.client.PurchaseOrderRequest;
+import org.example.djajbladibackend.dto.client.PurchaseOrderResponse;
+import org.example.djajbladibackend.exception.BatchNotForSaleException;
+import org.example.djajbladibackend.exception.FlashSaleUnavailableException;
+import org.example.djajbladibackend.exception.IdempotencyKeyReuseException;
+import org.example.djajbladibackend.exception.MinimumOrderQuantityException;
+import org.example.djajbladibackend.exception.OrderQuantityExceedsStockException;
+import org.example.djajbladibackend.exception.ResourceNotFoundException;
+import org.example.djajbladibackend.models.Batch;
+import org.example.djajbladibackend.models.BatchStatus;
+import org.example.djajbladibackend.models.User;
+import org.example.djajbladibackend.models.enums.RoleEnum;
+import org.example.djajbladibackend.repository.BatchRepository;
+import org.example.djajbladibackend.repository.SaleRepository;
+import org.example.djajbladibackend.repository.auth.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.example.djajbladibackend.support.TestData.STRAIN;
+import static org.example.djajbladibackend.support.TestData.batchForSale;
+import static org.example.djajbladibackend.support.TestData.user;
+
+/**
+ * Integration test: flash-sale lanes sequence orders in memory, write them in groups without
+ * overselling, and give the stock of abandoned reservations back.
+ * Not @Transactional: the lane writer commits on its own worker thread.
+ */
+@SpringBootTest
+@ActiveProfiles("ci")
+@DisplayName("Flash sale sequencer")
+class FlashSaleIntegrationTest {
+
+    private static final int THREADS = 32;
+    private static final int ORDERS_PER_THREAD = 5;
+
+    @Autowired
+    private FlashSaleService flashSaleService;
+
+    @Autowired
+    private FlashSaleOrderWriter orderWriter;
+
+    @Autowired
+    private ClientPurchaseService purchaseService;
+
+    @Autowired
+    private BatchRepository batchRepository;
+
+    @Autowired
+    private SaleRepository saleRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User client;
+    private Long batchId;
+
+    @AfterEach
+    void cleanUp() {
+        if (batchId != null) {
+            if (flashSaleService.isOpen(batchId)) {
+                flashSaleService.close(batchId);
+            }
+            saleRepository.deleteAll(saleRepository.findByBatchId(batchId));
+            batchRepository.deleteById(batchId);
+        }
+        if (client != null) {
+            userRepository.deleteById(client.getId());
+        }
+    }
+
+    @Test
+    @DisplayName("les commandes concurrentes sont ecrites par groupes sans survente, le lot epuise ferme la vente")
+    void concurrentOrders_areWrittenInGroupsWithoutOverselling() throws Exception {
+        int stock = 100;
+        client = userRepository.save(user("client-flash-lane@djajbladi.com", RoleEnum.Client).build());
+        batchId = batchRepository.save(batchForSale("FLASH-IT-1", client, stock).build()).getId();
+        assertThat(flashSaleService.open(batchId).getAvailable()).isEqualTo(stock);
+
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < ORDERS_PER_THREAD; i++) {
+                    try {
+                        flashSaleService.placeOrder(order(1), client.getEmail());
+                        succeeded.incrementAndGet();
+                    } catch (OrderQuantityExceedsStockException | BatchNotForSaleException e) {
+                        rejected.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertThat(succeeded.get()).isEqualTo(stock);
+        assertThat(rejected.get()).isEqualTo(THREADS * ORDERS_PER_THREAD - stock);
+        Batch sold = batchRepository.findById(batchId).orElseThrow();
+        assertThat(sold.getCurrentCount()).isZero();
+        assertThat(sold.getStatus()).isEqualTo(BatchStatus.SOLD);
+        assertThat(saleRepository.findByBatchId(batchId)).hasSize(stock);
+        assertThat(flashSaleService.isOpen(batchId)).isFalse();
+    }
+
+    @Test
+    @DisplayName("une reservation retient le stock jusqu'a confirmation ; une reservation expiree le rend")
+    void reservations_holdStockUntilConfirmedOrExpired() {
+        client = userRepository.save(user("client-flash-hold@djajbladi.com", RoleEnum.Client).build());
+        batchId = batchRepository.save(batchForSale("FLASH-IT-2", client, 50).minimumOrderQuantity(10).build()).getId();
+        flashSaleService.open(batchId);
+
+        FlashSaleReservationResponse abandoned = flashSaleService.reserve(reservation(40), client.getEmail());
+        assertThat(abandoned.getTotalPrice()).isEqualByComparingTo("1400.00");
+        assertThatThrownBy(() -> flashSaleService.reserve(reservation(20), client.getEmail()))
+                .isInstanceOf(OrderQuantityExceedsStockException.class);
+
+        flashSaleService.expireHolds(Instant.now().plus(1, ChronoUnit.HOURS));
+        FlashSaleReservationResponse kept = flashSaleService.reserve(reservation(20), client.getEmail());
+        assertThatThrownBy(() -> flashSaleService.confirm(abandoned.getReservationId(), confirmation(),
+                client.getEmail()))
+                .isInstanceOf(ResourceNotFoundException.class);
+
+        PurchaseOrderResponse order = flashSaleService.confirm(kept.getReservationId(), confirmation(),
+                client.getEmail());
+
+        assertThat(order.getOrderId()).isNotNull();
+        assertThat(order.getQuantity()).isEqualTo(20);
+        assertThat(batchRepository.findCurrentCountById(batchId)).contains(30);
+        assertThat(flashSaleService.status(batchId).getAvailable()).isEqualTo(30);
+        assertThat(flashSaleService.close(batchId).isOpen()).isFalse();
+        assertThatThrownBy(() -> flashSaleService.placeOrder(order(10), client.getEmail()))
+                .isInstanceOf(BatchNotForSaleException.class);
+    }
+
+    @Test
+    @DisplayName("une annulation hors sequenceur rend son stock a la vente flash")
+    void cancelledOrder_isResyncedIntoTheLane() {
+        client = userRepository.save(user("client-flash-cancel@djajbladi.com", RoleEnum.Client).build());
+        batchId = batchRepository.save(batchForSale("FLASH-IT-3", client, 50).build()).getId();
+        flashSaleService.open(batchId);
+
+        PurchaseOrderResponse first = flashSaleService.placeOrder(order(40), client.getEmail());
+        purchaseService.cancelOrder(first.getOrderId(), client.getEmail());
+        PurchaseOrderResponse second = flashSaleService.placeOrder(order(30), client.getEmail());
+
+        assertThat(second.getOrderId()).isNotNull();
+        assertThat(batchRepository.findCurrentCountById(batchId)).contains(20);
+        assertThat(flashSaleService.status(batchId).getAvailable()).isEqualTo(20);
+    }
+
+    @Test
+    @DisplayName("une commande qui ne peut pas etre ecrite n'entraine pas le reste du groupe")
+    void failingOrder_doesNotDiscardItsGroup() throws Exception {
+        client = userRepository.save(user("client-flash-group@djajbladi.com", RoleEnum.Client).build());
+        User deleted = userRepository.save(user("client-flash-gone@djajbladi.com", RoleEnum.Client).build());
+        userRepository.deleteById(deleted.getId());
+        batchId = batchRepository.save(batchForSale("FLASH-IT-4", client, 50).build()).getId();
+        Queue<Runnable> worker = new ArrayDeque<>();
+        FlashSaleLane lane = lane(worker, 50);
+
+        CompletableFuture<PurchaseOrderResponse> kept = lane.placeOrder(client.getId(), 10, "Agadir", null, null, null);
+        CompletableFuture<PurchaseOrderResponse> orphan = lane.placeOrder(deleted.getId(), 5, "Agadir", null, null, null);
+        worker.poll().run();
+
+        assertThat(kept.get(1, TimeUnit.SECONDS).getOrderId()).isNotNull();
+        assertThatThrownBy(() -> orphan.get(1, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(FlashSaleUnavailableException.class);
+        assertThat(saleRepository.findByBatchId(batchId)).hasSize(1);
+        assertThat(batchRepository.findCurrentCountById(batchId)).contains(40);
+        assertThat(lane.status().getAvailable()).isEqualTo(40);
+    }
+
+    @Test
+    @DisplayName("une requete annulee apres le delai de reponse n'est jamais ecrite")
+    void timedOutOrder_isNeverWritten() throws Exception {
+        client = userRepository.save(user("client-flash-timeout@djajbladi.com", RoleEnum.Client).build());
+        batchId = batchRepository.save(batchForSale("FLASH-IT-5", client, 50).build()).getId();
+        Queue<Runnable> worker = new ArrayDeque<>();
+        FlashSaleLane lane = lane(worker, 50);
+
+        CompletableFuture<PurchaseOrderResponse> abandoned = lane.placeOrder(client.getId(), 10, "Agadir", null, null, null);
+        CompletableFuture<PurchaseOrderResponse> kept = lane.placeOrder(client.getId(), 5, "Agadir", null, null, null);
+        assertThat(abandoned.cancel(false)).isTrue();
+        worker.poll().run();
+
+        assertThat(kept.get(1, TimeUnit.SECONDS).getQuantity()).isEqualTo(5);
+        assertThat(kept.cancel(false)).isFalse();
+        assertThat(saleRepository.findByBatchId(batchId)).hasSize(1);
+        assertThat(batchRepository.findCurrentCountById(batchId)).contains(45);
+        assertThat(lane.status().getAvailable()).isEqualTo(45);
+    }
+
+    @Test
+    @DisplayName("une cle d'idempotence n'ecrit qu'une commande ; une autre requete sous cette cle est refusee")
+    void idempotencyKeys_areDeduplicatedWithinAndAcrossGroups() throws Exception {
+        client = userRepository.save(user("client-flash-idem@djajbladi.com", RoleEnum.Client).build());
+        batchId = batchRepository.save(batchForSale("FLASH-IT-6", client, 50).build()).getId();
+        Queue<Runnable> worker = new ArrayDeque<>();
+        FlashSaleLane lane = lane(worker, 50);
+        CompletableFuture<PurchaseOrderResponse> stored = lane.placeOrder(client.getId(), 10, "Agadir", null,
+                "flash-key-0001", "fp-flash-key-0001");
+        worker.poll().run();
+
+        CompletableFuture<PurchaseOrderResponse> retried = lane.placeOrder(client.getId(), 10, "Agadir", null,
+                "flash-key-0001", "fp-flash-key-0001");
+        CompletableFuture<PurchaseOrderResponse> first = lane.placeOrder(client.getId(), 10, "Agadir", null,
+                "flash-key-0002", "fp-flash-key-0002");
+        CompletableFuture<PurchaseOrderResponse> duplicate = lane.placeOrder(client.getId(), 10, "Agadir", null,
+                "flash-key-0002", "fp-flash-key-0002");
+        CompletableFuture<PurchaseOrderResponse> reused = lane.placeOrder(client.getId(), 5, "Agadir", null,
+                "flash-key-0002", "fp-other-request");
+        worker.poll().run();
+
+        assertThat(retried.get(1, TimeUnit.SECONDS).getOrderId()).isEqualTo(stored.get().getOrderId());
+        assertThat(duplicate.get(1, TimeUnit.SECONDS).getOrderId()).isEqualTo(first.get().getOrderId());
+        assertThatThrownBy(() -> reused.get(1, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(IdempotencyKeyReuseException.class);
+        assertThat(saleRepository.findByBatchId(batchId)).hasSize(2);
+        assertThat(batchRepository.findCurrentCountById(batchId)).contains(30);
+        assertThat(lane.status().getAvailable()).isEqualTo(30);
+    }
+
+    @Test
+    @DisplayName("une commande refusee a l'ecriture recoit le meme motif qu'une commande directe")
+    void rejectedOrder_reportsTheRuleThatFailed() throws Exception {
+        client = userRepository.save(user("client-flash-reject@djajbladi.com", RoleEnum.Client).build());
+        batchId = batchRepository.save(batchForSale("FLASH-IT-7", client, 50).build()).getId();
+        Queue<Runnable> worker = new ArrayDeque<>();
+        FlashSaleLane lane = lane(worker, 50);
+
+        Batch batch = batchRepository.findById(batchId).orElseThrow();
+        batch.setMinimumOrderQuantity(20);
+        batchRepository.save(batch);
+        CompletableFuture<PurchaseOrderResponse> belowMinimum = lane.placeOrder(client.getId(), 10, "Agadir", null,
+                null, null);
+        worker.poll().run();
+
+        batch = batchRepository.findById(batchId).orElseThrow();
+        batch.setSellingPricePerUnit(null);
+        batchRepository.save(batch);
+        CompletableFuture<PurchaseOrderResponse> unpriced = lane.placeOrder(client.getId(), 20, "Agadir", null,
+                null, null);
+        worker.poll().run();
+
+        assertThatThrownBy(() -> belowMinimum.get(1, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(MinimumOrderQuantityException.class);
+        assertThatThrownBy(() -> unpriced.get(1, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(BatchNotForSaleException.class)
+                .hasMessageContaining("Prix de vente non defini");
+        assertThat(saleRepository.findByBatchId(batchId)).isEmpty();
+        assertThat(batchRepository.findCurrentCountById(batchId)).contains(50);
+    }
+
+    @Test
+    @DisplayName("une commande directe est facturee au prix courant du lot, une reservation au prix annonce")
+    void directOrder_isChargedTheCurrentPrice_reservationKeepsItsQuote() throws Exception {
+        client = userRepository.save(user("client-flash-price@djajbladi.com", RoleEnum.Client).build());
+        batchId = batchRepository.save(batchForSale("FLASH-IT-8", client, 50).build()).getId();
+        Queue<Runnable> worker = new ArrayDeque<>();
+        FlashSaleLane lane = lane(worker, 50);
+        CompletableFuture<FlashSaleReservationResponse> hold = lane.reserve(client.getId(), 10, Duration.ofMinutes(5));
+        worker.poll().run();
+
+        Batch batch = batchRepository.findById(batchId).orElseThrow();
+        batch.setSellingPricePerUnit(BigDecimal.valueOf(40));
+        batchRepository.save(batch);
+        CompletableFuture<PurchaseOrderResponse> direct = lane.placeOrder(client.getId(), 10, "Agadir", null,
+                null, null);
+        CompletableFuture<PurchaseOrderResponse> confirmed = lane.confirm(hold.get().getReservationId(),
+                client.getId(), "Agadir", null);
+        worker.poll().run();
+
+        assertThat(direct.get(1, TimeUnit.SECONDS).getUnitPrice()).isEqualByComparingTo("40");
+        assertThat(direct.get().getTotalPrice()).isEqualByComparingTo("400.00");
+        assertThat(confirmed.get(1, TimeUnit.SECONDS).getUnitPrice()).isEqualByComparingTo("35");
+        assertThat(confirmed.get().getTotalPrice()).isEqualByComparingTo("350.00");
+    }
+
+    /** Sequenceur dont le worker est execute a la main : les requetes deposees avant run() forment un groupe. */
+    private FlashSaleLane lane(Queue<Runnable> worker, int stock) {
+        return new FlashSaleLane(batchId, "FLASH-IT", STRAIN, BigDecimal.valueOf(35), 1, stock, worker::add,
+                orderWriter);
+    }
+
+    private PurchaseOrderRequest order(int quantity) {
+        PurchaseOrderRequest req = new PurchaseOrderRequest();
+        req.setBatchId(batchId);
+        req.setQuantity(quantity);
+        req.setDeliveryAddress("Souk El Had, Agadir");
+        return req;
+    }
+
+    private FlashSaleReservationRequest reservation(int quantity) {
+        FlashSaleReservationRequest req = new FlashSaleReservationRequest();
+        req.setBatchId(batchId);
+        req.setQuantity(quantity);
+        return req;
+    }
+
+    private FlashSaleConfirmRequest confirmation() {
+        FlashSaleConfirmRequest req = new FlashSaleConfirmRequest();
+        req.setDeliveryAddress("Souk El Had, Agadir");
+        return req;
+    }
+}
@@ -0,0 +1,173 @@
+package org.example.djajbladibackend.services.client;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.example.djajbladibackend.config.RedisCacheConfig;
+import org.example.djajbladibackend.dto.client.PurchaseOrderRequest;
+import org.example.djajbladibackend.dto.client.PurchaseOrderResponse;
+import org.example.djajbladibackend.exception.IdempotencyKeyReuseException;
+import org.example.djajbladibackend.exception.InvalidDataException;
+import org.example.djajbladibackend.models.PaymentStatus;
+import org.example.djajbladibackend.models.User;
+import org.example.djajbladibackend.models.enums.RoleEnum;
+import org.example.djajbladibackend.repository.BatchRepository;
+import org.example.djajbladibackend.repository.SaleRepository;
+import org.example.djajbladibackend.repository.auth.UserRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.example.djajbladibackend.support.TestData.batchForSale;
+import static org.example.djajbladibackend.support.TestData.user;
+
+/**
+ * Integration test: an Idempotency-Key collapses retries and concurrent duplicates into one order.
+ * Not @Transactional: the unique index only rejects duplicates against committed rows.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("ci")
+@DisplayName("Idempotent order submission")
+class IdempotentOrderIntegrationTest {
+
+    private static final int DUPLICATES = 8;
+
+    @Autowired
+    private IdempotentOrderService idempotentOrderService;
+
+    @Autowired
+    private BatchRepository batchRepository;
+
+    @Autowired
+    private SaleRepository saleRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private User client;
+    private Long batchId;
+
+    @AfterEach
+    void cleanUp() {
+        cacheManager.getCache(RedisCacheConfig.CACHE_IDEMPOTENT_ORDERS).clear();
+        if (batchId != null) {
+            saleRepository.deleteAll(saleRepository.findByBatchId(batchId));
+            batchRepository.deleteById(batchId);
+        }
+        if (client != null) {
+            userRepository.deleteById(client.getId());
+        }
+    }
+
+    @Test
+    @DisplayName("les envois simultanes d'une meme cle ne creent qu'une commande")
+    void concurrentDuplicates_collapseIntoOneOrder() throws Exception {
+        client = userRepository.save(user("client-idem-burst@djajbladi.com", RoleEnum.Client).build());
+        batchId = batchRepository.save(batchForSale("IDEM-IT-1", client, 50).build()).getId();
+
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(DUPLICATES);
+        List<Future<PurchaseOrderResponse>> futures = new ArrayList<>();
+        for (int i = 0; i < DUPLICATES; i++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                return idempotentOrderService.placeOrder(order(10), client.getEmail(), "retry-key-0001");
+            }));
+        }
+        start.countDown();
+        List<Long> orderIds = new ArrayList<>();
+        for (Future<PurchaseOrderResponse> future : futures) {
+            orderIds.add(future.get(30, TimeUnit.SECONDS).getOrderId());
+        }
+        pool.shutdown();
+
+        assertThat(orderIds).containsOnly(orderIds.get(0));
+        assertThat(saleRepository.findByBatchId(batchId)).hasSize(1);
+        assertThat(batchRepository.findCurrentCountById(batchId)).contains(40);
+    }
+
+    @Test
+    @DisplayName("un renvoi est servi sans requete SQL ; sans cache, l'index unique rejoue la commande existante")
+    void retries_replayStoredResponse_andUniqueIndexCoversCacheMiss() {
+        client = userRepository.save(user("client-idem-retry@djajbladi.com", RoleEnum.Client).build());
+        batchId = batchRepository.save(batchForSale("IDEM-IT-2", client, 50).build()).getId();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        PurchaseOrderResponse first = idempotentOrderService.placeOrder(order(10), client.getEmail(), "retry-key-0002");
+
+        statistics.clear();
+        PurchaseOrderResponse retried = idempotentOrderService.placeOrder(order(10), client.getEmail(), "retry-key-0002");
+        assertThat(retried.getOrderId()).isEqualTo(first.getOrderId());
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+
+        // Renvoi arrive sur une instance sans l'entree en cache : l'INSERT echoue sur l'index unique
+        cacheManager.getCache(RedisCacheConfig.CACHE_IDEMPOTENT_ORDERS).clear();
+        PurchaseOrderResponse afterMiss = idempotentOrderService.placeOrder(order(10), client.getEmail(), "retry-key-0002");
+        assertThat(afterMiss.getOrderId()).isEqualTo(first.getOrderId());
+        assertThat(saleRepository.findByBatchId(batchId)).hasSize(1);
+        assertThat(batchRepository.findCurrentCountById(batchId)).contains(40);
+
+        // Annulation renvoyee : meme reponse, stock restaure une seule fois
+        PurchaseOrderResponse cancelled = idempotentOrderService.cancelOrder(first.getOrderId(), client.getEmail(),
+                "cancel-key-0002");
+        PurchaseOrderResponse cancelRetried = idempotentOrderService.cancelOrder(first.getOrderId(), client.getEmail(),
+                "cancel-key-0002");
+        assertThat(cancelled.getPaymentStatus()).isEqualTo(PaymentStatus.Cancelled);
+        assertThat(cancelRetried.getOrderId()).isEqualTo(first.getOrderId());
+        assertThat(batchRepository.findCurrentCountById(batchId)).contains(50);
+
+        assertThatThrownBy(() -> idempotentOrderService.placeOrder(order(10), client.getEmail(), "short"))
+                .isInstanceOf(InvalidDataException.class);
+    }
+
+    @Test
+    @DisplayName("une cle reutilisee pour une autre requete est refusee, en cache comme en base")
+    void reusedKey_withDifferentRequest_isRejected() {
+        client = userRepository.save(user("client-idem-reuse@djajbladi.com", RoleEnum.Client).build());
+        batchId = batchRepository.save(batchForSale("IDEM-IT-3", client, 50).build()).getId();
+        PurchaseOrderResponse first = idempotentOrderService.placeOrder(order(10), client.getEmail(), "reuse-key-0003");
+
+        assertThatThrownBy(() -> idempotentOrderService.placeOrder(order(20), client.getEmail(), "reuse-key-0003"))
+                .isInstanceOf(IdempotencyKeyReuseException.class);
+        cacheManager.getCache(RedisCacheConfig.CACHE_IDEMPOTENT_ORDERS).clear();
+        assertThatThrownBy(() -> idempotentOrderService.placeOrder(order(20), client.getEmail(), "reuse-key-0003"))
+                .isInstanceOf(IdempotencyKeyReuseException.class);
+        assertThat(saleRepository.findByBatchId(batchId)).hasSize(1);
+        assertThat(batchRepository.findCurrentCountById(batchId)).contains(40);
+
+        idempotentOrderService.cancelOrder(first.getOrderId(), client.getEmail(), "cancel-key-0003");
+        PurchaseOrderResponse second = idempotentOrderService.placeOrder(order(5), client.getEmail(), "other-key-0003");
+        assertThatThrownBy(() -> idempotentOrderService.cancelOrder(second.getOrderId(), client.getEmail(),
+                "cancel-key-0003"))
+                .isInstanceOf(IdempotencyKeyReuseException.class);
+        assertThat(batchRepository.findCurrentCountById(batchId)).contains(45);
+    }
+
+    private PurchaseOrderRequest order(int quantity) {
+        PurchaseOrderRequest req = new PurchaseOrderRequest();
+        req.setBatchId(batchId);
+        req.setQuantity(quantity);
+        req.setDeliveryAddress("Souk El Had, Agadir");
+        return req;
+    }
+}
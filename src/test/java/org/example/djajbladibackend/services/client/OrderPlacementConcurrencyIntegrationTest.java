@@ -0,0 +1,163 @@
+package org.example.djajbladibackend.services.client;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.example.djajbladibackend.dto.client.PurchaseOrderRequest;
+import org.example.djajbladibackend.dto.client.PurchaseOrderResponse;
+import org.example.djajbladibackend.exception.BatchNotForSaleException;
+import org.example.djajbladibackend.exception.MinimumOrderQuantityException;
+import org.example.djajbladibackend.exception.OrderQuantityExceedsStockException;
+import org.example.djajbladibackend.models.Batch;
+import org.example.djajbladibackend.models.BatchStatus;
+import org.example.djajbladibackend.models.PaymentStatus;
+import org.example.djajbladibackend.models.User;
+import org.example.djajbladibackend.models.enums.RoleEnum;
+import org.example.djajbladibackend.repository.BatchRepository;
+import org.example.djajbladibackend.repository.SaleRepository;
+import org.example.djajbladibackend.repository.auth.UserRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.example.djajbladibackend.support.TestData.batchForSale;
+import static org.example.djajbladibackend.support.TestData.user;
+
+/**
+ * Integration test: order placement reserves stock with one conditional UPDATE ... RETURNING.
+ * Not @Transactional: every order commits in its own transaction, as in production.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("ci")
+@DisplayName("Order placement under contention")
+class OrderPlacementConcurrencyIntegrationTest {
+
+    private static final int THREADS = 32;
+    private static final int ORDERS_PER_THREAD = 5;
+
+    @Autowired
+    private ClientPurchaseService purchaseService;
+
+    @Autowired
+    private BatchRepository batchRepository;
+
+    @Autowired
+    private SaleRepository saleRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private User client;
+    private Long batchId;
+
+    @AfterEach
+    void cleanUp() {
+        if (batchId != null) {
+            saleRepository.deleteAll(saleRepository.findByBatchId(batchId));
+            batchRepository.deleteById(batchId);
+        }
+        if (client != null) {
+            userRepository.deleteById(client.getId());
+        }
+    }
+
+    @Test
+    @DisplayName("les commandes concurrentes ne survendent jamais et le lot epuise passe en SOLD")
+    void concurrentOrders_neverOversellAndMarkBatchSold() throws Exception {
+        int stock = 100;
+        client = userRepository.save(user("client-flash@djajbladi.com", RoleEnum.Client).build());
+        batchId = batchRepository.save(batchForSale("ORDER-IT-FLASH", client, stock).build()).getId();
+
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < ORDERS_PER_THREAD; i++) {
+                    try {
+                        purchaseService.placeOrder(order(1), client.getEmail());
+                        succeeded.incrementAndGet();
+                    } catch (OrderQuantityExceedsStockException | BatchNotForSaleException e) {
+                        rejected.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertThat(succeeded.get()).isEqualTo(stock);
+        assertThat(rejected.get()).isEqualTo(THREADS * ORDERS_PER_THREAD - stock);
+        Batch sold = batchRepository.findById(batchId).orElseThrow();
+        assertThat(sold.getCurrentCount()).isZero();
+        assertThat(sold.getStatus()).isEqualTo(BatchStatus.SOLD);
+        assertThat(saleRepository.findByBatchId(batchId)).hasSize(stock)
+                .allMatch(s -> s.getPaymentStatus() == PaymentStatus.Pending);
+    }
+
+    @Test
+    @DisplayName("une commande valide ne relit pas le lot ; une commande refusee laisse le lot intact")
+    void placeOrder_reservesWithoutReadingBatch_andRejectionLeavesBatchUntouched() {
+        client = userRepository.save(user("client-order@djajbladi.com", RoleEnum.Client).build());
+        batchId = batchRepository.save(batchForSale("ORDER-IT-ONE", client, 50).minimumOrderQuantity(10).build())
+                .getId();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        statistics.clear();
+        PurchaseOrderResponse response = purchaseService.placeOrder(order(50), client.getEmail());
+
+        assertThat(response.getBatchNumber()).isEqualTo("ORDER-IT-ONE");
+        assertThat(response.getTotalPrice()).isEqualByComparingTo("1750.00");
+        // client, UPDATE ... RETURNING, INSERT de la vente (+ nextval eventuel du bloc d'ids)
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(4);
+        assertThat(statistics.getEntityLoadCount()).isEqualTo(1);
+        assertThat(batchRepository.findById(batchId).orElseThrow().getStatus()).isEqualTo(BatchStatus.SOLD);
+
+        Long otherId = batchRepository.save(batchForSale("ORDER-IT-MIN", client, 50).minimumOrderQuantity(10).build())
+                .getId();
+        try {
+            assertThatThrownBy(() -> purchaseService.placeOrder(order(otherId, 5), client.getEmail()))
+                    .isInstanceOf(MinimumOrderQuantityException.class);
+            Batch untouched = batchRepository.findById(otherId).orElseThrow();
+            assertThat(untouched.getCurrentCount()).isEqualTo(50);
+            assertThat(untouched.getStatus()).isEqualTo(BatchStatus.READY_FOR_SALE);
+        } finally {
+            batchRepository.deleteById(otherId);
+        }
+    }
+
+    private PurchaseOrderRequest order(int quantity) {
+        return order(batchId, quantity);
+    }
+
+    private PurchaseOrderRequest order(Long targetBatchId, int quantity) {
+        PurchaseOrderRequest req = new PurchaseOrderRequest();
+        req.setBatchId(targetBatchId);
+        req.setQuantity(quantity);
+        return req;
+    }
+}
@@ -0,0 +1,77 @@
+package org.example.djajbladibackend.services.dashboard;
+
+import jakarta.persistence.EntityManager;
+import org.example.djajbladibackend.models.*;
+import org.example.djajbladibackend.models.enums.RoleEnum;
+import org.example.djajbladibackend.services.rollup.BatchDailyRollupService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.example.djajbladibackend.support.TestData.*;
+
+/**
+ * Integration test: the supervision dashboard issues a fixed number of statements,
+ * whatever the number of batches in the range or active.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("ci")
+@Transactional
+@DisplayName("SupervisionDashboard query count")
+class SupervisionDashboardQueryCountTest {
+
+    /**
+     * user, rollup rows of the range (with batch and recorder), pending alerts,
+     * active batches, FCR accumulator rows of the active batches (findAllById).
+     */
+    private static final long EXPECTED_STATEMENTS = 5;
+
+    @Autowired
+    private SupervisionDashboardService dashboardService;
+
+    @Autowired
+    private BatchDailyRollupService rollupService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 5, 20})
+    @DisplayName("getDashboard runs a constant number of statements")
+    void getDashboard_statementCountIsConstant(int batchCount) {
+        LocalDate today = LocalDate.now();
+        User admin = persist(entityManager, user("admin-qc@djajbladi.com", RoleEnum.Admin).build());
+        User worker = persist(entityManager, user("ouvrier-qc@djajbladi.com", RoleEnum.Ouvrier).build());
+
+        for (int i = 0; i < batchCount; i++) {
+            Batch batch = persist(entityManager, activeBatch("QC-" + batchCount + "-" + i, admin)
+                    .chickenCount(1000).currentCount(1000).assignedTo(worker).build());
+            for (int d = 0; d < 3; d++) {
+                persist(entityManager, feeding(batch, worker, 120, today.minusDays(d)).build());
+                persist(entityManager, mortality(batch, worker, 2, today.minusDays(d)).build());
+            }
+        }
+        entityManager.flush();
+        rollupService.rebuildAll();
+        entityManager.clear();
+
+        Statistics statistics = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        var dashboard = dashboardService.getDashboard(today.minusDays(7), today, admin.getEmail());
+
+        assertThat(dashboard.getBatchSummaries()).hasSizeGreaterThanOrEqualTo(batchCount * 3);
+        assertThat(dashboard.getFcrSummaries()).hasSizeGreaterThanOrEqualTo(batchCount);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(EXPECTED_STATEMENTS);
+    }
+}
@@ -0,0 +1,343 @@
+package org.example.djajbladibackend.services.dashboard;
+
+import net.jqwik.api.*;
+import org.example.djajbladibackend.dto.dashboard.SupervisionDashboardResponse;
+import org.example.djajbladibackend.models.Batch;
+import org.example.djajbladibackend.models.BatchDailyRollup;
+import org.example.djajbladibackend.models.DailyMortalityRecord;
+import org.example.djajbladibackend.models.FeedingRecord;
+import org.example.djajbladibackend.models.User;
+import org.example.djajbladibackend.repository.BatchDailyRollupRepository;
+import org.example.djajbladibackend.repository.BatchFcrAccumulatorRepository;
+import org.example.djajbladibackend.repository.BatchRepository;
+import org.example.djajbladibackend.repository.HealthRecordRepository;
+import org.example.djajbladibackend.repository.auth.UserRepository;
+import org.example.djajbladibackend.services.fcr.StrainWeightCurveService;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Property-based regression tests for the daily summary assembly.
+ * batch_daily_rollup rows are emulated from random records (same grouping, running sums and recorder
+ * as the rebuild query); the reference below is the former quadratic implementation, used as an oracle.
+ * Cumulative mortality is counted over the batch history, as the rollup does.
+ */
+class SupervisionDashboardServicePropertyTest {
+
+    private static final BigDecimal FCR_THRESHOLD = BigDecimal.valueOf(1.8);
+    private static final List<String> STRAINS = List.of("Ross 308", "Cobb 500", "Hubbard", "cobb 500 ", "Inconnue");
+
+    private final StrainWeightCurveService weightCurveService = new StrainWeightCurveService();
+
+    private final SupervisionDashboardService dashboardService = new SupervisionDashboardService(
+            Mockito.mock(BatchDailyRollupRepository.class),
+            Mockito.mock(BatchFcrAccumulatorRepository.class),
+            Mockito.mock(HealthRecordRepository.class),
+            Mockito.mock(UserRepository.class),
+            Mockito.mock(BatchRepository.class),
+            weightCurveService);
+
+    SupervisionDashboardServicePropertyTest() {
+        ReflectionTestUtils.setField(dashboardService, "fcrAlertThreshold", FCR_THRESHOLD);
+    }
+
+    @Provide
+    Arbitrary<Long> seeds() {
+        return Arbitraries.longs();
+    }
+
+    @Property(tries = 300)
+    @Label("Rollup-based daily summaries are identical to the legacy implementation")
+    void singlePassMatchesLegacyImplementation(@ForAll("seeds") long seed) {
+        Scenario scenario = Scenario.random(new Random(seed));
+
+        var expected = legacyBuildDailySummaries(scenario.feedingInRange, scenario.mortalityInRange,
+                scenario.allFeedingByBatch, scenario.allMortalityByBatch);
+        var actual = dashboardService.buildDailySummaries(scenario.rollupRows());
+
+        assertThat(actual).usingRecursiveFieldByFieldElementComparator().containsExactlyElementsOf(expected);
+    }
+
+    @Example
+    @Label("Mortality-only days still produce a summary row")
+    void mortalityOnlyDayProducesSummary() {
+        Batch batch = Batch.builder().id(1L).batchNumber("B-1").strain("Ross 308")
+                .chickenCount(1000).arrivalDate(LocalDate.of(2025, 1, 1)).build();
+        var row = BatchDailyRollup.builder()
+                .batch(batch)
+                .rollupDate(LocalDate.of(2025, 1, 10))
+                .feedKg(BigDecimal.ZERO)
+                .mortalityCount(15)
+                .cumulativeFeedKg(BigDecimal.ZERO)
+                .cumulativeMortality(15)
+                .entryCount(1)
+                .recordedBy(User.builder().id(9L).fullName("Ouvrier").build())
+                .build();
+
+        var summaries = dashboardService.buildDailySummaries(List.of(row));
+
+        assertThat(summaries).singleElement().satisfies(s -> {
+            assertThat(s.getMortalityCount()).isEqualTo(15);
+            assertThat(s.getTotalQuantityEaten()).isEqualByComparingTo("0");
+            assertThat(s.getRecordedByName()).isEqualTo("Ouvrier");
+            assertThat(s.getAbnormalConsumption()).isTrue();
+        });
+    }
+
+    // ---------------------------------------------------------------------------------
+    // Random scenario: a few batches, feeding and mortality history before, inside and after
+    // the range, at most one mortality record per (batch, date) as enforced by uq_mortality_batch_date.
+    // ---------------------------------------------------------------------------------
+
+    private static final class Scenario {
+        LocalDate start;
+        LocalDate end;
+        final Map<Long, Batch> batchesById = new HashMap<>();
+        final List<FeedingRecord> allFeeding = new ArrayList<>();
+        final List<DailyMortalityRecord> allMortality = new ArrayList<>();
+        final List<FeedingRecord> feedingInRange = new ArrayList<>();
+        final List<DailyMortalityRecord> mortalityInRange = new ArrayList<>();
+        final Map<Long, List<FeedingRecord>> allFeedingByBatch = new HashMap<>();
+        final Map<Long, List<DailyMortalityRecord>> allMortalityByBatch = new HashMap<>();
+
+        static Scenario random(Random random) {
+            Scenario scenario = new Scenario();
+            scenario.start = LocalDate.of(2025, 3, 1);
+            scenario.end = scenario.start.plusDays(random.nextInt(15));
+            LocalDate historyStart = scenario.start.minusDays(10);
+            int historyDays = (int) ChronoUnit.DAYS.between(historyStart, scenario.end) + 3;
+            List<User> users = List.of(
+                    User.builder().id(1L).fullName("Ali").build(),
+                    User.builder().id(2L).fullName("Sara").build(),
+                    User.builder().id(3L).fullName("Youssef").build());
+
+            int batchCount = 1 + random.nextInt(4);
+            long recordId = 1;
+            for (int i = 0; i < batchCount; i++) {
+                Batch batch = Batch.builder()
+                        .id((long) i + 1)
+                        .batchNumber("LOT-" + (char) ('A' + random.nextInt(26)) + i)
+                        .strain(STRAINS.get(random.nextInt(STRAINS.size())))
+                        .chickenCount(random.nextInt(10) == 0 ? null : 50 + random.nextInt(3000))
+                        .arrivalDate(random.nextInt(10) == 0 ? null : scenario.start.minusDays(random.nextInt(40) - 5))
+                        .build();
+                scenario.batchesById.put(batch.getId(), batch);
+
+                int feedings = random.nextInt(25);
+                for (int j = 0; j < feedings; j++) {
+                    scenario.allFeeding.add(FeedingRecord.builder()
+                            .id(recordId++)
+                            .batch(batch)
+                            .feedingDate(historyStart.plusDays(random.nextInt(historyDays)))
+                            .quantity(BigDecimal.valueOf(random.nextInt(500_000), 2))
+                            .recordedBy(users.get(random.nextInt(users.size())))
+                            .build());
+                }
+                for (int d = 0; d < historyDays; d++) {
+                    if (random.nextInt(3) == 0) {
+                        scenario.allMortality.add(DailyMortalityRecord.builder()
+                                .id(recordId++)
+                                .batch(batch)
+                                .recordDate(historyStart.plusDays(d))
+                                .mortalityCount(random.nextInt(40))
+                                .recordedBy(users.get(random.nextInt(users.size())))
+                                .build());
+                    }
+                }
+            }
+
+            Collections.shuffle(scenario.allFeeding, random);
+            for (var f : scenario.allFeeding) {
+                scenario.allFeedingByBatch.computeIfAbsent(f.getBatch().getId(), k -> new ArrayList<>()).add(f);
+                if (scenario.inRange(f.getFeedingDate())) scenario.feedingInRange.add(f);
+            }
+            // The rollup names the first feeding recorder of the day by record id.
+            scenario.feedingInRange.sort(Comparator.comparing(FeedingRecord::getId));
+            for (var m : scenario.allMortality) {
+                scenario.allMortalityByBatch.computeIfAbsent(m.getBatch().getId(), k -> new ArrayList<>()).add(m);
+                if (scenario.inRange(m.getRecordDate())) scenario.mortalityInRange.add(m);
+            }
+            Collections.shuffle(scenario.mortalityInRange, random);
+            return scenario;
+        }
+
+        boolean inRange(LocalDate date) {
+            return !date.isBefore(start) && !date.isAfter(end);
+        }
+
+        /** One row per (batch, day) of the range having at least one record, cumulatives over the batch history. */
+        List<BatchDailyRollup> rollupRows() {
+            List<BatchDailyRollup> rows = new ArrayList<>();
+            for (Batch batch : batchesById.values()) {
+                TreeMap<LocalDate, List<FeedingRecord>> feedByDay = new TreeMap<>();
+                allFeedingByBatch.getOrDefault(batch.getId(), List.of())
+                        .forEach(f -> feedByDay.computeIfAbsent(f.getFeedingDate(), k -> new ArrayList<>()).add(f));
+                Map<LocalDate, DailyMortalityRecord> mortalityByDay = new HashMap<>();
+                allMortalityByBatch.getOrDefault(batch.getId(), List.of())
+                        .forEach(m -> mortalityByDay.put(m.getRecordDate(), m));
+                TreeSet<LocalDate> days = new TreeSet<>(feedByDay.keySet());
+                days.addAll(mortalityByDay.keySet());
+
+                BigDecimal cumulativeFeed = BigDecimal.ZERO;
+                int cumulativeMortality = 0;
+                for (LocalDate day : days) {
+                    List<FeedingRecord> feedings = feedByDay.getOrDefault(day, List.of());
+                    DailyMortalityRecord mortality = mortalityByDay.get(day);
+                    BigDecimal feedKg = feedings.stream().map(FeedingRecord::getQuantity).reduce(BigDecimal.ZERO, BigDecimal::add);
+                    int mortalityCount = mortality != null ? mortality.getMortalityCount() : 0;
+                    cumulativeFeed = cumulativeFeed.add(feedKg);
+                    cumulativeMortality += mortalityCount;
+                    if (!inRange(day)) continue;
+                    // The first feeding recorder (by record id) wins, otherwise the mortality recorder.
+                    User recordedBy = feedings.stream().min(Comparator.comparing(FeedingRecord::getId))
+                            .map(FeedingRecord::getRecordedBy)
+                            .orElseGet(() -> mortality.getRecordedBy());
+                    rows.add(BatchDailyRollup.builder()
+                            .batch(batch)
+                            .rollupDate(day)
+                            .feedKg(feedKg)
+                            .mortalityCount(mortalityCount)
+                            .cumulativeFeedKg(cumulativeFeed)
+                            .cumulativeMortality(cumulativeMortality)
+                            .entryCount(feedings.size() + (mortality != null ? 1 : 0))
+                            .recordedBy(recordedBy)
+                            .build());
+                }
+            }
+            return rows;
+        }
+    }
+
+    // ---------------------------------------------------------------------------------
+    // Legacy reference implementation
+    // ---------------------------------------------------------------------------------
+
+    private List<SupervisionDashboardResponse.BatchDailySummary> legacyBuildDailySummaries(
+            List<FeedingRecord> feedingRecords,
+            List<DailyMortalityRecord> mortalityRecords,
+            Map<Long, List<FeedingRecord>> allFeedingByBatch,
+            Map<Long, List<DailyMortalityRecord>> allMortalityByBatch) {
+
+        List<SupervisionDashboardResponse.BatchDailySummary> summaries = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+
+        for (var f : feedingRecords) {
+            String key = f.getBatch().getId() + "|" + f.getFeedingDate();
+            if (seen.add(key)) {
+                Batch batch = f.getBatch();
+                LocalDate date = f.getFeedingDate();
+                BigDecimal totalQty = feedingRecords.stream()
+                        .filter(x -> x.getBatch().getId().equals(batch.getId()) && x.getFeedingDate().equals(date))
+                        .map(FeedingRecord::getQuantity)
+                        .reduce(BigDecimal.ZERO, BigDecimal::add);
+                int mortality = mortalityRecords.stream()
+                        .filter(x -> x.getBatch().getId().equals(batch.getId()) && x.getRecordDate().equals(date))
+                        .mapToInt(DailyMortalityRecord::getMortalityCount)
+                        .sum();
+                summaries.add(legacyBuildDailySummary(batch, date, totalQty, mortality,
+                        f.getRecordedBy().getFullName(), allFeedingByBatch, allMortalityByBatch));
+            }
+        }
+
+        for (var m : mortalityRecords) {
+            String key = m.getBatch().getId() + "|" + m.getRecordDate();
+            if (seen.add(key)) {
+                Batch batch = m.getBatch();
+                LocalDate date = m.getRecordDate();
+                BigDecimal totalQty = feedingRecords.stream()
+                        .filter(x -> x.getBatch().getId().equals(batch.getId()) && x.getFeedingDate().equals(date))
+                        .map(FeedingRecord::getQuantity)
+                        .reduce(BigDecimal.ZERO, BigDecimal::add);
+                summaries.add(legacyBuildDailySummary(batch, date, totalQty, m.getMortalityCount(),
+                        m.getRecordedBy().getFullName(), allFeedingByBatch, allMortalityByBatch));
+            }
+        }
+
+        summaries.sort(Comparator.comparing(SupervisionDashboardResponse.BatchDailySummary::getDate).reversed()
+                .thenComparing(SupervisionDashboardResponse.BatchDailySummary::getBatchNumber));
+        return summaries;
+    }
+
+    private SupervisionDashboardResponse.BatchDailySummary legacyBuildDailySummary(
+            Batch batch, LocalDate date, BigDecimal totalQtyToday, int mortalityToday, String recordedByName,
+            Map<Long, List<FeedingRecord>> allFeedingByBatch, Map<Long, List<DailyMortalityRecord>> allMortalityByBatch) {
+
+        int ageInDays = batch.getArrivalDate() != null
+                ? (int) ChronoUnit.DAYS.between(batch.getArrivalDate(), date) + 1
+                : 0;
+        BigDecimal estimatedWeightKg = ageInDays > 0
+                ? weightCurveService.getEstimatedWeightKg(batch.getStrain(), ageInDays)
+                : BigDecimal.ZERO;
+
+        BigDecimal cumulativeFeedKg = allFeedingByBatch.getOrDefault(batch.getId(), List.of()).stream()
+                .filter(f -> !f.getFeedingDate().isAfter(date))
+                .map(FeedingRecord::getQuantity)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        int cumulativeMortality = allMortalityByBatch.getOrDefault(batch.getId(), List.of()).stream()
+                .filter(m -> !m.getRecordDate().isAfter(date))
+                .mapToInt(DailyMortalityRecord::getMortalityCount)
+                .sum();
+
+        int aliveChickens = Math.max(1, batch.getChickenCount() != null
+                ? batch.getChickenCount() - cumulativeMortality
+                : 1);
+        BigDecimal totalLiveMassKg = estimatedWeightKg.multiply(BigDecimal.valueOf(aliveChickens));
+        BigDecimal cumulativeFcr = null;
+        if (totalLiveMassKg.compareTo(BigDecimal.ZERO) > 0) {
+            cumulativeFcr = cumulativeFeedKg.divide(totalLiveMassKg, 3, RoundingMode.HALF_UP);
+        }
+
+        BigDecimal dailyFcr = null;
+        if (ageInDays > 1) {
+            BigDecimal prevWeight = weightCurveService.getEstimatedWeightKg(batch.getStrain(), ageInDays - 1);
+            BigDecimal dailyLiveMassGainKg = estimatedWeightKg.subtract(prevWeight)
+                    .multiply(BigDecimal.valueOf(aliveChickens));
+            if (dailyLiveMassGainKg.compareTo(BigDecimal.ZERO) > 0 && totalQtyToday.compareTo(BigDecimal.ZERO) > 0) {
+                dailyFcr = totalQtyToday.divide(dailyLiveMassGainKg, 3, RoundingMode.HALF_UP);
+            }
+        }
+
+        boolean fcrAlert = cumulativeFcr != null && cumulativeFcr.compareTo(FCR_THRESHOLD) > 0;
+
+        return SupervisionDashboardResponse.BatchDailySummary.builder()
+                .batchId(batch.getId())
+                .batchNumber(batch.getBatchNumber())
+                .date(date)
+                .totalQuantityEaten(totalQtyToday.setScale(2, RoundingMode.HALF_UP))
+                .mortalityCount(mortalityToday)
+                .recordedByName(recordedByName)
+                .abnormalConsumption(legacyIsAbnormal(batch.getStrain(), ageInDays, batch.getChickenCount(),
+                        totalQtyToday, mortalityToday))
+                .ageInDays(ageInDays)
+                .estimatedWeightKg(estimatedWeightKg)
+                .actualWeightKg(null)
+                .cumulativeFeedKg(cumulativeFeedKg.setScale(2, RoundingMode.HALF_UP))
+                .cumulativeFcr(cumulativeFcr)
+                .dailyFcr(dailyFcr)
+                .fcrAlert(fcrAlert)
+                .build();
+    }
+
+    private boolean legacyIsAbnormal(String strain, int ageInDays, Integer chickenCount,
+                                     BigDecimal totalQuantity, int mortality) {
+        if (chickenCount == null || chickenCount <= 0) return false;
+        BigDecimal perChicken = totalQuantity.divide(BigDecimal.valueOf(chickenCount), 4, RoundingMode.HALF_UP);
+        BigDecimal threshold;
+        if (ageInDays > 1) {
+            BigDecimal dailyGain = weightCurveService.getEstimatedWeightKg(strain, ageInDays)
+                    .subtract(weightCurveService.getEstimatedWeightKg(strain, ageInDays - 1));
+            threshold = dailyGain.multiply(BigDecimal.valueOf(2.0)).add(BigDecimal.valueOf(0.02));
+        } else {
+            threshold = BigDecimal.valueOf(0.05);
+        }
+        return perChicken.compareTo(threshold) > 0 || mortality > chickenCount / 100;
+    }
+}
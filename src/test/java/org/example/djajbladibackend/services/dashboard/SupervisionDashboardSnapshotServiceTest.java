@@ -0,0 +1,110 @@
+package org.example.djajbladibackend.services.dashboard;
+
+import org.example.djajbladibackend.dto.dashboard.SupervisionDashboardResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("SupervisionDashboardSnapshotService Unit Tests")
+class SupervisionDashboardSnapshotServiceTest {
+
+    private static final String ADMIN = "admin@djajbladi.ma";
+
+    @Mock
+    private SupervisionDashboardService dashboardService;
+
+    private SupervisionDashboardSnapshotService snapshotService;
+    private final LocalDate today = LocalDate.now();
+
+    @BeforeEach
+    void setUp() {
+        snapshotService = new SupervisionDashboardSnapshotService(dashboardService);
+        ReflectionTestUtils.setField(snapshotService, "windowDays", 30);
+        ReflectionTestUtils.setField(snapshotService, "maxAgeMs", 600_000L);
+        lenient().when(dashboardService.computeDashboard(today.minusDays(30), today))
+                .thenAnswer(inv -> window(today.minusDays(30), today));
+    }
+
+    @Test
+    @DisplayName("getDashboard doit servir une plage incluse dans la fenêtre depuis l'instantané")
+    void getDashboard_windowInsideSnapshot_shouldFilterSnapshotRows() {
+        SupervisionDashboardResponse week = snapshotService.getDashboard(today.minusDays(7), today, ADMIN);
+        SupervisionDashboardResponse month = snapshotService.getDashboard(today.minusDays(30), today, ADMIN);
+
+        verify(dashboardService, times(2)).checkAccess(any(), any(), eq(ADMIN));
+        verify(dashboardService, times(1)).computeDashboard(today.minusDays(30), today);
+        assertThat(week.getStartDate()).isEqualTo(today.minusDays(7));
+        assertThat(week.getBatchSummaries()).extracting(SupervisionDashboardResponse.BatchDailySummary::getDate)
+                .containsExactly(today, today.minusDays(7));
+        assertThat(month.getBatchSummaries()).hasSize(3);
+        assertThat(week.getFcrSummaries()).isSameAs(month.getFcrSummaries());
+    }
+
+    @Test
+    @DisplayName("getDashboard doit calculer directement une plage hors fenêtre")
+    void getDashboard_windowOutsideSnapshot_shouldComputeDirectly() {
+        LocalDate start = today.minusDays(60);
+        SupervisionDashboardResponse direct = window(start, today);
+        when(dashboardService.computeDashboard(start, today)).thenReturn(direct);
+
+        assertThat(snapshotService.getDashboard(start, today, ADMIN)).isSameAs(direct);
+        verify(dashboardService, never()).computeDashboard(today.minusDays(30), today);
+    }
+
+    @Test
+    @DisplayName("refreshIfNeeded ne doit recalculer qu'après une écriture validée")
+    void refreshIfNeeded_shouldRecomputeOnlyWhenStale() {
+        snapshotService.refreshIfNeeded();
+        snapshotService.refreshIfNeeded();
+        verify(dashboardService, times(1)).computeDashboard(today.minusDays(30), today);
+
+        snapshotService.markStaleAfterCommit();
+        snapshotService.getFcrSummaries();
+        verify(dashboardService, times(1)).computeDashboard(today.minusDays(30), today);
+
+        snapshotService.refreshIfNeeded();
+        verify(dashboardService, times(2)).computeDashboard(today.minusDays(30), today);
+    }
+
+    @Test
+    @DisplayName("un échec du calcul doit conserver l'instantané courant")
+    void refreshIfNeeded_failure_shouldKeepCurrentSnapshot() {
+        snapshotService.refreshIfNeeded();
+        List<SupervisionDashboardResponse.BatchFcrSummary> before = snapshotService.getFcrSummaries();
+
+        when(dashboardService.computeDashboard(today.minusDays(30), today))
+                .thenThrow(new IllegalStateException("db down"));
+        snapshotService.markStaleAfterCommit();
+        snapshotService.refreshIfNeeded();
+
+        assertThat(snapshotService.getFcrSummaries()).isSameAs(before);
+    }
+
+    private SupervisionDashboardResponse window(LocalDate start, LocalDate end) {
+        return SupervisionDashboardResponse.builder()
+                .startDate(start)
+                .endDate(end)
+                .batchSummaries(List.of(row(end), row(end.minusDays(7)), row(end.minusDays(20))))
+                .pendingAlerts(List.of())
+                .fcrSummaries(List.of(SupervisionDashboardResponse.BatchFcrSummary.builder()
+                        .batchId(1L).batchNumber("LOT-001").build()))
+                .build();
+    }
+
+    private static SupervisionDashboardResponse.BatchDailySummary row(LocalDate date) {
+        return SupervisionDashboardResponse.BatchDailySummary.builder()
+                .batchId(1L).batchNumber("LOT-001").date(date).build();
+    }
+}
@@ -0,0 +1,112 @@
+package org.example.djajbladibackend.services.fcr;
+
+import org.example.djajbladibackend.dto.fcr.StrainWeightCurveRequest;
+import org.example.djajbladibackend.exception.InvalidDataException;
+import org.example.djajbladibackend.models.StrainWeightCurvePoint;
+import org.example.djajbladibackend.repository.StrainWeightCurveRepository;
+import org.example.djajbladibackend.repository.auth.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("StrainWeightCurveCatalogService Unit Tests")
+class StrainWeightCurveCatalogServiceTest {
+
+    @Mock
+    private StrainWeightCurveRepository curveRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    private StrainWeightCurveService weightCurveService;
+    private StrainWeightCurveCatalogService catalogService;
+
+    @BeforeEach
+    void setUp() {
+        weightCurveService = new StrainWeightCurveService();
+        catalogService = new StrainWeightCurveCatalogService(curveRepository, userRepository, weightCurveService);
+    }
+
+    @Test
+    @DisplayName("reload doit publier un nouvel instantané versionné")
+    void reload_shouldPublishNewSnapshot() {
+        when(curveRepository.fingerprint()).thenReturn("4|2026-01-01 00:00:00");
+        when(curveRepository.findAllByOrderByStrainAscAgeDaysAsc()).thenReturn(List.of(
+                point("Ross 308", 0, "0.0420"), point("Ross 308", 10, "0.5000"),
+                point("Sasso", 0, "0.0400"), point("Sasso", 10, "0.2400")));
+        long before = weightCurveService.getSnapshot().getVersion();
+
+        catalogService.reload();
+
+        assertThat(weightCurveService.getSnapshot().getVersion()).isEqualTo(before + 1);
+        // 0.042 + 0.5 * (0.5 - 0.042) = 0.271
+        assertThat(weightCurveService.getEstimatedWeightKg("Ross 308", 5)).isEqualByComparingTo("0.271");
+        assertThat(weightCurveService.getEstimatedWeightKg("sasso", 10)).isEqualTo(new BigDecimal("0.24"));
+        // Souche inconnue -> Ross 308 ; au-delà du dernier point -> dernier poids
+        assertThat(weightCurveService.getEstimatedWeightKg("Inconnue", 30)).isEqualTo(new BigDecimal("0.5"));
+        // Ancienne souche retirée de la base
+        assertThat(weightCurveService.getEstimatedWeightKg("Hubbard", 10))
+                .isEqualTo(weightCurveService.getEstimatedWeightKg("Ross 308", 10));
+    }
+
+    @Test
+    @DisplayName("reload doit conserver l'instantané courant si la table est vide")
+    void reload_emptyTable_shouldKeepCurrentSnapshot() {
+        when(curveRepository.fingerprint()).thenReturn("0|");
+        when(curveRepository.findAllByOrderByStrainAscAgeDaysAsc()).thenReturn(List.of());
+        StrainWeightCurveSnapshot before = weightCurveService.getSnapshot();
+
+        catalogService.reload();
+
+        assertThat(weightCurveService.getSnapshot()).isSameAs(before);
+        assertThat(weightCurveService.getEstimatedWeightKg("Cobb 500", 7)).isEqualTo(BigDecimal.valueOf(0.162));
+    }
+
+    @Test
+    @DisplayName("refreshIfChanged ne doit pas relire les courbes si l'empreinte est inchangée")
+    void refreshIfChanged_sameFingerprint_shouldNotReload() {
+        when(curveRepository.fingerprint()).thenReturn("1|2026-01-01 00:00:00");
+        when(curveRepository.findAllByOrderByStrainAscAgeDaysAsc()).thenReturn(List.of(point("Ross 308", 0, "0.042")));
+        catalogService.reload();
+
+        catalogService.refreshIfChanged();
+
+        verify(curveRepository, times(1)).findAllByOrderByStrainAscAgeDaysAsc();
+    }
+
+    @Test
+    @DisplayName("replace doit rejeter deux points au même âge")
+    void replace_duplicateAge_shouldThrow() {
+        StrainWeightCurveRequest request = new StrainWeightCurveRequest();
+        request.setPoints(List.of(
+                new StrainWeightCurveRequest.CurvePoint(7, new BigDecimal("0.17")),
+                new StrainWeightCurveRequest.CurvePoint(7, new BigDecimal("0.18"))));
+
+        assertThatThrownBy(() -> catalogService.replace("Sasso", request, "admin@test.com"))
+                .isInstanceOf(InvalidDataException.class);
+        verify(curveRepository, never()).deleteByStrainIgnoreCase(anyString());
+    }
+
+    @Test
+    @DisplayName("delete doit refuser la courbe de référence Ross 308")
+    void delete_defaultStrain_shouldThrow() {
+        assertThatThrownBy(() -> catalogService.delete(" ross 308 "))
+                .isInstanceOf(InvalidDataException.class);
+        verify(curveRepository, never()).deleteByStrainIgnoreCase(anyString());
+    }
+
+    private static StrainWeightCurvePoint point(String strain, int ageDays, String weightKg) {
+        return StrainWeightCurvePoint.builder().strain(strain).ageDays(ageDays).weightKg(new BigDecimal(weightKg)).build();
+    }
+}
@@ -0,0 +1,117 @@
+package org.example.djajbladibackend.services.feeding;
+
+import jakarta.persistence.EntityManager;
+import org.example.djajbladibackend.dto.feeding.FeedingRecordBulkResponse;
+import org.example.djajbladibackend.dto.feeding.FeedingRecordRequest;
+import org.example.djajbladibackend.exception.InsufficientStockException;
+import org.example.djajbladibackend.models.*;
+import org.example.djajbladibackend.models.enums.RoleEnum;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.example.djajbladibackend.support.TestData.*;
+
+/**
+ * Integration test: a bulk feeding upload locks each stock item once, checks availability on the
+ * per-item total and inserts the records in JDBC batches (far fewer statements than records).
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("ci")
+@Transactional
+@DisplayName("Bulk feeding ingestion")
+class FeedingBulkIngestionIntegrationTest {
+
+    @Autowired
+    private FeedingRecordService feedingService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    @DisplayName("createBulk deduit le total par article et insere les releves par lots JDBC")
+    void createBulk_deductsPerItemTotalsWithBatchedInserts() {
+        LocalDate today = LocalDate.now();
+        User ouvrier = persist(entityManager, user("ouvrier-bulk@djajbladi.com", RoleEnum.Ouvrier).build());
+        Batch batchA = persist(entityManager, activeBatch("BULK-IT-A", ouvrier).build());
+        Batch batchB = persist(entityManager, activeBatch("BULK-IT-B", ouvrier).build());
+        StockItem starter = persist(entityManager, feedStock("Demarrage BULK").quantity(BigDecimal.valueOf(1000))
+                .build());
+        StockItem grower = persist(entityManager, feedStock("Croissance BULK").quantity(BigDecimal.valueOf(1000))
+                .build());
+        List<FeedingRecordRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            requests.add(request(i % 2 == 0 ? batchA : batchB, i % 3 == 0 ? grower : starter, 5, today));
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        Statistics statistics = statistics();
+        statistics.clear();
+        FeedingRecordBulkResponse response = feedingService.createBulk(requests, ouvrier.getEmail());
+        entityManager.flush();
+
+        assertThat(response.getCreatedCount()).isEqualTo(60);
+        assertThat(response.getIds()).hasSize(60).doesNotHaveDuplicates();
+        // 60 releves + 60 mouvements du journal de stock
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(120);
+        assertThat(statistics.getPrepareStatementCount()).isLessThan(30);
+
+        entityManager.clear();
+        assertThat(entityManager.find(StockItem.class, grower.getId()).getQuantity())
+                .isEqualByComparingTo(BigDecimal.valueOf(1000 - 20 * 5));
+        assertThat(entityManager.find(StockItem.class, starter.getId()).getQuantity())
+                .isEqualByComparingTo(BigDecimal.valueOf(1000 - 40 * 5));
+        Object[] rollupA = (Object[]) entityManager.createNativeQuery(
+                        "SELECT feed_kg, entry_count FROM batch_daily_rollup WHERE batch_id = :batchId AND rollup_date = :day")
+                .setParameter("batchId", batchA.getId())
+                .setParameter("day", today)
+                .getSingleResult();
+        assertThat((BigDecimal) rollupA[0]).isEqualByComparingTo("150");
+        assertThat(((Number) rollupA[1]).intValue()).isEqualTo(30);
+    }
+
+    @Test
+    @DisplayName("createBulk refuse l'envoi si le total d'un article depasse le stock, sans rien deduire")
+    void createBulk_totalAboveStock_rejectsWholeUpload() {
+        LocalDate today = LocalDate.now();
+        User ouvrier = persist(entityManager, user("ouvrier-bulk-ko@djajbladi.com", RoleEnum.Ouvrier).build());
+        Batch batch = persist(entityManager, activeBatch("BULK-IT-C", ouvrier).build());
+        StockItem feed = persist(entityManager, feedStock("Finition BULK").quantity(BigDecimal.valueOf(100)).build());
+        entityManager.flush();
+        entityManager.clear();
+
+        // chaque releve tient dans le stock, leur somme non
+        List<FeedingRecordRequest> requests = List.of(request(batch, feed, 60, today), request(batch, feed, 60, today));
+
+        assertThatThrownBy(() -> feedingService.createBulk(requests, ouvrier.getEmail()))
+                .isInstanceOf(InsufficientStockException.class);
+        assertThat(entityManager.find(StockItem.class, feed.getId()).getQuantity()).isEqualByComparingTo("100");
+    }
+
+    private Statistics statistics() {
+        return entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private FeedingRecordRequest request(Batch batch, StockItem item, int quantity, LocalDate date) {
+        FeedingRecordRequest req = new FeedingRecordRequest();
+        req.setBatchId(batch.getId());
+        req.setStockItemId(item.getId());
+        req.setFeedType(item.getName());
+        req.setQuantity(BigDecimal.valueOf(quantity));
+        req.setFeedingDate(date);
+        return req;
+    }
+}
@@ -0,0 +1,163 @@
+package org.example.djajbladibackend.services.feeding;
+
+import jakarta.persistence.EntityManager;
+import org.example.djajbladibackend.controller.export.ExportFormat;
+import org.example.djajbladibackend.controller.export.RecordExportWriter;
+import org.example.djajbladibackend.dto.feeding.FeedingRecordResponse;
+import org.example.djajbladibackend.dto.mortality.DailyMortalityResponse;
+import org.example.djajbladibackend.models.*;
+import org.example.djajbladibackend.models.enums.RoleEnum;
+import org.example.djajbladibackend.services.mortality.DailyMortalityService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.example.djajbladibackend.support.TestData.*;
+
+/**
+ * Integration test: feeding and mortality history exports are read through a single cursor
+ * statement, without the date-range cap of the list endpoints, and match the entity-based mapping.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("ci")
+@Transactional
+@DisplayName("Feeding and mortality history export")
+class HistoryExportIntegrationTest {
+
+    @Autowired
+    private FeedingRecordService feedingService;
+
+    @Autowired
+    private DailyMortalityService mortalityService;
+
+    @Autowired
+    private JsonMapper jsonMapper;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    @DisplayName("exportByDateRange exporte tout l'historique d'un lot en une requete, dans l'ordre chronologique")
+    void exportFeeding_fullHistory_singleStatement() {
+        LocalDate today = LocalDate.now();
+        User admin = persist(entityManager, user("admin-export@djajbladi.com", RoleEnum.Admin).build());
+        Batch batch = persist(entityManager, activeBatch("EXP-IT-1", admin).arrivalDate(LocalDate.now().minusYears(4))
+                .build());
+        Batch other = persist(entityManager, activeBatch("EXP-IT-2", admin).arrivalDate(LocalDate.now().minusYears(4))
+                .build());
+        StockItem feed = persist(entityManager, feedStock("Demarrage EXP").build());
+        persist(entityManager, feeding(batch, admin, 80, today).stockItem(feed).feedType("Croissance").build());
+        persist(entityManager, feeding(batch, admin, 50, today.minusYears(3)).stockItem(null).feedType("Demarrage")
+                .build());
+        persist(entityManager, feeding(batch, admin, 60, today.minusYears(1)).stockItem(feed).feedType("Demarrage")
+                .build());
+        persist(entityManager, feeding(other, admin, 70, today.minusDays(1)).stockItem(feed).feedType("Demarrage")
+                .build());
+        entityManager.flush();
+        entityManager.clear();
+        List<FeedingRecordResponse> expected = feedingService.findByDateRange(today.minusDays(366), today, batch.getId());
+        entityManager.clear();
+
+        Statistics statistics = statistics();
+        statistics.clear();
+        List<FeedingRecordResponse> exported = new ArrayList<>();
+        int count = feedingService.exportByDateRange(null, null, batch.getId(), exported::add);
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(count).isEqualTo(3);
+        assertThat(exported).extracting(FeedingRecordResponse::getFeedingDate)
+                .containsExactly(today.minusYears(3), today.minusYears(1), today);
+        assertThat(exported.get(0).getStockItemId()).isNull();
+        assertThat(exported.subList(1, 3)).usingRecursiveFieldByFieldElementComparator()
+                .containsExactlyInAnyOrderElementsOf(expected);
+    }
+
+    @Test
+    @DisplayName("exportByDateRange de la mortalite respecte les bornes de dates optionnelles")
+    void exportMortality_dateBounds() {
+        LocalDate today = LocalDate.now();
+        User admin = persist(entityManager, user("admin-export-m@djajbladi.com", RoleEnum.Admin).build());
+        Batch batch = persist(entityManager, activeBatch("EXP-IT-3", admin).arrivalDate(LocalDate.now().minusYears(4))
+                .build());
+        for (int i = 0; i < 5; i++) {
+            persist(entityManager, mortality(batch, admin, i + 1, today.minusDays(i * 200L)).notes("jour " + i)
+                    .build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        List<DailyMortalityResponse> exported = new ArrayList<>();
+        mortalityService.exportByDateRange(today.minusDays(600), null, batch.getId(), exported::add);
+
+        assertThat(exported).extracting(DailyMortalityResponse::getMortalityCount).containsExactly(4, 3, 2, 1);
+        assertThat(exported).allSatisfy(r -> {
+            assertThat(r.getBatchNumber()).isEqualTo("EXP-IT-3");
+            assertThat(r.getRecordedByName()).isEqualTo(admin.getFullName());
+        });
+    }
+
+    @Test
+    @DisplayName("l'export CSV ecrit l'en-tete puis une ligne echappee par releve")
+    void exportFeeding_csv() throws Exception {
+        LocalDate day = LocalDate.of(2024, 3, 1);
+        User admin = persist(entityManager, user("admin-export-csv@djajbladi.com", RoleEnum.Admin).build());
+        Batch batch = persist(entityManager, activeBatch("EXP-IT-4", admin).arrivalDate(LocalDate.now().minusYears(4))
+                .build());
+        persist(entityManager, feeding(batch, admin, 0, day).feedType("Finition").quantity(new BigDecimal("12.50"))
+                .notes("=SUM(A1), \"humide\"").build());
+        entityManager.flush();
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        RecordExportWriter<FeedingRecordResponse> writer = RecordExportWriter.open(
+                response, ExportFormat.CSV, "feeding-history", jsonMapper, List.of("batchNumber", "feedingDate", "quantity", "notes"),
+                r -> Arrays.asList(r.getBatchNumber(), r.getFeedingDate(), r.getQuantity(), r.getNotes()));
+        feedingService.exportByDateRange(day, day, batch.getId(), writer);
+        writer.finish();
+
+        assertThat(response.getContentType()).startsWith("text/csv");
+        assertThat(response.getContentAsString()).isEqualTo(
+                "batchNumber,feedingDate,quantity,notes\r\n"
+                        + "EXP-IT-4,2024-03-01,12.50,\"'=SUM(A1), \"\"humide\"\"\"\r\n");
+    }
+
+    @Test
+    @DisplayName("l'export CSV neutralise une cellule commencant par une tabulation")
+    void exportCsv_prefixesLeadingTab() throws Exception {
+        assertThat(csvNotes("\t=cmd|' /C calc'!A0")).isEqualTo("notes\r\n'\t=cmd|' /C calc'!A0\r\n");
+    }
+
+    @Test
+    @DisplayName("l'export CSV neutralise une cellule commencant par un retour chariot")
+    void exportCsv_prefixesLeadingCarriageReturn() throws Exception {
+        assertThat(csvNotes("\r=1+1")).isEqualTo("notes\r\n\"'\r=1+1\"\r\n");
+    }
+
+    /** Export CSV d'un seul releve, reduit a la colonne notes. */
+    private String csvNotes(String notes) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        RecordExportWriter<FeedingRecordResponse> writer = RecordExportWriter.open(
+                response, ExportFormat.CSV, "feeding-history", jsonMapper, List.of("notes"),
+                r -> Arrays.asList(r.getNotes()));
+        writer.accept(FeedingRecordResponse.builder().notes(notes).build());
+        writer.finish();
+        return response.getContentAsString();
+    }
+
+    private Statistics statistics() {
+        return entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+    }
+}
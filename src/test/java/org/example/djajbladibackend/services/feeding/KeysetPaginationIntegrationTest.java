@@ -0,0 +1,143 @@
+package org.example.djajbladibackend.services.feeding;
+
+import jakarta.persistence.EntityManager;
+import org.example.djajbladibackend.dto.batch.BatchResponse;
+import org.example.djajbladibackend.dto.common.PageResponse;
+import org.example.djajbladibackend.dto.feeding.FeedingRecordResponse;
+import org.example.djajbladibackend.exception.InvalidDataException;
+import org.example.djajbladibackend.models.*;
+import org.example.djajbladibackend.models.enums.RoleEnum;
+import org.example.djajbladibackend.services.batch.BatchService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.example.djajbladibackend.support.TestData.*;
+
+/**
+ * Integration test: keyset pages follow the (date, id) / (created_at, id) order without gaps or
+ * duplicates, and each page costs one statement (plus the COUNT only when requested).
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("ci")
+@Transactional
+@DisplayName("Keyset pagination")
+class KeysetPaginationIntegrationTest {
+
+    @Autowired
+    private FeedingRecordService feedingService;
+
+    @Autowired
+    private BatchService batchService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    @DisplayName("le parcours par curseur renvoie toutes les lignes dans l'ordre, une requete par page")
+    void feedingKeyset_walksAllRowsWithOneStatementPerPage() {
+        LocalDate today = LocalDate.now();
+        User admin = persist(entityManager, user("admin-keyset@djajbladi.com", RoleEnum.Admin).build());
+        Batch batch = persist(entityManager, activeBatch("KS-IT-1", admin).arrivalDate(LocalDate.now().minusDays(40))
+                .build());
+        for (int i = 0; i < 23; i++) {
+            // plusieurs releves par jour : l'id departage les ex aequo
+            persist(entityManager, feeding(batch, admin, 10 + i, today.minusDays(i / 3)).feedType("Demarrage").build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+        List<Long> expected = feedingService.findByDateRange(today.minusDays(30), today, batch.getId()).stream()
+                .sorted((a, b) -> a.getFeedingDate().equals(b.getFeedingDate())
+                        ? Long.compare(b.getId(), a.getId())
+                        : b.getFeedingDate().compareTo(a.getFeedingDate()))
+                .map(FeedingRecordResponse::getId)
+                .toList();
+
+        Statistics statistics = statistics();
+        List<Long> walked = new ArrayList<>();
+        List<Long> statementsPerPage = new ArrayList<>();
+        String cursor = "";
+        boolean last = false;
+        while (!last) {
+            entityManager.clear();
+            statistics.clear();
+            PageResponse<FeedingRecordResponse> page =
+                    feedingService.findByDateRangeKeyset(today.minusDays(30), today, batch.getId(), cursor, 5, false);
+            statementsPerPage.add(statistics.getPrepareStatementCount());
+            assertThat(page.getTotalElements()).isNull();
+            page.getContent().forEach(r -> walked.add(r.getId()));
+            cursor = page.getNextCursor();
+            last = page.isLast();
+        }
+
+        assertThat(walked).containsExactlyElementsOf(expected);
+        assertThat(statementsPerPage).hasSize(5).containsOnly(1L);
+        assertThat(cursor).isNull();
+    }
+
+    @Test
+    @DisplayName("withTotal ajoute le COUNT ; un curseur invalide est rejete")
+    void feedingKeyset_withTotalAndInvalidCursor() {
+        LocalDate today = LocalDate.now();
+        User admin = persist(entityManager, user("admin-keyset-total@djajbladi.com", RoleEnum.Admin).build());
+        Batch batch = persist(entityManager, activeBatch("KS-IT-2", admin).arrivalDate(LocalDate.now().minusDays(40))
+                .build());
+        for (int i = 0; i < 3; i++) {
+            persist(entityManager, feeding(batch, admin, 10, today.minusDays(i)).build());
+        }
+        entityManager.flush();
+
+        PageResponse<FeedingRecordResponse> page =
+                feedingService.findByDateRangeKeyset(today.minusDays(7), today, batch.getId(), null, 2, true);
+
+        assertThat(page.getTotalElements()).isEqualTo(3L);
+        assertThat(page.getTotalPages()).isEqualTo(2);
+        assertThat(page.isFirst()).isTrue();
+        assertThat(page.getPage()).isNull();
+        assertThatThrownBy(() -> feedingService.findByDateRangeKeyset(
+                today.minusDays(7), today, batch.getId(), "pas-un-curseur", 2, false))
+                .isInstanceOf(InvalidDataException.class);
+    }
+
+    @Test
+    @DisplayName("les lots d'un utilisateur se parcourent par (created_at, id) decroissant")
+    void batchKeyset_walksAssignedBatchesNewestFirst() {
+        User ouvrier = persist(entityManager, user("ouvrier-keyset@djajbladi.com", RoleEnum.Admin).build());
+        List<Long> created = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            created.add(persist(entityManager, activeBatch("KS-IT-B" + i, ouvrier)
+                    .arrivalDate(LocalDate.now().minusDays(40)).build()).getId());
+            entityManager.flush();
+        }
+        entityManager.clear();
+        List<Long> newestFirst = new ArrayList<>(created);
+        Collections.reverse(newestFirst);
+
+        List<Long> walked = new ArrayList<>();
+        String cursor = "";
+        do {
+            PageResponse<BatchResponse> page =
+                    batchService.findByAssignedUserEmailKeyset(ouvrier.getEmail(), cursor, 3, false);
+            page.getContent().forEach(b -> walked.add(b.getId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertThat(walked).containsExactlyElementsOf(newestFirst);
+    }
+
+    private Statistics statistics() {
+        return entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+    }
+}
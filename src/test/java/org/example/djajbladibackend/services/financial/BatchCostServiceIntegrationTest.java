@@ -0,0 +1,144 @@
+package org.example.djajbladibackend.services.financial;
+
+import jakarta.persistence.EntityManager;
+import org.example.djajbladibackend.dto.financial.BatchCostBreakdownResponse;
+import org.example.djajbladibackend.models.*;
+import org.example.djajbladibackend.models.enums.RoleEnum;
+import org.example.djajbladibackend.services.rollup.BatchDailyRollupService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.example.djajbladibackend.support.TestData.*;
+
+/**
+ * Integration test: the cost breakdown is aggregated by PostgreSQL in a single statement,
+ * the portfolio report in two streamed statements whatever the number of batches.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("ci")
+@Transactional
+@DisplayName("BatchCostService single-query breakdown")
+class BatchCostServiceIntegrationTest {
+
+    @Autowired
+    private BatchCostService batchCostService;
+
+    @Autowired
+    private BatchDailyRollupService rollupService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    @DisplayName("calculateCost groupe l'alimentation par article et type, en une requete")
+    void calculateCost_aggregatesInOneStatement() {
+        LocalDate today = LocalDate.now();
+        User admin = persist(entityManager, user("admin-cost@djajbladi.com", RoleEnum.Admin).build());
+        User vet = persist(entityManager, user("vet-cost@djajbladi.com", RoleEnum.Veterinaire).build());
+        Batch batch = persist(entityManager, activeBatch("COST-IT-1", admin)
+                .chickenCount(1000).currentCount(1000).purchasePrice(BigDecimal.valueOf(4)).build());
+        StockItem starter = persist(entityManager, feedStock("Demarrage IT").unitPrice(BigDecimal.valueOf(3.5))
+                .build());
+        StockItem unpriced = persist(entityManager, feedStock("Sans prix IT").unitPrice(null).build());
+
+        persist(entityManager, feeding(batch, admin, 200, today.minusDays(3)).stockItem(starter).feedType("Demarrage")
+                .build());
+        persist(entityManager, feeding(batch, admin, 300, today.minusDays(2)).stockItem(starter).feedType("Demarrage")
+                .build());
+        persist(entityManager, feeding(batch, admin, 100, today.minusDays(1)).stockItem(starter)
+                .feedType("Croissance").build());
+        persist(entityManager, feeding(batch, admin, 999, today.minusDays(1)).stockItem(unpriced)
+                .feedType("Croissance").build());
+        persist(entityManager, mortality(batch, admin, 40, today.minusDays(1)).build());
+        persist(entityManager, healthRecord(batch, vet, "Controle", today).treatmentCost(BigDecimal.valueOf(250))
+                .build());
+        entityManager.flush();
+        rollupService.rebuildAll();
+        entityManager.clear();
+
+        Statistics statistics = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        var response = batchCostService.calculateCost(batch.getId(), BigDecimal.ZERO);
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(response.getFeedLines())
+                .extracting(l -> l.getFeedType(), l -> l.getTotalQuantityKg().toPlainString(), l -> l.getSubtotalDH().toPlainString())
+                .containsExactly(
+                        tuple("Demarrage", "500.00", "1750.00"),
+                        tuple("Croissance", "100.00", "350.00"));
+        // 4 * 1000 + 1750 + 350 + 250
+        assertThat(response.getTotalCostDH()).isEqualByComparingTo("6350.00");
+        assertThat(response.getMedicationCostDH()).isEqualByComparingTo("250.00");
+        assertThat(response.getTotalMortality()).isEqualTo(40);
+        assertThat(response.getAliveChickens()).isEqualTo(960);
+        assertThat(response.getTotalRevenueDH()).isEqualByComparingTo("0.00");
+        assertThat(response.getStatus()).isEqualTo(BatchStatus.Active);
+    }
+
+    @Test
+    @DisplayName("streamPortfolioCost couvre tous les lots filtres en deux requetes, identique a calculateCost")
+    void streamPortfolioCost_matchesPerBatchBreakdown() {
+        LocalDate today = LocalDate.now();
+        User admin = persist(entityManager, user("admin-portfolio@djajbladi.com", RoleEnum.Admin).build());
+        StockItem starter = persist(entityManager, feedStock("Demarrage PF").unitPrice(BigDecimal.valueOf(3.5))
+                .build());
+        StockItem grower = persist(entityManager, feedStock("Croissance PF").unitPrice(BigDecimal.valueOf(4)).build());
+        Batch first = persist(entityManager, activeBatch("PF-IT-1", admin).arrivalDate(LocalDate.now().minusDays(10))
+                .build());
+        Batch empty = persist(entityManager, activeBatch("PF-IT-2", admin).arrivalDate(LocalDate.now().minusDays(10))
+                .build());
+        Batch third = persist(entityManager, activeBatch("PF-IT-3", admin).arrivalDate(LocalDate.now().minusDays(10))
+                .build());
+        Batch completed = persist(entityManager, activeBatch("PF-IT-4", admin).status(BatchStatus.Completed)
+                .arrivalDate(LocalDate.now().minusDays(10)).build());
+        persist(entityManager, feeding(first, admin, 200, today.minusDays(2)).stockItem(starter).feedType("Demarrage")
+                .build());
+        persist(entityManager, feeding(first, admin, 50, today.minusDays(1)).stockItem(grower).feedType("Croissance")
+                .build());
+        persist(entityManager, feeding(third, admin, 120, today.minusDays(1)).stockItem(starter).feedType("Demarrage")
+                .build());
+        persist(entityManager, feeding(completed, admin, 80, today.minusDays(1)).stockItem(grower)
+                .feedType("Croissance").build());
+        persist(entityManager, mortality(third, admin, 12, today.minusDays(1)).build());
+        entityManager.flush();
+        rollupService.rebuildAll();
+        entityManager.clear();
+
+        Statistics statistics = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<BatchCostBreakdownResponse> streamed = new ArrayList<>();
+        int count = batchCostService.streamPortfolioCost(Set.of(BatchStatus.Active), BigDecimal.TEN, streamed::add);
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(count).isEqualTo(streamed.size());
+        List<Long> ids = List.of(first.getId(), empty.getId(), third.getId());
+        List<BatchCostBreakdownResponse> ours = streamed.stream().filter(r -> ids.contains(r.getBatchId())).toList();
+        assertThat(ours).extracting(BatchCostBreakdownResponse::getBatchId).containsExactlyElementsOf(ids);
+        assertThat(streamed).extracting(BatchCostBreakdownResponse::getBatchId).doesNotContain(completed.getId());
+        for (BatchCostBreakdownResponse response : ours) {
+            assertThat(response).usingRecursiveComparison()
+                    .isEqualTo(batchCostService.calculateCost(response.getBatchId(), BigDecimal.TEN));
+        }
+        assertThat(ours.get(0).getFeedLines()).hasSize(2);
+        assertThat(ours.get(1).getFeedLines()).isEmpty();
+        assertThat(ours.get(2).getTotalMortality()).isEqualTo(12);
+    }
+}
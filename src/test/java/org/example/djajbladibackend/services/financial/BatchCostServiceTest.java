@@ -2,26 +2,31 @@ package org.example.djajbladibackend.services.financial;
 
 import org.example.djajbladibackend.dto.financial.BatchCostBreakdownResponse;
 import org.example.djajbladibackend.exception.ResourceNotFoundException;
-import org.example.djajbladibackend.models.*;
-import org.example.djajbladibackend.repository.*;
+import org.example.djajbladibackend.models.BatchStatus;
+import org.example.djajbladibackend.repository.BatchRepository;
+import org.example.djajbladibackend.repository.projection.BatchCostBreakdownRow;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
-import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.*;
+import static org.example.djajbladibackend.config.RedisCacheConfig.CACHE_BATCH_COST;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 
+/**
+ * Les lignes de BatchRepository#findCostBreakdown sont deja agregees par PostgreSQL
+ * (voir BatchCostServiceIntegrationTest pour l'agregation elle-meme).
+ */
 @ExtendWith(MockitoExtension.class)
 @DisplayName("BatchCostService Unit Tests")
 class BatchCostServiceTest {
@@ -29,72 +34,27 @@ class BatchCostServiceTest {
     @Mock
     private BatchRepository batchRepository;
 
-    @Mock
-    private FeedingRecordRepository feedingRecordRepository;
-
-    @Mock
-    private HealthRecordRepository healthRecordRepository;
-
-    @Mock
-    private DailyMortalityRecordRepository mortalityRecordRepository;
-
-    @Mock
-    private SaleRepository saleRepository;
-
-    @InjectMocks
     private BatchCostService batchCostService;
 
-    private Batch batch;
-    private StockItem stockItemFeed;
+    private BatchRow batch;
 
     @BeforeEach
     void setUp() {
+        batchCostService = new BatchCostService(batchRepository, null, new ConcurrentMapCacheManager(CACHE_BATCH_COST));
         ReflectionTestUtils.setField(batchCostService, "defaultFixedChargesDH", BigDecimal.valueOf(500));
 
-        batch = Batch.builder()
-                .id(1L)
-                .batchNumber("BATCH-001")
-                .strain("Ross 308")
-                .arrivalDate(LocalDate.now().minusDays(30))
-                .status(BatchStatus.Active)
-                .chickenCount(1000)
-                .purchasePrice(BigDecimal.valueOf(15))  // 15 DH/poussin * 1000 = 15000 DH
-                .build();
-
-        stockItemFeed = StockItem.builder()
-                .id(10L)
-                .name("Aliment Demarrage")
-                .type(StockType.FEED)
-                .unit("kg")
-                .unitPrice(BigDecimal.valueOf(3.5))
-                .build();
+        // 15 DH/poussin * 1000 = 15000 DH
+        batch = new BatchRow(1L, "BATCH-001", "Ross 308", LocalDate.now().minusDays(30),
+                BatchStatus.Active, 1000, BigDecimal.valueOf(15));
     }
 
     @Test
     @DisplayName("doit calculer le cout complet avec toutes les composantes")
     void calculateCost_shouldReturnFullBreakdown() {
-        FeedingRecord feeding1 = FeedingRecord.builder()
-                .id(1L)
-                .batch(batch)
-                .stockItem(stockItemFeed)
-                .feedType("Demarrage")
-                .quantity(BigDecimal.valueOf(200))
-                .feedingDate(LocalDate.now().minusDays(10))
-                .build();
-        FeedingRecord feeding2 = FeedingRecord.builder()
-                .id(2L)
-                .batch(batch)
-                .stockItem(stockItemFeed)
-                .feedType("Demarrage")
-                .quantity(BigDecimal.valueOf(300))
-                .feedingDate(LocalDate.now().minusDays(5))
-                .build();
-
-        when(batchRepository.findByIdWithCreatedByAndBuilding(1L)).thenReturn(Optional.of(batch));
-        when(feedingRecordRepository.findByBatchIdWithStockItem(1L)).thenReturn(List.of(feeding1, feeding2));
-        when(healthRecordRepository.sumTreatmentCostByBatchId(1L)).thenReturn(BigDecimal.valueOf(800));
-        when(mortalityRecordRepository.sumMortalityByBatchId(1L)).thenReturn(50);
-        when(saleRepository.sumRevenuByBatchId(1L)).thenReturn(BigDecimal.valueOf(30000));
+        // 200 + 300 kg d'Aliment Demarrage a 3.5 DH/kg
+        when(batchRepository.findCostBreakdown(1L)).thenReturn(List.of(
+                batch.totals(BigDecimal.valueOf(800), 50, BigDecimal.valueOf(30000))
+                        .feedLine(10L, "Aliment Demarrage", "Demarrage", BigDecimal.valueOf(500), BigDecimal.valueOf(3.5))));
 
         BatchCostBreakdownResponse response = batchCostService.calculateCost(1L, null);
 
@@ -135,16 +95,13 @@ class BatchCostServiceTest {
         assertThat(line.getTotalQuantityKg()).isEqualByComparingTo("500.00");
         assertThat(line.getUnitPriceDH()).isEqualByComparingTo("3.5");
         assertThat(line.getSubtotalDH()).isEqualByComparingTo("1750.00");
+        assertThat(response.getStatus()).isEqualTo(BatchStatus.Active);
     }
 
     @Test
     @DisplayName("doit utiliser l'override des charges fixes si fourni")
     void calculateCost_withFixedChargesOverride_shouldUseThatValue() {
-        when(batchRepository.findByIdWithCreatedByAndBuilding(1L)).thenReturn(Optional.of(batch));
-        when(feedingRecordRepository.findByBatchIdWithStockItem(1L)).thenReturn(List.of());
-        when(healthRecordRepository.sumTreatmentCostByBatchId(1L)).thenReturn(BigDecimal.ZERO);
-        when(mortalityRecordRepository.sumMortalityByBatchId(1L)).thenReturn(0);
-        when(saleRepository.sumRevenuByBatchId(1L)).thenReturn(BigDecimal.ZERO);
+        when(batchRepository.findCostBreakdown(1L)).thenReturn(List.of(batch.withoutFeed()));
 
         BatchCostBreakdownResponse response = batchCostService.calculateCost(1L, BigDecimal.valueOf(1200));
 
@@ -153,45 +110,10 @@ class BatchCostServiceTest {
         assertThat(response.getTotalCostDH()).isEqualByComparingTo("16200.00");
     }
 
-    @Test
-    @DisplayName("doit exclure les enregistrements d'alimentation sans prix unitaire")
-    void calculateCost_feedRecordWithoutUnitPrice_shouldBeExcluded() {
-        StockItem itemWithoutPrice = StockItem.builder()
-                .id(20L)
-                .name("Aliment sans prix")
-                .type(StockType.FEED)
-                .unit("kg")
-                .unitPrice(null)
-                .build();
-        FeedingRecord feedingNoPrice = FeedingRecord.builder()
-                .id(5L)
-                .batch(batch)
-                .stockItem(itemWithoutPrice)
-                .feedType("Croissance")
-                .quantity(BigDecimal.valueOf(100))
-                .feedingDate(LocalDate.now().minusDays(2))
-                .build();
-
-        when(batchRepository.findByIdWithCreatedByAndBuilding(1L)).thenReturn(Optional.of(batch));
-        when(feedingRecordRepository.findByBatchIdWithStockItem(1L)).thenReturn(List.of(feedingNoPrice));
-        when(healthRecordRepository.sumTreatmentCostByBatchId(1L)).thenReturn(BigDecimal.ZERO);
-        when(mortalityRecordRepository.sumMortalityByBatchId(1L)).thenReturn(0);
-        when(saleRepository.sumRevenuByBatchId(1L)).thenReturn(BigDecimal.ZERO);
-
-        BatchCostBreakdownResponse response = batchCostService.calculateCost(1L, BigDecimal.ZERO);
-
-        assertThat(response.getFeedCostDH()).isEqualByComparingTo("0.00");
-        assertThat(response.getFeedLines()).isEmpty();
-    }
-
     @Test
     @DisplayName("doit retourner cout nul pour alimentation si aucun enregistrement")
     void calculateCost_noFeedingRecords_feedCostShouldBeZero() {
-        when(batchRepository.findByIdWithCreatedByAndBuilding(1L)).thenReturn(Optional.of(batch));
-        when(feedingRecordRepository.findByBatchIdWithStockItem(1L)).thenReturn(List.of());
-        when(healthRecordRepository.sumTreatmentCostByBatchId(1L)).thenReturn(BigDecimal.ZERO);
-        when(mortalityRecordRepository.sumMortalityByBatchId(1L)).thenReturn(0);
-        when(saleRepository.sumRevenuByBatchId(1L)).thenReturn(BigDecimal.ZERO);
+        when(batchRepository.findCostBreakdown(1L)).thenReturn(List.of(batch.withoutFeed()));
 
         BatchCostBreakdownResponse response = batchCostService.calculateCost(1L, BigDecimal.ZERO);
 
@@ -202,12 +124,9 @@ class BatchCostServiceTest {
     @Test
     @DisplayName("doit retourner benefice negatif si le cout depasse les revenus")
     void calculateCost_profitNegative_whenCostExceedsRevenue() {
-        when(batchRepository.findByIdWithCreatedByAndBuilding(1L)).thenReturn(Optional.of(batch));
-        when(feedingRecordRepository.findByBatchIdWithStockItem(1L)).thenReturn(List.of());
-        when(healthRecordRepository.sumTreatmentCostByBatchId(1L)).thenReturn(BigDecimal.ZERO);
-        when(mortalityRecordRepository.sumMortalityByBatchId(1L)).thenReturn(0);
         // Revenue < purchase price
-        when(saleRepository.sumRevenuByBatchId(1L)).thenReturn(BigDecimal.valueOf(5000));
+        when(batchRepository.findCostBreakdown(1L)).thenReturn(List.of(
+                batch.totals(BigDecimal.ZERO, 0, BigDecimal.valueOf(5000))));
 
         BatchCostBreakdownResponse response = batchCostService.calculateCost(1L, BigDecimal.ZERO);
 
@@ -218,7 +137,7 @@ class BatchCostServiceTest {
     @Test
     @DisplayName("doit lever ResourceNotFoundException si le lot n'existe pas")
     void calculateCost_batchNotFound_shouldThrow() {
-        when(batchRepository.findByIdWithCreatedByAndBuilding(anyLong())).thenReturn(Optional.empty());
+        when(batchRepository.findCostBreakdown(anyLong())).thenReturn(List.of());
 
         assertThatThrownBy(() -> batchCostService.calculateCost(999L, null))
                 .isInstanceOf(ResourceNotFoundException.class);
@@ -227,20 +146,10 @@ class BatchCostServiceTest {
     @Test
     @DisplayName("doit gerer le cas ou purchasePrice est null (valeur zero)")
     void calculateCost_nullPurchasePrice_shouldDefaultToZero() {
-        Batch batchNullPrice = Batch.builder()
-                .id(2L)
-                .batchNumber("BATCH-002")
-                .chickenCount(500)
-                .arrivalDate(LocalDate.now().minusDays(10))
-                .status(BatchStatus.Active)
-                .purchasePrice(null)
-                .build();
-
-        when(batchRepository.findByIdWithCreatedByAndBuilding(2L)).thenReturn(Optional.of(batchNullPrice));
-        when(feedingRecordRepository.findByBatchIdWithStockItem(2L)).thenReturn(List.of());
-        when(healthRecordRepository.sumTreatmentCostByBatchId(2L)).thenReturn(null);
-        when(mortalityRecordRepository.sumMortalityByBatchId(2L)).thenReturn(null);
-        when(saleRepository.sumRevenuByBatchId(2L)).thenReturn(null);
+        BatchRow batchNullPrice = new BatchRow(2L, "BATCH-002", null, LocalDate.now().minusDays(10),
+                BatchStatus.Active, 500, null);
+        // Aucun relevé de mortalité ni vente : totaux nuls
+        when(batchRepository.findCostBreakdown(2L)).thenReturn(List.of(batchNullPrice.totals(null, null, null)));
 
         BatchCostBreakdownResponse response = batchCostService.calculateCost(2L, BigDecimal.valueOf(200));
 
@@ -251,30 +160,95 @@ class BatchCostServiceTest {
     }
 
     @Test
-    @DisplayName("doit agreger plusieurs lignes d'alimentation du meme item de stock")
-    void calculateCost_multipleFeedRecordsSameStockItem_shouldAggregate() {
-        FeedingRecord f1 = FeedingRecord.builder().id(1L).batch(batch)
-                .stockItem(stockItemFeed).feedType("Demarrage")
-                .quantity(BigDecimal.valueOf(100)).feedingDate(LocalDate.now().minusDays(3)).build();
-        FeedingRecord f2 = FeedingRecord.builder().id(2L).batch(batch)
-                .stockItem(stockItemFeed).feedType("Demarrage")
-                .quantity(BigDecimal.valueOf(150)).feedingDate(LocalDate.now().minusDays(2)).build();
-        FeedingRecord f3 = FeedingRecord.builder().id(3L).batch(batch)
-                .stockItem(stockItemFeed).feedType("Demarrage")
-                .quantity(BigDecimal.valueOf(50)).feedingDate(LocalDate.now().minusDays(1)).build();
-
-        when(batchRepository.findByIdWithCreatedByAndBuilding(1L)).thenReturn(Optional.of(batch));
-        when(feedingRecordRepository.findByBatchIdWithStockItem(1L)).thenReturn(List.of(f1, f2, f3));
-        when(healthRecordRepository.sumTreatmentCostByBatchId(1L)).thenReturn(BigDecimal.ZERO);
-        when(mortalityRecordRepository.sumMortalityByBatchId(1L)).thenReturn(0);
-        when(saleRepository.sumRevenuByBatchId(1L)).thenReturn(BigDecimal.ZERO);
+    @DisplayName("doit produire une ligne par article de stock et type d'aliment")
+    void calculateCost_multipleFeedLines_shouldSumFeedCost() {
+        Row totals = batch.totals(BigDecimal.ZERO, 0, BigDecimal.ZERO);
+        when(batchRepository.findCostBreakdown(1L)).thenReturn(List.of(
+                totals.feedLine(10L, "Aliment Demarrage", "Demarrage", BigDecimal.valueOf(300), BigDecimal.valueOf(3.5)),
+                totals.feedLine(11L, "Aliment Croissance", "Croissance", BigDecimal.valueOf(100), BigDecimal.valueOf(4))));
 
         BatchCostBreakdownResponse response = batchCostService.calculateCost(1L, BigDecimal.ZERO);
 
-        // Aggregated into one line: qty = 300, cost = 300 * 3.5 = 1050
-        assertThat(response.getFeedLines()).hasSize(1);
+        // 300 * 3.5 + 100 * 4 = 1450
+        assertThat(response.getFeedLines()).hasSize(2);
         assertThat(response.getFeedLines().get(0).getTotalQuantityKg()).isEqualByComparingTo("300.00");
         assertThat(response.getFeedLines().get(0).getSubtotalDH()).isEqualByComparingTo("1050.00");
-        assertThat(response.getFeedCostDH()).isEqualByComparingTo("1050.00");
+        assertThat(response.getFeedLines().get(1).getSubtotalDH()).isEqualByComparingTo("400.00");
+        assertThat(response.getFeedCostDH()).isEqualByComparingTo("1450.00");
+    }
+
+    @Test
+    @DisplayName("doit servir les appels suivants depuis le cache, quelles que soient les charges fixes")
+    void calculateCost_cachedComponents_shouldApplyFixedChargesOnRead() {
+        when(batchRepository.findCostBreakdown(1L)).thenReturn(List.of(
+                batch.totals(BigDecimal.ZERO, 0, BigDecimal.valueOf(20000))));
+
+        BatchCostBreakdownResponse withDefault = batchCostService.calculateCost(1L, null);
+        BatchCostBreakdownResponse withOverride = batchCostService.calculateCost(1L, BigDecimal.valueOf(1200));
+
+        verify(batchRepository, times(1)).findCostBreakdown(1L);
+        // 15000 + 500 / 15000 + 1200
+        assertThat(withDefault.getTotalCostDH()).isEqualByComparingTo("15500.00");
+        assertThat(withOverride.getTotalCostDH()).isEqualByComparingTo("16200.00");
+        assertThat(withOverride.getEstimatedProfitDH()).isEqualByComparingTo("3800.00");
+        assertThat(withOverride.getCostPerChickenDH()).isEqualByComparingTo("16.20");
+        assertThat(withDefault.getFixedChargesDH()).isEqualByComparingTo("500.00");
+    }
+
+    @Test
+    @DisplayName("doit recalculer apres invalidation du lot")
+    void evictCachedCost_shouldForceRecalculation() {
+        when(batchRepository.findCostBreakdown(1L)).thenReturn(
+                List.of(batch.totals(BigDecimal.ZERO, 0, BigDecimal.ZERO)),
+                List.of(batch.totals(BigDecimal.valueOf(300), 10, BigDecimal.ZERO)));
+
+        batchCostService.calculateCost(1L, BigDecimal.ZERO);
+        batchCostService.evictCachedCost(1L);
+        BatchCostBreakdownResponse response = batchCostService.calculateCost(1L, BigDecimal.ZERO);
+
+        verify(batchRepository, times(2)).findCostBreakdown(1L);
+        assertThat(response.getMedicationCostDH()).isEqualByComparingTo("300.00");
+        assertThat(response.getAliveChickens()).isEqualTo(990);
+    }
+
+    private record BatchRow(Long id, String batchNumber, String strain, LocalDate arrivalDate,
+                            BatchStatus status, Integer chickenCount, BigDecimal purchasePrice) {
+
+        Row totals(BigDecimal medicationCost, Integer totalMortality, BigDecimal totalRevenue) {
+            return new Row(this, medicationCost, totalMortality, totalRevenue,
+                    null, null, null, null, null, null);
+        }
+
+        Row withoutFeed() {
+            return totals(BigDecimal.ZERO, 0, BigDecimal.ZERO);
+        }
+    }
+
+    private record Row(BatchRow batch, BigDecimal medicationCost, Integer totalMortality, BigDecimal totalRevenue,
+                       Long stockItemId, String stockItemName, String feedType,
+                       BigDecimal totalQuantity, BigDecimal unitPrice, BigDecimal subtotal)
+            implements BatchCostBreakdownRow {
+
+        Row feedLine(Long itemId, String itemName, String type, BigDecimal quantity, BigDecimal price) {
+            return new Row(batch, medicationCost, totalMortality, totalRevenue,
+                    itemId, itemName, type, quantity, price, quantity.multiply(price));
+        }
+
+        public Long getBatchId() { return batch.id(); }
+        public String getBatchNumber() { return batch.batchNumber(); }
+        public String getStrain() { return batch.strain(); }
+        public LocalDate getArrivalDate() { return batch.arrivalDate(); }
+        public String getStatus() { return batch.status().name(); }
+        public Integer getChickenCount() { return batch.chickenCount(); }
+        public BigDecimal getPurchasePrice() { return batch.purchasePrice(); }
+        public BigDecimal getMedicationCost() { return medicationCost; }
+        public Integer getTotalMortality() { return totalMortality; }
+        public BigDecimal getTotalRevenue() { return totalRevenue; }
+        public Long getStockItemId() { return stockItemId; }
+        public String getStockItemName() { return stockItemName; }
+        public String getFeedType() { return feedType; }
+        public BigDecimal getTotalQuantity() { return totalQuantity; }
+        public BigDecimal getUnitPrice() { return unitPrice; }
+        public BigDecimal getSubtotal() { return subtotal; }
     }
 }
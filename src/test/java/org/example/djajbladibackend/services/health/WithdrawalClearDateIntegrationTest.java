@@ -0,0 +1,115 @@
+package org.example.djajbladibackend.services.health;
+
+import jakarta.persistence.EntityManager;
+import org.example.djajbladibackend.dto.health.HealthRecordCreateRequest;
+import org.example.djajbladibackend.exception.WithdrawalPeriodActiveException;
+import org.example.djajbladibackend.models.*;
+import org.example.djajbladibackend.models.enums.RoleEnum;
+import org.example.djajbladibackend.services.batch.BatchService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.example.djajbladibackend.support.TestData.*;
+
+/**
+ * Integration test: batches.withdrawal_clear_date follows health record creation and rejection,
+ * and the reconciliation job repairs a batch that drifted from health_records.
+ */
+@SpringBootTest
+@ActiveProfiles("ci")
+@Transactional
+@DisplayName("Withdrawal clear date")
+class WithdrawalClearDateIntegrationTest {
+
+    @Autowired
+    private HealthRecordService healthRecordService;
+
+    @Autowired
+    private WithdrawalClearDateService withdrawalClearDateService;
+
+    @Autowired
+    private BatchService batchService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    @DisplayName("la date de fin de retrait suit la creation et le rejet des rapports de sante")
+    void clearDate_followsCreateAndReject() {
+        LocalDate today = LocalDate.now();
+        User admin = persist(entityManager, user("admin-withdrawal@djajbladi.com", RoleEnum.Admin).build());
+        User vet = persist(entityManager, user("vet-withdrawal@djajbladi.com", RoleEnum.Veterinaire).build());
+        Batch batch = persist(entityManager, activeBatch("WD-IT-1", admin).arrivalDate(LocalDate.now().minusDays(30))
+                .build());
+        entityManager.flush();
+
+        healthRecordService.create(treatment(batch, today.minusDays(2), 10, false), vet.getEmail());
+        healthRecordService.create(treatment(batch, today.minusDays(1), 30, true), vet.getEmail());
+        Long pendingId = healthRecordService.findPendingApproval().stream()
+                .filter(r -> r.getBatchId().equals(batch.getId()))
+                .findFirst().orElseThrow().getId();
+        entityManager.clear();
+        // un rapport en attente d'approbation bloque deja la vente
+        assertThat(clearDateOf(batch)).isEqualTo(today.plusDays(29));
+        assertThatThrownBy(() -> batchService.validateStatusTransition(batch.getId(), BatchStatus.READY_FOR_SALE))
+                .isInstanceOf(WithdrawalPeriodActiveException.class);
+
+        healthRecordService.reject(pendingId, admin.getEmail());
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThat(clearDateOf(batch)).isEqualTo(today.plusDays(8));
+        assertThat(batchService.isBatchSellable(batch.getId())).isFalse();
+    }
+
+    @Test
+    @DisplayName("la reconciliation corrige un lot desynchronise ; vaccins et retraits echus n'empechent pas la vente")
+    void reconcile_repairsDriftedBatch() {
+        LocalDate today = LocalDate.now();
+        User admin = persist(entityManager, user("admin-withdrawal-rec@djajbladi.com", RoleEnum.Admin).build());
+        User vet = persist(entityManager, user("vet-withdrawal-rec@djajbladi.com", RoleEnum.Veterinaire).build());
+        Batch batch = persist(entityManager, activeBatch("WD-IT-2", admin).arrivalDate(LocalDate.now().minusDays(30))
+                .build());
+        entityManager.flush();
+        healthRecordService.create(treatment(batch, today.minusDays(10), 7, false), vet.getEmail());
+        HealthRecordCreateRequest vaccine = treatment(batch, today, 21, false);
+        vaccine.setIsVaccination(true);
+        healthRecordService.create(vaccine, vet.getEmail());
+        entityManager.clear();
+        assertThat(clearDateOf(batch)).isEqualTo(today.minusDays(3));
+        assertThat(batchService.isBatchSellable(batch.getId())).isTrue();
+
+        entityManager.createNativeQuery("UPDATE batches SET withdrawal_clear_date = :d WHERE id = :id")
+                .setParameter("d", today.plusDays(60))
+                .setParameter("id", batch.getId())
+                .executeUpdate();
+        assertThat(withdrawalClearDateService.reconcile()).isGreaterThanOrEqualTo(1);
+        entityManager.clear();
+
+        assertThat(clearDateOf(batch)).isEqualTo(today.minusDays(3));
+    }
+
+    private LocalDate clearDateOf(Batch batch) {
+        return entityManager.find(Batch.class, batch.getId()).getWithdrawalClearDate();
+    }
+
+    private HealthRecordCreateRequest treatment(Batch batch, LocalDate examinationDate, int withdrawalDays,
+                                                boolean diseaseReported) {
+        HealthRecordCreateRequest req = new HealthRecordCreateRequest();
+        req.setBatchId(batch.getId());
+        req.setDiagnosis("Coccidiose");
+        req.setTreatment("Amprolium");
+        req.setExaminationDate(examinationDate);
+        req.setWithdrawalDays(withdrawalDays);
+        req.setIsDiseaseReported(diseaseReported);
+        return req;
+    }
+}
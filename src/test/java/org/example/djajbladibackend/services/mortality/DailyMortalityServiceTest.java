@@ -11,6 +11,9 @@ import org.example.djajbladibackend.models.enums.RoleEnum;
 import org.example.djajbladibackend.repository.BatchRepository;
 import org.example.djajbladibackend.repository.DailyMortalityRecordRepository;
 import org.example.djajbladibackend.repository.auth.UserRepository;
+import org.example.djajbladibackend.services.client.FlashSaleService;
+import org.example.djajbladibackend.services.financial.BatchCostService;
+import org.example.djajbladibackend.services.rollup.BatchDailyRollupService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -39,6 +42,15 @@ class DailyMortalityServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private BatchDailyRollupService rollupService;
+
+    @Mock
+    private BatchCostService batchCostService;
+
+    @Mock
+    private FlashSaleService flashSaleService;
+
     @InjectMocks
     private DailyMortalityService service;
 
@@ -0,0 +1,183 @@
+package org.example.djajbladibackend.services.rollup;
+
+import jakarta.persistence.EntityManager;
+import org.assertj.core.groups.Tuple;
+import org.example.djajbladibackend.dto.dashboard.SupervisionDashboardResponse;
+import org.example.djajbladibackend.dto.feeding.FeedingRecordRequest;
+import org.example.djajbladibackend.dto.mortality.DailyMortalityRequest;
+import org.example.djajbladibackend.dto.mortality.DailyMortalityResponse;
+import org.example.djajbladibackend.models.Batch;
+import org.example.djajbladibackend.models.BatchDailyRollup;
+import org.example.djajbladibackend.models.StockItem;
+import org.example.djajbladibackend.models.User;
+import org.example.djajbladibackend.models.enums.RoleEnum;
+import org.example.djajbladibackend.repository.BatchDailyRollupRepository;
+import org.example.djajbladibackend.services.dashboard.SupervisionDashboardService;
+import org.example.djajbladibackend.services.fcr.StrainWeightCurveService;
+import org.example.djajbladibackend.services.feeding.FeedingRecordService;
+import org.example.djajbladibackend.services.mortality.DailyMortalityService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.example.djajbladibackend.support.TestData.*;
+
+/**
+ * Integration test: batch_daily_rollup write serialization, agreement of incremental writes with rebuildAll(),
+ * and the cumulative figures the dashboard reads from it.
+ */
+@SpringBootTest
+@ActiveProfiles("ci")
+@Transactional
+@DisplayName("batch_daily_rollup maintenance")
+class BatchDailyRollupIntegrationTest {
+
+    @Autowired
+    private BatchDailyRollupRepository rollupRepository;
+
+    @Autowired
+    private BatchDailyRollupService rollupService;
+
+    @Autowired
+    private FeedingRecordService feedingService;
+
+    @Autowired
+    private DailyMortalityService mortalityService;
+
+    @Autowired
+    private SupervisionDashboardService dashboardService;
+
+    @Autowired
+    private StrainWeightCurveService weightCurveService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    @DisplayName("le verrou par lot accepte les ids au-dela de 2^31")
+    void lockBatch_acceptsBigintIds() {
+        assertThat(rollupRepository.lockBatch(3_000_000_000L)).isEqualTo(1);
+        assertThat(rollupRepository.lockBatch(Long.MAX_VALUE)).isEqualTo(1);
+    }
+
+    /**
+     * Les cumuls couvrent tout l'historique du lot : une mortalite anterieure a la plage demandee
+     * reduit l'effectif vivant utilise pour le FCR cumule (avant le rollup, seule la mortalite de la plage comptait).
+     */
+    @Test
+    @DisplayName("une plage commencant apres le premier releve de mortalite compte la mortalite anterieure")
+    void dashboardRange_countsMortalityRecordedBeforeRange() {
+        LocalDate today = LocalDate.now();
+        LocalDate before = today.minusDays(10);
+        LocalDate inRange = today.minusDays(2);
+        User worker = persist(entityManager, user("ouvrier-rollup-range@djajbladi.com", RoleEnum.Ouvrier).build());
+        Batch batch = persist(entityManager, activeBatch("ROLLUP-IT-1", worker)
+                .chickenCount(1000).currentCount(1000).build());
+        persist(entityManager, feeding(batch, worker, 100, before).build());
+        persist(entityManager, mortality(batch, worker, 300, before).build());
+        persist(entityManager, feeding(batch, worker, 50, inRange).build());
+        persist(entityManager, mortality(batch, worker, 5, inRange).build());
+        entityManager.flush();
+
+        rollupService.recordFeeding(batch.getId(), before, BigDecimal.valueOf(100), worker.getId());
+        rollupService.recordMortality(batch.getId(), before, 300, worker.getId());
+        rollupService.recordFeeding(batch.getId(), inRange, BigDecimal.valueOf(50), worker.getId());
+        rollupService.recordMortality(batch.getId(), inRange, 5, worker.getId());
+        entityManager.clear();
+
+        int ageInDays = (int) (inRange.toEpochDay() - batch.getArrivalDate().toEpochDay()) + 1;
+        BigDecimal liveMassKg = weightCurveService.getEstimatedWeightKg(batch.getStrain(), ageInDays)
+                .multiply(BigDecimal.valueOf(1000 - 305));
+        BigDecimal expectedFcr = BigDecimal.valueOf(150).divide(liveMassKg, 3, RoundingMode.HALF_UP);
+
+        SupervisionDashboardResponse.BatchDailySummary incremental = summaryOn(batch, inRange);
+        assertThat(incremental.getMortalityCount()).isEqualTo(5);
+        assertThat(incremental.getCumulativeFeedKg()).isEqualByComparingTo("150");
+        assertThat(incremental.getCumulativeFcr()).isEqualByComparingTo(expectedFcr);
+
+        rollupService.rebuildAll();
+        entityManager.clear();
+        assertThat(summaryOn(batch, inRange).getCumulativeFcr()).isEqualByComparingTo(expectedFcr);
+    }
+
+    /**
+     * Les ecritures incrementales (saisie, correction de mortalite deplacee ou modifiee le meme jour)
+     * laissent les memes lignes que la reconstruction depuis les releves.
+     */
+    @Test
+    @DisplayName("les ecritures des services donnent les memes lignes que rebuildAll()")
+    void serviceWrites_matchRebuild() {
+        LocalDate today = LocalDate.now();
+        User worker = persist(entityManager, user("ouvrier-rollup-rebuild@djajbladi.com", RoleEnum.Ouvrier).build());
+        Batch batch = persist(entityManager, activeBatch("ROLLUP-IT-2", worker).build());
+        StockItem stock = persist(entityManager, feedStock("Aliment rollup IT").build());
+        entityManager.flush();
+
+        feedingService.create(feedingRequest(batch, stock, 100, today.minusDays(3)), worker.getEmail());
+        feedingService.create(feedingRequest(batch, stock, 60, today.minusDays(2)), worker.getEmail());
+        feedingService.create(feedingRequest(batch, stock, 40, today.minusDays(2)), worker.getEmail());
+        DailyMortalityResponse moved = mortalityService.record(
+                mortalityRequest(batch, 20, today.minusDays(3)), worker.getEmail());
+        DailyMortalityResponse corrected = mortalityService.record(
+                mortalityRequest(batch, 10, today.minusDays(2)), worker.getEmail());
+        mortalityService.update(moved.getId(), mortalityRequest(batch, 25, today.minusDays(1)), worker.getEmail());
+        mortalityService.update(corrected.getId(), mortalityRequest(batch, 12, today.minusDays(2)), worker.getEmail());
+        entityManager.flush();
+        entityManager.clear();
+
+        List<Tuple> incremental = rowsOf(batch);
+        assertThat(incremental).containsExactly(
+                tuple(today.minusDays(3), new BigDecimal("100.00"), 0, new BigDecimal("100.00"), 0, 1, worker.getId()),
+                tuple(today.minusDays(2), new BigDecimal("100.00"), 12, new BigDecimal("200.00"), 12, 3, worker.getId()),
+                tuple(today.minusDays(1), new BigDecimal("0.00"), 25, new BigDecimal("200.00"), 37, 1, worker.getId()));
+
+        rollupService.rebuildAll();
+        entityManager.clear();
+        assertThat(rowsOf(batch)).isEqualTo(incremental);
+    }
+
+    private List<Tuple> rowsOf(Batch batch) {
+        return rollupRepository.findAll().stream()
+                .filter(r -> r.getBatch().getId().equals(batch.getId()))
+                .sorted(Comparator.comparing(BatchDailyRollup::getRollupDate))
+                .map(r -> tuple(r.getRollupDate(), r.getFeedKg(), r.getMortalityCount(), r.getCumulativeFeedKg(),
+                        r.getCumulativeMortality(), r.getEntryCount(), r.getRecordedBy().getId()))
+                .toList();
+    }
+
+    private static FeedingRecordRequest feedingRequest(Batch batch, StockItem stock, int quantityKg, LocalDate day) {
+        FeedingRecordRequest req = new FeedingRecordRequest();
+        req.setBatchId(batch.getId());
+        req.setStockItemId(stock.getId());
+        req.setFeedType("Croissance");
+        req.setQuantity(BigDecimal.valueOf(quantityKg));
+        req.setFeedingDate(day);
+        return req;
+    }
+
+    private static DailyMortalityRequest mortalityRequest(Batch batch, int count, LocalDate day) {
+        DailyMortalityRequest req = new DailyMortalityRequest();
+        req.setBatchId(batch.getId());
+        req.setMortalityCount(count);
+        req.setRecordDate(day);
+        return req;
+    }
+
+    private SupervisionDashboardResponse.BatchDailySummary summaryOn(Batch batch, LocalDate day) {
+        return dashboardService.computeDashboard(day.minusDays(1), LocalDate.now()).getBatchSummaries().stream()
+                .filter(s -> s.getBatchId().equals(batch.getId()) && s.getDate().equals(day))
+                .findFirst()
+                .orElseThrow();
+    }
+}
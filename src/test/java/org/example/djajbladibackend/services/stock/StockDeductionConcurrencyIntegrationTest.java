@@ -0,0 +1,90 @@
+package org.example.djajbladibackend.services.stock;
+
+import org.example.djajbladibackend.exception.InsufficientStockException;
+import org.example.djajbladibackend.models.StockMovementType;
+import org.example.djajbladibackend.repository.StockItemRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.example.djajbladibackend.support.TestData.*;
+
+/**
+ * Integration test: concurrent deductions on one hot stock item through the conditional UPDATE.
+ * Not @Transactional: every deduction commits in its own transaction, as in production.
+ */
+@SpringBootTest
+@ActiveProfiles("ci")
+@DisplayName("Stock deduction under contention")
+class StockDeductionConcurrencyIntegrationTest {
+
+    private static final int THREADS = 32;
+    private static final int DEDUCTIONS_PER_THREAD = 10;
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private StockItemRepository stockItemRepository;
+
+    private Long itemId;
+
+    @AfterEach
+    void cleanUp() {
+        if (itemId != null) {
+            stockItemRepository.deleteById(itemId);
+        }
+    }
+
+    @Test
+    @DisplayName("les deductions concurrentes ne vendent jamais plus que le stock, sans perte de mise a jour")
+    void concurrentDeductions_neverOversellAndNeverLoseUpdates() throws Exception {
+        int stock = 200;
+        itemId = stockItemRepository.save(feedStock("Silo concurrence").quantity(BigDecimal.valueOf(stock)).build())
+                .getId();
+
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < DEDUCTIONS_PER_THREAD; i++) {
+                    try {
+                        stockService.deductQuantity(itemId, BigDecimal.ONE, StockMovementType.TREATMENT, null, null);
+                        succeeded.incrementAndGet();
+                    } catch (InsufficientStockException e) {
+                        rejected.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertThat(succeeded.get()).isEqualTo(stock);
+        assertThat(rejected.get()).isEqualTo(THREADS * DEDUCTIONS_PER_THREAD - stock);
+        assertThat(stockItemRepository.findQuantityById(itemId)).hasValueSatisfying(
+                remaining -> assertThat(remaining).isEqualByComparingTo(BigDecimal.ZERO));
+    }
+}
@@ -0,0 +1,160 @@
+package org.example.djajbladibackend.services.stock;
+
+import jakarta.persistence.EntityManager;
+import org.example.djajbladibackend.dto.feeding.FeedingRecordRequest;
+import org.example.djajbladibackend.dto.stock.StockBalanceResponse;
+import org.example.djajbladibackend.dto.stock.StockConsumptionResponse;
+import org.example.djajbladibackend.dto.stock.StockItemCreateRequest;
+import org.example.djajbladibackend.models.*;
+import org.example.djajbladibackend.models.enums.RoleEnum;
+import org.example.djajbladibackend.services.feeding.FeedingRecordService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.example.djajbladibackend.support.TestData.*;
+
+/**
+ * Integration test: every stock change appends to the ledger, and ledger balances
+ * (snapshot + later movements) match stock_items.quantity.
+ */
+@SpringBootTest
+@ActiveProfiles("ci")
+@Transactional
+@DisplayName("Stock ledger")
+class StockLedgerIntegrationTest {
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private StockLedgerService ledgerService;
+
+    @Autowired
+    private FeedingRecordService feedingService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    @DisplayName("le solde du journal suit les entrees et consommations, avant et apres instantane")
+    void ledgerBalance_matchesStockQuantityAcrossSnapshots() {
+        User admin = persist(entityManager, user("admin-ledger@djajbladi.com", RoleEnum.Admin).build());
+        User ouvrier = persist(entityManager, user("ouvrier-ledger@djajbladi.com", RoleEnum.Ouvrier).build());
+        Batch batch = persist(entityManager, activeBatch("LEDGER-IT-1", ouvrier).build());
+        entityManager.flush();
+        Long itemId = stockService.add(stockRequest("Demarrage LEDGER", 1000), admin.getEmail()).getId();
+
+        feedingService.create(feeding(batch, itemId, 100), ouvrier.getEmail());
+        feedingService.create(feeding(batch, itemId, 50), ouvrier.getEmail());
+        assertThat(ledgerService.getBalance(itemId).getBalance()).isEqualByComparingTo("850");
+
+        assertThat(ledgerService.takeSnapshots()).isGreaterThanOrEqualTo(1);
+        feedingService.create(feeding(batch, itemId, 25), ouvrier.getEmail());
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThat(ledgerService.getBalance(itemId).getBalance()).isEqualByComparingTo("825");
+        assertThat(stockService.findById(itemId).getQuantity()).isEqualByComparingTo("825");
+        Number snapshots = (Number) entityManager.createNativeQuery(
+                        "SELECT COUNT(*) FROM stock_balance_snapshots WHERE stock_item_id = :id")
+                .setParameter("id", itemId)
+                .getSingleResult();
+        assertThat(snapshots.intValue()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("un mouvement d'id inferieur valide apres l'instantane reste compte (ids alloues par blocs)")
+    void lowerIdMovementCommittedAfterSnapshot_isStillCounted() {
+        User admin = persist(entityManager, user("admin-ledger-late@djajbladi.com", RoleEnum.Admin).build());
+        User ouvrier = persist(entityManager, user("ouvrier-ledger-late@djajbladi.com", RoleEnum.Ouvrier).build());
+        Batch batch = persist(entityManager, activeBatch("LEDGER-IT-4", ouvrier).build());
+        entityManager.flush();
+        Long itemId = stockService.add(stockRequest("Finition LEDGER", 600), admin.getEmail()).getId();
+        feedingService.create(feeding(batch, itemId, 100), ouvrier.getEmail());
+        ledgerService.takeSnapshots();
+
+        // Instance qui detient encore un ancien bloc d'ids : son mouvement arrive sous le dernier instantane
+        entityManager.createNativeQuery(
+                        "INSERT INTO stock_movements " +
+                        "    (id, stock_item_id, movement_type, quantity_delta, batch_id, occurred_at) " +
+                        "SELECT MIN(id) - 1, :itemId, 'FEEDING', -40, :batchId, CURRENT_TIMESTAMP FROM stock_movements")
+                .setParameter("itemId", itemId)
+                .setParameter("batchId", batch.getId())
+                .executeUpdate();
+        entityManager.createNativeQuery("UPDATE stock_items SET quantity = quantity - 40 WHERE id = :itemId")
+                .setParameter("itemId", itemId)
+                .executeUpdate();
+        entityManager.clear();
+
+        BigDecimal quantity = stockService.findById(itemId).getQuantity();
+        assertThat(quantity).isEqualByComparingTo("460");
+        assertThat(ledgerService.getBalance(itemId).getBalance()).isEqualByComparingTo(quantity);
+        assertThat(ledgerService.getInventoryAt(LocalDate.now())).filteredOn(b -> b.getStockItemId().equals(itemId))
+                .singleElement().extracting(StockBalanceResponse::getBalance)
+                .satisfies(balance -> assertThat(balance).isEqualByComparingTo(quantity));
+
+        ledgerService.takeSnapshots();
+        assertThat(ledgerService.getBalance(itemId).getBalance()).isEqualByComparingTo(quantity);
+        assertThat(ledgerService.getInventoryAt(LocalDate.now())).filteredOn(b -> b.getStockItemId().equals(itemId))
+                .singleElement().extracting(StockBalanceResponse::getBalance)
+                .satisfies(balance -> assertThat(balance).isEqualByComparingTo(quantity));
+    }
+
+    @Test
+    @DisplayName("inventaire a date et consommation par lot sont lus depuis le journal")
+    void inventoryAndBatchConsumption_fromLedger() {
+        User admin = persist(entityManager, user("admin-ledger-inv@djajbladi.com", RoleEnum.Admin).build());
+        User ouvrier = persist(entityManager, user("ouvrier-ledger-inv@djajbladi.com", RoleEnum.Ouvrier).build());
+        Batch batch = persist(entityManager, activeBatch("LEDGER-IT-2", ouvrier).build());
+        Batch other = persist(entityManager, activeBatch("LEDGER-IT-3", ouvrier).build());
+        entityManager.flush();
+        Long itemId = stockService.add(stockRequest("Croissance LEDGER", 500), admin.getEmail()).getId();
+
+        feedingService.create(feeding(batch, itemId, 40), ouvrier.getEmail());
+        feedingService.create(feeding(batch, itemId, 60), ouvrier.getEmail());
+        feedingService.create(feeding(other, itemId, 30), ouvrier.getEmail());
+
+        List<StockConsumptionResponse> consumption = ledgerService.getConsumptionByBatch(batch.getId());
+        assertThat(consumption).singleElement().satisfies(c -> {
+            assertThat(c.getStockItemId()).isEqualTo(itemId);
+            assertThat(c.getMovementType()).isEqualTo(StockMovementType.FEEDING);
+            assertThat(c.getQuantity()).isEqualByComparingTo("100");
+        });
+
+        LocalDate today = LocalDate.now();
+        assertThat(ledgerService.getInventoryAt(today)).filteredOn(b -> b.getStockItemId().equals(itemId))
+                .singleElement().extracting(StockBalanceResponse::getBalance)
+                .satisfies(balance -> assertThat(balance).isEqualByComparingTo("370"));
+        assertThat(ledgerService.getInventoryAt(today.minusDays(1)))
+                .noneMatch(b -> b.getStockItemId().equals(itemId));
+    }
+
+    private StockItemCreateRequest stockRequest(String name, int quantity) {
+        StockItemCreateRequest req = new StockItemCreateRequest();
+        req.setType(StockType.FEED);
+        req.setName(name);
+        req.setQuantity(BigDecimal.valueOf(quantity));
+        req.setUnit("kg");
+        req.setUnitPrice(BigDecimal.valueOf(4));
+        return req;
+    }
+
+    private FeedingRecordRequest feeding(Batch batch, Long stockItemId, int quantity) {
+        FeedingRecordRequest req = new FeedingRecordRequest();
+        req.setBatchId(batch.getId());
+        req.setStockItemId(stockItemId);
+        req.setFeedType("Demarrage");
+        req.setQuantity(BigDecimal.valueOf(quantity));
+        req.setFeedingDate(LocalDate.now());
+        return req;
+    }
+}
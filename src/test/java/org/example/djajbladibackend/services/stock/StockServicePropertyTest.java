@@ -4,6 +4,7 @@ import net.jqwik.api.*;
 import net.jqwik.api.constraints.IntRange;
 import org.example.djajbladibackend.exception.InsufficientStockException;
 import org.example.djajbladibackend.models.StockItem;
+import org.example.djajbladibackend.models.StockMovementType;
 import org.example.djajbladibackend.models.StockType;
 import org.example.djajbladibackend.repository.StockItemRepository;
 import org.mockito.Mockito;
@@ -13,6 +14,8 @@ import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
 
 /**
@@ -24,7 +27,8 @@ class StockServicePropertyTest {
     private final StockItemRepository stockItemRepository = Mockito.mock(StockItemRepository.class);
     private final org.example.djajbladibackend.repository.auth.UserRepository userRepository =
             Mockito.mock(org.example.djajbladibackend.repository.auth.UserRepository.class);
-    private final StockService stockService = new StockService(stockItemRepository, userRepository);
+    private final StockLedgerService ledgerService = Mockito.mock(StockLedgerService.class);
+    private final StockService stockService = new StockService(stockItemRepository, userRepository, ledgerService);
 
     /**
      * Property 12: isAvailable returns false when requested > available.
@@ -104,9 +108,14 @@ class StockServicePropertyTest {
                 .stockType(StockType.FEED)
                 .build();
 
-        when(stockItemRepository.findByIdForUpdate(itemId)).thenReturn(Optional.of(item));
+        // conditional UPDATE matches no row: quantity < requested
+        when(stockItemRepository.deductIfAvailable(eq(itemId), eq(requestedQty), any())).thenReturn(0);
+        when(stockItemRepository.findById(itemId)).thenReturn(Optional.of(item));
+        when(stockItemRepository.findQuantityById(itemId)).thenReturn(Optional.of(availableQty));
 
-        assertThatThrownBy(() -> stockService.deductQuantity(itemId, requestedQty))
-                .isInstanceOf(InsufficientStockException.class);
+        assertThatThrownBy(() -> stockService.deductQuantity(itemId, requestedQty, StockMovementType.TREATMENT, null, null))
+                .isInstanceOf(InsufficientStockException.class)
+                .satisfies(e -> assertThat(((InsufficientStockException) e).getAvailable())
+                        .isEqualByComparingTo(availableQty));
     }
 }
@@ -0,0 +1,218 @@
+package org.example.djajbladibackend.services.vaccination;
+
+import jakarta.persistence.EntityManager;
+import org.example.djajbladibackend.dto.vaccination.VaccinationAlertResponse;
+import org.example.djajbladibackend.dto.vaccination.VaccinationProtocolRequest;
+import org.example.djajbladibackend.dto.vaccination.VaccinationScheduleResponse;
+import org.example.djajbladibackend.models.*;
+import org.example.djajbladibackend.models.enums.RoleEnum;
+import org.example.djajbladibackend.repository.BatchRepository;
+import org.example.djajbladibackend.repository.HealthRecordRepository;
+import org.example.djajbladibackend.repository.VaccinationProtocolRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.example.djajbladibackend.support.TestData.*;
+
+/**
+ * Integration test: alerts and schedules read from the vaccination_due calendar return exactly
+ * what the former per-batch / per-protocol Java path computed (kept below as the reference).
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("ci")
+@Transactional
+@DisplayName("Vaccination alerts: vaccination_due calendar vs per-batch Java path")
+class VaccinationAlertsIntegrationTest {
+
+    private static final String STRAIN = "Vac IT Strain";
+
+    @Autowired
+    private VaccinationProtocolService protocolService;
+
+    @Autowired
+    private BatchRepository batchRepository;
+
+    @Autowired
+    private VaccinationProtocolRepository protocolRepository;
+
+    @Autowired
+    private HealthRecordRepository healthRecordRepository;
+
+    @Autowired
+    private VaccinationDueService dueService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Set<Long> batchIds;
+
+    private Batch first;
+
+    @BeforeEach
+    void seed() {
+        LocalDate today = LocalDate.now();
+        User admin = persist(entityManager, user("admin-vac-it@djajbladi.com", RoleEnum.Admin).build());
+        User vet = persist(entityManager, user("vet-vac-it@djajbladi.com", RoleEnum.Veterinaire).build());
+        for (String vaccine : List.of("Marek", "Newcastle HB1", "Gumboro", "Bronchite IB", "Newcastle La Sota")) {
+            int day = switch (vaccine) {
+                case "Marek" -> 1;
+                case "Newcastle HB1" -> 7;
+                case "Gumboro" -> 14;
+                case "Bronchite IB" -> 21;
+                default -> 35;
+            };
+            entityManager.persist(VaccinationProtocol.builder()
+                    .strain(STRAIN).vaccineName(vaccine).dayOfLife(day).createdBy(admin).build());
+        }
+
+        first = persist(entityManager, activeBatch("VAC-IT-1", admin).arrivalDate(today.minusDays(30)).strain(STRAIN)
+                .build());
+        Batch second = persist(entityManager, activeBatch("VAC-IT-2", admin).arrivalDate(today.minusDays(10))
+                .strain(STRAIN).build());
+        Batch third = persist(entityManager, activeBatch("VAC-IT-3", admin).arrivalDate(today.minusDays(1))
+                .strain(STRAIN).build());
+        Batch completed = persist(entityManager, activeBatch("VAC-IT-4", admin).arrivalDate(today.minusDays(30))
+                .status(BatchStatus.Completed).strain(STRAIN).build());
+        batchIds = Set.of(first.getId(), second.getId(), third.getId());
+
+        // Casse differente : realise
+        persist(entityManager, healthRecord(first, vet, "Vaccination MAREK jour 1", today.minusDays(29))
+                .isVaccination(true).build());
+        persist(entityManager, healthRecord(first, vet, "Rappel newcastle hb1", today.minusDays(23))
+                .isVaccination(true).build());
+        // Mentionne le vaccin mais n'est pas un acte de vaccination : non realise
+        persist(entityManager, healthRecord(first, vet, "Suspicion Gumboro", today.minusDays(16)).build());
+        persist(entityManager, healthRecord(second, vet, "Marek", today.minusDays(9)).isVaccination(true).build());
+        // Autre lot : ne compte pas
+        persist(entityManager, healthRecord(completed, vet, "Gumboro", today.minusDays(16)).isVaccination(true)
+                .build());
+        entityManager.flush();
+        dueService.refreshAll();
+        entityManager.clear();
+    }
+
+    @Test
+    @DisplayName("getAlertsForToday = chemin Java, en une requete")
+    void alertsForToday_matchJavaPath() {
+        Statistics statistics = statistics();
+        statistics.clear();
+
+        List<VaccinationAlertResponse> alerts = protocolService.getAlertsForToday();
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(ours(alerts)).isNotEmpty()
+                .containsExactlyInAnyOrderElementsOf(ours(legacyAlerts(false)));
+    }
+
+    @Test
+    @DisplayName("getOverdueAlerts = chemin Java")
+    void overdueAlerts_matchJavaPath() {
+        List<VaccinationAlertResponse> alerts = protocolService.getOverdueAlerts();
+
+        assertThat(ours(alerts)).isNotEmpty()
+                .allMatch(VaccinationAlertResponse::getIsOverdue)
+                .containsExactlyInAnyOrderElementsOf(ours(legacyAlerts(true)));
+    }
+
+    @Test
+    @DisplayName("getScheduleForBatch = chemin Java")
+    void schedule_matchesJavaPath() {
+        var schedule = protocolService.getScheduleForBatch(first.getId());
+
+        assertThat(schedule).hasSize(5);
+        assertThat(schedule).usingRecursiveFieldByFieldElementComparator()
+                .containsExactlyElementsOf(legacySchedule(first.getId()));
+        assertThat(schedule).filteredOn(VaccinationScheduleResponse::getIsCompleted)
+                .extracting(VaccinationScheduleResponse::getVaccineName)
+                .containsExactly("Marek", "Newcastle HB1");
+    }
+
+    @Test
+    @DisplayName("un protocole cree met a jour le calendrier sans attendre le recalcul nocturne")
+    void protocolCreation_refreshesCalendar() {
+        protocolService.create(protocolRequest("Coccidiose", 2), "admin-vac-it@djajbladi.com");
+        entityManager.clear();
+
+        assertThat(ours(protocolService.getOverdueAlerts()))
+                .extracting(VaccinationAlertResponse::getVaccineName)
+                .contains("Coccidiose");
+        assertThat(ours(protocolService.getOverdueAlerts()))
+                .containsExactlyInAnyOrderElementsOf(ours(legacyAlerts(true)));
+    }
+
+    private VaccinationProtocolRequest protocolRequest(String vaccine, int dayOfLife) {
+        VaccinationProtocolRequest request = new VaccinationProtocolRequest();
+        request.setStrain(STRAIN);
+        request.setVaccineName(vaccine);
+        request.setDayOfLife(dayOfLife);
+        return request;
+    }
+
+    /** Former schedule: one completion query per protocol. */
+    private List<VaccinationScheduleResponse> legacySchedule(Long batchId) {
+        Batch batch = batchRepository.findById(batchId).orElseThrow();
+        return protocolRepository.findProtocolsByStrain(batch.getStrain()).stream().map(protocol -> {
+            var completed = healthRecordRepository.findVaccinationRecords(batchId, protocol.getVaccineName());
+            return VaccinationScheduleResponse.builder()
+                    .protocolId(protocol.getId())
+                    .vaccineName(protocol.getVaccineName())
+                    .dayOfLife(protocol.getDayOfLife())
+                    .dueDate(batch.getArrivalDate().plusDays(protocol.getDayOfLife()))
+                    .isCompleted(!completed.isEmpty())
+                    .completedHealthRecordId(completed.isEmpty() ? null : completed.get(0).getId())
+                    .completedDate(completed.isEmpty() ? null : completed.get(0).getExaminationDate())
+                    .build();
+        }).toList();
+    }
+
+    private List<VaccinationAlertResponse> ours(List<VaccinationAlertResponse> alerts) {
+        return alerts.stream().filter(a -> batchIds.contains(a.getBatchId())).collect(Collectors.toList());
+    }
+
+    /** Former implementation: one protocol query per batch, one completion query per batch x protocol. */
+    private List<VaccinationAlertResponse> legacyAlerts(boolean overdueOnly) {
+        LocalDate today = LocalDate.now();
+        List<VaccinationAlertResponse> result = new ArrayList<>();
+        for (Batch batch : batchRepository.findByStatusInWithRelations(List.of(BatchStatus.Active))) {
+            for (VaccinationProtocol protocol : protocolRepository.findProtocolsByStrain(batch.getStrain())) {
+                LocalDate dueDate = batch.getArrivalDate().plusDays(protocol.getDayOfLife());
+                long daysOverdue = today.toEpochDay() - dueDate.toEpochDay();
+                boolean isOverdue = daysOverdue > 0;
+                if (!healthRecordRepository.findVaccinationRecords(batch.getId(), protocol.getVaccineName()).isEmpty()
+                        || (overdueOnly && !isOverdue)
+                        || (!overdueOnly && dueDate.isAfter(today.plusDays(7)))) {
+                    continue;
+                }
+                result.add(VaccinationAlertResponse.builder()
+                        .batchId(batch.getId())
+                        .batchNumber(batch.getBatchNumber())
+                        .strain(batch.getStrain())
+                        .protocolId(protocol.getId())
+                        .vaccineName(protocol.getVaccineName())
+                        .dueDate(dueDate)
+                        .daysOverdue((int) Math.max(0L, daysOverdue))
+                        .isOverdue(isOverdue)
+                        .build());
+            }
+        }
+        return result;
+    }
+
+    private Statistics statistics() {
+        return entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+    }
+}
@@ -0,0 +1,119 @@
+package org.example.djajbladibackend.services.vaccination;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.djajbladibackend.dto.vaccination.VaccinationProtocolResponse;
+import org.example.djajbladibackend.repository.VaccinationProtocolRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("VaccinationProtocolCache Unit Tests")
+class VaccinationProtocolCacheTest {
+
+    @Mock
+    private VaccinationProtocolRepository protocolRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private VaccinationProtocolCache cache;
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private final Function<String, List<VaccinationProtocolResponse>> loader = strain -> {
+        loads.incrementAndGet();
+        return new ArrayList<>(List.of(protocol(strain, 7), protocol(strain, 14)));
+    };
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new VaccinationProtocolCache(protocolRepository, meterRegistry);
+        lenient().when(protocolRepository.fingerprint()).thenReturn("2|2026-01-01 00:00:00");
+    }
+
+    @Test
+    @DisplayName("get doit charger une seule fois par souche et compter hits/miss")
+    void get_shouldLoadOncePerStrainAndCountHitsAndMisses() {
+        List<VaccinationProtocolResponse> first = cache.get("Ross 308", loader);
+        List<VaccinationProtocolResponse> second = cache.get("Ross 308", loader);
+        cache.get("Cobb 500", loader);
+
+        assertThat(loads).hasValue(2);
+        assertThat(second).isSameAs(first);
+        assertThat(second).extracting(VaccinationProtocolResponse::getDayOfLife).containsExactly(7, 14);
+        assertThatThrownBy(() -> second.add(protocol("Ross 308", 21)))
+                .isInstanceOf(UnsupportedOperationException.class);
+        assertThat(count("hit")).isEqualTo(1.0);
+        assertThat(count("miss")).isEqualTo(2.0);
+    }
+
+    @Test
+    @DisplayName("invalidateAfterCommit hors transaction doit vider le cache immédiatement")
+    void invalidateAfterCommit_withoutTransaction_shouldInvalidateImmediately() {
+        cache.get("Ross 308", loader);
+
+        cache.invalidateAfterCommit();
+        cache.get("Ross 308", loader);
+
+        assertThat(loads).hasValue(2);
+        assertThat(count("miss")).isEqualTo(2.0);
+    }
+
+    @Test
+    @DisplayName("un chargement commencé avant une invalidation ne doit pas être publié")
+    void get_invalidatedDuringLoad_shouldNotPublishStaleList() {
+        cache.get("Ross 308", strain -> {
+            cache.invalidate();
+            return List.of(protocol(strain, 7));
+        });
+
+        cache.get("Ross 308", loader);
+
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("invalidateIfChanged doit vider le cache si l'empreinte a changé")
+    void invalidateIfChanged_fingerprintChanged_shouldInvalidate() {
+        cache.get("Ross 308", loader);
+        cache.invalidateIfChanged();
+        cache.get("Ross 308", loader);
+        assertThat(loads).hasValue(1);
+
+        when(protocolRepository.fingerprint()).thenReturn("3|2026-02-01 00:00:00");
+        cache.invalidateIfChanged();
+        cache.get("Ross 308", loader);
+
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("invalidateIfChanged ne doit pas interroger la base si le cache est vide")
+    void invalidateIfChanged_emptyCache_shouldNotQueryFingerprint() {
+        cache.invalidateIfChanged();
+
+        verify(protocolRepository, never()).fingerprint();
+    }
+
+    private double count(String result) {
+        return meterRegistry.get(VaccinationProtocolCache.METRIC_NAME).tag("result", result).counter().count();
+    }
+
+    private static VaccinationProtocolResponse protocol(String strain, int dayOfLife) {
+        return VaccinationProtocolResponse.builder()
+                .strain(strain)
+                .vaccineName("Vaccin J" + dayOfLife)
+                .dayOfLife(dayOfLife)
+                .build();
+    }
+}
@@ -1,5 +1,6 @@
 package org.example.djajbladibackend.services.vaccination;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import net.jqwik.api.*;
 import net.jqwik.api.constraints.IntRange;
 import net.jqwik.api.constraints.NotBlank;
@@ -7,7 +8,7 @@ import org.example.djajbladibackend.dto.vaccination.VaccinationProtocolRequest;
 import org.example.djajbladibackend.exception.DuplicateVaccinationProtocolException;
 import org.example.djajbladibackend.models.VaccinationProtocol;
 import org.example.djajbladibackend.repository.BatchRepository;
-import org.example.djajbladibackend.repository.HealthRecordRepository;
+import org.example.djajbladibackend.repository.VaccinationDueRepository;
 import org.example.djajbladibackend.repository.VaccinationProtocolRepository;
 import org.example.djajbladibackend.repository.auth.UserRepository;
 import org.mockito.Mockito;
@@ -30,11 +31,14 @@ class VaccinationProtocolServicePropertyTest {
     private final VaccinationProtocolRepository protocolRepository =
             Mockito.mock(VaccinationProtocolRepository.class);
     private final BatchRepository batchRepository = Mockito.mock(BatchRepository.class);
-    private final HealthRecordRepository healthRecordRepository = Mockito.mock(HealthRecordRepository.class);
+    private final VaccinationDueRepository dueRepository = Mockito.mock(VaccinationDueRepository.class);
+    private final VaccinationDueService dueService = Mockito.mock(VaccinationDueService.class);
     private final UserRepository userRepository = Mockito.mock(UserRepository.class);
+    private final VaccinationProtocolCache protocolCache =
+            new VaccinationProtocolCache(protocolRepository, new SimpleMeterRegistry());
 
     private final VaccinationProtocolService protocolService = new VaccinationProtocolService(
-            protocolRepository, batchRepository, healthRecordRepository, userRepository);
+            protocolRepository, batchRepository, dueRepository, dueService, protocolCache, userRepository);
 
     /**
      * Property 18: findByStrain returns only protocols matching the given strain.
@@ -49,7 +53,7 @@ class VaccinationProtocolServicePropertyTest {
                 VaccinationProtocol.builder()
                         .strain(strain).vaccineName("VaccineB").dayOfLife(14).build()
         );
-        when(protocolRepository.findByStrainOrderByDayOfLifeAsc(strain)).thenReturn(protocols);
+        when(protocolRepository.findProtocolsByStrain(strain)).thenReturn(protocols);
 
         var result = protocolService.findByStrain(strain);
 
@@ -64,7 +68,7 @@ class VaccinationProtocolServicePropertyTest {
     @Property
     @Label("Property 19: findByStrain returns empty list for unknown strain")
     void findByStrainReturnsEmptyForUnknownStrain(@ForAll @NotBlank String strain) {
-        when(protocolRepository.findByStrainOrderByDayOfLifeAsc(strain)).thenReturn(Collections.emptyList());
+        when(protocolRepository.findProtocolsByStrain(strain)).thenReturn(Collections.emptyList());
 
         var result = protocolService.findByStrain(strain);
 
@@ -0,0 +1,105 @@
+package org.example.djajbladibackend.support;
+
+import jakarta.persistence.EntityManager;
+import org.example.djajbladibackend.models.Batch;
+import org.example.djajbladibackend.models.BatchStatus;
+import org.example.djajbladibackend.models.DailyMortalityRecord;
+import org.example.djajbladibackend.models.FeedingRecord;
+import org.example.djajbladibackend.models.HealthRecord;
+import org.example.djajbladibackend.models.StockItem;
+import org.example.djajbladibackend.models.StockType;
+import org.example.djajbladibackend.models.User;
+import org.example.djajbladibackend.models.enums.RoleEnum;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Shared fixtures for integration tests: builders pre-filled with valid defaults (every NOT NULL column set),
+ * so a schema change is absorbed here instead of in each test class. Tests override what they assert on.
+ */
+public final class TestData {
+
+    public static final String STRAIN = "Ross 308";
+
+    private TestData() {
+    }
+
+    public static <T> T persist(EntityManager entityManager, T entity) {
+        entityManager.persist(entity);
+        return entity;
+    }
+
+    public static User.UserBuilder user(String email, RoleEnum role) {
+        return User.builder()
+                .fullName(role.name())
+                .email(email)
+                .passwordHash("hash")
+                .role(role);
+    }
+
+    /** Lot en elevage : 500 sujets, arrive il y a 20 jours. */
+    public static Batch.BatchBuilder activeBatch(String number, User owner) {
+        return Batch.builder()
+                .batchNumber(number)
+                .chickenCount(500)
+                .currentCount(500)
+                .arrivalDate(LocalDate.now().minusDays(20))
+                .strain(STRAIN)
+                .purchasePrice(BigDecimal.valueOf(3))
+                .status(BatchStatus.Active)
+                .createdBy(owner)
+                .assignedTo(owner);
+    }
+
+    /** Lot en vente : count sujets a 35 DH, minimum de commande 1. */
+    public static Batch.BatchBuilder batchForSale(String number, User owner, int count) {
+        return activeBatch(number, owner)
+                .chickenCount(count)
+                .currentCount(count)
+                .arrivalDate(LocalDate.now().minusDays(42))
+                .status(BatchStatus.READY_FOR_SALE)
+                .sellingPricePerUnit(BigDecimal.valueOf(35))
+                .minimumOrderQuantity(1);
+    }
+
+    /** Aliment en stock : 10 000 kg a 3,5 DH/kg. */
+    public static StockItem.StockItemBuilder feedStock(String name) {
+        return StockItem.builder()
+                .type(StockType.FEED)
+                .stockType(StockType.FEED)
+                .name(name)
+                .quantity(BigDecimal.valueOf(10000))
+                .unit("kg")
+                .unitPrice(BigDecimal.valueOf(3.5));
+    }
+
+    public static FeedingRecord.FeedingRecordBuilder feeding(Batch batch, User recordedBy, int quantityKg,
+                                                             LocalDate date) {
+        return FeedingRecord.builder()
+                .batch(batch)
+                .feedType("Croissance")
+                .quantity(BigDecimal.valueOf(quantityKg))
+                .feedingDate(date)
+                .recordedBy(recordedBy);
+    }
+
+    public static DailyMortalityRecord.DailyMortalityRecordBuilder mortality(Batch batch, User recordedBy, int count,
+                                                                             LocalDate date) {
+        return DailyMortalityRecord.builder()
+                .batch(batch)
+                .recordDate(date)
+                .mortalityCount(count)
+                .recordedBy(recordedBy);
+    }
+
+    public static HealthRecord.HealthRecordBuilder healthRecord(Batch batch, User veterinarian, String diagnosis,
+                                                                LocalDate examinationDate) {
+        return HealthRecord.builder()
+                .batch(batch)
+                .veterinarian(veterinarian)
+                .diagnosis(diagnosis)
+                .examinationDate(examinationDate)
+                .isVaccination(false);
+    }
+}